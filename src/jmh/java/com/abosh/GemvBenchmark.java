@@ -0,0 +1,88 @@
+package com.abosh;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * matrix-vector products: a batch of vectors multiplied through an n x n matrix as n x 1 matrices, one array at a
+ * time with multiplyVector, and all at once with multiplyVectors. every benchmark processes the whole batch, so the
+ * scores compare directly.
+ *
+ * @author Abosh Upadhyaya
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GemvBenchmark {
+    @Param({ "64", "512", "2048" })
+    public int size;
+
+    @Param({ "32" })
+    public int batch;
+
+    private Matrix matrix;
+    private Matrix[] columns;
+    private double[] xs;
+    private double[] ys;
+    private double[] x;
+    private double[] y;
+
+    @Setup
+    public void setUp() {
+        final Random random = new Random(42);
+        matrix = MatrixBenchmark.randomMatrix(size, size, random);
+        final Matrix vectors = MatrixBenchmark.randomMatrix(batch, size, random);
+        xs = vectors.getData();
+        ys = new double[batch * size];
+        x = new double[size];
+        y = new double[size];
+        columns = new Matrix[batch];
+        for (int i = 0; i < batch; i++)
+            columns[i] = new Matrix(xs, i * size, 1, size, 1);
+    }
+
+    @Benchmark
+    public Matrix columnMatrices() {
+        Matrix product = null;
+        for (final Matrix column : columns)
+            product = matrix.multiply(column);
+        return product;
+    }
+
+    @Benchmark
+    public double[] singleVectors() {
+        for (int i = 0; i < batch; i++) {
+            System.arraycopy(xs, i * size, x, 0, size);
+            matrix.multiplyVector(x, y);
+            System.arraycopy(y, 0, ys, i * size, size);
+        }
+        return ys;
+    }
+
+    @Benchmark
+    public double[] batchedVectors() {
+        matrix.multiplyVectors(xs, ys, batch);
+        return ys;
+    }
+
+    @Benchmark
+    public double[] transposedVectors() {
+        matrix.multiplyTransposedVectors(xs, ys, batch);
+        return ys;
+    }
+}
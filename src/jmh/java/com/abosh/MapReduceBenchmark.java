@@ -0,0 +1,87 @@
+package com.abosh;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * element-wise scaling and summing of an n x n matrix: by hand through getValue and setValue, with mapInPlace and
+ * reduce, with the sum fast path, and with the pool overloads.
+ *
+ * @author Abosh Upadhyaya
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapReduceBenchmark {
+    @Param({ "256", "2048" })
+    public int size;
+
+    private Matrix matrix;
+
+    @Setup
+    public void setUp() {
+        matrix = MatrixBenchmark.randomMatrix(size, size, new Random(42));
+    }
+
+    @Benchmark
+    public Matrix scaleByElement() {
+        for (int r = 0; r < size; r++) {
+            for (int c = 0; c < size; c++)
+                matrix.setValue(r, c, matrix.getValue(r, c) * 1.0000001);
+        }
+        return matrix;
+    }
+
+    @Benchmark
+    public Matrix scaleMapInPlace() {
+        matrix.mapInPlace(x -> x * 1.0000001);
+        return matrix;
+    }
+
+    @Benchmark
+    public Matrix scaleParallel() {
+        matrix.mapInPlace(x -> x * 1.0000001, ForkJoinPool.commonPool());
+        return matrix;
+    }
+
+    @Benchmark
+    public double sumByElement() {
+        double sum = 0;
+        for (int r = 0; r < size; r++) {
+            for (int c = 0; c < size; c++)
+                sum += matrix.getValue(r, c);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double sumReduce() {
+        return matrix.reduce(0, Double::sum);
+    }
+
+    @Benchmark
+    public double sumFastPath() {
+        return matrix.sum();
+    }
+
+    @Benchmark
+    public double sumParallel() {
+        return matrix.sum(ForkJoinPool.commonPool());
+    }
+}
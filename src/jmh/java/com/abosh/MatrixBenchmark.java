@@ -0,0 +1,161 @@
+package com.abosh;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * single-threaded benchmarks for every public Matrix operation. each operation runs on three shapes:
+ * <ul>
+ * <li>square: 512 x 512 operands</li>
+ * <li>tall: 8192 x 32 operands, multiplied by a 32 x 32 matrix</li>
+ * <li>tiny: 4 x 4 operands</li>
+ * </ul>
+ * run with {@code java -jar target/benchmarks.jar MatrixBenchmark -prof gc -rf json} to get throughput, ns/op and
+ * the allocation rate in one machine-readable report.
+ *
+ * the in-place benchmarks start every invocation from the same values, restored outside the timed region. for the
+ * tiny shape the restore is as long as the operation itself, so JMH's per-invocation timestamps weigh on the result.
+ *
+ * @author Abosh Upadhyaya
+ */
+@State(Scope.Thread)
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MatrixBenchmark {
+    @Param({ "square", "tall", "tiny" })
+    public String shape;
+
+    private Matrix left;
+    private Matrix right;
+    private Matrix multiplicand;
+    private Matrix initial;
+    private Matrix square;
+
+    @Setup
+    public void setUp() {
+        final int rows;
+        final int cols;
+        switch (shape) {
+            case "square":
+                rows = 512;
+                cols = 512;
+                break;
+            case "tall":
+                rows = 8192;
+                cols = 32;
+                break;
+            case "tiny":
+                rows = 4;
+                cols = 4;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown shape " + shape);
+        }
+        final Random random = new Random(42);
+        left = randomMatrix(rows, cols, random);
+        // same values as left, so equals() has to look at every element
+        right = new Matrix(left);
+        multiplicand = randomMatrix(cols, cols, random);
+        initial = randomMatrix(rows, cols, random);
+        square = new Matrix(cols, cols);
+    }
+
+    @Benchmark
+    public Matrix multiply() {
+        return left.multiply(multiplicand);
+    }
+
+    @Benchmark
+    public Matrix add() {
+        return left.add(right);
+    }
+
+    @Benchmark
+    public Matrix addInPlace(final Target target) {
+        target.matrix.addInPlace(left);
+        return target.matrix;
+    }
+
+    @Benchmark
+    public Matrix subtractInPlace(final Target target) {
+        target.matrix.subtractInPlace(left);
+        return target.matrix;
+    }
+
+    @Benchmark
+    public Matrix subtract() {
+        return left.subtract(right);
+    }
+
+    @Benchmark
+    public Matrix copy() {
+        return new Matrix(left);
+    }
+
+    @Benchmark
+    public Matrix gLoadIdentity() {
+        square.gLoadIdentity();
+        return square;
+    }
+
+    @Benchmark
+    public boolean equalsMatrix() {
+        return left.equals(right);
+    }
+
+    @Benchmark
+    public double[] getCol() {
+        return left.getCol(left.getCols() / 2);
+    }
+
+    @Benchmark
+    public String toStringMatrix() {
+        return left.toString();
+    }
+
+    /**
+     * the matrix an in-place benchmark writes to, reset to the same values before every invocation.
+     */
+    @State(Scope.Thread)
+    public static class Target {
+        Matrix matrix;
+
+        @Setup(Level.Invocation)
+        public void reset(final MatrixBenchmark benchmark) {
+            matrix = copyInto(benchmark.initial, matrix);
+        }
+    }
+
+    /**
+     * copies source into target, allocating target on the first call so the reset itself does not allocate.
+     */
+    static Matrix copyInto(final Matrix source, final Matrix target) {
+        final Matrix result = target == null ? new Matrix(source.getRows(), source.getCols()) : target;
+        System.arraycopy(source.getData(), 0, result.getData(), 0, source.getData().length);
+        return result;
+    }
+
+    static Matrix randomMatrix(final int rows, final int cols, final Random random) {
+        final Matrix m = new Matrix(rows, cols);
+        final double[] data = m.getData();
+        for (int i = 0; i < data.length; i++)
+            data[i] = random.nextDouble() - 0.5;
+        return m;
+    }
+}
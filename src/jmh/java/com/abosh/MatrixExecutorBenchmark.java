@@ -0,0 +1,96 @@
+package com.abosh;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * many request threads each needing a small product of one of a few shapes: the threads either multiply directly,
+ * all competing for the cores, or hand the product to a shared {@link MatrixExecutor} and wait for it. every
+ * benchmark runs the same jobs, so the scores compare directly.
+ *
+ * @author Abosh Upadhyaya
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MatrixExecutorBenchmark {
+    private static final int[] SIZES = { 16, 48, 96 };
+
+    @Param({ "64", "512" })
+    public int requestThreads;
+
+    @Param({ "2048" })
+    public int jobs;
+
+    private Matrix[] lefts;
+    private Matrix[] rights;
+    private ExecutorService requests;
+    private MatrixExecutor executor;
+
+    @Setup
+    public void setUp() {
+        final Random random = new Random(42);
+        lefts = new Matrix[SIZES.length];
+        rights = new Matrix[SIZES.length];
+        for (int i = 0; i < SIZES.length; i++) {
+            lefts[i] = MatrixBenchmark.randomMatrix(SIZES[i], SIZES[i], random);
+            rights[i] = MatrixBenchmark.randomMatrix(SIZES[i], SIZES[i], random);
+        }
+        requests = Executors.newFixedThreadPool(requestThreads);
+        executor = new MatrixExecutor();
+    }
+
+    @TearDown
+    public void tearDown() {
+        requests.shutdown();
+        executor.close();
+    }
+
+    @Benchmark
+    public Matrix direct() throws Exception {
+        final List<Future<Matrix>> futures = new ArrayList<>(jobs);
+        for (int i = 0; i < jobs; i++) {
+            final int shape = i % SIZES.length;
+            futures.add(requests.submit(() -> lefts[shape].multiply(rights[shape])));
+        }
+        return await(futures);
+    }
+
+    @Benchmark
+    public Matrix executor() throws Exception {
+        final List<Future<Matrix>> futures = new ArrayList<>(jobs);
+        for (int i = 0; i < jobs; i++) {
+            final int shape = i % SIZES.length;
+            futures.add(requests.submit(() -> executor.multiply(lefts[shape], rights[shape]).join()));
+        }
+        return await(futures);
+    }
+
+    private static Matrix await(final List<Future<Matrix>> futures) throws Exception {
+        Matrix last = null;
+        for (final Future<Matrix> future : futures)
+            last = future.get();
+        return last;
+    }
+}
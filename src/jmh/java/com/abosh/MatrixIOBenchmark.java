@@ -0,0 +1,84 @@
+package com.abosh;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.channels.Channels;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * throughput of the binary and CSV formats against the toString() path they replace. the reported time per operation
+ * divided into {@code size * size * 8} bytes gives the throughput in bytes per second of matrix data.
+ *
+ * @author Abosh Upadhyaya
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MatrixIOBenchmark {
+    @Param({ "64", "512" })
+    public int size;
+
+    private Matrix matrix;
+    private byte[] binary;
+    private String csv;
+    private ByteArrayOutputStream binaryOut;
+
+    @Setup
+    public void setUp() throws IOException {
+        matrix = MatrixBenchmark.randomMatrix(size, size, new Random(42));
+        binaryOut = new ByteArrayOutputStream(32 + size * size * 8);
+        MatrixIO.writeTo(matrix, Channels.newChannel(binaryOut));
+        binary = binaryOut.toByteArray();
+        final StringWriter writer = new StringWriter();
+        MatrixIO.writeCsv(matrix, writer);
+        csv = writer.toString();
+    }
+
+    @Benchmark
+    public String writeToString() {
+        return matrix.toString();
+    }
+
+    @Benchmark
+    public int writeBinary() throws IOException {
+        binaryOut.reset();
+        MatrixIO.writeTo(matrix, Channels.newChannel(binaryOut));
+        return binaryOut.size();
+    }
+
+    @Benchmark
+    public Matrix readBinary() throws IOException {
+        return MatrixIO.readFrom(Channels.newChannel(new ByteArrayInputStream(binary)));
+    }
+
+    @Benchmark
+    public StringWriter writeCsv() throws IOException {
+        final StringWriter writer = new StringWriter(csv.length());
+        MatrixIO.writeCsv(matrix, writer);
+        return writer;
+    }
+
+    @Benchmark
+    public Matrix readCsv() throws IOException {
+        return MatrixIO.readCsv(new StringReader(csv));
+    }
+}
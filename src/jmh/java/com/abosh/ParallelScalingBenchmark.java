@@ -0,0 +1,89 @@
+package com.abosh;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * scaling of the fork/join operations from one thread up. pass the thread counts of the machine under test with
+ * {@code -p threads=1,2,4,8,16,32}. the in-place benchmarks start every invocation from the same values, restored
+ * outside the timed region.
+ *
+ * @author Abosh Upadhyaya
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParallelScalingBenchmark {
+    @Param({ "1", "2", "4", "8" })
+    public int threads;
+
+    @Param({ "1024" })
+    public int size;
+
+    private ForkJoinPool pool;
+    private Matrix left;
+    private Matrix right;
+    private Matrix initial;
+
+    @Setup
+    public void setUp() {
+        pool = new ForkJoinPool(threads);
+        final Random random = new Random(42);
+        left = MatrixBenchmark.randomMatrix(size, size, random);
+        right = MatrixBenchmark.randomMatrix(size, size, random);
+        initial = MatrixBenchmark.randomMatrix(size, size, random);
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public Matrix multiply() {
+        return left.multiply(right, pool);
+    }
+
+    @Benchmark
+    public Matrix addInPlace(final Target target) {
+        target.matrix.addInPlace(left, pool);
+        return target.matrix;
+    }
+
+    @Benchmark
+    public Matrix subtractInPlace(final Target target) {
+        target.matrix.subtractInPlace(left, pool);
+        return target.matrix;
+    }
+
+    /**
+     * the matrix an in-place benchmark writes to, reset to the same values before every invocation.
+     */
+    @State(Scope.Benchmark)
+    public static class Target {
+        Matrix matrix;
+
+        @Setup(Level.Invocation)
+        public void reset(final ParallelScalingBenchmark benchmark) {
+            matrix = MatrixBenchmark.copyInto(benchmark.initial, matrix);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.abosh;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * square products through the classical blocked kernel and through Strassen-Winograd at several crossover sizes,
+ * sequentially and on the common pool. the crossover is the cutoff below which the recursion falls back to the
+ * classical kernel; its default comes from com.abosh.matrix.strassenCutoff.
+ *
+ * @author Abosh Upadhyaya
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StrassenBenchmark {
+    @Param({ "1024", "2048", "4096" })
+    public int size;
+
+    @Param({ "128", "256", "512" })
+    public int cutoff;
+
+    private Matrix left;
+    private Matrix right;
+    private Matrix product;
+
+    @Setup
+    public void setUp() {
+        final Random random = new Random(42);
+        left = MatrixBenchmark.randomMatrix(size, size, random);
+        right = MatrixBenchmark.randomMatrix(size, size, random);
+        product = new Matrix(size, size);
+    }
+
+    @Benchmark
+    public Matrix classical() {
+        return left.multiply(right);
+    }
+
+    @Benchmark
+    public Matrix strassen() {
+        StrassenKernels.multiply(size, size, size, left.getData(), 0, size, right.getData(), 0, size, product.getData(),
+            0, size, cutoff, null);
+        return product;
+    }
+
+    @Benchmark
+    public Matrix parallelStrassen() {
+        StrassenKernels.multiply(size, size, size, left.getData(), 0, size, right.getData(), 0, size, product.getData(),
+            0, size, cutoff, ForkJoinPool.commonPool());
+        return product;
+    }
+}
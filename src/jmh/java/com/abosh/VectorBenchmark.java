@@ -0,0 +1,101 @@
+package com.abosh;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * scalar against Vector API kernels for each vector width. the kernel selection happens once per JVM, so every width
+ * runs in its own fork. widths the hardware does not support are emulated by the JDK and will be much slower than the
+ * scalar loops; compare only the widths the machine under test provides natively.
+ *
+ * @author Abosh Upadhyaya
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class VectorBenchmark {
+    private static final String VECTOR_MODULE = "--add-modules=jdk.incubator.vector";
+
+    @Param({ "256" })
+    public int size;
+
+    private Matrix left;
+    private Matrix right;
+    private Matrix target;
+
+    @Setup
+    public void setUp() {
+        final Random random = new Random(42);
+        left = MatrixBenchmark.randomMatrix(size, size, random);
+        right = MatrixBenchmark.randomMatrix(size, size, random);
+        target = MatrixBenchmark.randomMatrix(size, size, random);
+    }
+
+    private Matrix addThenSubtract() {
+        target.addInPlace(left);
+        target.subtractInPlace(left);
+        return target;
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = "-Dcom.abosh.matrix.simd=false")
+    public Matrix addSubtractScalar() {
+        return addThenSubtract();
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = { VECTOR_MODULE, "-Dcom.abosh.matrix.simdBits=128" })
+    public Matrix addSubtract128() {
+        return addThenSubtract();
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = { VECTOR_MODULE, "-Dcom.abosh.matrix.simdBits=256" })
+    public Matrix addSubtract256() {
+        return addThenSubtract();
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = { VECTOR_MODULE, "-Dcom.abosh.matrix.simdBits=512" })
+    public Matrix addSubtract512() {
+        return addThenSubtract();
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = "-Dcom.abosh.matrix.simd=false")
+    public Matrix multiplyScalar() {
+        return left.multiply(right);
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = { VECTOR_MODULE, "-Dcom.abosh.matrix.simdBits=128" })
+    public Matrix multiply128() {
+        return left.multiply(right);
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = { VECTOR_MODULE, "-Dcom.abosh.matrix.simdBits=256" })
+    public Matrix multiply256() {
+        return left.multiply(right);
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = { VECTOR_MODULE, "-Dcom.abosh.matrix.simdBits=512" })
+    public Matrix multiply512() {
+        return left.multiply(right);
+    }
+}
@@ -0,0 +1,96 @@
+package com.abosh;
+
+import java.util.Arrays;
+
+/**
+ * the preconditioned conjugate gradient method for Ax = b with a symmetric positive definite A. every iteration costs
+ * one {@link LinearOperator#apply}, one preconditioner application and a few vector updates.
+ *
+ * @author Abosh Upadhyaya
+ */
+public class ConjugateGradient extends IterativeSolver {
+    private Preconditioner preconditioner;
+    // work vectors, kept between runs
+    private double[] r;
+    private double[] z;
+    private double[] p;
+    private double[] q;
+
+    public Preconditioner getPreconditioner() {
+        return preconditioner;
+    }
+
+    /**
+     * @param preconditioner symmetric positive definite preconditioner, or null for none
+     */
+    public void setPreconditioner(final Preconditioner preconditioner) {
+        this.preconditioner = preconditioner;
+    }
+
+    /**
+     * solves Ax = b. iteration stops when the residual is small enough, when the maximum number of iterations is
+     * reached, when the listener asks to stop, or when A turns out not to be positive definite.
+     *
+     * @param a symmetric positive definite operator
+     * @param b right-hand side
+     * @param x initial guess, overwritten with the solution
+     * @return how the run ended
+     */
+    public IterativeResult solve(final LinearOperator a, final double[] b, final double[] x) {
+        checkSystem(a, b);
+        checkSystem(a, x);
+        final int n = b.length;
+        if (r == null || r.length != n) {
+            r = new double[n];
+            z = new double[n];
+            p = new double[n];
+            q = new double[n];
+        }
+        final double bNorm = norm(b);
+        if (bNorm == 0) {
+            // the solution of Ax = 0 is x = 0 whatever the guess
+            Arrays.fill(x, 0);
+            return new IterativeResult(true, 0, 0, Double.NaN);
+        }
+        final double target = getTolerance() * bNorm;
+        // r = b - Ax
+        a.apply(x, q);
+        for (int i = 0; i < n; i++)
+            r[i] = b[i] - q[i];
+        double residual = norm(r);
+        if (residual <= target)
+            return new IterativeResult(residual <= target, 0, residual, Double.NaN);
+        precondition(r, z);
+        System.arraycopy(z, 0, p, 0, n);
+        double rz = dot(r, z);
+        for (int iteration = 1; iteration <= getMaxIterations(); iteration++) {
+            a.apply(p, q);
+            final double pq = dot(p, q);
+            if (!(pq > 0))
+                return new IterativeResult(false, iteration - 1, residual, Double.NaN);
+            final double alpha = rz / pq;
+            axpy(alpha, p, x);
+            axpy(-alpha, q, r);
+            residual = norm(r);
+            final boolean keepGoing = iterationDone(iteration, residual);
+            if (residual <= target)
+                return new IterativeResult(true, iteration, residual, Double.NaN);
+            if (!keepGoing)
+                return new IterativeResult(false, iteration, residual, Double.NaN);
+            precondition(r, z);
+            final double rzNext = dot(r, z);
+            final double beta = rzNext / rz;
+            rz = rzNext;
+            for (int i = 0; i < n; i++)
+                p[i] = z[i] + beta * p[i];
+        }
+        return new IterativeResult(false, getMaxIterations(), residual, Double.NaN);
+    }
+
+    private void precondition(final double[] residual, final double[] result) {
+        if (preconditioner == null)
+            System.arraycopy(residual, 0, result, 0, residual.length);
+        else
+            preconditioner.apply(residual, result);
+    }
+}
@@ -0,0 +1,262 @@
+package com.abosh;
+
+import java.util.Arrays;
+
+/**
+ * a sparse matrix in compressed sparse column (CSC) form. the non-zero values of column c are
+ * values[colPointers[c]] to values[colPointers[c + 1] - 1], and rowIndices holds their row indices in increasing
+ * order.
+ *
+ * the CSC arrays of a matrix are exactly the CSR arrays of its transpose, so the sparse x sparse operations are
+ * carried out by {@link CsrMatrix} on that transposed reading of the same arrays.
+ *
+ * @author Abosh Upadhyaya
+ */
+public class CscMatrix implements LinearOperator {
+    // private data fields
+    private final int rows;
+    private final int cols;
+    private final int[] colPointers;
+    private final int[] rowIndices;
+    private final double[] values;
+
+    /**
+     * wraps existing CSC arrays without copying them.
+     *
+     * @param rows        number of rows in matrix
+     * @param cols        number of columns in matrix
+     * @param colPointers cols + 1 offsets into rowIndices[] and values[]; the last one is the non-zero count
+     * @param rowIndices  row index of every stored value, increasing within each column
+     * @param values      stored values
+     */
+    public CscMatrix(final int rows, final int cols, final int[] colPointers, final int[] rowIndices,
+            final double[] values) {
+        this(rows, cols, colPointers, rowIndices, values, true);
+    }
+
+    /**
+     * wraps CSC arrays, optionally skipping the O(non-zeros) validation for arrays built by this package.
+     */
+    CscMatrix(final int rows, final int cols, final int[] colPointers, final int[] rowIndices,
+            final double[] values, final boolean validate) {
+        // the arrays are valid exactly when they form the CSR arrays of the transpose
+        if (validate)
+            CsrMatrix.validate(cols, rows, colPointers, rowIndices, values);
+        this.rows = rows;
+        this.cols = cols;
+        this.colPointers = colPointers;
+        this.rowIndices = rowIndices;
+        this.values = values;
+    }
+
+    /**
+     * compresses a dense matrix, keeping only its non-zero values.
+     *
+     * @param dense matrix to be compressed
+     */
+    public CscMatrix(final Matrix dense) {
+        this.rows = dense.getRows();
+        this.cols = dense.getCols();
+        final double[] data = dense.getData();
+        final int offset = dense.getOffset();
+        final int stride = dense.getLeadingDimension();
+        this.colPointers = new int[cols + 1];
+        for (int r = 0; r < rows; r++) {
+            final int row = offset + r * stride;
+            for (int c = 0; c < cols; c++) {
+                if (data[row + c] != 0.0)
+                    colPointers[c + 1]++;
+            }
+        }
+        for (int c = 0; c < cols; c++)
+            colPointers[c + 1] += colPointers[c];
+        this.rowIndices = new int[colPointers[cols]];
+        this.values = new double[colPointers[cols]];
+        // walking the rows in order fills every column's indices in increasing order
+        final int[] next = Arrays.copyOf(colPointers, cols);
+        for (int r = 0; r < rows; r++) {
+            final int row = offset + r * stride;
+            for (int c = 0; c < cols; c++) {
+                if (data[row + c] != 0.0) {
+                    rowIndices[next[c]] = r;
+                    values[next[c]++] = data[row + c];
+                }
+            }
+        }
+    }
+
+    /**
+     * expands this matrix into a dense matrix.
+     * @return a dense copy of this matrix
+     */
+    public Matrix toDense() {
+        final Matrix dense = new Matrix(rows, cols);
+        final double[] data = dense.getData();
+        for (int c = 0; c < cols; c++) {
+            for (int i = colPointers[c]; i < colPointers[c + 1]; i++)
+                data[rowIndices[i] * cols + c] = values[i];
+        }
+        return dense;
+    }
+
+    /**
+     * converts this matrix to compressed sparse row form in O(rows + cols + non-zeros) time.
+     * @return the same matrix in CSR form
+     */
+    public CsrMatrix toCsr() {
+        return transposedCsr().transpose();
+    }
+
+    /**
+     * returns a value at specified indices in the matrix. the lookup is a binary search within the column.
+     *
+     * @param r row index
+     * @param c column index
+     * @return a value in the matrix
+     */
+    public double getValue(final int r, final int c) {
+        return transposedCsr().getValue(c, r);
+    }
+
+    /**
+     * multiplies this sparse matrix by a dense matrix. every stored value scales one row of the multiplicand into the
+     * product, so the cost is O(non-zeros * multiplicand columns).
+     *
+     * @param multiplicand dense matrix to multiply this matrix by
+     * @return a new dense product
+     */
+    public Matrix multiply(final Matrix multiplicand) {
+        if (cols != multiplicand.getRows())
+            throw new IllegalArgumentException(
+                "The number of columns in this matrix must equal the number of rows in the multiplicand matrix.");
+        final int n = multiplicand.getCols();
+        final Matrix product = new Matrix(rows, n);
+        final double[] b = multiplicand.getData();
+        final int bOff = multiplicand.getOffset();
+        final int ldb = multiplicand.getLeadingDimension();
+        final double[] c = product.getData();
+        for (int p = 0; p < cols; p++) {
+            final int bRow = bOff + p * ldb;
+            for (int i = colPointers[p]; i < colPointers[p + 1]; i++) {
+                final double value = values[i];
+                final int cRow = rowIndices[i] * n;
+                for (int j = 0; j < n; j++)
+                    c[cRow + j] += value * b[bRow + j];
+            }
+        }
+        return product;
+    }
+
+    /**
+     * computes y = this * x by scattering each column, scaled by its element of x, into y, in O(non-zeros).
+     *
+     * @param x vector of length getCols()
+     * @param y vector of length getRows() to store the result in
+     */
+    @Override
+    public void apply(final double[] x, final double[] y) {
+        LinearOperator.checkApply(rows, cols, x, y);
+        Arrays.fill(y, 0);
+        for (int c = 0; c < cols; c++) {
+            final double xc = x[c];
+            for (int i = colPointers[c]; i < colPointers[c + 1]; i++)
+                y[rowIndices[i]] += values[i] * xc;
+        }
+    }
+
+    /**
+     * multiplies two sparse matrices. (this * multiplicand) in CSC form is (multiplicand^T * this^T) in CSR form, and
+     * both transposes are free reinterpretations of the existing arrays.
+     *
+     * @param multiplicand sparse matrix to multiply this matrix by
+     * @return a new sparse product
+     */
+    public CscMatrix multiply(final CscMatrix multiplicand) {
+        if (cols != multiplicand.rows)
+            throw new IllegalArgumentException(
+                "The number of columns in this matrix must equal the number of rows in the multiplicand matrix.");
+        return fromTransposedCsr(multiplicand.transposedCsr().multiply(transposedCsr()));
+    }
+
+    /**
+     * returns a summed matrix of an inputted sparse matrix with this matrix.
+     *
+     * @param addend matrix to be added to this matrix
+     * @return a new sparse sum
+     */
+    public CscMatrix add(final CscMatrix addend) {
+        checkDimensions(addend.rows, addend.cols);
+        return fromTransposedCsr(transposedCsr().add(addend.transposedCsr()));
+    }
+
+    /**
+     * returns a summed dense matrix of an inputted dense matrix with this matrix.
+     *
+     * @param addend matrix to be added to this matrix
+     * @return a new dense sum
+     */
+    public Matrix add(final Matrix addend) {
+        checkDimensions(addend.getRows(), addend.getCols());
+        final Matrix sum = new Matrix(addend);
+        final double[] data = sum.getData();
+        for (int c = 0; c < cols; c++) {
+            for (int i = colPointers[c]; i < colPointers[c + 1]; i++)
+                data[rowIndices[i] * cols + c] += values[i];
+        }
+        return sum;
+    }
+
+    private CsrMatrix transposedCsr() {
+        return new CsrMatrix(cols, rows, colPointers, rowIndices, values, false);
+    }
+
+    private static CscMatrix fromTransposedCsr(final CsrMatrix transpose) {
+        return new CscMatrix(transpose.getCols(), transpose.getRows(), transpose.getRowPointers(),
+            transpose.getColumnIndices(), transpose.getValues(), false);
+    }
+
+    private void checkDimensions(final int otherRows, final int otherCols) {
+        if (otherRows != rows || otherCols != cols)
+            throw new IllegalArgumentException(
+                String.format("Expected %d rows and %d columns. Received %d rows and %d columns.",
+                    rows, cols, otherRows, otherCols));
+    }
+
+    @Override
+    public int getRows() {
+        return rows;
+    }
+
+    @Override
+    public int getCols() {
+        return cols;
+    }
+
+    /**
+     * @return number of stored values
+     */
+    public int getNonZeros() {
+        return colPointers[cols];
+    }
+
+    /**
+     * @return the column pointer array backing this matrix
+     */
+    public int[] getColPointers() {
+        return colPointers;
+    }
+
+    /**
+     * @return the row index array backing this matrix
+     */
+    public int[] getRowIndices() {
+        return rowIndices;
+    }
+
+    /**
+     * @return the value array backing this matrix
+     */
+    public double[] getValues() {
+        return values;
+    }
+}
@@ -0,0 +1,365 @@
+package com.abosh;
+
+import java.util.Arrays;
+
+/**
+ * a sparse matrix in compressed sparse row (CSR) form. the non-zero values of row r are
+ * values[rowPointers[r]] to values[rowPointers[r + 1] - 1], and columnIndices holds their column indices in increasing
+ * order. memory use and the cost of every operation grow with the number of non-zero values, not with the
+ * dimensions.
+ *
+ * @author Abosh Upadhyaya
+ */
+public class CsrMatrix implements LinearOperator {
+    // private data fields
+    private final int rows;
+    private final int cols;
+    private final int[] rowPointers;
+    private final int[] columnIndices;
+    private final double[] values;
+
+    /**
+     * wraps existing CSR arrays without copying them.
+     *
+     * @param rows          number of rows in matrix
+     * @param cols          number of columns in matrix
+     * @param rowPointers   rows + 1 offsets into columnIndices[] and values[]; the last one is the non-zero count
+     * @param columnIndices column index of every stored value, increasing within each row
+     * @param values        stored values
+     */
+    public CsrMatrix(final int rows, final int cols, final int[] rowPointers, final int[] columnIndices,
+            final double[] values) {
+        this(rows, cols, rowPointers, columnIndices, values, true);
+    }
+
+    /**
+     * wraps CSR arrays, optionally skipping the O(non-zeros) validation for arrays built by this package.
+     */
+    CsrMatrix(final int rows, final int cols, final int[] rowPointers, final int[] columnIndices,
+            final double[] values, final boolean validate) {
+        if (validate)
+            validate(rows, cols, rowPointers, columnIndices, values);
+        this.rows = rows;
+        this.cols = cols;
+        this.rowPointers = rowPointers;
+        this.columnIndices = columnIndices;
+        this.values = values;
+    }
+
+    /**
+     * checks that the given arrays describe a well-formed CSR matrix.
+     */
+    static void validate(final int rows, final int cols, final int[] rowPointers, final int[] columnIndices,
+            final double[] values) {
+        if (rows < 0 || cols < 0)
+            throw new IllegalArgumentException("The number of rows and columns cannot be negative.");
+        if (rowPointers.length != rows + 1)
+            throw new IllegalArgumentException("There must be exactly one more row pointer than rows in the matrix.");
+        final int nonZeros = rowPointers[rows];
+        if (rowPointers[0] != 0 || columnIndices.length < nonZeros || values.length < nonZeros)
+            throw new IllegalArgumentException("The row pointers exceed the bounds of the index or value arrays.");
+        for (int r = 0; r < rows; r++) {
+            if (rowPointers[r] > rowPointers[r + 1])
+                throw new IllegalArgumentException("The row pointers must not decrease.");
+            // an interior pointer past the last one would otherwise walk off the index array below
+            if (rowPointers[r + 1] > nonZeros)
+                throw new IllegalArgumentException("The row pointers exceed the bounds of the index or value arrays.");
+            for (int i = rowPointers[r]; i < rowPointers[r + 1]; i++) {
+                if (columnIndices[i] < 0 || columnIndices[i] >= cols
+                        || (i > rowPointers[r] && columnIndices[i] <= columnIndices[i - 1]))
+                    throw new IllegalArgumentException(
+                        "The column indices of each row must be increasing and within the matrix's bounds.");
+            }
+        }
+    }
+
+    /**
+     * compresses a dense matrix, keeping only its non-zero values.
+     *
+     * @param dense matrix to be compressed
+     */
+    public CsrMatrix(final Matrix dense) {
+        this.rows = dense.getRows();
+        this.cols = dense.getCols();
+        final double[] data = dense.getData();
+        final int offset = dense.getOffset();
+        final int stride = dense.getLeadingDimension();
+        int nonZeros = 0;
+        for (int r = 0; r < rows; r++) {
+            final int row = offset + r * stride;
+            for (int c = 0; c < cols; c++) {
+                if (data[row + c] != 0.0)
+                    nonZeros++;
+            }
+        }
+        this.rowPointers = new int[rows + 1];
+        this.columnIndices = new int[nonZeros];
+        this.values = new double[nonZeros];
+        int i = 0;
+        for (int r = 0; r < rows; r++) {
+            final int row = offset + r * stride;
+            for (int c = 0; c < cols; c++) {
+                if (data[row + c] != 0.0) {
+                    columnIndices[i] = c;
+                    values[i++] = data[row + c];
+                }
+            }
+            rowPointers[r + 1] = i;
+        }
+    }
+
+    /**
+     * expands this matrix into a dense matrix.
+     * @return a dense copy of this matrix
+     */
+    public Matrix toDense() {
+        final Matrix dense = new Matrix(rows, cols);
+        final double[] data = dense.getData();
+        for (int r = 0; r < rows; r++) {
+            for (int i = rowPointers[r]; i < rowPointers[r + 1]; i++)
+                data[r * cols + columnIndices[i]] = values[i];
+        }
+        return dense;
+    }
+
+    /**
+     * converts this matrix to compressed sparse column form in O(rows + cols + non-zeros) time.
+     * @return the same matrix in CSC form
+     */
+    public CscMatrix toCsc() {
+        final CsrMatrix transpose = transpose();
+        return new CscMatrix(rows, cols, transpose.rowPointers, transpose.columnIndices, transpose.values, false);
+    }
+
+    /**
+     * returns the transpose of this matrix. the column indices of the result are sorted as a side effect of the
+     * counting sort, so no extra sorting pass is needed.
+     * @return the transposed matrix
+     */
+    public CsrMatrix transpose() {
+        final int nonZeros = getNonZeros();
+        final int[] pointers = new int[cols + 1];
+        for (int i = 0; i < nonZeros; i++)
+            pointers[columnIndices[i] + 1]++;
+        for (int c = 0; c < cols; c++)
+            pointers[c + 1] += pointers[c];
+        final int[] next = Arrays.copyOf(pointers, cols);
+        final int[] indices = new int[nonZeros];
+        final double[] transposedValues = new double[nonZeros];
+        for (int r = 0; r < rows; r++) {
+            for (int i = rowPointers[r]; i < rowPointers[r + 1]; i++) {
+                final int destination = next[columnIndices[i]]++;
+                indices[destination] = r;
+                transposedValues[destination] = values[i];
+            }
+        }
+        return new CsrMatrix(cols, rows, pointers, indices, transposedValues, false);
+    }
+
+    /**
+     * returns a value at specified indices in the matrix. the lookup is a binary search within the row.
+     *
+     * @param r row index
+     * @param c column index
+     * @return a value in the matrix
+     */
+    public double getValue(final int r, final int c) {
+        if (r < 0 || r >= rows || c < 0 || c >= cols)
+            throw new IllegalArgumentException("The specified location exceeds the matrix's row or column bounds.");
+        final int i = Arrays.binarySearch(columnIndices, rowPointers[r], rowPointers[r + 1], c);
+        return i >= 0 ? values[i] : 0.0;
+    }
+
+    /**
+     * multiplies this sparse matrix by a dense matrix. every stored value scales one row of the multiplicand into the
+     * product, so the cost is O(non-zeros * multiplicand columns).
+     *
+     * @param multiplicand dense matrix to multiply this matrix by
+     * @return a new dense product
+     */
+    public Matrix multiply(final Matrix multiplicand) {
+        if (cols != multiplicand.getRows())
+            throw new IllegalArgumentException(
+                "The number of columns in this matrix must equal the number of rows in the multiplicand matrix.");
+        final int n = multiplicand.getCols();
+        final Matrix product = new Matrix(rows, n);
+        final double[] b = multiplicand.getData();
+        final int bOff = multiplicand.getOffset();
+        final int ldb = multiplicand.getLeadingDimension();
+        final double[] c = product.getData();
+        for (int r = 0; r < rows; r++) {
+            final int cRow = r * n;
+            for (int i = rowPointers[r]; i < rowPointers[r + 1]; i++) {
+                final double value = values[i];
+                final int bRow = bOff + columnIndices[i] * ldb;
+                for (int j = 0; j < n; j++)
+                    c[cRow + j] += value * b[bRow + j];
+            }
+        }
+        return product;
+    }
+
+    /**
+     * computes y = this * x with one sparse dot product per row, in O(non-zeros).
+     *
+     * @param x vector of length getCols()
+     * @param y vector of length getRows() to store the result in
+     */
+    @Override
+    public void apply(final double[] x, final double[] y) {
+        LinearOperator.checkApply(rows, cols, x, y);
+        for (int r = 0; r < rows; r++) {
+            double sum = 0;
+            for (int i = rowPointers[r]; i < rowPointers[r + 1]; i++)
+                sum += values[i] * x[columnIndices[i]];
+            y[r] = sum;
+        }
+    }
+
+    /**
+     * multiplies two sparse matrices with Gustavson's row-by-row algorithm. the work is proportional to the number of
+     * scalar multiplications actually performed, plus the size of the product.
+     *
+     * @param multiplicand sparse matrix to multiply this matrix by
+     * @return a new sparse product
+     */
+    public CsrMatrix multiply(final CsrMatrix multiplicand) {
+        if (cols != multiplicand.rows)
+            throw new IllegalArgumentException(
+                "The number of columns in this matrix must equal the number of rows in the multiplicand matrix.");
+        final int n = multiplicand.cols;
+        final int[] pointers = new int[rows + 1];
+        int[] indices = new int[Math.max(16, getNonZeros() + multiplicand.getNonZeros())];
+        double[] productValues = new double[indices.length];
+        // dense accumulator for one row of the product, plus the row that last touched each column
+        final double[] accumulator = new double[n];
+        final int[] marker = new int[n];
+        Arrays.fill(marker, -1);
+        int nonZeros = 0;
+        for (int r = 0; r < rows; r++) {
+            final int rowStart = nonZeros;
+            for (int i = rowPointers[r]; i < rowPointers[r + 1]; i++) {
+                final double value = values[i];
+                final int p = columnIndices[i];
+                for (int j = multiplicand.rowPointers[p]; j < multiplicand.rowPointers[p + 1]; j++) {
+                    final int c = multiplicand.columnIndices[j];
+                    if (marker[c] != r) {
+                        marker[c] = r;
+                        accumulator[c] = 0.0;
+                        if (nonZeros == indices.length) {
+                            indices = Arrays.copyOf(indices, nonZeros * 2);
+                            productValues = Arrays.copyOf(productValues, nonZeros * 2);
+                        }
+                        indices[nonZeros++] = c;
+                    }
+                    accumulator[c] += value * multiplicand.values[j];
+                }
+            }
+            Arrays.sort(indices, rowStart, nonZeros);
+            for (int i = rowStart; i < nonZeros; i++)
+                productValues[i] = accumulator[indices[i]];
+            pointers[r + 1] = nonZeros;
+        }
+        return new CsrMatrix(rows, n, pointers, indices, productValues, false);
+    }
+
+    /**
+     * returns a summed matrix of an inputted sparse matrix with this matrix, merging the two rows' sorted indices in
+     * one pass.
+     *
+     * @param addend matrix to be added to this matrix
+     * @return a new sparse sum
+     */
+    public CsrMatrix add(final CsrMatrix addend) {
+        checkDimensions(addend.rows, addend.cols);
+        final int[] pointers = new int[rows + 1];
+        final int capacity = getNonZeros() + addend.getNonZeros();
+        final int[] indices = new int[capacity];
+        final double[] sumValues = new double[capacity];
+        int nonZeros = 0;
+        for (int r = 0; r < rows; r++) {
+            int i = rowPointers[r];
+            int j = addend.rowPointers[r];
+            final int iEnd = rowPointers[r + 1];
+            final int jEnd = addend.rowPointers[r + 1];
+            while (i < iEnd || j < jEnd) {
+                final int ci = i < iEnd ? columnIndices[i] : Integer.MAX_VALUE;
+                final int cj = j < jEnd ? addend.columnIndices[j] : Integer.MAX_VALUE;
+                if (ci == cj) {
+                    indices[nonZeros] = ci;
+                    sumValues[nonZeros++] = values[i++] + addend.values[j++];
+                } else if (ci < cj) {
+                    indices[nonZeros] = ci;
+                    sumValues[nonZeros++] = values[i++];
+                } else {
+                    indices[nonZeros] = cj;
+                    sumValues[nonZeros++] = addend.values[j++];
+                }
+            }
+            pointers[r + 1] = nonZeros;
+        }
+        return new CsrMatrix(rows, cols, pointers, indices, sumValues, false);
+    }
+
+    /**
+     * returns a summed dense matrix of an inputted dense matrix with this matrix.
+     *
+     * @param addend matrix to be added to this matrix
+     * @return a new dense sum
+     */
+    public Matrix add(final Matrix addend) {
+        checkDimensions(addend.getRows(), addend.getCols());
+        final Matrix sum = new Matrix(addend);
+        final double[] data = sum.getData();
+        for (int r = 0; r < rows; r++) {
+            for (int i = rowPointers[r]; i < rowPointers[r + 1]; i++)
+                data[r * cols + columnIndices[i]] += values[i];
+        }
+        return sum;
+    }
+
+    private void checkDimensions(final int otherRows, final int otherCols) {
+        if (otherRows != rows || otherCols != cols)
+            throw new IllegalArgumentException(
+                String.format("Expected %d rows and %d columns. Received %d rows and %d columns.",
+                    rows, cols, otherRows, otherCols));
+    }
+
+    @Override
+    public int getRows() {
+        return rows;
+    }
+
+    @Override
+    public int getCols() {
+        return cols;
+    }
+
+    /**
+     * @return number of stored values
+     */
+    public int getNonZeros() {
+        return rowPointers[rows];
+    }
+
+    /**
+     * @return the row pointer array backing this matrix
+     */
+    public int[] getRowPointers() {
+        return rowPointers;
+    }
+
+    /**
+     * @return the column index array backing this matrix
+     */
+    public int[] getColumnIndices() {
+        return columnIndices;
+    }
+
+    /**
+     * @return the value array backing this matrix
+     */
+    public double[] getValues() {
+        return values;
+    }
+}
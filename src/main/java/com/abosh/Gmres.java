@@ -0,0 +1,197 @@
+package com.abosh;
+
+import java.util.Arrays;
+
+/**
+ * restarted GMRES(m) for Ax = b with any square, nonsingular A. each cycle builds an orthonormal Krylov basis of up to
+ * m vectors with modified Gram-Schmidt and minimizes the residual over it using Givens rotations; the solution is
+ * updated and the method restarts from the new residual. a preconditioner is applied on the right, i.e. the method
+ * solves A M^-1 u = b with x = M^-1 u, so the residual it monitors is the true residual of the system.
+ *
+ * @author Abosh Upadhyaya
+ */
+public class Gmres extends IterativeSolver {
+    private final int restart;
+    private Preconditioner preconditioner;
+    // work space, kept between runs
+    private int size = -1;
+    /** Krylov basis, one vector of length n per row. */
+    private double[] basis;
+    /** Hessenberg matrix, (m + 1) x m row-major. */
+    private final double[] hessenberg;
+    private final double[] cosines;
+    private final double[] sines;
+    private final double[] g;
+    private final double[] y;
+    private double[] w;
+    private double[] z;
+
+    /**
+     * creates a solver that restarts every 30 iterations.
+     */
+    public Gmres() {
+        this(30);
+    }
+
+    /**
+     * @param restart size of the Krylov basis built before each restart
+     */
+    public Gmres(final int restart) {
+        if (restart < 1)
+            throw new IllegalArgumentException("The restart length must be positive.");
+        this.restart = restart;
+        hessenberg = new double[(restart + 1) * restart];
+        cosines = new double[restart];
+        sines = new double[restart];
+        g = new double[restart + 1];
+        y = new double[restart];
+    }
+
+    public int getRestart() {
+        return restart;
+    }
+
+    public Preconditioner getPreconditioner() {
+        return preconditioner;
+    }
+
+    /**
+     * @param preconditioner preconditioner, or null for none
+     */
+    public void setPreconditioner(final Preconditioner preconditioner) {
+        this.preconditioner = preconditioner;
+    }
+
+    /**
+     * solves Ax = b. iteration stops when the residual is small enough, when the maximum number of iterations is
+     * reached, or when the listener asks to stop. every Krylov vector counts as one iteration.
+     *
+     * @param a square operator
+     * @param b right-hand side
+     * @param x initial guess, overwritten with the solution
+     * @return how the run ended
+     */
+    public IterativeResult solve(final LinearOperator a, final double[] b, final double[] x) {
+        checkSystem(a, b);
+        checkSystem(a, x);
+        final int n = b.length;
+        final int m = restart;
+        if (size != n) {
+            basis = new double[(m + 1) * n];
+            w = new double[n];
+            z = new double[n];
+            size = n;
+        }
+        final double target = getTolerance() * norm(b);
+        int iteration = 0;
+        while (true) {
+            // r = b - Ax, stored as the first basis vector
+            a.apply(x, w);
+            for (int i = 0; i < n; i++)
+                basis[i] = b[i] - w[i];
+            final double beta = norm(basis, 0, n);
+            if (beta <= target || iteration >= getMaxIterations())
+                return new IterativeResult(beta <= target, iteration, beta, Double.NaN);
+            scale(1 / beta, basis, 0, n);
+            Arrays.fill(g, 0);
+            g[0] = beta;
+            int k = 0;
+            boolean stop = false;
+            double residual = beta;
+            while (k < m && !stop) {
+                final int j = k;
+                // w = A M^-1 v_j
+                if (preconditioner == null) {
+                    System.arraycopy(basis, j * n, z, 0, n);
+                } else {
+                    System.arraycopy(basis, j * n, w, 0, n);
+                    preconditioner.apply(w, z);
+                }
+                a.apply(z, w);
+                for (int i = 0; i <= j; i++) {
+                    final double h = dot(w, basis, i * n);
+                    hessenberg[i * m + j] = h;
+                    for (int t = 0; t < n; t++)
+                        w[t] -= h * basis[i * n + t];
+                }
+                final double next = norm(w, 0, n);
+                hessenberg[(j + 1) * m + j] = next;
+                final boolean breakdown = next == 0;
+                if (!breakdown) {
+                    for (int t = 0; t < n; t++)
+                        basis[(j + 1) * n + t] = w[t] / next;
+                }
+                // rotate the new column with the previous rotations, then zero its subdiagonal element
+                for (int i = 0; i < j; i++) {
+                    final double h0 = hessenberg[i * m + j];
+                    final double h1 = hessenberg[(i + 1) * m + j];
+                    hessenberg[i * m + j] = cosines[i] * h0 + sines[i] * h1;
+                    hessenberg[(i + 1) * m + j] = -sines[i] * h0 + cosines[i] * h1;
+                }
+                final double h0 = hessenberg[j * m + j];
+                final double h1 = hessenberg[(j + 1) * m + j];
+                final double radius = Math.hypot(h0, h1);
+                cosines[j] = radius == 0 ? 1 : h0 / radius;
+                sines[j] = radius == 0 ? 0 : h1 / radius;
+                hessenberg[j * m + j] = radius;
+                hessenberg[(j + 1) * m + j] = 0;
+                g[j + 1] = -sines[j] * g[j];
+                g[j] = cosines[j] * g[j];
+                residual = Math.abs(g[j + 1]);
+                k++;
+                iteration++;
+                final boolean keepGoing = iterationDone(iteration, residual);
+                stop = breakdown || residual <= target || iteration >= getMaxIterations() || !keepGoing;
+                if (!keepGoing) {
+                    update(x, k, n);
+                    return new IterativeResult(residual <= target, iteration, residual, Double.NaN);
+                }
+            }
+            update(x, k, n);
+        }
+    }
+
+    /**
+     * x += M^-1 V y, where y solves the k x k upper triangular system H y = g.
+     */
+    private void update(final double[] x, final int k, final int n) {
+        final int m = restart;
+        for (int i = k - 1; i >= 0; i--) {
+            double sum = g[i];
+            for (int j = i + 1; j < k; j++)
+                sum -= hessenberg[i * m + j] * y[j];
+            y[i] = sum / hessenberg[i * m + i];
+        }
+        Arrays.fill(w, 0);
+        for (int i = 0; i < k; i++) {
+            final double yi = y[i];
+            for (int t = 0; t < n; t++)
+                w[t] += yi * basis[i * n + t];
+        }
+        if (preconditioner == null) {
+            axpy(1, w, x);
+        } else {
+            preconditioner.apply(w, z);
+            axpy(1, z, x);
+        }
+    }
+
+    private static double dot(final double[] x, final double[] v, final int off) {
+        double sum = 0;
+        for (int i = 0; i < x.length; i++)
+            sum += x[i] * v[off + i];
+        return sum;
+    }
+
+    private static double norm(final double[] v, final int off, final int n) {
+        double sum = 0;
+        for (int i = 0; i < n; i++)
+            sum += v[off + i] * v[off + i];
+        return Math.sqrt(sum);
+    }
+
+    private static void scale(final double alpha, final double[] v, final int off, final int n) {
+        for (int i = 0; i < n; i++)
+            v[off + i] *= alpha;
+    }
+}
@@ -0,0 +1,338 @@
+package com.abosh;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Objects;
+
+/**
+ * accumulates the Gram matrix X^T X, the column means and the covariance of a stream of d-dimensional rows, using
+ * O(d^2) memory however many rows arrive. rows are buffered into blocks; each full block is centered on its own mean
+ * and folded in with one rank-k update of the upper triangle of the centered cross-product, computed by the cache-
+ * blocked multiply kernel, and then merged with the running totals using the pairwise update of Chan, Golub and
+ * LeVeque. centering every block keeps the covariance accurate even when the means are large compared to the spread,
+ * where the textbook X^T X / n - mean mean^T would cancel catastrophically.
+ *
+ * accumulators filled by parallel workers combine with {@link #merge}. an accumulator is not thread-safe.
+ *
+ * @author Abosh Upadhyaya
+ */
+public final class GramAccumulator {
+    /** default number of rows per block. */
+    static final int DEFAULT_BLOCK_ROWS = 256;
+
+    // private data fields
+    private final int dimension;
+    private final int blockRows;
+    /** rows waiting for the next update, blockRows x dimension row-major. */
+    private final double[] block;
+    private int pending;
+    private long count;
+    private final double[] mean;
+    /** the mean of the pending block, then its difference from the running mean. */
+    private final double[] blockMean;
+    /** sum of (x - mean)(x - mean)^T over all folded rows; only the upper triangle is kept up to date. */
+    private final double[] comoment;
+
+    /**
+     * creates an accumulator that folds in blocks of 256 rows.
+     *
+     * @param dimension number of values in every row
+     */
+    public GramAccumulator(final int dimension) {
+        this(dimension, DEFAULT_BLOCK_ROWS);
+    }
+
+    /**
+     * @param dimension number of values in every row
+     * @param blockRows number of rows buffered before each rank-k update; larger blocks run closer to matrix multiply
+     *                  speed at the cost of blockRows * dimension doubles of buffer
+     */
+    public GramAccumulator(final int dimension, final int blockRows) {
+        if (dimension < 1)
+            throw new IllegalArgumentException("The dimension must be positive.");
+        if (blockRows < 1)
+            throw new IllegalArgumentException("The number of rows per block must be positive.");
+        if ((long) dimension * dimension > Integer.MAX_VALUE || (long) dimension * blockRows > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("The matrix has too many elements to be stored in a single array.");
+        this.dimension = dimension;
+        this.blockRows = blockRows;
+        this.block = new double[blockRows * dimension];
+        this.mean = new double[dimension];
+        this.blockMean = new double[dimension];
+        this.comoment = new double[dimension * dimension];
+    }
+
+    /**
+     * adds one row.
+     *
+     * @param row values of the row
+     */
+    public void add(final double[] row) {
+        if (row.length != dimension)
+            throw new IllegalArgumentException(
+                String.format("Expected a row of length %d. Received %d.", dimension, row.length));
+        System.arraycopy(row, 0, block, pending * dimension, dimension);
+        if (++pending == blockRows)
+            flush();
+    }
+
+    /**
+     * adds rows packed one after another in an array.
+     *
+     * @param rows   array holding the rows
+     * @param offset index of the first value of the first row
+     * @param count  number of rows
+     */
+    public void add(final double[] rows, final int offset, final int count) {
+        if (count < 0)
+            throw new IllegalArgumentException("The number of rows cannot be negative.");
+        Objects.checkFromIndexSize(offset, (int) Math.min((long) count * dimension, Integer.MAX_VALUE), rows.length);
+        int from = offset;
+        int remaining = count;
+        while (remaining > 0) {
+            final int n = Math.min(remaining, blockRows - pending);
+            System.arraycopy(rows, from, block, pending * dimension, n * dimension);
+            from += n * dimension;
+            remaining -= n;
+            pending += n;
+            if (pending == blockRows)
+                flush();
+        }
+    }
+
+    /**
+     * adds every row of a matrix, which may be a view of a larger one.
+     *
+     * @param rows matrix whose rows are added
+     */
+    public void add(final Matrix rows) {
+        if (rows.getCols() != dimension)
+            throw new IllegalArgumentException(
+                String.format("Expected rows of length %d. Received %d.", dimension, rows.getCols()));
+        final double[] data = rows.getData();
+        for (int r = 0; r < rows.getRows(); r++) {
+            System.arraycopy(data, rows.getOffset() + r * rows.getLeadingDimension(), block, pending * dimension,
+                dimension);
+            if (++pending == blockRows)
+                flush();
+        }
+    }
+
+    /**
+     * adds every remaining row of an iterator.
+     *
+     * @param rows iterator over the rows
+     */
+    public void addAll(final Iterator<double[]> rows) {
+        while (rows.hasNext())
+            add(rows.next());
+    }
+
+    /**
+     * adds every row of a matrix stored in the binary format of {@link MatrixIO}, streaming it through a fixed-size
+     * buffer so the matrix never has to fit in memory.
+     *
+     * @param channel channel positioned at a matrix header; it is not closed
+     * @return number of rows read
+     * @throws IOException if reading fails, the input is not in the binary format, or it ends early
+     */
+    public long addAll(final ReadableByteChannel channel) throws IOException {
+        final ByteBuffer headerBuffer = ByteBuffer.allocate(MatrixFileHeader.SIZE);
+        MatrixIO.readFully(channel, headerBuffer);
+        headerBuffer.flip();
+        final MatrixFileHeader header = MatrixFileHeader.decode(headerBuffer);
+        if (header.cols != dimension)
+            throw new IOException(String.format("Expected rows of length %d. The input holds rows of length %d.",
+                dimension, header.cols));
+        long remaining;
+        try {
+            remaining = Math.multiplyExact(header.rows, dimension);
+        } catch (final ArithmeticException e) {
+            throw new IOException("The matrix header describes more values than can be counted.", e);
+        }
+        final ByteBuffer buffer = MatrixIO.borrowBuffer();
+        try {
+            final DoubleBuffer doubles = buffer.asDoubleBuffer();
+            // values of the current row already in the block
+            int column = 0;
+            while (remaining > 0) {
+                final int n = (int) Math.min(remaining, MatrixIO.BUFFER_BYTES / Double.BYTES);
+                buffer.clear().limit(n * Double.BYTES);
+                MatrixIO.readFully(channel, buffer);
+                doubles.clear();
+                for (int read = 0; read < n;) {
+                    final int take = Math.min(n - read, dimension - column);
+                    doubles.get(block, pending * dimension + column, take);
+                    read += take;
+                    column += take;
+                    if (column == dimension) {
+                        column = 0;
+                        if (++pending == blockRows)
+                            flush();
+                    }
+                }
+                remaining -= n;
+            }
+        } finally {
+            MatrixIO.returnBuffer(buffer);
+        }
+        return header.rows;
+    }
+
+    /**
+     * folds the rows of another accumulator into this one, as if they had been added here. the other accumulator keeps
+     * its rows.
+     *
+     * @param other accumulator of the same dimension
+     */
+    public void merge(final GramAccumulator other) {
+        if (other.dimension != dimension)
+            throw new IllegalArgumentException(
+                String.format("Expected an accumulator of dimension %d. Received %d.", dimension, other.dimension));
+        flush();
+        other.flush();
+        if (other.count == 0)
+            return;
+        for (int i = 0; i < dimension; i++)
+            blockMean[i] = other.mean[i] - mean[i];
+        for (int i = 0; i < dimension; i++) {
+            final int row = i * dimension;
+            for (int j = i; j < dimension; j++)
+                comoment[row + j] += other.comoment[row + j];
+        }
+        combine(other.count);
+    }
+
+    /**
+     * forgets every row added so far.
+     */
+    public void reset() {
+        pending = 0;
+        count = 0;
+        Arrays.fill(mean, 0);
+        Arrays.fill(comoment, 0);
+    }
+
+    public int getDimension() {
+        return dimension;
+    }
+
+    /**
+     * @return number of rows added so far
+     */
+    public long getCount() {
+        return count + pending;
+    }
+
+    /**
+     * @return the mean of every column over the rows added so far, or zeros if there are none
+     */
+    public double[] getMean() {
+        flush();
+        return mean.clone();
+    }
+
+    /**
+     * computes X^T X over the rows added so far as the centered cross-product plus n * mean mean^T; both terms are
+     * positive semidefinite, so adding them loses no accuracy.
+     *
+     * @return a new symmetric d x d matrix
+     */
+    public Matrix getGram() {
+        flush();
+        final Matrix gram = symmetric(1.0);
+        final double[] data = gram.getData();
+        for (int i = 0; i < dimension; i++) {
+            final double scaled = count * mean[i];
+            for (int j = 0; j < dimension; j++)
+                data[i * dimension + j] += scaled * mean[j];
+        }
+        return gram;
+    }
+
+    /**
+     * computes the sample covariance, i.e. the centered cross-product divided by n - 1.
+     *
+     * @return a new symmetric d x d matrix
+     */
+    public Matrix getCovariance() {
+        flush();
+        if (count < 2)
+            throw new IllegalStateException("At least two rows are needed to estimate a covariance.");
+        return symmetric(1.0 / (count - 1));
+    }
+
+    /**
+     * copies the upper triangle of the comoment, scaled, into both triangles of a new matrix.
+     */
+    private Matrix symmetric(final double scale) {
+        final Matrix result = new Matrix(dimension, dimension);
+        final double[] data = result.getData();
+        for (int i = 0; i < dimension; i++) {
+            final int row = i * dimension;
+            for (int j = i; j < dimension; j++) {
+                final double value = comoment[row + j] * scale;
+                data[row + j] = value;
+                data[j * dimension + i] = value;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * folds the pending block into the running totals.
+     */
+    private void flush() {
+        if (pending == 0)
+            return;
+        final int k = pending;
+        final int d = dimension;
+        Arrays.fill(blockMean, 0);
+        for (int r = 0; r < k; r++) {
+            final int row = r * d;
+            for (int j = 0; j < d; j++)
+                blockMean[j] += block[row + j];
+        }
+        for (int j = 0; j < d; j++)
+            blockMean[j] /= k;
+        for (int r = 0; r < k; r++) {
+            final int row = r * d;
+            for (int j = 0; j < d; j++)
+                block[row + j] -= blockMean[j];
+        }
+        // comoment += B^T B for the centered block B, one panel of rows of the upper triangle at a time. element (i, p)
+        // of B^T is block[i + p * d], so the left operand is read with swapped strides instead of being transposed
+        for (int i0 = 0; i0 < d; i0 += MatrixKernels.ROW_BLOCK) {
+            final int i1 = Math.min(i0 + MatrixKernels.ROW_BLOCK, d);
+            MatrixKernels.multiplyAdd(i1 - i0, d - i0, k, 1.0, block, i0, 1, d, block, i0, d,
+                comoment, i0 * d + i0, d);
+        }
+        for (int j = 0; j < d; j++)
+            blockMean[j] -= mean[j];
+        pending = 0;
+        combine(k);
+    }
+
+    /**
+     * completes the pairwise update after the other part's comoment has been added: with delta = blockMean, the
+     * difference of the two means, adds delta delta^T * n1 n2 / n to the comoment and moves the mean.
+     */
+    private void combine(final long added) {
+        final long total = count + added;
+        final double weight = (double) count * added / total;
+        final double shift = (double) added / total;
+        for (int i = 0; i < dimension; i++) {
+            final int row = i * dimension;
+            final double scaled = blockMean[i] * weight;
+            for (int j = i; j < dimension; j++)
+                comoment[row + j] += scaled * blockMean[j];
+        }
+        for (int i = 0; i < dimension; i++)
+            mean[i] += blockMean[i] * shift;
+        count = total;
+    }
+}
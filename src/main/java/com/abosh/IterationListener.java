@@ -0,0 +1,16 @@
+package com.abosh;
+
+/**
+ * receives the progress of an {@link IterativeSolver} after every iteration.
+ *
+ * @author Abosh Upadhyaya
+ */
+@FunctionalInterface
+public interface IterationListener {
+    /**
+     * @param iteration number of iterations done so far, starting at 1
+     * @param residual  residual norm after this iteration; what it measures depends on the solver
+     * @return true to keep iterating, false to stop now
+     */
+    boolean iterationDone(int iteration, double residual);
+}
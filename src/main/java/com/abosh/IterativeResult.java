@@ -0,0 +1,51 @@
+package com.abosh;
+
+/**
+ * the outcome of one run of an {@link IterativeSolver}.
+ *
+ * @author Abosh Upadhyaya
+ */
+public final class IterativeResult {
+    private final boolean converged;
+    private final int iterations;
+    private final double residual;
+    private final double eigenvalue;
+
+    IterativeResult(final boolean converged, final int iterations, final double residual, final double eigenvalue) {
+        this.converged = converged;
+        this.iterations = iterations;
+        this.residual = residual;
+        this.eigenvalue = eigenvalue;
+    }
+
+    /**
+     * @return if the tolerance was reached
+     */
+    public boolean isConverged() {
+        return converged;
+    }
+
+    public int getIterations() {
+        return iterations;
+    }
+
+    /**
+     * @return the final residual norm: ||b - Ax|| for the linear solvers, ||Av - λv|| for the eigensolvers
+     */
+    public double getResidual() {
+        return residual;
+    }
+
+    /**
+     * @return the eigenvalue found by an eigensolver, or NaN for the linear solvers
+     */
+    public double getEigenvalue() {
+        return eigenvalue;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s after %d iterations, residual %g", converged ? "converged" : "not converged",
+            iterations, residual);
+    }
+}
@@ -0,0 +1,95 @@
+package com.abosh;
+
+/**
+ * the settings shared by the iterative solvers. a solver keeps its work vectors between runs, so after the first run
+ * on a given problem size neither the iterations nor further runs allocate, apart from the returned result. solvers
+ * are therefore not thread-safe; use one per thread.
+ *
+ * @author Abosh Upadhyaya
+ */
+public abstract class IterativeSolver {
+    private double tolerance = 1e-10;
+    private int maxIterations = 1000;
+    private IterationListener listener;
+
+    IterativeSolver() {
+    }
+
+    public double getTolerance() {
+        return tolerance;
+    }
+
+    /**
+     * sets the relative tolerance: a linear solver stops once ||b - Ax|| <= tolerance * ||b||, an eigensolver once
+     * ||Av - λv|| <= tolerance * |λ|.
+     *
+     * @param tolerance relative tolerance
+     */
+    public void setTolerance(final double tolerance) {
+        if (!(tolerance >= 0))
+            throw new IllegalArgumentException("The tolerance cannot be negative.");
+        this.tolerance = tolerance;
+    }
+
+    public int getMaxIterations() {
+        return maxIterations;
+    }
+
+    /**
+     * @param maxIterations most iterations a run may take
+     */
+    public void setMaxIterations(final int maxIterations) {
+        if (maxIterations < 0)
+            throw new IllegalArgumentException("The maximum number of iterations cannot be negative.");
+        this.maxIterations = maxIterations;
+    }
+
+    public IterationListener getListener() {
+        return listener;
+    }
+
+    /**
+     * @param listener listener called after every iteration, or null for none
+     */
+    public void setListener(final IterationListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * reports an iteration to the listener.
+     * @return if iterating should continue
+     */
+    final boolean iterationDone(final int iteration, final double residual) {
+        return listener == null || listener.iterationDone(iteration, residual);
+    }
+
+    /**
+     * checks that an operator is square and a vector matches it.
+     */
+    static void checkSystem(final LinearOperator a, final double[] x) {
+        if (a.getRows() != a.getCols())
+            throw new IllegalArgumentException("The operator must be square.");
+        if (x.length != a.getRows())
+            throw new IllegalArgumentException(
+                String.format("Expected a vector of length %d. Received %d.", a.getRows(), x.length));
+    }
+
+    static double dot(final double[] x, final double[] y) {
+        double sum = 0;
+        for (int i = 0; i < x.length; i++)
+            sum += x[i] * y[i];
+        return sum;
+    }
+
+    static double norm(final double[] x) {
+        return Math.sqrt(dot(x, x));
+    }
+
+    /**
+     * y += alpha * x.
+     */
+    static void axpy(final double alpha, final double[] x, final double[] y) {
+        for (int i = 0; i < y.length; i++)
+            y[i] += alpha * x[i];
+    }
+}
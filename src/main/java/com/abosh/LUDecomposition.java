@@ -0,0 +1,230 @@
+package com.abosh;
+
+import java.util.Arrays;
+
+/**
+ * the LU factorization with partial pivoting of a square matrix, PA = LU, where P is a row permutation, L is unit
+ * lower triangular and U is upper triangular. the factorization costs O(n^3) once; every later {@link #solve(Matrix)}
+ * costs O(n^2) per right-hand side column.
+ *
+ * the factorization is blocked and right-looking: a panel of {@link #BLOCK} columns is factored with the unblocked
+ * algorithm, the matching block row of U is found by forward substitution, and the rest of the matrix is updated with
+ * one call to the cache-blocked multiply kernel. nearly all of the work therefore happens in the multiply kernel.
+ *
+ * a matrix with an exactly zero pivot is still factored; it reports itself as singular, its determinant is 0, and
+ * {@link #solve(Matrix)} and {@link #inverse()} throw.
+ *
+ * @author Abosh Upadhyaya
+ */
+public class LUDecomposition {
+    /** columns per panel. */
+    static final int BLOCK = 64;
+
+    // private data fields
+    /** L below the diagonal and U on and above it, row-major n x n. */
+    private final double[] lu;
+    private final int n;
+    /** row i of LU is row pivot[i] of the original matrix. */
+    private final int[] pivot;
+    private final int pivotSign;
+    private final boolean singular;
+
+    /**
+     * factors a square matrix. the matrix itself is not modified.
+     *
+     * @param m matrix to factor
+     */
+    public LUDecomposition(final Matrix m) {
+        this(m, BLOCK);
+    }
+
+    LUDecomposition(final Matrix m, final int block) {
+        if (m.getRows() != m.getCols())
+            throw new IllegalArgumentException("An LU decomposition requires a square matrix.");
+        n = m.getRows();
+        lu = new double[n * n];
+        final double[] source = m.getData();
+        for (int r = 0; r < n; r++)
+            System.arraycopy(source, m.getOffset() + r * m.getLeadingDimension(), lu, r * n, n);
+        pivot = new int[n];
+        for (int i = 0; i < n; i++)
+            pivot[i] = i;
+        int sign = 1;
+        boolean zeroPivot = false;
+        for (int j0 = 0; j0 < n; j0 += block) {
+            final int j1 = Math.min(j0 + block, n);
+            // factor the panel of columns j0..j1 over rows j0..n
+            for (int j = j0; j < j1; j++) {
+                int p = j;
+                double max = Math.abs(lu[j * n + j]);
+                for (int i = j + 1; i < n; i++) {
+                    final double value = Math.abs(lu[i * n + j]);
+                    if (value > max) {
+                        max = value;
+                        p = i;
+                    }
+                }
+                if (p != j) {
+                    swapRows(p, j);
+                    sign = -sign;
+                }
+                final double diagonal = lu[j * n + j];
+                if (diagonal == 0) {
+                    zeroPivot = true;
+                    continue;
+                }
+                for (int i = j + 1; i < n; i++) {
+                    final int row = i * n;
+                    final double l = lu[row + j] /= diagonal;
+                    if (l != 0) {
+                        for (int c = j + 1; c < j1; c++)
+                            lu[row + c] -= l * lu[j * n + c];
+                    }
+                }
+            }
+            if (j1 == n)
+                break;
+            // U12 = L11^-1 A12
+            for (int j = j0; j < j1; j++) {
+                for (int i = j + 1; i < j1; i++) {
+                    final double l = lu[i * n + j];
+                    if (l != 0) {
+                        for (int c = j1; c < n; c++)
+                            lu[i * n + c] -= l * lu[j * n + c];
+                    }
+                }
+            }
+            // A22 -= L21 U12
+            MatrixKernels.multiplyAdd(n - j1, n - j1, j1 - j0, -1.0,
+                lu, j1 * n + j0, n, 1,
+                lu, j0 * n + j1, n,
+                lu, j1 * n + j1, n);
+        }
+        pivotSign = sign;
+        singular = zeroPivot;
+    }
+
+    /**
+     * solves A X = B for X.
+     *
+     * @param rhs right-hand sides B, one per column, with as many rows as A
+     * @return a new matrix X
+     */
+    public Matrix solve(final Matrix rhs) {
+        if (rhs.getRows() != n)
+            throw new IllegalArgumentException(
+                String.format("Expected a right-hand side with %d rows. Received %d rows.", n, rhs.getRows()));
+        checkNonsingular();
+        final int k = rhs.getCols();
+        final Matrix solution = new Matrix(n, k);
+        final double[] x = solution.getData();
+        final double[] b = rhs.getData();
+        for (int i = 0; i < n; i++)
+            System.arraycopy(b, rhs.getOffset() + pivot[i] * rhs.getLeadingDimension(), x, i * k, k);
+        // L Y = P B
+        for (int i = 0; i < n; i++) {
+            final int row = i * k;
+            for (int j = 0; j < i; j++) {
+                final double l = lu[i * n + j];
+                if (l != 0) {
+                    final int source = j * k;
+                    for (int c = 0; c < k; c++)
+                        x[row + c] -= l * x[source + c];
+                }
+            }
+        }
+        // U X = Y
+        for (int i = n - 1; i >= 0; i--) {
+            final int row = i * k;
+            for (int j = i + 1; j < n; j++) {
+                final double u = lu[i * n + j];
+                if (u != 0) {
+                    final int source = j * k;
+                    for (int c = 0; c < k; c++)
+                        x[row + c] -= u * x[source + c];
+                }
+            }
+            final double diagonal = lu[i * n + i];
+            for (int c = 0; c < k; c++)
+                x[row + c] /= diagonal;
+        }
+        return solution;
+    }
+
+    /**
+     * @return the determinant of A
+     */
+    public double determinant() {
+        double determinant = pivotSign;
+        for (int i = 0; i < n; i++)
+            determinant *= lu[i * n + i];
+        return determinant;
+    }
+
+    /**
+     * @return a new matrix holding the inverse of A
+     */
+    public Matrix inverse() {
+        checkNonsingular();
+        final Matrix identity = new Matrix(n, n);
+        identity.gLoadIdentity();
+        return solve(identity);
+    }
+
+    /**
+     * @return if A has an exactly zero pivot, i.e. is singular
+     */
+    public boolean isSingular() {
+        return singular;
+    }
+
+    /**
+     * @return a new matrix holding the unit lower triangular factor L
+     */
+    public Matrix getL() {
+        final Matrix l = new Matrix(n, n);
+        final double[] data = l.getData();
+        for (int r = 0; r < n; r++) {
+            System.arraycopy(lu, r * n, data, r * n, r);
+            data[r * n + r] = 1;
+        }
+        return l;
+    }
+
+    /**
+     * @return a new matrix holding the upper triangular factor U
+     */
+    public Matrix getU() {
+        final Matrix u = new Matrix(n, n);
+        final double[] data = u.getData();
+        for (int r = 0; r < n; r++)
+            System.arraycopy(lu, r * n + r, data, r * n + r, n - r);
+        return u;
+    }
+
+    /**
+     * returns the row permutation: row i of LU is row getPivot()[i] of A.
+     * @return a copy of the pivot indices
+     */
+    public int[] getPivot() {
+        return Arrays.copyOf(pivot, n);
+    }
+
+    private void checkNonsingular() {
+        if (singular)
+            throw new IllegalArgumentException("The matrix is singular.");
+    }
+
+    private void swapRows(final int a, final int b) {
+        final int rowA = a * n;
+        final int rowB = b * n;
+        for (int c = 0; c < n; c++) {
+            final double t = lu[rowA + c];
+            lu[rowA + c] = lu[rowB + c];
+            lu[rowB + c] = t;
+        }
+        final int t = pivot[a];
+        pivot[a] = pivot[b];
+        pivot[b] = t;
+    }
+}
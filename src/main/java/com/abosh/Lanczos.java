@@ -0,0 +1,213 @@
+package com.abosh;
+
+import java.util.Arrays;
+
+/**
+ * the restarted Lanczos method for the dominant eigenpair, i.e. the eigenvalue of largest magnitude, of a symmetric
+ * operator. each cycle builds an orthonormal Krylov basis of up to m vectors, in which A is tridiagonal, and takes the
+ * Ritz pair of that tridiagonal matrix with the largest magnitude; the basis is fully reorthogonalized, which costs
+ * O(m n) per iteration but keeps spurious copies of converged eigenvalues out. a cycle that ends without converging
+ * restarts from its best Ritz vector.
+ *
+ * @author Abosh Upadhyaya
+ */
+public class Lanczos extends IterativeSolver {
+    private final int restart;
+    // work space, kept between runs
+    private int size = -1;
+    /** Lanczos basis, one vector of length n per row. */
+    private double[] basis;
+    private double[] v;
+    private double[] w;
+    private final double[] alpha;
+    private final double[] beta;
+    /** eigenvalues and off-diagonal of the tridiagonal matrix while it is being diagonalized. */
+    private final double[] d;
+    private final double[] e;
+    /** eigenvectors of the tridiagonal matrix, m x m row-major. */
+    private final double[] z;
+
+    /**
+     * creates a solver that restarts every 30 iterations.
+     */
+    public Lanczos() {
+        this(30);
+    }
+
+    /**
+     * @param restart size of the Lanczos basis built before each restart
+     */
+    public Lanczos(final int restart) {
+        if (restart < 1)
+            throw new IllegalArgumentException("The restart length must be positive.");
+        this.restart = restart;
+        alpha = new double[restart];
+        beta = new double[restart];
+        d = new double[restart];
+        e = new double[restart];
+        z = new double[restart * restart];
+    }
+
+    public int getRestart() {
+        return restart;
+    }
+
+    /**
+     * finds the dominant eigenpair. every basis vector counts as one iteration.
+     *
+     * @param a      symmetric operator
+     * @param vector starting vector, overwritten with the unit eigenvector; a zero vector starts from all ones
+     * @return how the run ended, including the eigenvalue
+     */
+    public IterativeResult solve(final LinearOperator a, final double[] vector) {
+        checkSystem(a, vector);
+        final int n = vector.length;
+        final int m = restart;
+        if (size != n) {
+            basis = new double[m * n];
+            v = new double[n];
+            w = new double[n];
+            size = n;
+        }
+        PowerIteration.normalize(vector);
+        int iteration = 0;
+        double eigenvalue = 0;
+        double residual = Double.POSITIVE_INFINITY;
+        while (iteration < getMaxIterations()) {
+            System.arraycopy(vector, 0, basis, 0, n);
+            for (int j = 0; j < m; j++) {
+                final int row = j * n;
+                System.arraycopy(basis, row, v, 0, n);
+                a.apply(v, w);
+                alpha[j] = 0;
+                // w = A v_j, orthogonalized against the whole basis twice over
+                for (int pass = 0; pass < 2; pass++) {
+                    for (int i = 0; i <= j; i++) {
+                        double h = 0;
+                        for (int t = 0; t < n; t++)
+                            h += w[t] * basis[i * n + t];
+                        for (int t = 0; t < n; t++)
+                            w[t] -= h * basis[i * n + t];
+                        if (i == j)
+                            alpha[j] += h;
+                    }
+                }
+                beta[j] = norm(w);
+                iteration++;
+                final int k = j + 1;
+                final int best = ritz(k);
+                eigenvalue = d[best];
+                residual = Math.abs(beta[j] * z[(k - 1) * m + best]);
+                final boolean keepGoing = iterationDone(iteration, residual);
+                final boolean converged = residual <= getTolerance() * Math.abs(eigenvalue);
+                if (converged || !keepGoing || iteration >= getMaxIterations() || j == m - 1 || beta[j] == 0) {
+                    ritzVector(k, best, n, vector);
+                    if (converged || !keepGoing)
+                        return new IterativeResult(converged, iteration, residual, eigenvalue);
+                    break;
+                }
+                for (int t = 0; t < n; t++)
+                    basis[row + n + t] = w[t] / beta[j];
+            }
+        }
+        return new IterativeResult(false, iteration, residual, eigenvalue);
+    }
+
+    /**
+     * diagonalizes the leading k x k block of the tridiagonal matrix.
+     * @return the index of the Ritz value of largest magnitude in d
+     */
+    private int ritz(final int k) {
+        final int m = restart;
+        System.arraycopy(alpha, 0, d, 0, k);
+        System.arraycopy(beta, 0, e, 0, k - 1);
+        e[k - 1] = 0;
+        for (int i = 0; i < k; i++) {
+            Arrays.fill(z, i * m, i * m + k, 0);
+            z[i * m + i] = 1;
+        }
+        tql2(k);
+        int best = 0;
+        for (int i = 1; i < k; i++) {
+            if (Math.abs(d[i]) > Math.abs(d[best]))
+                best = i;
+        }
+        return best;
+    }
+
+    /**
+     * symmetric tridiagonal QL algorithm with implicit shifts, as in EISPACK's tql2: on return d holds the eigenvalues
+     * (unsorted) and column i of z the eigenvector for d[i].
+     */
+    private void tql2(final int n) {
+        final int m = restart;
+        final double eps = Math.ulp(1.0);
+        double f = 0;
+        double tst1 = 0;
+        for (int l = 0; l < n; l++) {
+            tst1 = Math.max(tst1, Math.abs(d[l]) + Math.abs(e[l]));
+            int end = l;
+            while (end < n && Math.abs(e[end]) > eps * tst1)
+                end++;
+            if (end > l) {
+                do {
+                    double g = d[l];
+                    double p = (d[l + 1] - g) / (2 * e[l]);
+                    double r = Math.hypot(p, 1);
+                    if (p < 0)
+                        r = -r;
+                    d[l] = e[l] / (p + r);
+                    d[l + 1] = e[l] * (p + r);
+                    final double dl1 = d[l + 1];
+                    double h = g - d[l];
+                    for (int i = l + 2; i < n; i++)
+                        d[i] -= h;
+                    f += h;
+                    p = d[end];
+                    double c = 1;
+                    double c2 = c;
+                    double c3 = c;
+                    final double el1 = e[l + 1];
+                    double s = 0;
+                    double s2 = 0;
+                    for (int i = end - 1; i >= l; i--) {
+                        c3 = c2;
+                        c2 = c;
+                        s2 = s;
+                        g = c * e[i];
+                        h = c * p;
+                        r = Math.hypot(p, e[i]);
+                        e[i + 1] = s * r;
+                        s = e[i] / r;
+                        c = p / r;
+                        p = c * d[i] - s * g;
+                        d[i + 1] = h + s * (c * g + s * d[i]);
+                        for (int t = 0; t < n; t++) {
+                            h = z[t * m + i + 1];
+                            z[t * m + i + 1] = s * z[t * m + i] + c * h;
+                            z[t * m + i] = c * z[t * m + i] - s * h;
+                        }
+                    }
+                    p = -s * s2 * c3 * el1 * e[l] / dl1;
+                    e[l] = s * p;
+                    d[l] = c * p;
+                } while (Math.abs(e[l]) > eps * tst1);
+            }
+            d[l] += f;
+            e[l] = 0;
+        }
+    }
+
+    /**
+     * forms the normalized Ritz vector V s for column index of z, where V is the first k basis vectors.
+     */
+    private void ritzVector(final int k, final int index, final int n, final double[] result) {
+        Arrays.fill(result, 0);
+        for (int i = 0; i < k; i++) {
+            final double s = z[i * restart + index];
+            for (int t = 0; t < n; t++)
+                result[t] += s * basis[i * n + t];
+        }
+        PowerIteration.normalize(result);
+    }
+}
@@ -0,0 +1,36 @@
+package com.abosh;
+
+/**
+ * anything that can multiply a vector, without necessarily storing its elements. the iterative solvers only ever touch
+ * an operator through {@link #apply}, so they work the same on dense matrices, sparse matrices and operators computed
+ * on the fly.
+ *
+ * @author Abosh Upadhyaya
+ */
+public interface LinearOperator {
+    /**
+     * computes y = A x, overwriting y. x and y must not be the same array.
+     *
+     * @param x vector of length {@link #getCols()}
+     * @param y vector of length {@link #getRows()} to store the result in
+     */
+    void apply(double[] x, double[] y);
+
+    int getRows();
+
+    int getCols();
+
+    /**
+     * checks the arguments of {@link #apply} for an operator of the given size.
+     */
+    static void checkApply(final int rows, final int cols, final double[] x, final double[] y) {
+        if (x.length != cols)
+            throw new IllegalArgumentException(
+                String.format("Expected a vector of length %d. Received %d.", cols, x.length));
+        if (y.length != rows)
+            throw new IllegalArgumentException(
+                String.format("Expected a vector of length %d. Received %d.", rows, y.length));
+        if (x == y)
+            throw new IllegalArgumentException("The input and output vectors cannot be the same array.");
+    }
+}
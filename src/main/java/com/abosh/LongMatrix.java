@@ -0,0 +1,349 @@
+package com.abosh;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * a matrix of long values with the same operations as {@link Matrix}. values are stored row-major in one contiguous
+ * long[] and are never boxed. arithmetic is exact as long as no intermediate value overflows; overflow wraps around
+ * like Java's long operators.
+ *
+ * @author Abosh Upadhyaya
+ */
+public class LongMatrix {
+    // private data fields
+    private final long[] data;
+    private final int rows;
+    private final int cols;
+
+    /**
+     * default constructor. initializes all values in matrix to 0.
+     * 
+     * @param rows number of rows in matrix
+     * @param cols number of columns in matrix
+     */
+    public LongMatrix(final int rows, final int cols) {
+        if (rows < 0 || cols < 0)
+            throw new IllegalArgumentException("The number of rows and columns cannot be negative.");
+        if ((long) rows * cols > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("The matrix has too many elements to be stored in a single array.");
+        this.data = new long[rows * cols];
+        this.rows = rows;
+        this.cols = cols;
+    }
+
+    /**
+     * constructs a copy of an inputted matrix.
+     * 
+     * @param copy matrix to be copied
+     */
+    public LongMatrix(final LongMatrix copy) {
+        this(copy.rows, copy.cols);
+        System.arraycopy(copy.data, 0, data, 0, data.length);
+    }
+
+    /**
+     * converts a double matrix, rounding every value to the nearest integer. values outside the long range
+     * saturate at {@link Long#MIN_VALUE} and {@link Long#MAX_VALUE}, and NaN becomes 0.
+     * 
+     * @param m matrix to be converted
+     */
+    public LongMatrix(final Matrix m) {
+        this(m.getRows(), m.getCols());
+        final double[] source = m.getData();
+        for (int r = 0; r < rows; r++) {
+            final int from = m.getOffset() + r * m.getLeadingDimension();
+            for (int c = 0; c < cols; c++)
+                data[r * cols + c] = (long) Math.rint(source[from + c]);
+        }
+    }
+
+    /**
+     * widens an int matrix. the conversion is exact.
+     * 
+     * @param m matrix to be converted
+     */
+    public LongMatrix(final IntMatrix m) {
+        this(m.getRows(), m.getCols());
+        final int[] source = m.getData();
+        for (int i = 0; i < data.length; i++)
+            data[i] = source[i];
+    }
+
+    /**
+     * converts this matrix to a double matrix. values above 2^53 in magnitude are rounded to the nearest double.
+     * @return a new double matrix
+     */
+    public Matrix toMatrix() {
+        final Matrix m = new Matrix(rows, cols);
+        final double[] target = m.getData();
+        for (int i = 0; i < data.length; i++)
+            target[i] = data[i];
+        return m;
+    }
+
+    /**
+     * narrows this matrix to an int matrix. values outside the int range saturate at {@link Integer#MIN_VALUE} and
+     * {@link Integer#MAX_VALUE}, like the conversions from floating point, instead of wrapping.
+     * @return a new int matrix
+     */
+    public IntMatrix toIntMatrix() {
+        final IntMatrix m = new IntMatrix(rows, cols);
+        final int[] target = m.getData();
+        for (int i = 0; i < data.length; i++)
+            target[i] = (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, data[i]));
+        return m;
+    }
+
+    /**
+     * converts this matrix to a float matrix, rounding values above 2^24 in magnitude to the nearest float.
+     * @return a new float matrix
+     */
+    public FloatMatrix toFloatMatrix() {
+        final FloatMatrix m = new FloatMatrix(rows, cols);
+        final float[] target = m.getData();
+        for (int i = 0; i < data.length; i++)
+            target[i] = data[i];
+        return m;
+    }
+
+    /**
+     * replaces the current matrix with the identity matrix, preserving its current dimensions and resetting the matrix
+     * to a default state.
+     */
+    public void gLoadIdentity() {
+        if (rows != cols)
+            throw new IllegalArgumentException(
+                "An identity matrix must be square, i.e. the number of rows and columns must be equal.");
+        Arrays.fill(data, 0L);
+        for (int r = 0; r < rows; r++)
+            data[r * cols + r] = 1L;
+    }
+
+    /**
+     * sets values for a row in the matrix starting at the beginning of the row.
+     * 
+     * @param r      row index
+     * @param values values to set
+     */
+    public void setRow(final int r, final long[] values) {
+        if (values.length > cols)
+            throw new IllegalArgumentException("There cannot be more values than columns in the matrix.");
+        setRowFromIndex(r, values, 0, values.length);
+    }
+
+    /**
+     * sets values for a row in the matrix starting at a specific index.
+     * 
+     * @param r      row index
+     * @param values values to set
+     * @param i      index to start copying from in values[]
+     * @param len    total number of components to be copied from values[]
+     */
+    public void setRowFromIndex(final int r, final long[] values, final int i, final int len) {
+        if (r >= rows)
+            throw new IllegalArgumentException(
+                "The specified row index is greater than the number of rows in the matrix.");
+        if (len > cols)
+            throw new IllegalArgumentException(
+                "The number of components to be copied into the matrix exceed the matrix's bounds.");
+        if (i + len > values.length)
+            throw new IllegalArgumentException(
+                "The number of components to be copied from the inputted array exceed its bounds.");
+        System.arraycopy(values, i, data, Objects.checkIndex(r, rows) * cols, len);
+    }
+
+    /**
+     * sets the value of one position in the matrix.
+     * 
+     * @param r     row index
+     * @param c     column index
+     * @param value value to set
+     */
+    public void setValue(final int r, final int c, final long value) {
+        if (r < 0 || r >= rows || c < 0 || c >= cols)
+            throw new IllegalArgumentException(
+                "The specified location exceeds the matrix's row or column bounds.");
+        data[r * cols + c] = value;
+    }
+
+    /**
+     * returns a summed matrix of an inputted matrix with the current matrix object.
+     * 
+     * @param addend matrix to be added to current matrix.
+     * @return a summed matrix
+     */
+    public LongMatrix add(final LongMatrix addend) {
+        checkDimensions(addend);
+        final LongMatrix sum = new LongMatrix(rows, cols);
+        for (int i = 0; i < data.length; i++)
+            sum.data[i] = data[i] + addend.data[i];
+        return sum;
+    }
+
+    /**
+     * modifies current matrix by adding new matrix to it.
+     * 
+     * @param addend matrix to be added to current matrix.
+     */
+    public void addInPlace(final LongMatrix addend) {
+        checkDimensions(addend);
+        for (int i = 0; i < data.length; i++)
+            data[i] += addend.data[i];
+    }
+
+    /**
+     * subtracts an inputted matrix from the current matrix object, returning a new subtracted matrix.
+     * @param subtrahend matrix to subtract
+     * @return a subtracted matrix
+     */
+    public LongMatrix subtract(final LongMatrix subtrahend) {
+        checkDimensions(subtrahend);
+        final LongMatrix difference = new LongMatrix(rows, cols);
+        for (int i = 0; i < data.length; i++)
+            difference.data[i] = data[i] - subtrahend.data[i];
+        return difference;
+    }
+
+    /**
+     * subtracts an inputted matrix from the current matrix object.
+     * @param subtrahend matrix to subtract
+     */
+    public void subtractInPlace(final LongMatrix subtrahend) {
+        checkDimensions(subtrahend);
+        for (int i = 0; i < data.length; i++)
+            data[i] -= subtrahend.data[i];
+    }
+
+    /**
+     * multiplies two matrices together. the loops run in i-k-j order so the innermost loop streams along rows of the
+     * multiplicand and the product.
+     * 
+     * @param multiplicand matrix to multiply this matrix by
+     * @return a new multiplied matrix
+     */
+    public LongMatrix multiply(final LongMatrix multiplicand) {
+        if (cols != multiplicand.rows)
+            throw new IllegalArgumentException(
+                "The number of columns in this matrix must equal the number of rows in the multiplicand matrix.");
+        final int n = multiplicand.cols;
+        final LongMatrix product = new LongMatrix(rows, n);
+        final long[] b = multiplicand.data;
+        final long[] c = product.data;
+        for (int r = 0; r < rows; r++) {
+            final int cRow = r * n;
+            for (int p = 0; p < cols; p++) {
+                final long a = data[r * cols + p];
+                final int bRow = p * n;
+                for (int j = 0; j < n; j++)
+                    c[cRow + j] += a * b[bRow + j];
+            }
+        }
+        return product;
+    }
+
+    @Override
+    public boolean equals(final Object anObject) {
+        // compares memory locations
+        if (this == anObject)
+            return true;
+        // compares matrix values
+        if (anObject instanceof LongMatrix) {
+            final LongMatrix anotherMatrix = (LongMatrix) anObject;
+            return dimensionEquality(anotherMatrix) && Arrays.equals(data, anotherMatrix.data);
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * rows + cols) + Arrays.hashCode(data);
+    }
+
+    /**
+     * tests row and column equality between an inputted matrix and the current matrix object.
+     * @param m an inputted matrix
+     * @return if both the matrices' dimensions are equal
+     */
+    public boolean dimensionEquality(final LongMatrix m) {
+        return m.rows == rows && m.cols == cols;
+    }
+
+    /**
+     * returns a value at specified indices in the matrix.
+     * 
+     * @param r row index
+     * @param c column index
+     * @return a value in the matrix
+     */
+    public long getValue(final int r, final int c) {
+        return data[Objects.checkIndex(r, rows) * cols + Objects.checkIndex(c, cols)];
+    }
+
+    /**
+     * returns a copy of a specified row in the matrix.
+     * @param r row index
+     * @return the specified row
+     */
+    public long[] getRow(final int r) {
+        final int from = Objects.checkIndex(r, rows) * cols;
+        return Arrays.copyOfRange(data, from, from + cols);
+    }
+
+    /**
+     * returns a specified column in the matrix as a horizontal array.
+     * @param c column index
+     * @return the specified column
+     */
+    public long[] getCol(final int c) {
+        Objects.checkIndex(c, cols);
+        final long[] col = new long[rows];
+        for (int r = 0; r < rows; r++)
+            col[r] = data[r * cols + c];
+        return col;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    /**
+     * returns the row-major array backing this matrix. writes to the array are visible through the matrix.
+     * @return the backing array
+     */
+    public long[] getData() {
+        return data;
+    }
+
+    private void checkDimensions(final LongMatrix m) {
+        if (!dimensionEquality(m))
+            throw new IllegalArgumentException(
+                    String.format("Expected %d rows and %d columns. Received %d rows and %d columns.",
+                            rows, cols, m.rows, m.cols));
+    }
+
+    /**
+     * Returns a string representation of the contents of the specified matrix. The string representation consists of a
+     * list of the matrix's elements enclosed in square brackets. Adjacent elements are separated by a comma followed by
+     * a space.
+     * @return a string representation of the matrix
+     */
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder();
+        for (int r = 0; r < rows; r++) {
+            builder.append('[');
+            for (int c = 0; c < cols; c++) {
+                if (c > 0)
+                    builder.append(", ");
+                builder.append(data[r * cols + c]);
+            }
+            builder.append("]\n");
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,465 @@
+package com.abosh;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * a matrix kept in factored form as U diag(s) V^T, where U (m x k) and V (n x k) have orthonormal columns and the
+ * singular values s are non-negative and in decreasing order, i.e. a thin singular value decomposition of rank k.
+ * storing the factors takes O((m + n) k) memory instead of O(m n), and so does applying the matrix to a vector;
+ * sums and products of low-rank matrices are computed on the factors and never expanded to dense.
+ *
+ * {@link #randomizedSvd} finds the best rank-k approximation of a large dense matrix in O(m n k) time with the
+ * randomized range finder of Halko, Martinsson and Tropp; {@link #fromFactors} compresses any product L R^T into this
+ * form. the small decompositions on the way are computed with one-sided Jacobi rotations, which find even tiny singular
+ * values to high relative accuracy.
+ *
+ * a low-rank matrix is immutable; getters return copies.
+ *
+ * @author Abosh Upadhyaya
+ */
+public final class LowRankMatrix implements LinearOperator {
+    /** default number of extra sample vectors. */
+    static final int DEFAULT_OVERSAMPLING = 10;
+    /** default number of power iterations. */
+    static final int DEFAULT_POWER_ITERATIONS = 2;
+    /** most sweeps of Jacobi rotations; convergence is quadratic, so a handful usually suffices. */
+    private static final int MAX_SWEEPS = 60;
+    /** rows counting as orthogonal once their inner product is this small relative to their norms. */
+    private static final double ORTHOGONAL = 1e-15;
+    /** a vector losing all but this fraction of its norm to the previous ones is taken as dependent on them. */
+    private static final double DEPENDENT = 1e-12;
+
+    // private data fields
+    private final int rows;
+    private final int cols;
+    /** U^T, k x m: every left singular vector is a contiguous row. */
+    private final Matrix ut;
+    private final double[] s;
+    /** V^T, k x n. */
+    private final Matrix vt;
+
+    private LowRankMatrix(final int rows, final int cols, final Matrix ut, final double[] s, final Matrix vt) {
+        this.rows = rows;
+        this.cols = cols;
+        this.ut = ut;
+        this.s = s;
+        this.vt = vt;
+    }
+
+    /**
+     * approximates a matrix by its leading singular triplets with 10 extra samples, 2 power iterations and a fixed
+     * seed, so equal inputs give equal results.
+     *
+     * @param a    matrix to approximate
+     * @param rank largest rank of the approximation
+     * @return an approximation of rank at most rank
+     */
+    public static LowRankMatrix randomizedSvd(final Matrix a, final int rank) {
+        return randomizedSvd(a, rank, DEFAULT_OVERSAMPLING, DEFAULT_POWER_ITERATIONS, new Random(0));
+    }
+
+    /**
+     * approximates a matrix by its leading singular triplets. the range of a is sampled by multiplying it with
+     * rank + oversampling Gaussian random vectors, the samples are sharpened by power iterations with A A^T, and the
+     * matrix is projected onto the orthonormalized samples, where its small decomposition is computed exactly. every
+     * step reads a through the multiply kernel, so the cost is about 2 (powerIterations + 1) products with an
+     * n x (rank + oversampling) matrix.
+     *
+     * the error is close to that of the best rank-k approximation once the singular values decay; oversampling of 5 to
+     * 10 is usually enough, and each power iteration helps when they decay slowly. components whose singular value is
+     * zero to working precision are dropped, so a matrix of lower rank gives a shorter result.
+     *
+     * @param a               matrix to approximate
+     * @param rank            largest rank of the approximation
+     * @param oversampling    number of samples beyond rank
+     * @param powerIterations number of passes with A A^T
+     * @param random          source of the random samples
+     * @return an approximation of rank at most rank
+     */
+    public static LowRankMatrix randomizedSvd(final Matrix a, final int rank, final int oversampling,
+            final int powerIterations, final Random random) {
+        if (rank < 0 || oversampling < 0 || powerIterations < 0)
+            throw new IllegalArgumentException(
+                "The rank, oversampling and number of power iterations cannot be negative.");
+        final int m = a.getRows();
+        final int n = a.getCols();
+        final int samples = (int) Math.min((long) rank + oversampling, Math.min(m, n));
+        final Matrix omega = new Matrix(samples, n);
+        final double[] values = omega.getData();
+        for (int i = 0; i < values.length; i++)
+            values[i] = random.nextGaussian();
+        // Y^T = Omega^T A^T, whose rows span the sampled part of the range of A
+        Matrix yt = omega.multiply(a.transposedView());
+        orthonormalize(yt.getData(), samples, m, null);
+        for (int i = 0; i < powerIterations; i++) {
+            // re-orthonormalizing between the passes keeps small singular directions from being rounded away
+            final Matrix zt = yt.multiply(a);
+            orthonormalize(zt.getData(), samples, n, null);
+            yt = zt.multiply(a.transposedView());
+            orthonormalize(yt.getData(), samples, m, null);
+        }
+        // A ~ Q Q^T A = Q B with B = Q^T A
+        final Matrix b = yt.multiply(a);
+        return fromCore(m, n, b.getData(), samples, n, yt.getData(), null, rank, 0);
+    }
+
+    /**
+     * compresses the product left * right^T into a low-rank matrix. the factors may have any number of columns and
+     * need not be orthogonal; the cost is O((m + n) r^2) for r columns.
+     *
+     * @param left  m x r factor
+     * @param right n x r factor
+     * @return left * right^T in factored form, without components whose singular value is zero to working precision
+     */
+    public static LowRankMatrix fromFactors(final Matrix left, final Matrix right) {
+        if (left.getCols() != right.getCols())
+            throw new IllegalArgumentException("The factors must have the same number of columns.");
+        return compress(left.getRows(), right.getRows(), left.transpose().getData(), right.transpose().getData(),
+            left.getCols());
+    }
+
+    /**
+     * returns the sum of this matrix and another low-rank one, recompressed to at most the sum of their ranks.
+     *
+     * @param addend low-rank matrix of the same dimensions
+     * @return the sum in factored form
+     */
+    public LowRankMatrix add(final LowRankMatrix addend) {
+        return sum(addend, 1.0);
+    }
+
+    /**
+     * returns the difference of this matrix and another low-rank one, recompressed to at most the sum of their ranks.
+     *
+     * @param subtrahend low-rank matrix of the same dimensions
+     * @return the difference in factored form
+     */
+    public LowRankMatrix subtract(final LowRankMatrix subtrahend) {
+        return sum(subtrahend, -1.0);
+    }
+
+    /**
+     * adds this matrix to a dense one, returning a new dense matrix. the factors are multiplied straight into the
+     * result, so this matrix is never expanded on its own.
+     *
+     * @param addend dense matrix of the same dimensions
+     * @return a new summed matrix
+     */
+    public Matrix add(final Matrix addend) {
+        if (addend.getRows() != rows || addend.getCols() != cols)
+            throw new IllegalArgumentException(
+                String.format("Expected %d rows and %d columns. Received %d rows and %d columns.",
+                    rows, cols, addend.getRows(), addend.getCols()));
+        final Matrix sum = new Matrix(addend);
+        Matrix.multiplyInto(scaledUt(), true, vt, false, sum, 1.0, 1.0);
+        return sum;
+    }
+
+    /**
+     * multiplies this matrix by a dense one as U (diag(s) (V^T B)), which costs O((m + n) k p) for a p-column
+     * multiplicand instead of the O(m n p) of a dense product.
+     *
+     * @param multiplicand n x p matrix
+     * @return a new m x p product
+     */
+    public Matrix multiply(final Matrix multiplicand) {
+        if (cols != multiplicand.getRows())
+            throw new IllegalArgumentException(
+                "The number of columns in this matrix must equal the number of rows in the multiplicand matrix.");
+        final Matrix t = vt.multiply(multiplicand);
+        scaleRows(t.getData(), t.getCols());
+        return ut.transposedView().multiply(t);
+    }
+
+    /**
+     * multiplies two low-rank matrices. only the k1 x k2 core diag(s1) V1^T U2 diag(s2) is formed and decomposed, so
+     * the product stays in factored form with rank at most min(k1, k2).
+     *
+     * @param multiplicand low-rank matrix with as many rows as this one has columns
+     * @return the product in factored form
+     */
+    public LowRankMatrix multiply(final LowRankMatrix multiplicand) {
+        if (cols != multiplicand.rows)
+            throw new IllegalArgumentException(
+                "The number of columns in this matrix must equal the number of rows in the multiplicand matrix.");
+        final int k1 = getRank();
+        final int k2 = multiplicand.getRank();
+        final Matrix core = vt.multiply(multiplicand.ut.transposedView());
+        final double[] c = core.getData();
+        for (int i = 0; i < k1; i++) {
+            for (int j = 0; j < k2; j++)
+                c[i * k2 + j] *= s[i] * multiplicand.s[j];
+        }
+        final double scale = k1 == 0 || k2 == 0 ? 0 : s[0] * multiplicand.s[0];
+        return fromCore(rows, multiplicand.cols, c, k1, k2, ut.getData(), multiplicand.vt.getData(),
+            Math.min(k1, k2), scale);
+    }
+
+    /**
+     * computes y = U diag(s) V^T x in O((m + n) k).
+     *
+     * @param x vector of length getCols()
+     * @param y vector of length getRows() to store the result in
+     */
+    @Override
+    public void apply(final double[] x, final double[] y) {
+        LinearOperator.checkApply(rows, cols, x, y);
+        final double[] t = new double[getRank()];
+        vt.multiplyVector(x, t);
+        for (int i = 0; i < t.length; i++)
+            t[i] *= s[i];
+        ut.multiplyTransposedVector(t, y);
+    }
+
+    /**
+     * returns the best approximation of this matrix with a lower rank, which keeps the leading singular triplets.
+     *
+     * @param rank largest rank of the result
+     * @return this matrix if its rank is at most rank, otherwise a truncated copy
+     */
+    public LowRankMatrix truncate(final int rank) {
+        if (rank < 0)
+            throw new IllegalArgumentException("The rank cannot be negative.");
+        if (rank >= getRank())
+            return this;
+        return new LowRankMatrix(rows, cols, new Matrix(ut.subMatrix(0, 0, rank, rows)), Arrays.copyOf(s, rank),
+            new Matrix(vt.subMatrix(0, 0, rank, cols)));
+    }
+
+    /**
+     * returns the transpose, V diag(s) U^T, which shares this matrix's factors.
+     *
+     * @return the transposed matrix in factored form
+     */
+    public LowRankMatrix transpose() {
+        return new LowRankMatrix(cols, rows, vt, s, ut);
+    }
+
+    /**
+     * expands the factors into a dense matrix.
+     *
+     * @return a new m x n matrix
+     */
+    public Matrix toMatrix() {
+        final Matrix dense = new Matrix(rows, cols);
+        Matrix.multiplyInto(scaledUt(), true, vt, false, dense, 1.0, 0.0);
+        return dense;
+    }
+
+    @Override
+    public int getRows() {
+        return rows;
+    }
+
+    @Override
+    public int getCols() {
+        return cols;
+    }
+
+    public int getRank() {
+        return s.length;
+    }
+
+    /**
+     * @return the m x k matrix of left singular vectors
+     */
+    public Matrix getU() {
+        return ut.transpose();
+    }
+
+    /**
+     * @return the k singular values in decreasing order
+     */
+    public double[] getSingularValues() {
+        return s.clone();
+    }
+
+    /**
+     * @return the n x k matrix of right singular vectors
+     */
+    public Matrix getV() {
+        return vt.transpose();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("LowRankMatrix[%d x %d, rank %d, singular values %s]", rows, cols, getRank(),
+            Arrays.toString(s));
+    }
+
+    private LowRankMatrix sum(final LowRankMatrix other, final double sign) {
+        if (other.rows != rows || other.cols != cols)
+            throw new IllegalArgumentException(
+                String.format("Expected %d rows and %d columns. Received %d rows and %d columns.",
+                    rows, cols, other.rows, other.cols));
+        // [U1 s1, sign U2 s2] [V1, V2]^T, one term per row of the stacked transposes
+        final int k1 = getRank();
+        final int k2 = other.getRank();
+        final double[] left = new double[(k1 + k2) * rows];
+        final double[] right = new double[(k1 + k2) * cols];
+        System.arraycopy(scaledUt().getData(), 0, left, 0, k1 * rows);
+        final double[] otherLeft = other.scaledUt().getData();
+        for (int i = 0; i < k2 * rows; i++)
+            left[k1 * rows + i] = sign * otherLeft[i];
+        System.arraycopy(vt.getData(), 0, right, 0, k1 * cols);
+        System.arraycopy(other.vt.getData(), 0, right, k1 * cols, k2 * cols);
+        return compress(rows, cols, left, right, k1 + k2);
+    }
+
+    /**
+     * @return a new k x m matrix holding diag(s) U^T
+     */
+    private Matrix scaledUt() {
+        final Matrix scaled = new Matrix(ut);
+        scaleRows(scaled.getData(), rows);
+        return scaled;
+    }
+
+    /**
+     * multiplies row i of a contiguous k-row array by s[i].
+     */
+    private void scaleRows(final double[] values, final int length) {
+        for (int i = 0; i < s.length; i++) {
+            final int row = i * length;
+            for (int j = 0; j < length; j++)
+                values[row + j] *= s[i];
+        }
+    }
+
+    /**
+     * decomposes left^T right, given r rows of each, by orthonormalizing both sets of rows and decomposing the r x r
+     * core between them: with left^T = Ql Rl and right^T = Qr Rr, the product is Ql (Rl Rr^T) Qr^T.
+     */
+    private static LowRankMatrix compress(final int m, final int n, final double[] left, final double[] right,
+            final int r) {
+        // the terms may cancel, so components are judged against the size of the terms rather than of their sum
+        double scale = 0;
+        for (int i = 0; i < r; i++)
+            scale += Math.sqrt(dot(left, i * m, left, i * m, m) * dot(right, i * n, right, i * n, n));
+        final double[] rl = new double[r * r];
+        final double[] rr = new double[r * r];
+        orthonormalize(left, r, m, rl);
+        orthonormalize(right, r, n, rr);
+        final Matrix core = new Matrix(rl, 0, r, r, r).multiply(new Matrix(rr, 0, r, r, r).transposedView());
+        return fromCore(m, n, core.getData(), r, r, left, right, r, scale);
+    }
+
+    /**
+     * decomposes Ql^T C Qr for an r x c core C between r orthonormal rows Ql of length m and c orthonormal rows Qr of
+     * length n, or Ql^T C if Qr is null, in which case c is n. rotating the rows of C until they are orthogonal gives
+     * W C = diag(s) Z^T for an orthogonal W, so the left singular vectors are the rows of W Ql and the right ones the
+     * rows of Z^T Qr. singular values below working precision relative to the larger of scale and the largest one are
+     * dropped. the core is overwritten.
+     */
+    private static LowRankMatrix fromCore(final int m, final int n, final double[] core, final int r, final int c,
+            final double[] ql, final double[] qr, final int maxRank, final double scale) {
+        final double[] w = new double[r * r];
+        for (int i = 0; i < r; i++)
+            w[i * r + i] = 1;
+        rotate(core, r, c, w);
+        final double[] norms = new double[r];
+        final Integer[] order = new Integer[r];
+        double largest = scale;
+        for (int i = 0; i < r; i++) {
+            norms[i] = Math.sqrt(dot(core, i * c, core, i * c, c));
+            order[i] = i;
+            largest = Math.max(largest, norms[i]);
+        }
+        Arrays.sort(order, (i, j) -> Double.compare(norms[j], norms[i]));
+        final double negligible = largest * Math.max(m, n) * Math.ulp(1.0);
+        int k = 0;
+        while (k < Math.min(maxRank, r) && norms[order[k]] > negligible)
+            k++;
+        final double[] s = new double[k];
+        final double[] wk = new double[k * r];
+        final double[] zk = new double[k * c];
+        for (int i = 0; i < k; i++) {
+            final int source = order[i];
+            s[i] = norms[source];
+            System.arraycopy(w, source * r, wk, i * r, r);
+            for (int j = 0; j < c; j++)
+                zk[i * c + j] = core[source * c + j] / s[i];
+        }
+        final Matrix ut = new Matrix(wk, 0, r, k, r).multiply(new Matrix(ql, 0, m, r, m));
+        final Matrix vt = qr == null ? new Matrix(zk, 0, c, k, c)
+            : new Matrix(zk, 0, c, k, c).multiply(new Matrix(qr, 0, n, c, n));
+        return new LowRankMatrix(m, n, ut, s, vt);
+    }
+
+    /**
+     * one-sided Jacobi: applies plane rotations to pairs of the r rows of a (each of length n) until every pair is
+     * orthogonal, applying the same rotations to the rows of w.
+     */
+    private static void rotate(final double[] a, final int r, final int n, final double[] w) {
+        for (int sweep = 0; sweep < MAX_SWEEPS; sweep++) {
+            boolean rotated = false;
+            for (int p = 0; p < r - 1; p++) {
+                for (int q = p + 1; q < r; q++) {
+                    final double alpha = dot(a, p * n, a, p * n, n);
+                    final double beta = dot(a, q * n, a, q * n, n);
+                    final double gamma = dot(a, p * n, a, q * n, n);
+                    if (Math.abs(gamma) <= ORTHOGONAL * Math.sqrt(alpha * beta))
+                        continue;
+                    rotated = true;
+                    // the rotation that zeroes the off-diagonal element of [[alpha, gamma], [gamma, beta]]
+                    final double zeta = (beta - alpha) / (2 * gamma);
+                    final double t = (zeta >= 0 ? 1 : -1) / (Math.abs(zeta) + Math.sqrt(1 + zeta * zeta));
+                    final double cos = 1 / Math.sqrt(1 + t * t);
+                    final double sin = cos * t;
+                    rotateRows(a, p * n, q * n, n, cos, sin);
+                    rotateRows(w, p * r, q * r, r, cos, sin);
+                }
+            }
+            if (!rotated)
+                return;
+        }
+    }
+
+    private static void rotateRows(final double[] a, final int p, final int q, final int n, final double cos,
+            final double sin) {
+        for (int j = 0; j < n; j++) {
+            final double x = a[p + j];
+            final double y = a[q + j];
+            a[p + j] = cos * x - sin * y;
+            a[q + j] = sin * x + cos * y;
+        }
+    }
+
+    /**
+     * orthonormalizes the count rows of a (each of length n) in place by Gram-Schmidt with a second projection pass.
+     * a row that is dependent on the rows before it becomes zero. if r is given, it receives the count x count upper
+     * triangular factor, so that the original row j is the sum over i of r[i][j] times the new row i.
+     */
+    private static void orthonormalize(final double[] a, final int count, final int n, final double[] r) {
+        for (int j = 0; j < count; j++) {
+            final int row = j * n;
+            final double original = Math.sqrt(dot(a, row, a, row, n));
+            for (int pass = 0; pass < 2; pass++) {
+                for (int i = 0; i < j; i++) {
+                    final double projection = dot(a, i * n, a, row, n);
+                    for (int k = 0; k < n; k++)
+                        a[row + k] -= projection * a[i * n + k];
+                    if (r != null)
+                        r[i * count + j] += projection;
+                }
+            }
+            final double norm = Math.sqrt(dot(a, row, a, row, n));
+            if (norm <= DEPENDENT * original || norm == 0) {
+                Arrays.fill(a, row, row + n, 0);
+                continue;
+            }
+            for (int k = 0; k < n; k++)
+                a[row + k] /= norm;
+            if (r != null)
+                r[j * count + j] = norm;
+        }
+    }
+
+    private static double dot(final double[] a, final int aOff, final double[] b, final int bOff, final int n) {
+        double sum = 0;
+        for (int k = 0; k < n; k++)
+            sum += a[aOff + k] * b[bOff + k];
+        return sum;
+    }
+}
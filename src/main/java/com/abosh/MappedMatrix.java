@@ -0,0 +1,386 @@
+package com.abosh;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * a matrix stored in a memory-mapped file instead of on the Java heap, so it can be larger than the heap and is never
+ * scanned by the garbage collector. the operating system's page cache decides which parts are resident.
+ *
+ * the file starts with a fixed 32-byte header holding the dimensions, layout and element type, followed by the
+ * row-major little-endian elements, which is the binary format of {@link MatrixIO}. a file can therefore be reopened,
+ * or opened after being written with {@link MatrixIO#writeTo}, without parsing anything but the header.
+ *
+ * a single mapping is limited to 2 GiB, so the data region is mapped in fixed-size chunks. operations that touch many
+ * elements stream through the file in blocks of whole rows and hand each block to the regular {@link Matrix}
+ * kernels.
+ *
+ * @author Abosh Upadhyaya
+ */
+public class MappedMatrix implements Closeable {
+    /** log2 of the number of doubles per mapped chunk; 2^27 doubles is 1 GiB. */
+    static final int DEFAULT_CHUNK_SHIFT = 27;
+    /** rough number of elements held on the heap per streamed block. */
+    static final int BLOCK_ELEMENTS = 1 << 16;
+
+    // private data fields
+    private final FileChannel channel;
+    private final DoubleBuffer[] chunks;
+    private final int chunkShift;
+    private final int rows;
+    private final int cols;
+
+    private MappedMatrix(final FileChannel channel, final boolean writable, final int rows, final int cols,
+            final int chunkShift) throws IOException {
+        this.channel = channel;
+        this.rows = rows;
+        this.cols = cols;
+        this.chunkShift = chunkShift;
+        final long elements = (long) rows * cols;
+        final long chunkElements = 1L << chunkShift;
+        this.chunks = new DoubleBuffer[(int) ((elements + chunkElements - 1) >>> chunkShift)];
+        for (int i = 0; i < chunks.length; i++) {
+            final long first = (long) i << chunkShift;
+            final long count = Math.min(chunkElements, elements - first);
+            final MappedByteBuffer mapped = channel.map(
+                writable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY,
+                MatrixFileHeader.SIZE + first * Double.BYTES, count * Double.BYTES);
+            chunks[i] = mapped.order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+        }
+    }
+
+    /**
+     * creates a new matrix file, replacing any existing file, with all values initialized to 0.
+     *
+     * @param file path of the file to create
+     * @param rows number of rows in matrix
+     * @param cols number of columns in matrix
+     * @return the mapped matrix, open for reading and writing
+     * @throws IOException if the file cannot be created or mapped
+     */
+    public static MappedMatrix create(final Path file, final int rows, final int cols) throws IOException {
+        return create(file, rows, cols, DEFAULT_CHUNK_SHIFT);
+    }
+
+    static MappedMatrix create(final Path file, final int rows, final int cols, final int chunkShift)
+            throws IOException {
+        if (rows < 0 || cols < 0)
+            throw new IllegalArgumentException("The number of rows and columns cannot be negative.");
+        final FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            final ByteBuffer header = MatrixFileHeader.encode(rows, cols);
+            while (header.hasRemaining())
+                channel.write(header);
+            // writing the last byte extends the file; the file system fills the gap with zeros
+            final long size = MatrixFileHeader.SIZE + (long) rows * cols * Double.BYTES;
+            if (size > MatrixFileHeader.SIZE)
+                channel.write(ByteBuffer.allocate(1), size - 1);
+            return new MappedMatrix(channel, true, rows, cols, chunkShift);
+        } catch (final IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * opens an existing matrix file.
+     *
+     * @param file     path of the file to open
+     * @param writable whether changes made through setValue and the in-place operations are allowed
+     * @return the mapped matrix
+     * @throws IOException if the file cannot be read, is not a matrix file, or is shorter than its header says
+     */
+    public static MappedMatrix open(final Path file, final boolean writable) throws IOException {
+        return open(file, writable, DEFAULT_CHUNK_SHIFT);
+    }
+
+    static MappedMatrix open(final Path file, final boolean writable, final int chunkShift) throws IOException {
+        final FileChannel channel = writable
+            ? FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)
+            : FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            final ByteBuffer buffer = ByteBuffer.allocate(MatrixFileHeader.SIZE);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, buffer.position()) < 0)
+                    break;
+            }
+            buffer.flip();
+            final MatrixFileHeader header = MatrixFileHeader.decode(buffer);
+            if (header.rows > Integer.MAX_VALUE || header.cols > Integer.MAX_VALUE)
+                throw new IOException("The matrix dimensions exceed the supported range.");
+            // compared in elements: both dimensions fit in an int, but their product in bytes can overflow a long
+            if (header.rows * header.cols > (channel.size() - MatrixFileHeader.SIZE) / Double.BYTES)
+                throw new IOException("The file is shorter than the matrix its header describes.");
+            return new MappedMatrix(channel, writable, (int) header.rows, (int) header.cols, chunkShift);
+        } catch (final IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * returns a value at specified indices in the matrix.
+     *
+     * @param r row index
+     * @param c column index
+     * @return a value in the matrix
+     */
+    public double getValue(final int r, final int c) {
+        final long index = index(r, c);
+        return chunks[(int) (index >>> chunkShift)].get((int) (index & ((1L << chunkShift) - 1)));
+    }
+
+    /**
+     * sets the value of one position in the matrix.
+     *
+     * @param r     row index
+     * @param c     column index
+     * @param value value to set
+     */
+    public void setValue(final int r, final int c, final double value) {
+        final long index = index(r, c);
+        chunks[(int) (index >>> chunkShift)].put((int) (index & ((1L << chunkShift) - 1)), value);
+    }
+
+    /**
+     * returns a copy of a specified row in the matrix.
+     * @param r row index
+     * @return the specified row
+     */
+    public double[] getRow(final int r) {
+        final double[] row = new double[cols];
+        readRows(r, 1, row, 0);
+        return row;
+    }
+
+    /**
+     * sets values for a row in the matrix starting at the beginning of the row.
+     *
+     * @param r      row index
+     * @param values values to set
+     */
+    public void setRow(final int r, final double[] values) {
+        if (values.length > cols)
+            throw new IllegalArgumentException("There cannot be more values than columns in the matrix.");
+        if (r < 0 || r >= rows)
+            throw new IllegalArgumentException("The specified row index exceeds the number of rows in the matrix.");
+        transfer((long) r * cols, values, 0, values.length, true);
+    }
+
+    /**
+     * multiplies this matrix by a heap matrix, streaming through this matrix a block of rows at a time.
+     *
+     * @param multiplicand matrix to multiply this matrix by
+     * @return a new multiplied matrix on the heap
+     */
+    public Matrix multiply(final Matrix multiplicand) {
+        checkMultiplicand(multiplicand);
+        final int n = multiplicand.getCols();
+        final Matrix product = new Matrix(rows, n);
+        final int blockRows = blockRows();
+        final double[] block = new double[elements(blockRows)];
+        for (int r0 = 0; r0 < rows; r0 += blockRows) {
+            final int count = Math.min(blockRows, rows - r0);
+            readRows(r0, count, block, 0);
+            Matrix.multiplyInto(new Matrix(block, 0, cols, count, cols), multiplicand,
+                new Matrix(product.getData(), r0 * n, n, count, n), 1.0, 0.0);
+        }
+        return product;
+    }
+
+    /**
+     * multiplies this matrix by a heap matrix and writes the product to a new matrix file, so tall products never
+     * have to fit on the heap.
+     *
+     * @param multiplicand matrix to multiply this matrix by
+     * @param file         path of the file to create for the product
+     * @return the mapped product
+     * @throws IOException if the product file cannot be created
+     */
+    public MappedMatrix multiply(final Matrix multiplicand, final Path file) throws IOException {
+        checkMultiplicand(multiplicand);
+        final int n = multiplicand.getCols();
+        final MappedMatrix product = create(file, rows, n, chunkShift);
+        final int blockRows = Math.max(1, Math.min(rows, BLOCK_ELEMENTS / Math.max(1, Math.max(cols, n))));
+        final double[] block = new double[elements(blockRows)];
+        final double[] productBlock = new double[product.elements(blockRows)];
+        for (int r0 = 0; r0 < rows; r0 += blockRows) {
+            final int count = Math.min(blockRows, rows - r0);
+            readRows(r0, count, block, 0);
+            Matrix.multiplyInto(new Matrix(block, 0, cols, count, cols), multiplicand,
+                new Matrix(productBlock, 0, n, count, n), 1.0, 0.0);
+            product.writeRows(r0, count, productBlock, 0);
+        }
+        return product;
+    }
+
+    /**
+     * returns a summed matrix of an inputted matrix with this matrix, written to a new matrix file.
+     *
+     * @param addend matrix to be added to this matrix
+     * @param file   path of the file to create for the sum
+     * @return the mapped sum
+     * @throws IOException if the sum file cannot be created
+     */
+    public MappedMatrix add(final MappedMatrix addend, final Path file) throws IOException {
+        checkDimensions(addend);
+        final MappedMatrix sum = create(file, rows, cols, chunkShift);
+        final int blockRows = blockRows();
+        final double[] block = new double[elements(blockRows)];
+        final double[] addendBlock = new double[elements(blockRows)];
+        for (int r0 = 0; r0 < rows; r0 += blockRows) {
+            final int count = Math.min(blockRows, rows - r0);
+            readRows(r0, count, block, 0);
+            addend.readRows(r0, count, addendBlock, 0);
+            MatrixKernels.add(1, elements(count), block, 0, 0, addendBlock, 0, 0, block, 0, 0);
+            sum.writeRows(r0, count, block, 0);
+        }
+        return sum;
+    }
+
+    /**
+     * modifies this matrix by adding another matrix to it.
+     *
+     * @param addend matrix to be added to this matrix
+     */
+    public void addInPlace(final MappedMatrix addend) {
+        checkDimensions(addend);
+        final int blockRows = blockRows();
+        final double[] block = new double[elements(blockRows)];
+        final double[] addendBlock = new double[elements(blockRows)];
+        for (int r0 = 0; r0 < rows; r0 += blockRows) {
+            final int count = Math.min(blockRows, rows - r0);
+            readRows(r0, count, block, 0);
+            addend.readRows(r0, count, addendBlock, 0);
+            MatrixKernels.add(1, elements(count), block, 0, 0, addendBlock, 0, 0, block, 0, 0);
+            writeRows(r0, count, block, 0);
+        }
+    }
+
+    /**
+     * copies this matrix onto the heap.
+     * @return a heap copy of this matrix
+     */
+    public Matrix toMatrix() {
+        if ((long) rows * cols > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("The matrix has too many elements to be stored in a single array.");
+        final Matrix m = new Matrix(rows, cols);
+        readRows(0, rows, m.getData(), 0);
+        return m;
+    }
+
+    /**
+     * copies a range of whole rows into an array.
+     *
+     * @param r     first row to copy
+     * @param count number of rows to copy
+     * @param dest  array receiving the rows back to back
+     * @param off   index in dest to start at
+     */
+    public void readRows(final int r, final int count, final double[] dest, final int off) {
+        checkRows(r, count);
+        transfer((long) r * cols, dest, off, elements(count), false);
+    }
+
+    /**
+     * copies a range of whole rows from an array into the matrix.
+     *
+     * @param r      first row to write
+     * @param count  number of rows to write
+     * @param source array holding the rows back to back
+     * @param off    index in source to start at
+     */
+    public void writeRows(final int r, final int count, final double[] source, final int off) {
+        checkRows(r, count);
+        transfer((long) r * cols, source, off, elements(count), true);
+    }
+
+    /**
+     * forces changes made to the matrix out to the storage device.
+     * @throws IOException if the changes cannot be written
+     */
+    public void force() throws IOException {
+        channel.force(false);
+    }
+
+    /**
+     * closes the underlying file. the mapping itself is released by the JVM once this object is unreachable.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    private void transfer(final long first, final double[] array, final int off, final int len,
+            final boolean write) {
+        final long mask = (1L << chunkShift) - 1;
+        long index = first;
+        int done = 0;
+        while (done < len) {
+            // duplicate() gives every transfer its own position, so concurrent readers do not interfere
+            final DoubleBuffer chunk = chunks[(int) (index >>> chunkShift)].duplicate();
+            chunk.position((int) (index & mask));
+            final int n = Math.min(len - done, chunk.remaining());
+            if (write)
+                chunk.put(array, off + done, n);
+            else
+                chunk.get(array, off + done, n);
+            done += n;
+            index += n;
+        }
+    }
+
+    private long index(final int r, final int c) {
+        if (r < 0 || r >= rows || c < 0 || c >= cols)
+            throw new IllegalArgumentException("The specified location exceeds the matrix's row or column bounds.");
+        return (long) r * cols + c;
+    }
+
+    private int blockRows() {
+        return Math.max(1, Math.min(rows, BLOCK_ELEMENTS / Math.max(1, cols)));
+    }
+
+    /**
+     * returns the number of elements in count whole rows, computed in long so it cannot wrap around.
+     */
+    private int elements(final int count) {
+        final long elements = (long) count * cols;
+        if (elements > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("The rows have too many elements to be stored in a single array.");
+        return (int) elements;
+    }
+
+    private void checkRows(final int r, final int count) {
+        if (r < 0 || count < 0 || r + count > rows)
+            throw new IllegalArgumentException("The specified rows exceed the matrix's row bounds.");
+    }
+
+    private void checkMultiplicand(final Matrix multiplicand) {
+        if (cols != multiplicand.getRows())
+            throw new IllegalArgumentException(
+                "The number of columns in this matrix must equal the number of rows in the multiplicand matrix.");
+    }
+
+    private void checkDimensions(final MappedMatrix m) {
+        if (m.rows != rows || m.cols != cols)
+            throw new IllegalArgumentException(
+                String.format("Expected %d rows and %d columns. Received %d rows and %d columns.",
+                    rows, cols, m.rows, m.cols));
+    }
+}
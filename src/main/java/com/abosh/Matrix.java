@@ -1,13 +1,20 @@
 package com.abosh;
 
 import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
 
 /**
  * @author Abosh Upadhyaya
  */
-public class Matrix {
+public class Matrix implements LinearOperator {
     // private data fields
-    private final double[][] matrix;
+    // values are stored row-major in one contiguous array; element (r, c) lives at offset + r * stride + c
+    private final double[] data;
+    private final int offset;
+    private final int stride;
     private final int rows;
     private final int cols;
 
@@ -18,7 +25,39 @@ public class Matrix {
      * @param cols number of columns in matrix
      */
     public Matrix(final int rows, final int cols) {
-        this.matrix = new double[rows][cols];
+        if (rows < 0 || cols < 0)
+            throw new IllegalArgumentException("The number of rows and columns cannot be negative.");
+        if ((long) rows * cols > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("The matrix has too many elements to be stored in a single array.");
+        this.data = new double[rows * cols];
+        this.offset = 0;
+        this.stride = cols;
+        this.rows = rows;
+        this.cols = cols;
+    }
+
+    /**
+     * wraps an existing row-major array without copying it. element (r, c) of the matrix is read from and written to
+     * data[offset + r * leadingDimension + c], so changes to the array are visible through the matrix and vice versa.
+     * 
+     * @param data             backing array
+     * @param offset           index of element (0, 0) in data[]
+     * @param leadingDimension distance in data[] between the starts of two consecutive rows
+     * @param rows             number of rows in matrix
+     * @param cols             number of columns in matrix
+     */
+    public Matrix(final double[] data, final int offset, final int leadingDimension, final int rows,
+            final int cols) {
+        if (rows < 0 || cols < 0)
+            throw new IllegalArgumentException("The number of rows and columns cannot be negative.");
+        if (leadingDimension < cols)
+            throw new IllegalArgumentException("The leading dimension cannot be smaller than the number of columns.");
+        if (offset < 0 || (rows > 0 && cols > 0
+                && offset + (long) (rows - 1) * leadingDimension + cols > data.length))
+            throw new IllegalArgumentException("The matrix exceeds the bounds of the backing array.");
+        this.data = data;
+        this.offset = offset;
+        this.stride = leadingDimension;
         this.rows = rows;
         this.cols = cols;
     }
@@ -29,9 +68,20 @@ public class Matrix {
      * @param m matrix to be copied
      */
     public Matrix(final Matrix copy) {
+        // read the clock before the allocation, like every other timed operation
+        this(copy, MatrixMetrics.ENABLED ? System.nanoTime() : 0);
+    }
+
+    private Matrix(final Matrix copy, final long start) {
         this(copy.getRows(), copy.getCols());
-        for (int r = 0; r < rows; r++)
-            System.arraycopy(copy.matrix[r], 0, this.matrix[r], 0, cols);
+        if (copy.isContiguous()) {
+            System.arraycopy(copy.data, copy.offset, this.data, 0, rows * cols);
+        } else {
+            for (int r = 0; r < rows; r++)
+                System.arraycopy(copy.data, copy.offset + r * copy.stride, this.data, r * cols, cols);
+        }
+        if (MatrixMetrics.ENABLED)
+            MatrixMetrics.record(MatrixMetrics.Operation.COPY, rows, cols, 0, start);
     }
 
     /**
@@ -39,19 +89,11 @@ public class Matrix {
      * to a default state.
      */
     public void gLoadIdentity() {
-        if (this.rows != this.cols)
-            throw new IllegalArgumentException(
-                "An identity matrix must be square, i.e. the number of rows and columns must be equal.");
-        // where the 1 will be located
-        int i = 0;
+        checkSquare("An identity matrix");
         for (int r = 0; r < this.rows; r++) {
-            for (int c = 0; c < this.cols; c++) {
-                if (c == i)
-                    matrix[r][i] = 1.0;
-                else
-                    matrix[r][c] = 0.0;
-            }
-            i++;
+            final int start = offset + r * stride;
+            Arrays.fill(data, start, start + cols, 0.0);
+            data[start + r] = 1.0;
         }
     }
 
@@ -85,7 +127,7 @@ public class Matrix {
         if (i + len > values.length)
             throw new IllegalArgumentException(
                 "The number of components to be copied from the inputted array exceed its bounds.");
-        System.arraycopy(values, i, matrix[r], 0, len);
+        System.arraycopy(values, i, data, offset + Objects.checkIndex(r, rows) * stride, len);
     }
 
     /**
@@ -96,10 +138,10 @@ public class Matrix {
      * @param value value to set
      */
     public void setValue(final int r, final int c, final double value) {
-        if (r >= rows || c >= cols)
+        if (r < 0 || r >= rows || c < 0 || c >= cols)
             throw new IllegalArgumentException(
                 "The specified location exceeds the matrix's row or column bounds.");
-        matrix[r][c] = value;
+        data[offset + r * stride + c] = value;
     }
 
     /**
@@ -109,9 +151,12 @@ public class Matrix {
      * @return a summed matrix
      */
     public Matrix add(final Matrix addend) {
-        // reconstructs addend so it can be returned once summed
-        final Matrix sum = new Matrix(addend);
-        sum.addInPlace(this);
+        checkDimensions(addend);
+        final long start = MatrixMetrics.ENABLED ? System.nanoTime() : 0;
+        final Matrix sum = new Matrix(rows, cols);
+        addInto(this, addend, sum);
+        if (MatrixMetrics.ENABLED)
+            MatrixMetrics.record(MatrixMetrics.Operation.ADD, rows, cols, 0, start);
         return sum;
     }
 
@@ -121,16 +166,29 @@ public class Matrix {
      * @param addend matrix to be added to current matrix.
      */
     public void addInPlace(final Matrix addend) {
-        if (!dimensionEquality(addend))
-            throw new IllegalArgumentException(
-                    String.format("Expected %d rows and %d columns. Received %d rows and %d columns.",
-                            this.getRows(), this.getCols(), addend.getRows(), addend.getRows()));
+        checkDimensions(addend);
+        final long start = MatrixMetrics.ENABLED ? System.nanoTime() : 0;
         // add the matrices
-        for (int r = 0; r < rows; r++) {
-            for (int c = 0; c < cols; c++) {
-                matrix[r][c] += addend.getValue(r, c);
-            }
-        }
+        MatrixKernels.add(rows, cols, data, offset, stride, addend.data, addend.offset, addend.stride,
+            data, offset, stride);
+        if (MatrixMetrics.ENABLED)
+            MatrixMetrics.record(MatrixMetrics.Operation.ADD_IN_PLACE, rows, cols, 0, start);
+    }
+
+    /**
+     * modifies current matrix by adding new matrix to it, splitting large matrices into row and column blocks that
+     * are added concurrently in the given pool. matrices below the sequential cutoff are added on the calling thread.
+     * 
+     * @param addend matrix to be added to current matrix.
+     * @param pool   pool to run the blocks in
+     */
+    public void addInPlace(final Matrix addend, final ForkJoinPool pool) {
+        checkDimensions(addend);
+        final long start = MatrixMetrics.ENABLED ? System.nanoTime() : 0;
+        ParallelKernels.elementwise(pool, false, rows, cols, data, offset, stride,
+            addend.data, addend.offset, addend.stride, data, offset, stride);
+        if (MatrixMetrics.ENABLED)
+            MatrixMetrics.record(MatrixMetrics.Operation.ADD_IN_PLACE, rows, cols, 0, start);
     }
 
     /**
@@ -139,9 +197,12 @@ public class Matrix {
      * @return a subtracted matrix
      */
     public Matrix subtract(final Matrix subtrahend) {
-        // reconstructs subtrahend so a new matrix can be returned
-        final Matrix difference = new Matrix(this);
-        difference.subtractInPlace(subtrahend);
+        checkDimensions(subtrahend);
+        final long start = MatrixMetrics.ENABLED ? System.nanoTime() : 0;
+        final Matrix difference = new Matrix(rows, cols);
+        subtractInto(this, subtrahend, difference);
+        if (MatrixMetrics.ENABLED)
+            MatrixMetrics.record(MatrixMetrics.Operation.SUBTRACT, rows, cols, 0, start);
         return difference;
     }
 
@@ -151,39 +212,647 @@ public class Matrix {
      */
     public void subtractInPlace(final Matrix subtrahend) {
         // matrix rows and columns must be equivalent for matrix subtraction
-        if (!dimensionEquality(subtrahend))
+        checkDimensions(subtrahend);
+        final long start = MatrixMetrics.ENABLED ? System.nanoTime() : 0;
+        MatrixKernels.subtract(rows, cols, data, offset, stride, subtrahend.data, subtrahend.offset,
+            subtrahend.stride, data, offset, stride);
+        if (MatrixMetrics.ENABLED)
+            MatrixMetrics.record(MatrixMetrics.Operation.SUBTRACT_IN_PLACE, rows, cols, 0, start);
+    }
+
+    /**
+     * subtracts an inputted matrix from the current matrix object, splitting large matrices into row and column
+     * blocks that are subtracted concurrently in the given pool. matrices below the sequential cutoff are subtracted on
+     * the calling thread.
+     * @param subtrahend matrix to subtract
+     * @param pool       pool to run the blocks in
+     */
+    public void subtractInPlace(final Matrix subtrahend, final ForkJoinPool pool) {
+        checkDimensions(subtrahend);
+        final long start = MatrixMetrics.ENABLED ? System.nanoTime() : 0;
+        ParallelKernels.elementwise(pool, true, rows, cols, data, offset, stride,
+            subtrahend.data, subtrahend.offset, subtrahend.stride, data, offset, stride);
+        if (MatrixMetrics.ENABLED)
+            MatrixMetrics.record(MatrixMetrics.Operation.SUBTRACT_IN_PLACE, rows, cols, 0, start);
+    }
+
+    /**
+     * adds a transposed view to this matrix, returning a new matrix. the view's parent is read tile by tile in
+     * transposed order; it is never copied.
+     *
+     * @param addend transposed matrix to be added to current matrix
+     * @return a summed matrix
+     */
+    public Matrix add(final TransposedMatrix addend) {
+        checkDimensions(addend.getRows(), addend.getCols());
+        final long start = MatrixMetrics.ENABLED ? System.nanoTime() : 0;
+        final Matrix sum = new Matrix(rows, cols);
+        final Matrix parent = addend.transpose();
+        MatrixKernels.addTransposed(rows, cols, false, data, offset, stride, parent.data, parent.offset,
+            parent.stride, sum.data, 0, cols);
+        if (MatrixMetrics.ENABLED)
+            MatrixMetrics.record(MatrixMetrics.Operation.ADD, rows, cols, 0, start);
+        return sum;
+    }
+
+    /**
+     * modifies current matrix by adding a transposed view to it. a view of this matrix itself, as in
+     * {@code a.addInPlace(a.transposedView())}, is copied first, since it would otherwise change while being read.
+     *
+     * @param addend transposed matrix to be added to current matrix
+     */
+    public void addInPlace(final TransposedMatrix addend) {
+        checkDimensions(addend.getRows(), addend.getCols());
+        final long start = MatrixMetrics.ENABLED ? System.nanoTime() : 0;
+        final Matrix parent = unaliased(addend.transpose());
+        MatrixKernels.addTransposed(rows, cols, false, data, offset, stride, parent.data, parent.offset,
+            parent.stride, data, offset, stride);
+        if (MatrixMetrics.ENABLED)
+            MatrixMetrics.record(MatrixMetrics.Operation.ADD_IN_PLACE, rows, cols, 0, start);
+    }
+
+    /**
+     * subtracts a transposed view from this matrix, returning a new matrix.
+     *
+     * @param subtrahend transposed matrix to subtract
+     * @return a subtracted matrix
+     */
+    public Matrix subtract(final TransposedMatrix subtrahend) {
+        checkDimensions(subtrahend.getRows(), subtrahend.getCols());
+        final long start = MatrixMetrics.ENABLED ? System.nanoTime() : 0;
+        final Matrix difference = new Matrix(rows, cols);
+        final Matrix parent = subtrahend.transpose();
+        MatrixKernels.addTransposed(rows, cols, true, data, offset, stride, parent.data, parent.offset,
+            parent.stride, difference.data, 0, cols);
+        if (MatrixMetrics.ENABLED)
+            MatrixMetrics.record(MatrixMetrics.Operation.SUBTRACT, rows, cols, 0, start);
+        return difference;
+    }
+
+    /**
+     * subtracts a transposed view from this matrix. a view of this matrix itself is copied first.
+     *
+     * @param subtrahend transposed matrix to subtract
+     */
+    public void subtractInPlace(final TransposedMatrix subtrahend) {
+        checkDimensions(subtrahend.getRows(), subtrahend.getCols());
+        final long start = MatrixMetrics.ENABLED ? System.nanoTime() : 0;
+        final Matrix parent = unaliased(subtrahend.transpose());
+        MatrixKernels.addTransposed(rows, cols, true, data, offset, stride, parent.data, parent.offset,
+            parent.stride, data, offset, stride);
+        if (MatrixMetrics.ENABLED)
+            MatrixMetrics.record(MatrixMetrics.Operation.SUBTRACT_IN_PLACE, rows, cols, 0, start);
+    }
+
+    /**
+     * returns m, or a copy of it if it is backed by the same array as this matrix.
+     */
+    private Matrix unaliased(final Matrix m) {
+        return m.data == data ? new Matrix(m) : m;
+    }
+
+    /**
+     * multiplies two matrices together. large products are computed with a cache-blocked kernel; the result is
+     * identical to the one of the textbook triple loop because every element sums its terms in the same order.
+     * 
+     * @param multiplicand matrix to multiply this.matrix by
+     * @return a new multiplied matrix
+     */
+    public Matrix multiply(final Matrix multiplicand) {
+        checkMultiplicand(multiplicand);
+        final long start = MatrixMetrics.ENABLED ? System.nanoTime() : 0;
+        final Matrix product = new Matrix(this.rows, multiplicand.getCols());
+        if (product.cols == 1)
+            MatrixKernels.gemv(rows, cols, 1.0, data, offset, stride,
+                multiplicand.data, multiplicand.offset, multiplicand.stride, 0.0, product.data, 0);
+        else
+            MatrixKernels.multiplyAdd(rows, product.cols, cols, data, offset, stride,
+                multiplicand.data, multiplicand.offset, multiplicand.stride, product.data, 0, product.cols);
+        if (MatrixMetrics.ENABLED)
+            MatrixMetrics.record(MatrixMetrics.Operation.MULTIPLY, rows, product.cols, cols, start);
+        return product;
+    }
+
+    /**
+     * multiplies two matrices together, recursively splitting the product into row and column blocks that are
+     * computed concurrently in the given pool. products below the sequential cutoff are computed on the calling
+     * thread. the result is identical to the one of {@link #multiply(Matrix)}.
+     * 
+     * @param multiplicand matrix to multiply this.matrix by
+     * @param pool         pool to run the blocks in
+     * @return a new multiplied matrix
+     */
+    public Matrix multiply(final Matrix multiplicand, final ForkJoinPool pool) {
+        checkMultiplicand(multiplicand);
+        final long start = MatrixMetrics.ENABLED ? System.nanoTime() : 0;
+        final Matrix product = new Matrix(this.rows, multiplicand.getCols());
+        ParallelKernels.multiplyAdd(pool, rows, product.cols, cols, data, offset, stride,
+            multiplicand.data, multiplicand.offset, multiplicand.stride, product.data, 0, product.cols);
+        if (MatrixMetrics.ENABLED)
+            MatrixMetrics.record(MatrixMetrics.Operation.MULTIPLY, rows, product.cols, cols, start);
+        return product;
+    }
+
+    /**
+     * multiplies two matrices together with the Strassen-Winograd algorithm, which needs O(n^2.81) operations instead
+     * of O(n^3) and wins for large products. the recursion stops at the crossover set by the system property
+     * {@code com.abosh.matrix.strassenCutoff} (256 by default), below which the classical kernel is used, and odd
+     * dimensions are handled by peeling off the last row or column. the result is not bitwise identical to the one of
+     * {@link #multiply(Matrix)}: the error is bounded in norm rather than element by element, and grows slightly faster
+     * with the size.
+     *
+     * @param multiplicand matrix to multiply this.matrix by
+     * @return a new multiplied matrix
+     */
+    public Matrix multiplyStrassen(final Matrix multiplicand) {
+        return multiplyStrassen(multiplicand, null);
+    }
+
+    /**
+     * multiplies two matrices together with the Strassen-Winograd algorithm, running the seven sub-products of the top
+     * levels concurrently in the given pool. the result is identical to the one of {@link #multiplyStrassen(Matrix)}.
+     *
+     * @param multiplicand matrix to multiply this.matrix by
+     * @param pool         pool to run the sub-products in, or null to run on the calling thread
+     * @return a new multiplied matrix
+     */
+    public Matrix multiplyStrassen(final Matrix multiplicand, final ForkJoinPool pool) {
+        checkMultiplicand(multiplicand);
+        final long start = MatrixMetrics.ENABLED ? System.nanoTime() : 0;
+        final Matrix product = new Matrix(this.rows, multiplicand.getCols());
+        StrassenKernels.multiply(rows, product.cols, cols, data, offset, stride,
+            multiplicand.data, multiplicand.offset, multiplicand.stride, product.data, 0, product.cols,
+            StrassenKernels.CUTOFF, pool);
+        if (MatrixMetrics.ENABLED)
+            MatrixMetrics.record(MatrixMetrics.Operation.MULTIPLY, rows, product.cols, cols, start);
+        return product;
+    }
+
+    /**
+     * multiplies this matrix by a transposed view. every element of the product is the dot product of a row of this
+     * matrix with a row of the view's parent, so the parent is read in storage order and never copied.
+     *
+     * @param multiplicand transposed matrix to multiply this.matrix by
+     * @return a new multiplied matrix
+     */
+    public Matrix multiply(final TransposedMatrix multiplicand) {
+        final Matrix parent = multiplicand.transpose();
+        if (this.cols != parent.cols)
             throw new IllegalArgumentException(
-                    String.format("Expected %d rows and %d columns. Received %d rows and %d columns.",
-                            this.getRows(), this.getCols(), subtrahend.getRows(), subtrahend.getRows()));
+                "The number of columns in this matrix must equal the number of rows in the multiplicand matrix.");
+        final long start = MatrixMetrics.ENABLED ? System.nanoTime() : 0;
+        final Matrix product = new Matrix(rows, parent.rows);
+        multiplyInto(this, false, parent, true, product, 1.0, 0.0);
+        if (MatrixMetrics.ENABLED)
+            MatrixMetrics.record(MatrixMetrics.Operation.MULTIPLY, rows, product.cols, cols, start);
+        return product;
+    }
+
+    /**
+     * computes y = this * x directly on arrays, without wrapping the vectors in matrices. four rows are processed per
+     * pass so each element of x is loaded once for four dot products.
+     *
+     * @param x vector of length getCols()
+     * @param y vector of length getRows() to store the result in
+     */
+    public void multiplyVector(final double[] x, final double[] y) {
+        checkVectors(rows, cols, x, y);
+        final long start = MatrixMetrics.ENABLED ? System.nanoTime() : 0;
+        MatrixKernels.gemv(rows, cols, 1.0, data, offset, stride, x, 0, 1, 0.0, y, 0);
+        if (MatrixMetrics.ENABLED)
+            MatrixMetrics.record(MatrixMetrics.Operation.MULTIPLY, rows, 1, cols, start);
+    }
+
+    /**
+     * computes y = this^T * x directly on arrays. the matrix is still read row by row, in storage order, with each row
+     * added to y scaled by its element of x, so the transpose costs no more than the plain product.
+     *
+     * @param x vector of length getRows()
+     * @param y vector of length getCols() to store the result in
+     */
+    public void multiplyTransposedVector(final double[] x, final double[] y) {
+        checkVectors(cols, rows, x, y);
+        final long start = MatrixMetrics.ENABLED ? System.nanoTime() : 0;
+        MatrixKernels.gemvTransposed(rows, cols, 1.0, data, offset, stride, x, 0, 0.0, y, 0);
+        if (MatrixMetrics.ENABLED)
+            MatrixMetrics.record(MatrixMetrics.Operation.MULTIPLY, cols, 1, rows, start);
+    }
 
+    /**
+     * multiplies a batch of vectors by this matrix, i.e. computes ys[i] = this * xs[i] for every vector in the batch.
+     * the vectors are packed one after another: vector i occupies xs[i * getCols()] to xs[(i + 1) * getCols() - 1] and
+     * its product ys[i * getRows()] to ys[(i + 1) * getRows() - 1]. the matrix is read in panels that stay in cache
+     * while the whole batch streams through them, which is much faster than multiplying the vectors one at a time
+     * once the matrix outgrows the cache. the results are identical to the ones of {@link #multiplyVector}.
+     *
+     * @param xs    packed input vectors; may be longer than needed
+     * @param ys    array to store the packed products in; may be longer than needed
+     * @param count number of vectors in the batch
+     */
+    public void multiplyVectors(final double[] xs, final double[] ys, final int count) {
+        checkBatch(rows, cols, xs, ys, count);
+        final long start = MatrixMetrics.ENABLED ? System.nanoTime() : 0;
+        // (ys as count x rows) = (xs as count x cols) * this^T
+        MatrixKernels.gemm(count, rows, cols, 1.0, xs, 0, cols, 1, data, offset, 1, stride, 0.0, ys, 0, rows);
+        if (MatrixMetrics.ENABLED)
+            MatrixMetrics.record(MatrixMetrics.Operation.MULTIPLY, count, rows, cols, start);
+    }
+
+    /**
+     * multiplies a batch of vectors by the transpose of this matrix, i.e. computes ys[i] = this^T * xs[i], with the
+     * vectors packed as in {@link #multiplyVectors}: each input has getRows() elements and each product getCols().
+     * the batch is computed as one cache-blocked matrix product.
+     *
+     * @param xs    packed input vectors; may be longer than needed
+     * @param ys    array to store the packed products in; may be longer than needed
+     * @param count number of vectors in the batch
+     */
+    public void multiplyTransposedVectors(final double[] xs, final double[] ys, final int count) {
+        checkBatch(cols, rows, xs, ys, count);
+        final long start = MatrixMetrics.ENABLED ? System.nanoTime() : 0;
+        // (ys as count x cols) = (xs as count x rows) * this
+        MatrixKernels.gemm(count, cols, rows, 1.0, xs, 0, rows, 1, data, offset, stride, 1, 0.0, ys, 0, cols);
+        if (MatrixMetrics.ENABLED)
+            MatrixMetrics.record(MatrixMetrics.Operation.MULTIPLY, count, cols, rows, start);
+    }
+
+    /**
+     * multiplies this matrix by a sparse matrix in CSR form. each element of this matrix scales one sparse row into
+     * the product, so the cost is O(rows * (cols + non-zeros)).
+     * 
+     * @param multiplicand sparse matrix to multiply this.matrix by
+     * @return a new multiplied matrix
+     */
+    public Matrix multiply(final CsrMatrix multiplicand) {
+        if (this.cols != multiplicand.getRows())
+            throw new IllegalArgumentException(
+                "The number of columns in this matrix must equal the number of rows in the multiplicand matrix.");
+        final int n = multiplicand.getCols();
+        final int[] pointers = multiplicand.getRowPointers();
+        final int[] indices = multiplicand.getColumnIndices();
+        final double[] values = multiplicand.getValues();
+        final Matrix product = new Matrix(rows, n);
         for (int r = 0; r < rows; r++) {
-            for (int c = 0; c < cols; c++) {
-                this.matrix[r][c] -= subtrahend.getValue(r, c);
+            final int row = offset + r * stride;
+            final int productRow = r * n;
+            for (int p = 0; p < cols; p++) {
+                final double value = data[row + p];
+                for (int i = pointers[p]; i < pointers[p + 1]; i++)
+                    product.data[productRow + indices[i]] += value * values[i];
             }
         }
+        return product;
     }
 
     /**
-     * multiplies two matrices together.
+     * multiplies this matrix by a sparse matrix in CSC form. each product element is the dot product of a row of this
+     * matrix with one sparse column, so the cost is O(rows * non-zeros).
      * 
-     * @param multiplicand matrix to multiply this.matrix by
+     * @param multiplicand sparse matrix to multiply this.matrix by
      * @return a new multiplied matrix
      */
-    public Matrix multiply(final Matrix multiplicand) {
+    public Matrix multiply(final CscMatrix multiplicand) {
         if (this.cols != multiplicand.getRows())
             throw new IllegalArgumentException(
                 "The number of columns in this matrix must equal the number of rows in the multiplicand matrix.");
-
-        final Matrix product = new Matrix(this.rows, multiplicand.getCols());
-        for (int r = 0; r < product.getRows(); r++) {
-            for (int c = 0; c < product.getCols(); c++) {
-                for (int i = 0, j = 0; i < this.cols && j < multiplicand.getRows(); i++, j++)
-                    product.matrix[r][c] += this.matrix[r][i] * multiplicand.getValue(j, c);
+        final int n = multiplicand.getCols();
+        final int[] pointers = multiplicand.getColPointers();
+        final int[] indices = multiplicand.getRowIndices();
+        final double[] values = multiplicand.getValues();
+        final Matrix product = new Matrix(rows, n);
+        for (int r = 0; r < rows; r++) {
+            final int row = offset + r * stride;
+            for (int c = 0; c < n; c++) {
+                double sum = 0.0;
+                for (int i = pointers[c]; i < pointers[c + 1]; i++)
+                    sum += data[row + indices[i]] * values[i];
+                product.data[r * n + c] = sum;
             }
         }
         return product;
     }
 
+    /**
+     * raises this matrix to an integer power by repeated squaring, i.e. with O(log k) products instead of k. the
+     * products are written back and forth between a fixed set of scratch matrices, so memory use does not grow with
+     * k. a power of 0 gives the identity matrix and a negative power raises the inverse.
+     *
+     * @param k exponent
+     * @return a new matrix holding this^k
+     */
+    public Matrix pow(final long k) {
+        checkSquare("A matrix raised to a power");
+        return MatrixFunctions.pow(this, k);
+    }
+
+    /**
+     * computes the matrix exponential e^this by scaling and squaring with a Padé approximant of degree up to 13.
+     *
+     * @return a new matrix holding e^this
+     */
+    public Matrix exp() {
+        checkSquare("An exponentiated matrix");
+        return MatrixFunctions.exp(this);
+    }
+
+    /**
+     * replaces every element x of this matrix with f(x), reading the backing array directly instead of going through
+     * getValue and setValue.
+     *
+     * @param f function applied to every element
+     */
+    public void mapInPlace(final DoubleUnaryOperator f) {
+        MatrixKernels.map(rows, cols, f, data, offset, stride);
+    }
+
+    /**
+     * replaces every element x of this matrix with f(x), splitting large matrices into row blocks that are mapped
+     * concurrently in the given pool. f must be safe to call from several threads at once.
+     *
+     * @param f    function applied to every element
+     * @param pool pool to run the blocks in
+     */
+    public void mapInPlace(final DoubleUnaryOperator f, final ForkJoinPool pool) {
+        ParallelKernels.map(pool, f, null, rows, cols, data, offset, stride, null, 0, 0);
+    }
+
+    /**
+     * replaces every element x of this matrix with f(x, y), where y is the matching element of another matrix.
+     *
+     * @param other matrix of the same dimensions supplying the second arguments
+     * @param f     function applied to every pair of elements
+     */
+    public void zipInPlace(final Matrix other, final DoubleBinaryOperator f) {
+        checkDimensions(other);
+        final Matrix source = other == this ? other : unaliased(other);
+        MatrixKernels.zip(rows, cols, f, data, offset, stride, source.data, source.offset, source.stride);
+    }
+
+    /**
+     * replaces every element x of this matrix with f(x, y), where y is the matching element of another matrix,
+     * splitting large matrices into row blocks that are processed concurrently in the given pool. f must be safe to
+     * call from several threads at once.
+     *
+     * @param other matrix of the same dimensions supplying the second arguments
+     * @param f     function applied to every pair of elements
+     * @param pool  pool to run the blocks in
+     */
+    public void zipInPlace(final Matrix other, final DoubleBinaryOperator f, final ForkJoinPool pool) {
+        checkDimensions(other);
+        final Matrix source = other == this ? other : unaliased(other);
+        ParallelKernels.map(pool, null, f, rows, cols, data, offset, stride, source.data, source.offset,
+            source.stride);
+    }
+
+    /**
+     * folds every element into identity with op, row by row, i.e. op(...op(op(identity, a00), a01)..., amn).
+     *
+     * @param identity starting value, returned for an empty matrix
+     * @param op       accumulating function
+     * @return the folded value
+     */
+    public double reduce(final double identity, final DoubleBinaryOperator op) {
+        return MatrixKernels.reduce(rows, cols, identity, op, data, offset, stride);
+    }
+
+    /**
+     * folds every element with op, reducing row blocks concurrently in the given pool and combining their results
+     * with op. like {@link java.util.stream.DoubleStream#reduce}, op must be associative and identity must be its
+     * identity element, or the result depends on how the matrix was split.
+     *
+     * @param identity identity element of op
+     * @param op       associative combining function
+     * @param pool     pool to run the blocks in
+     * @return the folded value
+     */
+    public double reduce(final double identity, final DoubleBinaryOperator op, final ForkJoinPool pool) {
+        return ParallelKernels.reduce(pool, ParallelKernels.Reduction.GENERIC, identity, op, rows, cols, data,
+            offset, stride);
+    }
+
+    /**
+     * @return the sum of all elements
+     */
+    public double sum() {
+        return MatrixKernels.sum(rows, cols, data, offset, stride);
+    }
+
+    /**
+     * sums all elements, adding row blocks concurrently in the given pool.
+     *
+     * @param pool pool to run the blocks in
+     * @return the sum of all elements
+     */
+    public double sum(final ForkJoinPool pool) {
+        return ParallelKernels.reduce(pool, ParallelKernels.Reduction.SUM, 0, null, rows, cols, data, offset, stride);
+    }
+
+    /**
+     * computes the Frobenius norm, the square root of the sum of the squared elements. if the sum of squares
+     * overflows or underflows, the elements are scaled by the largest magnitude and summed again, so the norm is
+     * accurate over the whole range of doubles.
+     *
+     * @return the Frobenius norm
+     */
+    public double frobeniusNorm() {
+        return frobeniusNorm(MatrixKernels.sumOfSquares(rows, cols, 1.0, data, offset, stride));
+    }
+
+    /**
+     * computes the Frobenius norm like {@link #frobeniusNorm()}, summing row blocks concurrently in the given pool.
+     *
+     * @param pool pool to run the blocks in
+     * @return the Frobenius norm
+     */
+    public double frobeniusNorm(final ForkJoinPool pool) {
+        return frobeniusNorm(ParallelKernels.reduce(pool, ParallelKernels.Reduction.SUM_OF_SQUARES, 0, null, rows,
+            cols, data, offset, stride));
+    }
+
+    private double frobeniusNorm(final double sumOfSquares) {
+        if (sumOfSquares >= Double.MIN_NORMAL && sumOfSquares < Double.POSITIVE_INFINITY)
+            return Math.sqrt(sumOfSquares);
+        // zero, NaN, or out of range; the rare last case is recomputed sequentially
+        final double max = MatrixKernels.maxAbs(rows, cols, data, offset, stride);
+        if (max == 0 || !Double.isFinite(max))
+            return max;
+        // scaling by a power of two is exact and, unlike 1 / max, cannot overflow for a subnormal max; getExponent
+        // reports -1023 for every subnormal, which still brings max into (0, 2)
+        final int exponent = Math.getExponent(max);
+        final double norm = Math.sqrt(MatrixKernels.sumOfSquares(rows, cols, Math.scalb(1.0, -exponent), data,
+            offset, stride));
+        return Math.scalb(norm, exponent);
+    }
+
+    /**
+     * @return the largest absolute value of any element, or 0 for an empty matrix
+     */
+    public double maxNorm() {
+        return MatrixKernels.maxAbs(rows, cols, data, offset, stride);
+    }
+
+    /**
+     * finds the largest absolute value of any element, searching row blocks concurrently in the given pool.
+     *
+     * @param pool pool to run the blocks in
+     * @return the largest absolute value of any element, or 0 for an empty matrix
+     */
+    public double maxNorm(final ForkJoinPool pool) {
+        return ParallelKernels.reduce(pool, ParallelKernels.Reduction.MAX_ABS, 0, null, rows, cols, data, offset,
+            stride);
+    }
+
+    /**
+     * compares matrix values element by element up to an absolute tolerance. equal values, infinities included, always
+     * match; NaN matches nothing.
+     *
+     * @param m         matrix to compare with
+     * @param tolerance largest allowed difference between matching elements
+     * @return if the dimensions are equal and every pair of elements differs by at most tolerance
+     */
+    public boolean equals(final Matrix m, final double tolerance) {
+        if (!(tolerance >= 0))
+            throw new IllegalArgumentException("The tolerance must be a non-negative number.");
+        return dimensionEquality(m)
+            && MatrixKernels.withinTolerance(rows, cols, tolerance, data, offset, stride, m.data, m.offset, m.stride);
+    }
+
+    /**
+     * computes dest = alpha * a * b + beta * dest without allocating. dest must not share its backing array with a or
+     * b.
+     * 
+     * @param a     left operand
+     * @param b     right operand
+     * @param dest  matrix receiving the result
+     * @param alpha factor applied to the product
+     * @param beta  factor applied to the previous contents of dest; 0 ignores them, NaNs included
+     */
+    public static void multiplyInto(final Matrix a, final Matrix b, final Matrix dest, final double alpha,
+            final double beta) {
+        multiplyInto(a, false, b, false, dest, alpha, beta);
+    }
+
+    /**
+     * computes dest = alpha * op(a) * op(b) + beta * dest without allocating, where op(x) is x or its transpose. the
+     * transposes are never materialized; the kernel reads the operands in transposed order instead. dest must not share
+     * its backing array with a or b.
+     * 
+     * @param a          left operand
+     * @param transposeA whether to use the transpose of a
+     * @param b          right operand
+     * @param transposeB whether to use the transpose of b
+     * @param dest       matrix receiving the result
+     * @param alpha      factor applied to the product
+     * @param beta       factor applied to the previous contents of dest; 0 ignores them, NaNs included
+     */
+    public static void multiplyInto(final Matrix a, final boolean transposeA, final Matrix b,
+            final boolean transposeB, final Matrix dest, final double alpha, final double beta) {
+        final int m = transposeA ? a.cols : a.rows;
+        final int k = transposeA ? a.rows : a.cols;
+        final int bRows = transposeB ? b.cols : b.rows;
+        final int n = transposeB ? b.rows : b.cols;
+        if (k != bRows)
+            throw new IllegalArgumentException(
+                "The number of columns in the left operand must equal the number of rows in the right operand.");
+        if (dest.rows != m || dest.cols != n)
+            throw new IllegalArgumentException(
+                String.format("Expected a destination with %d rows and %d columns. Received %d rows and %d columns.",
+                    m, n, dest.rows, dest.cols));
+        if (dest.data == a.data || dest.data == b.data)
+            throw new IllegalArgumentException("The destination matrix cannot share storage with an operand.");
+        MatrixKernels.gemm(m, n, k, alpha,
+            a.data, a.offset, transposeA ? 1 : a.stride, transposeA ? a.stride : 1,
+            b.data, b.offset, transposeB ? 1 : b.stride, transposeB ? b.stride : 1,
+            beta, dest.data, dest.offset, dest.stride);
+    }
+
+    /**
+     * computes dest = a + b without allocating. dest may be a or b itself.
+     * 
+     * @param a    left operand
+     * @param b    right operand
+     * @param dest matrix receiving the sum
+     */
+    public static void addInto(final Matrix a, final Matrix b, final Matrix dest) {
+        a.checkDimensions(b);
+        a.checkDimensions(dest);
+        MatrixKernels.add(a.rows, a.cols, a.data, a.offset, a.stride, b.data, b.offset, b.stride,
+            dest.data, dest.offset, dest.stride);
+    }
+
+    /**
+     * computes dest = a - b without allocating. dest may be a or b itself.
+     * 
+     * @param a    matrix to subtract from
+     * @param b    matrix to subtract
+     * @param dest matrix receiving the difference
+     */
+    public static void subtractInto(final Matrix a, final Matrix b, final Matrix dest) {
+        a.checkDimensions(b);
+        a.checkDimensions(dest);
+        MatrixKernels.subtract(a.rows, a.cols, a.data, a.offset, a.stride, b.data, b.offset, b.stride,
+            dest.data, dest.offset, dest.stride);
+    }
+
+    /**
+     * starts a lazily evaluated expression from this matrix, e.g.
+     * {@code a.lazy().add(b).scale(2).multiply(c).evaluate()}.
+     * @return an expression for this matrix
+     */
+    public MatrixExpression lazy() {
+        return MatrixExpression.of(this);
+    }
+
+    private void checkSquare(final String subject) {
+        if (this.rows != this.cols)
+            throw new IllegalArgumentException(
+                subject + " must be square, i.e. the number of rows and columns must be equal.");
+    }
+
+    private void checkVectors(final int outputs, final int inputs, final double[] x, final double[] y) {
+        LinearOperator.checkApply(outputs, inputs, x, y);
+        if (y == data)
+            throw new IllegalArgumentException("The result vector cannot share storage with the matrix.");
+    }
+
+    private void checkBatch(final int outputs, final int inputs, final double[] xs, final double[] ys,
+            final int count) {
+        if (count < 0)
+            throw new IllegalArgumentException("The number of vectors cannot be negative.");
+        if ((long) count * inputs > xs.length)
+            throw new IllegalArgumentException(String.format(
+                "Expected at least %d input values. Received %d.", (long) count * inputs, xs.length));
+        if ((long) count * outputs > ys.length)
+            throw new IllegalArgumentException(String.format(
+                "Expected room for at least %d results. Received %d.", (long) count * outputs, ys.length));
+        if (xs == ys || ys == data)
+            throw new IllegalArgumentException("The result array cannot share storage with the inputs.");
+    }
+
+    void checkMultiplicand(final Matrix multiplicand) {
+        if (this.cols != multiplicand.getRows())
+            throw new IllegalArgumentException(
+                "The number of columns in this matrix must equal the number of rows in the multiplicand matrix.");
+    }
+
+    void checkDimensions(final Matrix m) {
+        if (!dimensionEquality(m))
+            throw new IllegalArgumentException(
+                    String.format("Expected %d rows and %d columns. Received %d rows and %d columns.",
+                            this.getRows(), this.getCols(), m.getRows(), m.getCols()));
+    }
+
+    private void checkDimensions(final int otherRows, final int otherCols) {
+        if (rows != otherRows || cols != otherCols)
+            throw new IllegalArgumentException(
+                    String.format("Expected %d rows and %d columns. Received %d rows and %d columns.",
+                            rows, cols, otherRows, otherCols));
+    }
+
+    /**
+     * compares matrix values element by element. values are compared the way {@link Double#equals(Object)} compares
+     * them, so NaN equals NaN and 0.0 does not equal -0.0.
+     */
     @Override
     public boolean equals(final Object anObject) {
         // compares memory locations
@@ -194,17 +863,28 @@ public class Matrix {
             final Matrix anotherMatrix = (Matrix) anObject;
             if (!dimensionEquality(anotherMatrix))
                 return false;
-            for (int r = 0; r < rows; r++) {
-                for (int c = 0; c < cols; c++) {
-                    if (matrix[r][c] != anotherMatrix.getValue(r, c))
-                        return false;
-                }
-            }
-            return true;
+            if (!MatrixMetrics.ENABLED)
+                return valueEquality(anotherMatrix);
+            final long start = System.nanoTime();
+            final boolean equal = valueEquality(anotherMatrix);
+            MatrixMetrics.record(MatrixMetrics.Operation.EQUALS, rows, cols, 0, start);
+            return equal;
         }
         return false;
     }
 
+    private boolean valueEquality(final Matrix m) {
+        if (this.isContiguous() && m.isContiguous())
+            return Arrays.equals(data, offset, offset + rows * cols, m.data, m.offset, m.offset + rows * cols);
+        for (int r = 0; r < rows; r++) {
+            final int from = offset + r * stride;
+            final int anotherFrom = m.offset + r * m.stride;
+            if (!Arrays.equals(data, from, from + cols, m.data, anotherFrom, anotherFrom + cols))
+                return false;
+        }
+        return true;
+    }
+
     /**
      * tests row and column equality between an inputted matrix and the current matrix object.
      * @param m an inputted matrix
@@ -222,16 +902,17 @@ public class Matrix {
      * @return a value in the matrix
      */
     public double getValue(final int r, final int c) {
-        return this.matrix[r][c];
+        return data[offset + Objects.checkIndex(r, rows) * stride + Objects.checkIndex(c, cols)];
     }
 
     /**
-     * returns a specified row in the matrix.
+     * returns a copy of a specified row in the matrix.
      * @param r row index
      * @return the specified row
      */
     public double[] getRow(final int r) {
-        return matrix[r];
+        final int from = offset + Objects.checkIndex(r, rows) * stride;
+        return Arrays.copyOfRange(data, from, from + cols);
     }
 
     /**
@@ -240,20 +921,128 @@ public class Matrix {
      * @return the specified column
      */
     public double[] getCol(final int c) {
+        Objects.checkIndex(c, cols);
         final double[] col = new double[rows];
-        for (int r = 0; r < rows; r++)
-            col[r] = matrix[r][c];
+        for (int r = 0, i = offset + c; r < rows; r++, i += stride)
+            col[r] = data[i];
         return col;
     }
 
+    /**
+     * returns a rectangular window of this matrix that shares its storage: element (r, c) of the view is element
+     * (row + r, col + c) of this matrix, and writes through either are visible in both. nothing is copied, and the
+     * view can be passed to any operation that takes a matrix.
+     *
+     * @param row  index of the view's first row in this matrix
+     * @param col  index of the view's first column in this matrix
+     * @param rows number of rows in the view
+     * @param cols number of columns in the view
+     * @return a view of the window
+     */
+    public Matrix subMatrix(final int row, final int col, final int rows, final int cols) {
+        Objects.checkFromIndexSize(row, rows, this.rows);
+        Objects.checkFromIndexSize(col, cols, this.cols);
+        return new Matrix(data, offset + row * stride + col, stride, rows, cols);
+    }
+
+    /**
+     * returns row r as a 1 x getCols() matrix that shares this matrix's storage.
+     *
+     * @param r row index
+     * @return a view of the row
+     */
+    public Matrix rowView(final int r) {
+        return subMatrix(r, 0, 1, cols);
+    }
+
+    /**
+     * returns column c as a getRows() x 1 matrix that shares this matrix's storage. unlike {@link #getCol}, nothing is
+     * copied: the view steps through the backing array with this matrix's leading dimension.
+     *
+     * @param c column index
+     * @return a view of the column
+     */
+    public Matrix colView(final int c) {
+        return subMatrix(0, c, rows, 1);
+    }
+
+    /**
+     * returns a view of the transpose of this matrix that shares its storage. operations taking the view as an
+     * operand read this matrix in transposed order instead of copying it.
+     *
+     * @return a transposed view
+     */
+    public TransposedMatrix transposedView() {
+        return new TransposedMatrix(this);
+    }
+
+    /**
+     * returns the transpose of this matrix as a new matrix. the copy is made by recursively halving the larger
+     * dimension until the blocks fit in cache, so reading and writing both stay cache-friendly whatever the shape.
+     *
+     * @return a new transposed matrix
+     */
+    public Matrix transpose() {
+        final long start = MatrixMetrics.ENABLED ? System.nanoTime() : 0;
+        final Matrix transpose = new Matrix(cols, rows);
+        MatrixKernels.transpose(rows, cols, data, offset, stride, transpose.data, 0, rows);
+        if (MatrixMetrics.ENABLED)
+            MatrixMetrics.record(MatrixMetrics.Operation.COPY, cols, rows, 0, start);
+        return transpose;
+    }
+
+    /**
+     * computes y = this * x; the same as {@link #multiplyVector}.
+     *
+     * @param x vector of length getCols()
+     * @param y vector of length getRows() to store the result in
+     */
+    @Override
+    public void apply(final double[] x, final double[] y) {
+        multiplyVector(x, y);
+    }
+
+    @Override
     public int getRows() {
         return rows;
     }
 
+    @Override
     public int getCols() {
         return cols;
     }
 
+    /**
+     * returns the array backing this matrix. element (r, c) is stored at index
+     * {@code getOffset() + r * getLeadingDimension() + c}. writes to the array are visible through the matrix.
+     * @return the backing array
+     */
+    public double[] getData() {
+        return data;
+    }
+
+    /**
+     * @return index of element (0, 0) in the backing array
+     */
+    public int getOffset() {
+        return offset;
+    }
+
+    /**
+     * @return distance in the backing array between the starts of two consecutive rows
+     */
+    public int getLeadingDimension() {
+        return stride;
+    }
+
+    /**
+     * tests if the matrix's rows follow each other in the backing array without gaps.
+     * @return if the matrix occupies one contiguous range of the backing array
+     */
+    public boolean isContiguous() {
+        return stride == cols || rows <= 1;
+    }
+
     /**
      * Returns a string representation of the contents of the specified matrix. The string representation consists of a
      * list of the matrix's elements enclosed in square brackets. Adjacent elements are separated by a comma followed by
@@ -263,9 +1052,15 @@ public class Matrix {
     @Override
     public String toString() {
         final StringBuilder builder = new StringBuilder();
-        for (final double[] row : this.matrix) {
-            builder.append(Arrays.toString(row));
-            builder.append("\n");
+        for (int r = 0; r < rows; r++) {
+            final int from = offset + r * stride;
+            builder.append('[');
+            for (int c = 0; c < cols; c++) {
+                if (c > 0)
+                    builder.append(", ");
+                builder.append(data[from + c]);
+            }
+            builder.append("]\n");
         }
         return builder.toString();
     }
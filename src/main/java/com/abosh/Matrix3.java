@@ -0,0 +1,311 @@
+package com.abosh;
+
+import java.util.Objects;
+
+/**
+ * a 3 x 3 matrix of doubles for 2D transforms and 3D rotations. the nine values are plain fields rather than an array,
+ * and every operation is written out element by element, so there are no loops, no dimension checks and no
+ * allocations beyond the result of the operations that return a new matrix.
+ *
+ * the in-place operations read all the values they need before writing any, so a matrix may be passed as both an
+ * operand and the destination.
+ *
+ * @author Abosh Upadhyaya
+ */
+public final class Matrix3 {
+    // private data fields
+    private double m00, m01, m02;
+    private double m10, m11, m12;
+    private double m20, m21, m22;
+
+    /**
+     * default constructor. initializes all values in matrix to 0.
+     */
+    public Matrix3() {
+    }
+
+    /**
+     * constructs a copy of an inputted matrix.
+     * 
+     * @param copy matrix to be copied
+     */
+    public Matrix3(final Matrix3 copy) {
+        set(copy);
+    }
+
+    /**
+     * converts a 3 x 3 {@link Matrix}.
+     * 
+     * @param m matrix to be converted
+     */
+    public Matrix3(final Matrix m) {
+        if (m.getRows() != 3 || m.getCols() != 3)
+            throw new IllegalArgumentException(
+                String.format("Expected 3 rows and 3 columns. Received %d rows and %d columns.",
+                    m.getRows(), m.getCols()));
+        final double[] d = m.getData();
+        final int row0 = m.getOffset();
+        final int row1 = m.getOffset() + m.getLeadingDimension();
+        final int row2 = m.getOffset() + 2 * m.getLeadingDimension();
+        m00 = d[row0]; m01 = d[row0 + 1]; m02 = d[row0 + 2];
+        m10 = d[row1]; m11 = d[row1 + 1]; m12 = d[row1 + 2];
+        m20 = d[row2]; m21 = d[row2 + 1]; m22 = d[row2 + 2];
+    }
+
+    /**
+     * sets all values from a row-major list of 9 values.
+     * @return this matrix
+     */
+    public Matrix3 set(
+            final double m00, final double m01, final double m02,
+            final double m10, final double m11, final double m12,
+            final double m20, final double m21, final double m22) {
+        this.m00 = m00; this.m01 = m01; this.m02 = m02;
+        this.m10 = m10; this.m11 = m11; this.m12 = m12;
+        this.m20 = m20; this.m21 = m21; this.m22 = m22;
+        return this;
+    }
+
+    /**
+     * copies all values from another matrix.
+     * @param m matrix to copy
+     * @return this matrix
+     */
+    public Matrix3 set(final Matrix3 m) {
+        m00 = m.m00; m01 = m.m01; m02 = m.m02;
+        m10 = m.m10; m11 = m.m11; m12 = m.m12;
+        m20 = m.m20; m21 = m.m21; m22 = m.m22;
+        return this;
+    }
+
+    /**
+     * replaces the current matrix with the identity matrix.
+     */
+    public void gLoadIdentity() {
+        set(1, 0, 0, 0, 1, 0, 0, 0, 1);
+    }
+
+    /**
+     * sets the value of one position in the matrix.
+     * 
+     * @param r     row index
+     * @param c     column index
+     * @param value value to set
+     */
+    public void setValue(final int r, final int c, final double value) {
+        switch (index(r, c)) {
+            case 0: m00 = value; break;
+            case 1: m01 = value; break;
+            case 2: m02 = value; break;
+            case 3: m10 = value; break;
+            case 4: m11 = value; break;
+            case 5: m12 = value; break;
+            case 6: m20 = value; break;
+            case 7: m21 = value; break;
+            case 8: m22 = value; break;
+            default: throw new AssertionError();
+        }
+    }
+
+    /**
+     * returns a value at specified indices in the matrix.
+     * 
+     * @param r row index
+     * @param c column index
+     * @return a value in the matrix
+     */
+    public double getValue(final int r, final int c) {
+        switch (index(r, c)) {
+            case 0: return m00;
+            case 1: return m01;
+            case 2: return m02;
+            case 3: return m10;
+            case 4: return m11;
+            case 5: return m12;
+            case 6: return m20;
+            case 7: return m21;
+            case 8: return m22;
+            default: throw new AssertionError();
+        }
+    }
+
+    /**
+     * multiplies two matrices together.
+     * 
+     * @param multiplicand matrix to multiply this matrix by
+     * @return a new multiplied matrix
+     */
+    public Matrix3 multiply(final Matrix3 multiplicand) {
+        final Matrix3 product = new Matrix3();
+        multiplyInto(this, multiplicand, product);
+        return product;
+    }
+
+    /**
+     * post-multiplies this matrix by another in place, i.e. this = this * next. as with OpenGL's matrix stack, the
+     * transform of next is applied to a vector first and then the transform this matrix held before.
+     * 
+     * @param next matrix to compose with
+     * @return this matrix
+     */
+    public Matrix3 compose(final Matrix3 next) {
+        multiplyInto(this, next, this);
+        return this;
+    }
+
+    /**
+     * dest = a * b without allocating. dest may be a or b.
+     * 
+     * @param a    left operand
+     * @param b    right operand
+     * @param dest matrix to store the product in
+     */
+    public static void multiplyInto(final Matrix3 a, final Matrix3 b, final Matrix3 dest) {
+        final double p00 = a.m00 * b.m00 + a.m01 * b.m10 + a.m02 * b.m20;
+        final double p01 = a.m00 * b.m01 + a.m01 * b.m11 + a.m02 * b.m21;
+        final double p02 = a.m00 * b.m02 + a.m01 * b.m12 + a.m02 * b.m22;
+        final double p10 = a.m10 * b.m00 + a.m11 * b.m10 + a.m12 * b.m20;
+        final double p11 = a.m10 * b.m01 + a.m11 * b.m11 + a.m12 * b.m21;
+        final double p12 = a.m10 * b.m02 + a.m11 * b.m12 + a.m12 * b.m22;
+        final double p20 = a.m20 * b.m00 + a.m21 * b.m10 + a.m22 * b.m20;
+        final double p21 = a.m20 * b.m01 + a.m21 * b.m11 + a.m22 * b.m21;
+        final double p22 = a.m20 * b.m02 + a.m21 * b.m12 + a.m22 * b.m22;
+        dest.set(p00, p01, p02, p10,
+            p11, p12, p20, p21, p22);
+    }
+
+    /**
+     * @return a new matrix holding the transpose of this matrix
+     */
+    public Matrix3 transpose() {
+        return new Matrix3(this).transposeInPlace();
+    }
+
+    /**
+     * transposes this matrix in place.
+     * @return this matrix
+     */
+    public Matrix3 transposeInPlace() {
+        double t;
+        t = m01; m01 = m10; m10 = t;
+        t = m02; m02 = m20; m20 = t;
+        t = m12; m12 = m21; m21 = t;
+        return this;
+    }
+
+    /**
+     * @return the determinant of this matrix
+     */
+    public double determinant() {
+        return m00 * (m11 * m22 - m12 * m21) + m01 * (m12 * m20 - m10 * m22) + m02 * (m10 * m21 - m11 * m20);
+    }
+
+    /**
+     * @return a new matrix holding the inverse of this matrix
+     */
+    public Matrix3 inverse() {
+        return new Matrix3(this).invert();
+    }
+
+    /**
+     * inverts this matrix in place using its cofactors.
+     * @return this matrix
+     */
+    public Matrix3 invert() {
+        final double c00 = m11 * m22 - m12 * m21;
+        final double c01 = m12 * m20 - m10 * m22;
+        final double c02 = m10 * m21 - m11 * m20;
+        final double determinant = m00 * c00 + m01 * c01 + m02 * c02;
+        if (determinant == 0)
+            throw new IllegalArgumentException("The matrix is singular.");
+        final double inv = 1 / determinant;
+        return set(
+            c00 * inv, (m02 * m21 - m01 * m22) * inv, (m01 * m12 - m02 * m11) * inv,
+            c01 * inv, (m00 * m22 - m02 * m20) * inv, (m02 * m10 - m00 * m12) * inv,
+            c02 * inv, (m01 * m20 - m00 * m21) * inv, (m00 * m11 - m01 * m10) * inv);
+    }
+
+
+    /**
+     * transforms packed (x, y, z) vectors in place, replacing each v with this * v. nothing is allocated, so this is
+     * suited to transforming large vertex buffers.
+     *
+     * @param xyz    array of packed vectors
+     * @param offset index of the first x
+     * @param count  number of vectors to transform
+     */
+    public void transform(final double[] xyz, final int offset, final int count) {
+        if (count < 0)
+            throw new IllegalArgumentException("The number of vectors cannot be negative.");
+        Objects.checkFromIndexSize(offset, 3L * count > Integer.MAX_VALUE ? -1 : 3 * count, xyz.length);
+        // locals let the JIT keep the matrix in registers across the loop
+        final double a00 = m00, a01 = m01, a02 = m02;
+        final double a10 = m10, a11 = m11, a12 = m12;
+        final double a20 = m20, a21 = m21, a22 = m22;
+        final int end = offset + 3 * count;
+        for (int i = offset; i < end; i += 3) {
+            final double x = xyz[i];
+            final double y = xyz[i + 1];
+            final double z = xyz[i + 2];
+            xyz[i] = a00 * x + a01 * y + a02 * z;
+            xyz[i + 1] = a10 * x + a11 * y + a12 * z;
+            xyz[i + 2] = a20 * x + a21 * y + a22 * z;
+        }
+    }
+
+
+    @Override
+    public boolean equals(final Object anObject) {
+        // compares memory locations
+        if (this == anObject)
+            return true;
+        // compares matrix values
+        if (anObject instanceof Matrix3) {
+            final Matrix3 m = (Matrix3) anObject;
+            return Double.compare(m00, m.m00) == 0
+                && Double.compare(m01, m.m01) == 0
+                && Double.compare(m02, m.m02) == 0
+                && Double.compare(m10, m.m10) == 0
+                && Double.compare(m11, m.m11) == 0
+                && Double.compare(m12, m.m12) == 0
+                && Double.compare(m20, m.m20) == 0
+                && Double.compare(m21, m.m21) == 0
+                && Double.compare(m22, m.m22) == 0;
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 1;
+        for (int i = 0; i < 9; i++)
+            hash = 31 * hash + Double.hashCode(getValue(i / 3, i % 3));
+        return hash;
+    }
+
+    /**
+     * converts this matrix to a general {@link Matrix}.
+     * @return a new matrix
+     */
+    public Matrix toMatrix() {
+        final Matrix m = new Matrix(3, 3);
+        m.setRow(0, new double[] { m00, m01, m02 });
+        m.setRow(1, new double[] { m10, m11, m12 });
+        m.setRow(2, new double[] { m20, m21, m22 });
+        return m;
+    }
+
+    /**
+     * Returns a string representation of the contents of the specified matrix, in the same format as
+     * {@link Matrix#toString()}.
+     * @return a string representation of the matrix
+     */
+    @Override
+    public String toString() {
+        return toMatrix().toString();
+    }
+
+    private static int index(final int r, final int c) {
+        return Objects.checkIndex(r, 3) * 3 + Objects.checkIndex(c, 3);
+    }
+}
@@ -0,0 +1,378 @@
+package com.abosh;
+
+import java.util.Objects;
+
+/**
+ * a 4 x 4 matrix of doubles for graphics-style transforms. the sixteen values are plain fields rather than an array,
+ * and every operation is written out element by element, so there are no loops, no dimension checks and no
+ * allocations beyond the result of the operations that return a new matrix.
+ *
+ * the in-place operations read all the values they need before writing any, so a matrix may be passed as both an
+ * operand and the destination.
+ *
+ * @author Abosh Upadhyaya
+ */
+public final class Matrix4 {
+    // private data fields
+    private double m00, m01, m02, m03;
+    private double m10, m11, m12, m13;
+    private double m20, m21, m22, m23;
+    private double m30, m31, m32, m33;
+
+    /**
+     * default constructor. initializes all values in matrix to 0.
+     */
+    public Matrix4() {
+    }
+
+    /**
+     * constructs a copy of an inputted matrix.
+     * 
+     * @param copy matrix to be copied
+     */
+    public Matrix4(final Matrix4 copy) {
+        set(copy);
+    }
+
+    /**
+     * converts a 4 x 4 {@link Matrix}.
+     * 
+     * @param m matrix to be converted
+     */
+    public Matrix4(final Matrix m) {
+        if (m.getRows() != 4 || m.getCols() != 4)
+            throw new IllegalArgumentException(
+                String.format("Expected 4 rows and 4 columns. Received %d rows and %d columns.",
+                    m.getRows(), m.getCols()));
+        final double[] d = m.getData();
+        final int row0 = m.getOffset();
+        final int row1 = m.getOffset() + m.getLeadingDimension();
+        final int row2 = m.getOffset() + 2 * m.getLeadingDimension();
+        final int row3 = m.getOffset() + 3 * m.getLeadingDimension();
+        m00 = d[row0]; m01 = d[row0 + 1]; m02 = d[row0 + 2]; m03 = d[row0 + 3];
+        m10 = d[row1]; m11 = d[row1 + 1]; m12 = d[row1 + 2]; m13 = d[row1 + 3];
+        m20 = d[row2]; m21 = d[row2 + 1]; m22 = d[row2 + 2]; m23 = d[row2 + 3];
+        m30 = d[row3]; m31 = d[row3 + 1]; m32 = d[row3 + 2]; m33 = d[row3 + 3];
+    }
+
+    /**
+     * sets all values from a row-major list of 16 values.
+     * @return this matrix
+     */
+    public Matrix4 set(
+            final double m00, final double m01, final double m02, final double m03,
+            final double m10, final double m11, final double m12, final double m13,
+            final double m20, final double m21, final double m22, final double m23,
+            final double m30, final double m31, final double m32, final double m33) {
+        this.m00 = m00; this.m01 = m01; this.m02 = m02; this.m03 = m03;
+        this.m10 = m10; this.m11 = m11; this.m12 = m12; this.m13 = m13;
+        this.m20 = m20; this.m21 = m21; this.m22 = m22; this.m23 = m23;
+        this.m30 = m30; this.m31 = m31; this.m32 = m32; this.m33 = m33;
+        return this;
+    }
+
+    /**
+     * copies all values from another matrix.
+     * @param m matrix to copy
+     * @return this matrix
+     */
+    public Matrix4 set(final Matrix4 m) {
+        m00 = m.m00; m01 = m.m01; m02 = m.m02; m03 = m.m03;
+        m10 = m.m10; m11 = m.m11; m12 = m.m12; m13 = m.m13;
+        m20 = m.m20; m21 = m.m21; m22 = m.m22; m23 = m.m23;
+        m30 = m.m30; m31 = m.m31; m32 = m.m32; m33 = m.m33;
+        return this;
+    }
+
+    /**
+     * replaces the current matrix with the identity matrix.
+     */
+    public void gLoadIdentity() {
+        set(1, 0, 0, 0, 0, 1, 0, 0, 0, 0, 1, 0, 0, 0, 0, 1);
+    }
+
+    /**
+     * sets the value of one position in the matrix.
+     * 
+     * @param r     row index
+     * @param c     column index
+     * @param value value to set
+     */
+    public void setValue(final int r, final int c, final double value) {
+        switch (index(r, c)) {
+            case 0: m00 = value; break;
+            case 1: m01 = value; break;
+            case 2: m02 = value; break;
+            case 3: m03 = value; break;
+            case 4: m10 = value; break;
+            case 5: m11 = value; break;
+            case 6: m12 = value; break;
+            case 7: m13 = value; break;
+            case 8: m20 = value; break;
+            case 9: m21 = value; break;
+            case 10: m22 = value; break;
+            case 11: m23 = value; break;
+            case 12: m30 = value; break;
+            case 13: m31 = value; break;
+            case 14: m32 = value; break;
+            case 15: m33 = value; break;
+            default: throw new AssertionError();
+        }
+    }
+
+    /**
+     * returns a value at specified indices in the matrix.
+     * 
+     * @param r row index
+     * @param c column index
+     * @return a value in the matrix
+     */
+    public double getValue(final int r, final int c) {
+        switch (index(r, c)) {
+            case 0: return m00;
+            case 1: return m01;
+            case 2: return m02;
+            case 3: return m03;
+            case 4: return m10;
+            case 5: return m11;
+            case 6: return m12;
+            case 7: return m13;
+            case 8: return m20;
+            case 9: return m21;
+            case 10: return m22;
+            case 11: return m23;
+            case 12: return m30;
+            case 13: return m31;
+            case 14: return m32;
+            case 15: return m33;
+            default: throw new AssertionError();
+        }
+    }
+
+    /**
+     * multiplies two matrices together.
+     * 
+     * @param multiplicand matrix to multiply this matrix by
+     * @return a new multiplied matrix
+     */
+    public Matrix4 multiply(final Matrix4 multiplicand) {
+        final Matrix4 product = new Matrix4();
+        multiplyInto(this, multiplicand, product);
+        return product;
+    }
+
+    /**
+     * post-multiplies this matrix by another in place, i.e. this = this * next. as with OpenGL's matrix stack, the
+     * transform of next is applied to a vector first and then the transform this matrix held before.
+     * 
+     * @param next matrix to compose with
+     * @return this matrix
+     */
+    public Matrix4 compose(final Matrix4 next) {
+        multiplyInto(this, next, this);
+        return this;
+    }
+
+    /**
+     * dest = a * b without allocating. dest may be a or b.
+     * 
+     * @param a    left operand
+     * @param b    right operand
+     * @param dest matrix to store the product in
+     */
+    public static void multiplyInto(final Matrix4 a, final Matrix4 b, final Matrix4 dest) {
+        final double p00 = a.m00 * b.m00 + a.m01 * b.m10 + a.m02 * b.m20 + a.m03 * b.m30;
+        final double p01 = a.m00 * b.m01 + a.m01 * b.m11 + a.m02 * b.m21 + a.m03 * b.m31;
+        final double p02 = a.m00 * b.m02 + a.m01 * b.m12 + a.m02 * b.m22 + a.m03 * b.m32;
+        final double p03 = a.m00 * b.m03 + a.m01 * b.m13 + a.m02 * b.m23 + a.m03 * b.m33;
+        final double p10 = a.m10 * b.m00 + a.m11 * b.m10 + a.m12 * b.m20 + a.m13 * b.m30;
+        final double p11 = a.m10 * b.m01 + a.m11 * b.m11 + a.m12 * b.m21 + a.m13 * b.m31;
+        final double p12 = a.m10 * b.m02 + a.m11 * b.m12 + a.m12 * b.m22 + a.m13 * b.m32;
+        final double p13 = a.m10 * b.m03 + a.m11 * b.m13 + a.m12 * b.m23 + a.m13 * b.m33;
+        final double p20 = a.m20 * b.m00 + a.m21 * b.m10 + a.m22 * b.m20 + a.m23 * b.m30;
+        final double p21 = a.m20 * b.m01 + a.m21 * b.m11 + a.m22 * b.m21 + a.m23 * b.m31;
+        final double p22 = a.m20 * b.m02 + a.m21 * b.m12 + a.m22 * b.m22 + a.m23 * b.m32;
+        final double p23 = a.m20 * b.m03 + a.m21 * b.m13 + a.m22 * b.m23 + a.m23 * b.m33;
+        final double p30 = a.m30 * b.m00 + a.m31 * b.m10 + a.m32 * b.m20 + a.m33 * b.m30;
+        final double p31 = a.m30 * b.m01 + a.m31 * b.m11 + a.m32 * b.m21 + a.m33 * b.m31;
+        final double p32 = a.m30 * b.m02 + a.m31 * b.m12 + a.m32 * b.m22 + a.m33 * b.m32;
+        final double p33 = a.m30 * b.m03 + a.m31 * b.m13 + a.m32 * b.m23 + a.m33 * b.m33;
+        dest.set(p00, p01, p02, p03, p10, p11, p12, p13,
+            p20, p21, p22, p23, p30, p31, p32, p33);
+    }
+
+    /**
+     * @return a new matrix holding the transpose of this matrix
+     */
+    public Matrix4 transpose() {
+        return new Matrix4(this).transposeInPlace();
+    }
+
+    /**
+     * transposes this matrix in place.
+     * @return this matrix
+     */
+    public Matrix4 transposeInPlace() {
+        double t;
+        t = m01; m01 = m10; m10 = t;
+        t = m02; m02 = m20; m20 = t;
+        t = m03; m03 = m30; m30 = t;
+        t = m12; m12 = m21; m21 = t;
+        t = m13; m13 = m31; m31 = t;
+        t = m23; m23 = m32; m32 = t;
+        return this;
+    }
+
+    /**
+     * @return the determinant of this matrix
+     */
+    public double determinant() {
+        final double s0 = m00 * m11 - m10 * m01;
+        final double s1 = m00 * m12 - m10 * m02;
+        final double s2 = m00 * m13 - m10 * m03;
+        final double s3 = m01 * m12 - m11 * m02;
+        final double s4 = m01 * m13 - m11 * m03;
+        final double s5 = m02 * m13 - m12 * m03;
+        final double c5 = m22 * m33 - m32 * m23;
+        final double c4 = m21 * m33 - m31 * m23;
+        final double c3 = m21 * m32 - m31 * m22;
+        final double c2 = m20 * m33 - m30 * m23;
+        final double c1 = m20 * m32 - m30 * m22;
+        final double c0 = m20 * m31 - m30 * m21;
+        return s0 * c5 - s1 * c4 + s2 * c3 + s3 * c2 - s4 * c1 + s5 * c0;
+    }
+
+    /**
+     * @return a new matrix holding the inverse of this matrix
+     */
+    public Matrix4 inverse() {
+        return new Matrix4(this).invert();
+    }
+
+    /**
+     * inverts this matrix in place using the 2 x 2 sub-determinants of its top and bottom halves.
+     * @return this matrix
+     */
+    public Matrix4 invert() {
+        final double s0 = m00 * m11 - m10 * m01;
+        final double s1 = m00 * m12 - m10 * m02;
+        final double s2 = m00 * m13 - m10 * m03;
+        final double s3 = m01 * m12 - m11 * m02;
+        final double s4 = m01 * m13 - m11 * m03;
+        final double s5 = m02 * m13 - m12 * m03;
+        final double c5 = m22 * m33 - m32 * m23;
+        final double c4 = m21 * m33 - m31 * m23;
+        final double c3 = m21 * m32 - m31 * m22;
+        final double c2 = m20 * m33 - m30 * m23;
+        final double c1 = m20 * m32 - m30 * m22;
+        final double c0 = m20 * m31 - m30 * m21;
+        final double determinant = s0 * c5 - s1 * c4 + s2 * c3 + s3 * c2 - s4 * c1 + s5 * c0;
+        if (determinant == 0)
+            throw new IllegalArgumentException("The matrix is singular.");
+        final double inv = 1 / determinant;
+        return set(
+            (m11 * c5 - m12 * c4 + m13 * c3) * inv, (-m01 * c5 + m02 * c4 - m03 * c3) * inv,
+            (m31 * s5 - m32 * s4 + m33 * s3) * inv, (-m21 * s5 + m22 * s4 - m23 * s3) * inv,
+            (-m10 * c5 + m12 * c2 - m13 * c1) * inv, (m00 * c5 - m02 * c2 + m03 * c1) * inv,
+            (-m30 * s5 + m32 * s2 - m33 * s1) * inv, (m20 * s5 - m22 * s2 + m23 * s1) * inv,
+            (m10 * c4 - m11 * c2 + m13 * c0) * inv, (-m00 * c4 + m01 * c2 - m03 * c0) * inv,
+            (m30 * s4 - m31 * s2 + m33 * s0) * inv, (-m20 * s4 + m21 * s2 - m23 * s0) * inv,
+            (-m10 * c3 + m11 * c1 - m12 * c0) * inv, (m00 * c3 - m01 * c1 + m02 * c0) * inv,
+            (-m30 * s3 + m31 * s1 - m32 * s0) * inv, (m20 * s3 - m21 * s1 + m22 * s0) * inv);
+    }
+
+
+    /**
+     * transforms packed (x, y, z, w) vectors in place, replacing each v with this * v. nothing is allocated, so this
+     * is suited to transforming large vertex buffers.
+     *
+     * @param xyzw   array of packed vectors
+     * @param offset index of the first x
+     * @param count  number of vectors to transform
+     */
+    public void transform(final double[] xyzw, final int offset, final int count) {
+        if (count < 0)
+            throw new IllegalArgumentException("The number of vectors cannot be negative.");
+        Objects.checkFromIndexSize(offset, 4L * count > Integer.MAX_VALUE ? -1 : 4 * count, xyzw.length);
+        // locals let the JIT keep the matrix in registers across the loop
+        final double a00 = m00, a01 = m01, a02 = m02, a03 = m03;
+        final double a10 = m10, a11 = m11, a12 = m12, a13 = m13;
+        final double a20 = m20, a21 = m21, a22 = m22, a23 = m23;
+        final double a30 = m30, a31 = m31, a32 = m32, a33 = m33;
+        final int end = offset + 4 * count;
+        for (int i = offset; i < end; i += 4) {
+            final double x = xyzw[i];
+            final double y = xyzw[i + 1];
+            final double z = xyzw[i + 2];
+            final double w = xyzw[i + 3];
+            xyzw[i] = a00 * x + a01 * y + a02 * z + a03 * w;
+            xyzw[i + 1] = a10 * x + a11 * y + a12 * z + a13 * w;
+            xyzw[i + 2] = a20 * x + a21 * y + a22 * z + a23 * w;
+            xyzw[i + 3] = a30 * x + a31 * y + a32 * z + a33 * w;
+        }
+    }
+
+
+    @Override
+    public boolean equals(final Object anObject) {
+        // compares memory locations
+        if (this == anObject)
+            return true;
+        // compares matrix values
+        if (anObject instanceof Matrix4) {
+            final Matrix4 m = (Matrix4) anObject;
+            return Double.compare(m00, m.m00) == 0
+                && Double.compare(m01, m.m01) == 0
+                && Double.compare(m02, m.m02) == 0
+                && Double.compare(m03, m.m03) == 0
+                && Double.compare(m10, m.m10) == 0
+                && Double.compare(m11, m.m11) == 0
+                && Double.compare(m12, m.m12) == 0
+                && Double.compare(m13, m.m13) == 0
+                && Double.compare(m20, m.m20) == 0
+                && Double.compare(m21, m.m21) == 0
+                && Double.compare(m22, m.m22) == 0
+                && Double.compare(m23, m.m23) == 0
+                && Double.compare(m30, m.m30) == 0
+                && Double.compare(m31, m.m31) == 0
+                && Double.compare(m32, m.m32) == 0
+                && Double.compare(m33, m.m33) == 0;
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 1;
+        for (int i = 0; i < 16; i++)
+            hash = 31 * hash + Double.hashCode(getValue(i / 4, i % 4));
+        return hash;
+    }
+
+    /**
+     * converts this matrix to a general {@link Matrix}.
+     * @return a new matrix
+     */
+    public Matrix toMatrix() {
+        final Matrix m = new Matrix(4, 4);
+        m.setRow(0, new double[] { m00, m01, m02, m03 });
+        m.setRow(1, new double[] { m10, m11, m12, m13 });
+        m.setRow(2, new double[] { m20, m21, m22, m23 });
+        m.setRow(3, new double[] { m30, m31, m32, m33 });
+        return m;
+    }
+
+    /**
+     * Returns a string representation of the contents of the specified matrix, in the same format as
+     * {@link Matrix#toString()}.
+     * @return a string representation of the matrix
+     */
+    @Override
+    public String toString() {
+        return toMatrix().toString();
+    }
+
+    private static int index(final int r, final int c) {
+        return Objects.checkIndex(r, 4) * 4 + Objects.checkIndex(c, 4);
+    }
+}
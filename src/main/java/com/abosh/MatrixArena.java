@@ -0,0 +1,345 @@
+package com.abosh;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * a pool of matrices keyed by their dimensions, for code that creates and discards the same few shapes over and over.
+ * matrices are usually borrowed through a {@link Scope}, which returns everything it handed out when it is closed:
+ *
+ * <pre>
+ * try (MatrixArena.Scope scope = arena.scope()) {
+ *     Matrix t = scope.multiply(a, b);
+ *     Matrix result = scope.detach(scope.add(t, c));
+ * }
+ * </pre>
+ *
+ * each thread keeps up to {@value #LOCAL_SLOTS} released matrices in a small private cache, so a thread that
+ * releases and acquires the same shapes neither allocates nor touches shared state. the cache is bounded per thread,
+ * dies with its thread and is not counted towards the byte limit. everything else goes through per-shape free lists
+ * that hold at most {@code maxPerShape} matrices; releasing into a full list evicts its oldest entry. the free lists
+ * never retain more than {@code maxRetainedBytes} of backing arrays in total; matrices released beyond that are
+ * dropped for the garbage collector. an arena with either limit at 0 pools nothing.
+ *
+ * a matrix must not be used after it has been released, and must not be released again until it has been acquired
+ * back. a second release is caught while the matrix is in the releasing thread's cache or on a shared free list.
+ *
+ * @author Abosh Upadhyaya
+ */
+public final class MatrixArena {
+    /** matrices cached per thread before releases go to the shared free lists. */
+    static final int LOCAL_SLOTS = 4;
+
+    // private data fields
+    private final int maxPerShape;
+    private final long maxRetainedBytes;
+    private final ConcurrentHashMap<Long, ArrayDeque<Matrix>> shelves = new ConcurrentHashMap<>();
+    private final ThreadLocal<Matrix[]> local = ThreadLocal.withInitial(() -> new Matrix[LOCAL_SLOTS]);
+    private final AtomicLong retainedBytes = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * creates an arena holding at most 16 matrices per shape and 64 MiB in total.
+     */
+    public MatrixArena() {
+        this(16, 64L << 20);
+    }
+
+    /**
+     * @param maxPerShape      most matrices kept in the shared free list of one shape
+     * @param maxRetainedBytes most bytes of backing arrays kept by the arena in total
+     */
+    public MatrixArena(final int maxPerShape, final long maxRetainedBytes) {
+        if (maxPerShape < 0 || maxRetainedBytes < 0)
+            throw new IllegalArgumentException("The pool limits cannot be negative.");
+        this.maxPerShape = maxPerShape;
+        this.maxRetainedBytes = maxRetainedBytes;
+    }
+
+    /**
+     * borrows a matrix with all values set to 0.
+     *
+     * @param rows number of rows in matrix
+     * @param cols number of columns in matrix
+     * @return a pooled or new matrix
+     */
+    public Matrix acquire(final int rows, final int cols) {
+        final Matrix m = acquireUncleared(rows, cols);
+        Arrays.fill(m.getData(), 0);
+        return m;
+    }
+
+    /**
+     * borrows a matrix whose values are left over from its previous use, for callers that overwrite every value.
+     */
+    Matrix acquireUncleared(final int rows, final int cols) {
+        final Matrix[] slots = local.get();
+        for (int i = 0; i < LOCAL_SLOTS; i++) {
+            final Matrix m = slots[i];
+            if (m != null && m.getRows() == rows && m.getCols() == cols) {
+                slots[i] = null;
+                return hit(m);
+            }
+        }
+        final ArrayDeque<Matrix> shelf = shelves.get(key(rows, cols));
+        if (shelf != null) {
+            final Matrix m;
+            synchronized (shelf) {
+                m = shelf.pollFirst();
+            }
+            if (m != null) {
+                retainedBytes.addAndGet(-bytes(m));
+                return hit(m);
+            }
+        }
+        misses.increment();
+        return new Matrix(rows, cols);
+    }
+
+    /**
+     * returns a matrix to the pool. the matrix must own its whole backing array, as every matrix created by
+     * {@link #acquire} or {@code new Matrix(rows, cols)} does.
+     *
+     * @param m matrix to release; it must not be used afterwards
+     * @throws IllegalStateException if the matrix is already in the pool
+     */
+    public void release(final Matrix m) {
+        if (m.getOffset() != 0 || !m.isContiguous() || m.getData().length != m.getRows() * m.getCols())
+            throw new IllegalArgumentException("Only a matrix that owns its whole backing array can be pooled.");
+        final long bytes = bytes(m);
+        if (maxPerShape == 0 || bytes > maxRetainedBytes) {
+            evictions.increment();
+            return;
+        }
+        final Matrix[] slots = local.get();
+        int free = -1;
+        for (int i = 0; i < LOCAL_SLOTS; i++) {
+            if (slots[i] == m)
+                throw new IllegalStateException("The matrix has already been released.");
+            if (slots[i] == null && free < 0)
+                free = i;
+        }
+        if (free >= 0) {
+            // the free lists are only searched when they hold anything, so a thread working out of its own cache
+            // never takes their locks; a matrix without elements is harmless to hand out twice
+            if (bytes > 0 && retainedBytes.get() > 0 && isShelved(m))
+                throw new IllegalStateException("The matrix has already been released.");
+            slots[free] = m;
+            return;
+        }
+        if (!reserve(bytes)) {
+            evictions.increment();
+            return;
+        }
+        final ArrayDeque<Matrix> shelf = shelves.computeIfAbsent(key(m.getRows(), m.getCols()),
+            k -> new ArrayDeque<>());
+        Matrix evicted = null;
+        synchronized (shelf) {
+            if (contains(shelf, m)) {
+                retainedBytes.addAndGet(-bytes);
+                throw new IllegalStateException("The matrix has already been released.");
+            }
+            if (shelf.size() == maxPerShape)
+                evicted = shelf.pollLast();
+            shelf.addFirst(m);
+        }
+        if (evicted != null) {
+            retainedBytes.addAndGet(-bytes(evicted));
+            evictions.increment();
+        }
+    }
+
+    /**
+     * opens a scope whose matrices are all released when it is closed.
+     * @return a new scope
+     */
+    public Scope scope() {
+        return new Scope();
+    }
+
+    /**
+     * @return the fraction of acquisitions served from the pool, or 0 if there were none
+     */
+    public double getHitRate() {
+        final long h = hits.sum();
+        final long total = h + misses.sum();
+        return total == 0 ? 0 : (double) h / total;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return the number of released matrices dropped because a limit was reached
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return the bytes of backing arrays currently held on the shared free lists; the per-thread caches are not
+     *         counted
+     */
+    public long getRetainedBytes() {
+        return retainedBytes.get();
+    }
+
+    private Matrix hit(final Matrix m) {
+        hits.increment();
+        return m;
+    }
+
+    private boolean isShelved(final Matrix m) {
+        final ArrayDeque<Matrix> shelf = shelves.get(key(m.getRows(), m.getCols()));
+        if (shelf == null)
+            return false;
+        synchronized (shelf) {
+            return contains(shelf, m);
+        }
+    }
+
+    /**
+     * searches by identity, since {@link Matrix#equals} compares values.
+     */
+    private static boolean contains(final ArrayDeque<Matrix> shelf, final Matrix m) {
+        for (final Matrix pooled : shelf) {
+            if (pooled == m)
+                return true;
+        }
+        return false;
+    }
+
+    private boolean reserve(final long bytes) {
+        long current;
+        do {
+            current = retainedBytes.get();
+            if (current + bytes > maxRetainedBytes)
+                return false;
+        } while (!retainedBytes.compareAndSet(current, current + bytes));
+        return true;
+    }
+
+    private static long bytes(final Matrix m) {
+        return (long) m.getData().length * Double.BYTES;
+    }
+
+    private static Long key(final int rows, final int cols) {
+        return (long) rows << 32 | cols;
+    }
+
+    /**
+     * a set of borrowed matrices that are released together. the operations draw their results from the arena. a
+     * scope belongs to the thread that opened it.
+     */
+    public final class Scope implements AutoCloseable {
+        private final List<Matrix> borrowed = new ArrayList<>();
+
+        private Scope() {
+        }
+
+        /**
+         * borrows a matrix with all values set to 0 until this scope is closed.
+         *
+         * @param rows number of rows in matrix
+         * @param cols number of columns in matrix
+         * @return a pooled or new matrix
+         */
+        public Matrix acquire(final int rows, final int cols) {
+            return track(MatrixArena.this.acquire(rows, cols));
+        }
+
+        /**
+         * @return a pooled matrix holding a + b
+         */
+        public Matrix add(final Matrix a, final Matrix b) {
+            if (!a.dimensionEquality(b))
+                throw new IllegalArgumentException(
+                    String.format("Expected %d rows and %d columns. Received %d rows and %d columns.",
+                        a.getRows(), a.getCols(), b.getRows(), b.getCols()));
+            final Matrix sum = track(acquireUncleared(a.getRows(), a.getCols()));
+            Matrix.addInto(a, b, sum);
+            return sum;
+        }
+
+        /**
+         * @return a pooled matrix holding a - b
+         */
+        public Matrix subtract(final Matrix a, final Matrix b) {
+            if (!a.dimensionEquality(b))
+                throw new IllegalArgumentException(
+                    String.format("Expected %d rows and %d columns. Received %d rows and %d columns.",
+                        a.getRows(), a.getCols(), b.getRows(), b.getCols()));
+            final Matrix difference = track(acquireUncleared(a.getRows(), a.getCols()));
+            Matrix.subtractInto(a, b, difference);
+            return difference;
+        }
+
+        /**
+         * @return a pooled matrix holding a * b
+         */
+        public Matrix multiply(final Matrix a, final Matrix b) {
+            if (a.getCols() != b.getRows())
+                throw new IllegalArgumentException(
+                    "The number of columns in the left operand must equal the number of rows in the right operand.");
+            final Matrix product = track(acquireUncleared(a.getRows(), b.getCols()));
+            // a beta of 0 overwrites whatever the pooled matrix held
+            Matrix.multiplyInto(a, b, product, 1.0, 0.0);
+            return product;
+        }
+
+        /**
+         * @return a pooled copy of m
+         */
+        public Matrix copy(final Matrix m) {
+            final Matrix copy = track(acquireUncleared(m.getRows(), m.getCols()));
+            final double[] source = m.getData();
+            for (int r = 0; r < m.getRows(); r++)
+                System.arraycopy(source, m.getOffset() + r * m.getLeadingDimension(), copy.getData(),
+                    r * m.getCols(), m.getCols());
+            return copy;
+        }
+
+        /**
+         * keeps a matrix borrowed through this scope from being released when the scope closes, e.g. to return it.
+         *
+         * @param m matrix borrowed through this scope
+         * @return m
+         */
+        public Matrix detach(final Matrix m) {
+            for (int i = borrowed.size() - 1; i >= 0; i--) {
+                if (borrowed.get(i) == m) {
+                    borrowed.remove(i);
+                    return m;
+                }
+            }
+            throw new IllegalArgumentException("The matrix was not borrowed through this scope.");
+        }
+
+        /**
+         * releases every matrix still borrowed through this scope.
+         */
+        @Override
+        public void close() {
+            for (int i = borrowed.size() - 1; i >= 0; i--)
+                release(borrowed.get(i));
+            borrowed.clear();
+        }
+
+        private Matrix track(final Matrix m) {
+            borrowed.add(m);
+            return m;
+        }
+    }
+}
@@ -0,0 +1,399 @@
+package com.abosh;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * runs matrix operations submitted from many threads on a fixed set of worker threads, so that concurrent callers
+ * share the cores instead of fighting over them. every submission returns a {@link CompletableFuture} at once and the
+ * operation is queued with others of the same kind and operand shapes. an idle worker takes a whole group of equal
+ * jobs, up to {@code maxBatch} of them, and runs it back to back, which keeps one kernel and one set of loop bounds hot
+ * in the caches and takes the queue lock once per batch instead of once per job.
+ *
+ * a group is ready to run when it holds {@code maxBatch} jobs, when its oldest job has waited {@code maxDelay}, or when
+ * the executor is closing; among ready groups the one whose oldest job has waited longest runs first, so no shape is
+ * starved. with the default delay of zero every queued group is ready and batches form from whatever piles up while
+ * the workers are busy; a positive delay trades that much latency for fuller batches.
+ *
+ * at most {@code maxPending} jobs are queued or running at once. a submission beyond that blocks until a job finishes,
+ * which pushes back on producers that outrun the workers. a submission made on a worker thread, e.g. from a dependent
+ * stage of one of the futures, never blocks, since only the workers free up room: when the queue is full the job runs
+ * right there instead. the queue is guarded by {@link ReentrantLock} and
+ * {@link Semaphore} rather than monitors, so blocked submitters running on virtual threads release their carrier
+ * thread; {@link #newVirtualThreadExecutor()} makes such submitters where the JVM supports them. workers are platform
+ * threads because the jobs are compute-bound.
+ *
+ * operands are read when the job runs, so they must not be modified until its future completes. futures are
+ * completed on the worker threads, which therefore also run any dependent stages that are not async.
+ *
+ * @author Abosh Upadhyaya
+ */
+public final class MatrixExecutor implements AutoCloseable {
+    /** default most jobs queued or running at once. */
+    static final int DEFAULT_MAX_PENDING = 4096;
+    /** default most jobs run as one batch. */
+    static final int DEFAULT_MAX_BATCH = 64;
+
+    private enum Operation {
+        MULTIPLY, ADD, SUBTRACT
+    }
+
+    // private data fields
+    private final int maxBatch;
+    private final long maxDelayNanos;
+    private final Semaphore permits;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition ready = lock.newCondition();
+    /** non-empty groups of queued jobs; iteration order is the order the groups were created in. */
+    private final Map<Shape, ArrayDeque<Job>> groups = new LinkedHashMap<>();
+    private final Thread[] workers;
+    private boolean closed;
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+
+    /**
+     * creates an executor with one worker per available processor, at most 4096 pending jobs, batches of at most 64
+     * jobs and no batching delay.
+     */
+    public MatrixExecutor() {
+        this(Runtime.getRuntime().availableProcessors(), DEFAULT_MAX_PENDING, DEFAULT_MAX_BATCH, 0,
+            TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param threads    number of worker threads
+     * @param maxPending most jobs queued or running at once before submissions block
+     * @param maxBatch   most jobs of one shape run as a single batch
+     * @param maxDelay   longest a job waits for others of its shape before its group runs anyway, if a worker is free
+     * @param unit       unit of maxDelay
+     */
+    public MatrixExecutor(final int threads, final int maxPending, final int maxBatch, final long maxDelay,
+            final TimeUnit unit) {
+        if (threads < 1)
+            throw new IllegalArgumentException("The number of threads must be positive.");
+        if (maxPending < 1 || maxBatch < 1)
+            throw new IllegalArgumentException("The queue and batch limits must be positive.");
+        if (maxDelay < 0)
+            throw new IllegalArgumentException("The batching delay cannot be negative.");
+        this.maxBatch = maxBatch;
+        this.maxDelayNanos = unit.toNanos(maxDelay);
+        this.permits = new Semaphore(maxPending);
+        this.workers = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Thread(this::work, "matrix-executor-" + i);
+            workers[i].setDaemon(true);
+            workers[i].start();
+        }
+    }
+
+    /**
+     * creates an executor that starts a virtual thread per task on JVMs that have them, and a cached pool of platform
+     * threads otherwise. it suits code that submits many jobs and waits on each result in its own thread.
+     *
+     * @return a new executor service, which the caller shuts down
+     */
+    public static ExecutorService newVirtualThreadExecutor() {
+        try {
+            // looked up reflectively so the library still builds and runs on Java 11
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (final ReflectiveOperationException e) {
+            // absent before Java 19, or a preview feature that is not enabled
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    /**
+     * queues a * b.
+     *
+     * @param a left operand
+     * @param b right operand
+     * @return a future completed with a new product matrix
+     * @throws IllegalArgumentException   if the number of columns of a differs from the number of rows of b
+     * @throws RejectedExecutionException if the executor is closed
+     */
+    public CompletableFuture<Matrix> multiply(final Matrix a, final Matrix b) {
+        a.checkMultiplicand(b);
+        return submit(Operation.MULTIPLY, a, b);
+    }
+
+    /**
+     * queues a + b.
+     *
+     * @param a left operand
+     * @param b right operand
+     * @return a future completed with a new summed matrix
+     * @throws IllegalArgumentException   if the dimensions of a and b differ
+     * @throws RejectedExecutionException if the executor is closed
+     */
+    public CompletableFuture<Matrix> add(final Matrix a, final Matrix b) {
+        a.checkDimensions(b);
+        return submit(Operation.ADD, a, b);
+    }
+
+    /**
+     * queues a - b.
+     *
+     * @param a left operand
+     * @param b right operand
+     * @return a future completed with a new difference matrix
+     * @throws IllegalArgumentException   if the dimensions of a and b differ
+     * @throws RejectedExecutionException if the executor is closed
+     */
+    public CompletableFuture<Matrix> subtract(final Matrix a, final Matrix b) {
+        a.checkDimensions(b);
+        return submit(Operation.SUBTRACT, a, b);
+    }
+
+    /**
+     * @return number of jobs finished so far
+     */
+    public long getCompletedJobs() {
+        return completed.sum();
+    }
+
+    /**
+     * @return number of batches run so far
+     */
+    public long getBatches() {
+        return batches.sum();
+    }
+
+    /**
+     * stops accepting jobs, lets the workers finish every job already queued, and waits for them to exit. submitters
+     * blocked on a full queue are rejected. closing twice has no further effect. called on a worker thread, e.g. from
+     * a dependent stage, it waits for the other workers only.
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (!closed) {
+                closed = true;
+                ready.signalAll();
+                // wake one blocked submitter; it finds the executor closed and hands its permit on to the next one
+                if (permits.hasQueuedThreads())
+                    permits.release();
+            }
+        } finally {
+            lock.unlock();
+        }
+        boolean interrupted = false;
+        for (final Thread worker : workers) {
+            // a worker cannot wait for itself; it exits once it returns to its loop
+            while (worker != Thread.currentThread() && worker.isAlive()) {
+                try {
+                    worker.join();
+                } catch (final InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted)
+            Thread.currentThread().interrupt();
+    }
+
+    private CompletableFuture<Matrix> submit(final Operation operation, final Matrix a, final Matrix b) {
+        final Job job = new Job(operation, a, b);
+        if (isWorker()) {
+            if (!permits.tryAcquire()) {
+                // blocking here could leave every worker waiting for a permit only a worker can return
+                checkOpen();
+                finish(job, false);
+                return job.future;
+            }
+        } else {
+            try {
+                permits.acquire();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        lock.lock();
+        try {
+            if (closed) {
+                permits.release();
+                throw new RejectedExecutionException("The executor has been closed.");
+            }
+            final Shape shape = new Shape(operation, a.getRows(), a.getCols(), b.getRows(), b.getCols());
+            final ArrayDeque<Job> group = groups.computeIfAbsent(shape, s -> new ArrayDeque<>());
+            group.add(job);
+            // with a delay, only a group that just filled up or just appeared can let a waiting worker move on
+            if (maxDelayNanos == 0 || group.size() == 1 || group.size() == maxBatch)
+                ready.signal();
+        } finally {
+            lock.unlock();
+        }
+        return job.future;
+    }
+
+    private void work() {
+        final List<Job> batch = new ArrayList<>(maxBatch);
+        while (take(batch)) {
+            batches.increment();
+            for (final Job job : batch)
+                finish(job, true);
+            batch.clear();
+        }
+    }
+
+    /**
+     * runs a job and completes its future. the job is counted, and its permit returned, before completion, so both are
+     * visible to whoever waits on the future.
+     */
+    private void finish(final Job job, final boolean holdsPermit) {
+        try {
+            final Matrix result = job.run();
+            completed.increment();
+            if (holdsPermit)
+                permits.release();
+            job.future.complete(result);
+        } catch (final RuntimeException | Error e) {
+            completed.increment();
+            if (holdsPermit)
+                permits.release();
+            job.future.completeExceptionally(e);
+        }
+    }
+
+    private boolean isWorker() {
+        final Thread current = Thread.currentThread();
+        for (final Thread worker : workers) {
+            if (worker == current)
+                return true;
+        }
+        return false;
+    }
+
+    private void checkOpen() {
+        lock.lock();
+        try {
+            if (closed)
+                throw new RejectedExecutionException("The executor has been closed.");
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * waits for a ready group and moves up to maxBatch of its jobs into batch.
+     *
+     * @return false once the executor is closed and nothing is left to run
+     */
+    private boolean take(final List<Job> batch) {
+        lock.lock();
+        try {
+            while (true) {
+                final long now = System.nanoTime();
+                Map.Entry<Shape, ArrayDeque<Job>> oldest = null;
+                long wake = Long.MAX_VALUE;
+                for (final Map.Entry<Shape, ArrayDeque<Job>> entry : groups.entrySet()) {
+                    final ArrayDeque<Job> group = entry.getValue();
+                    final long queued = group.peekFirst().queued;
+                    if (closed || group.size() >= maxBatch || now - queued >= maxDelayNanos) {
+                        if (oldest == null || queued - oldest.getValue().peekFirst().queued < 0)
+                            oldest = entry;
+                    } else {
+                        wake = Math.min(wake, maxDelayNanos - (now - queued));
+                    }
+                }
+                if (oldest != null) {
+                    final ArrayDeque<Job> group = oldest.getValue();
+                    for (int i = 0; i < maxBatch && !group.isEmpty(); i++)
+                        batch.add(group.pollFirst());
+                    if (group.isEmpty())
+                        groups.remove(oldest.getKey());
+                    else
+                        ready.signal();
+                    return true;
+                }
+                if (closed)
+                    return false;
+                if (wake == Long.MAX_VALUE)
+                    ready.awaitUninterruptibly();
+                else
+                    awaitNanos(wake);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void awaitNanos(final long nanos) {
+        try {
+            ready.awaitNanos(nanos);
+        } catch (final InterruptedException e) {
+            // workers are only interrupted by outside code; the loop re-checks the queue either way
+        }
+    }
+
+    /**
+     * the kind of an operation and the dimensions of its operands; jobs with equal shapes are batched together.
+     */
+    private static final class Shape {
+        private final Operation operation;
+        private final int aRows;
+        private final int aCols;
+        private final int bRows;
+        private final int bCols;
+
+        Shape(final Operation operation, final int aRows, final int aCols, final int bRows, final int bCols) {
+            this.operation = operation;
+            this.aRows = aRows;
+            this.aCols = aCols;
+            this.bRows = bRows;
+            this.bCols = bCols;
+        }
+
+        @Override
+        public boolean equals(final Object other) {
+            if (!(other instanceof Shape))
+                return false;
+            final Shape shape = (Shape) other;
+            return operation == shape.operation && aRows == shape.aRows && aCols == shape.aCols
+                && bRows == shape.bRows && bCols == shape.bCols;
+        }
+
+        @Override
+        public int hashCode() {
+            return (((operation.hashCode() * 31 + aRows) * 31 + aCols) * 31 + bRows) * 31 + bCols;
+        }
+    }
+
+    private static final class Job {
+        private final Operation operation;
+        private final Matrix a;
+        private final Matrix b;
+        private final long queued = System.nanoTime();
+        private final CompletableFuture<Matrix> future = new CompletableFuture<>();
+
+        Job(final Operation operation, final Matrix a, final Matrix b) {
+            this.operation = operation;
+            this.a = a;
+            this.b = b;
+        }
+
+        Matrix run() {
+            switch (operation) {
+                case MULTIPLY:
+                    return a.multiply(b);
+                case ADD:
+                    return a.add(b);
+                default:
+                    return a.subtract(b);
+            }
+        }
+    }
+}
@@ -0,0 +1,511 @@
+package com.abosh;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * a lazily evaluated matrix formula. building an expression only records a graph of add, subtract, scale, multiply
+ * and transpose nodes; nothing is computed until {@link #evaluate()} is called.
+ *
+ * evaluation fuses as much as it can:
+ * <ul>
+ * <li>chains of add, subtract and scale are computed in a single pass over the output, one row at a time, without
+ * any temporary matrices.</li>
+ * <li>the left operand of a product, when it is such a chain, is computed a block of rows at a time straight into
+ * the multiply kernel and never exists as a whole matrix.</li>
+ * <li>transposes are pushed down to the input matrices when the expression is built, and transposed inputs of a
+ * product are read in transposed order by the kernel instead of being copied.</li>
+ * <li>a scaled product is computed with the scale folded into the kernel.</li>
+ * <li>a sub-expression used more than once, such as {@code x} in {@code x.multiply(x)}, is materialized at most once
+ * per evaluation, whether it is a product or an element-wise chain; every other use reads the materialized value.</li>
+ * </ul>
+ * because sums are accumulated term by term and scale factors are distributed over the terms, results can differ
+ * from eager evaluation in the last bits when scale is involved.
+ *
+ * @author Abosh Upadhyaya
+ */
+public abstract class MatrixExpression {
+    /** rough number of elements of a product's left operand computed per streamed block. */
+    static final int BLOCK_ELEMENTS = 1 << 14;
+
+    // private data fields
+    private final int rows;
+    private final int cols;
+
+    private MatrixExpression(final int rows, final int cols) {
+        this.rows = rows;
+        this.cols = cols;
+    }
+
+    /**
+     * starts an expression from a matrix. the matrix is read, not copied, when the expression is evaluated.
+     *
+     * @param m matrix to start from
+     * @return an expression for m
+     */
+    public static MatrixExpression of(final Matrix m) {
+        return new Leaf(m, false);
+    }
+
+    /**
+     * @param addend expression to be added to this expression
+     * @return an expression for this + addend
+     */
+    public MatrixExpression add(final MatrixExpression addend) {
+        checkDimensions(addend);
+        return new Sum(this, addend, 1.0);
+    }
+
+    /**
+     * @param addend matrix to be added to this expression
+     * @return an expression for this + addend
+     */
+    public MatrixExpression add(final Matrix addend) {
+        return add(of(addend));
+    }
+
+    /**
+     * @param subtrahend expression to subtract from this expression
+     * @return an expression for this - subtrahend
+     */
+    public MatrixExpression subtract(final MatrixExpression subtrahend) {
+        checkDimensions(subtrahend);
+        return new Sum(this, subtrahend, -1.0);
+    }
+
+    /**
+     * @param subtrahend matrix to subtract from this expression
+     * @return an expression for this - subtrahend
+     */
+    public MatrixExpression subtract(final Matrix subtrahend) {
+        return subtract(of(subtrahend));
+    }
+
+    /**
+     * @param factor value to multiply every element by
+     * @return an expression for factor * this
+     */
+    public MatrixExpression scale(final double factor) {
+        return new Scale(this, factor);
+    }
+
+    /**
+     * @param multiplicand expression to multiply this expression by
+     * @return an expression for this * multiplicand
+     */
+    public MatrixExpression multiply(final MatrixExpression multiplicand) {
+        if (cols != multiplicand.rows)
+            throw new IllegalArgumentException(
+                "The number of columns in this matrix must equal the number of rows in the multiplicand matrix.");
+        return new Product(this, multiplicand);
+    }
+
+    /**
+     * @param multiplicand matrix to multiply this expression by
+     * @return an expression for this * multiplicand
+     */
+    public MatrixExpression multiply(final Matrix multiplicand) {
+        return multiply(of(multiplicand));
+    }
+
+    /**
+     * @return an expression for the transpose of this expression
+     */
+    public abstract MatrixExpression transpose();
+
+    /**
+     * computes the value of this expression.
+     * @return a new matrix holding the result
+     */
+    public Matrix evaluate() {
+        return materialize(new Context(this));
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    /**
+     * returns the value of this node, computing it at most once per evaluation. implementations may return an input
+     * matrix itself, so callers must not modify the result.
+     */
+    Matrix materialize(final Context context) {
+        Matrix result = context.materialized.get(this);
+        if (result == null) {
+            result = compute(context);
+            context.materialized.put(this, result);
+        }
+        return result;
+    }
+
+    /**
+     * computes the value of this node into a new matrix.
+     */
+    abstract Matrix compute(Context context);
+
+    /**
+     * @return the nodes this node reads from
+     */
+    abstract MatrixExpression[] operands();
+
+    /**
+     * out[off + j] = factor * this[r, j] for every column j.
+     */
+    abstract void write(Context context, int r, double[] out, int off, double factor);
+
+    /**
+     * out[off + j] += factor * this[r, j] for every column j.
+     */
+    abstract void accumulate(Context context, int r, double[] out, int off, double factor);
+
+    private void checkDimensions(final MatrixExpression m) {
+        if (m.rows != rows || m.cols != cols)
+            throw new IllegalArgumentException(
+                String.format("Expected %d rows and %d columns. Received %d rows and %d columns.",
+                    rows, cols, m.rows, m.cols));
+    }
+
+    /**
+     * per-evaluation state: how many parents each node has in the expression being evaluated and the values of the
+     * nodes computed so far, both keyed by node identity.
+     */
+    static final class Context {
+        final Map<MatrixExpression, Matrix> materialized = new IdentityHashMap<>();
+        private final Map<MatrixExpression, Integer> uses = new IdentityHashMap<>();
+
+        Context(final MatrixExpression root) {
+            count(root);
+        }
+
+        private void count(final MatrixExpression node) {
+            // operands are counted on the first visit only, so a shared subtree is walked once
+            if (uses.merge(node, 1, Integer::sum) == 1) {
+                for (final MatrixExpression operand : node.operands())
+                    count(operand);
+            }
+        }
+
+        /**
+         * whether the node is read by more than one parent, and so is worth materializing once.
+         */
+        boolean isShared(final MatrixExpression node) {
+            return uses.getOrDefault(node, 0) > 1;
+        }
+    }
+
+    /**
+     * an input matrix, possibly read in transposed order.
+     */
+    private static final class Leaf extends MatrixExpression {
+        private final Matrix matrix;
+        private final boolean transposed;
+
+        Leaf(final Matrix matrix, final boolean transposed) {
+            super(transposed ? matrix.getCols() : matrix.getRows(), transposed ? matrix.getRows() : matrix.getCols());
+            this.matrix = matrix;
+            this.transposed = transposed;
+        }
+
+        @Override
+        public MatrixExpression transpose() {
+            return new Leaf(matrix, !transposed);
+        }
+
+        @Override
+        Matrix materialize(final Context context) {
+            return transposed ? super.materialize(context) : matrix;
+        }
+
+        @Override
+        public Matrix evaluate() {
+            // never hand out the input itself from the public API
+            return transposed ? compute(new Context(this)) : new Matrix(matrix);
+        }
+
+        @Override
+        Matrix compute(final Context context) {
+            // only transposed leaves are computed; the transpose is written straight into the result
+            final Matrix result = new Matrix(getRows(), getCols());
+            MatrixKernels.transpose(matrix.getRows(), matrix.getCols(), matrix.getData(), matrix.getOffset(),
+                matrix.getLeadingDimension(), result.getData(), 0, getCols());
+            return result;
+        }
+
+        @Override
+        MatrixExpression[] operands() {
+            return new MatrixExpression[0];
+        }
+
+        @Override
+        void write(final Context context, final int r, final double[] out, final int off, final double factor) {
+            writeRow(matrix, transposed, r, out, off, factor);
+        }
+
+        @Override
+        void accumulate(final Context context, final int r, final double[] out, final int off,
+                final double factor) {
+            accumulateRow(matrix, transposed, r, out, off, factor);
+        }
+
+        /**
+         * out[off + j] = factor * m[r, j], or factor * m[j, r] when transposed.
+         */
+        static void writeRow(final Matrix m, final boolean transposed, final int r, final double[] out,
+                final int off, final double factor) {
+            final double[] data = m.getData();
+            final int ld = m.getLeadingDimension();
+            if (transposed) {
+                final int n = m.getRows();
+                for (int j = 0, i = m.getOffset() + r; j < n; j++, i += ld)
+                    out[off + j] = factor * data[i];
+            } else if (factor == 1.0) {
+                System.arraycopy(data, m.getOffset() + r * ld, out, off, m.getCols());
+            } else {
+                final int n = m.getCols();
+                final int row = m.getOffset() + r * ld;
+                for (int j = 0; j < n; j++)
+                    out[off + j] = factor * data[row + j];
+            }
+        }
+
+        /**
+         * out[off + j] += factor * m[r, j], or factor * m[j, r] when transposed.
+         */
+        static void accumulateRow(final Matrix m, final boolean transposed, final int r, final double[] out,
+                final int off, final double factor) {
+            final double[] data = m.getData();
+            final int ld = m.getLeadingDimension();
+            if (transposed) {
+                final int n = m.getRows();
+                for (int j = 0, i = m.getOffset() + r; j < n; j++, i += ld)
+                    out[off + j] += factor * data[i];
+                return;
+            }
+            final int n = m.getCols();
+            final int row = m.getOffset() + r * ld;
+            if (factor == 1.0) {
+                for (int j = 0; j < n; j++)
+                    out[off + j] += data[row + j];
+            } else if (factor == -1.0) {
+                for (int j = 0; j < n; j++)
+                    out[off + j] -= data[row + j];
+            } else {
+                for (int j = 0; j < n; j++)
+                    out[off + j] += factor * data[row + j];
+            }
+        }
+    }
+
+    /**
+     * a node computed one output row at a time. a node with a single parent is fused into it; a shared node is
+     * materialized once and its rows are read from the result.
+     */
+    private abstract static class Elementwise extends MatrixExpression {
+        Elementwise(final int rows, final int cols) {
+            super(rows, cols);
+        }
+
+        @Override
+        Matrix compute(final Context context) {
+            final int cols = getCols();
+            final Matrix result = new Matrix(getRows(), cols);
+            for (int r = 0; r < getRows(); r++)
+                writeTerms(context, r, result.getData(), r * cols, 1.0);
+            return result;
+        }
+
+        @Override
+        final void write(final Context context, final int r, final double[] out, final int off, final double factor) {
+            if (context.isShared(this))
+                Leaf.writeRow(materialize(context), false, r, out, off, factor);
+            else
+                writeTerms(context, r, out, off, factor);
+        }
+
+        @Override
+        final void accumulate(final Context context, final int r, final double[] out, final int off,
+                final double factor) {
+            if (context.isShared(this))
+                Leaf.accumulateRow(materialize(context), false, r, out, off, factor);
+            else
+                accumulateTerms(context, r, out, off, factor);
+        }
+
+        /**
+         * out[off + j] = factor * this[r, j] for every column j, computed from the operands.
+         */
+        abstract void writeTerms(Context context, int r, double[] out, int off, double factor);
+
+        /**
+         * out[off + j] += factor * this[r, j] for every column j, computed from the operands.
+         */
+        abstract void accumulateTerms(Context context, int r, double[] out, int off, double factor);
+    }
+
+    /**
+     * left + sign * right, with a sign of 1 or -1.
+     */
+    private static final class Sum extends Elementwise {
+        private final MatrixExpression left;
+        private final MatrixExpression right;
+        private final double sign;
+
+        Sum(final MatrixExpression left, final MatrixExpression right, final double sign) {
+            super(left.getRows(), left.getCols());
+            this.left = left;
+            this.right = right;
+            this.sign = sign;
+        }
+
+        @Override
+        public MatrixExpression transpose() {
+            return new Sum(left.transpose(), right.transpose(), sign);
+        }
+
+        @Override
+        MatrixExpression[] operands() {
+            return new MatrixExpression[] {left, right};
+        }
+
+        @Override
+        void writeTerms(final Context context, final int r, final double[] out, final int off,
+                final double factor) {
+            left.write(context, r, out, off, factor);
+            right.accumulate(context, r, out, off, factor * sign);
+        }
+
+        @Override
+        void accumulateTerms(final Context context, final int r, final double[] out, final int off,
+                final double factor) {
+            left.accumulate(context, r, out, off, factor);
+            right.accumulate(context, r, out, off, factor * sign);
+        }
+    }
+
+    /**
+     * factor * child.
+     */
+    private static final class Scale extends Elementwise {
+        private final MatrixExpression child;
+        private final double factor;
+
+        Scale(final MatrixExpression child, final double factor) {
+            super(child.getRows(), child.getCols());
+            this.child = child;
+            this.factor = factor;
+        }
+
+        @Override
+        public MatrixExpression transpose() {
+            return new Scale(child.transpose(), factor);
+        }
+
+        @Override
+        Matrix compute(final Context context) {
+            // fold the factor of a scaled product into the multiply kernel, unless the product is needed elsewhere
+            if (child instanceof Product && !context.isShared(child))
+                return ((Product) child).compute(context, factor);
+            return super.compute(context);
+        }
+
+        @Override
+        MatrixExpression[] operands() {
+            return new MatrixExpression[] {child};
+        }
+
+        @Override
+        void writeTerms(final Context context, final int r, final double[] out, final int off, final double f) {
+            child.write(context, r, out, off, f * factor);
+        }
+
+        @Override
+        void accumulateTerms(final Context context, final int r, final double[] out, final int off,
+                final double f) {
+            child.accumulate(context, r, out, off, f * factor);
+        }
+    }
+
+    /**
+     * left * right. products are the only nodes that are always materialized.
+     */
+    private static final class Product extends MatrixExpression {
+        private final MatrixExpression left;
+        private final MatrixExpression right;
+
+        Product(final MatrixExpression left, final MatrixExpression right) {
+            super(left.getRows(), right.getCols());
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        public MatrixExpression transpose() {
+            return new Product(right.transpose(), left.transpose());
+        }
+
+        @Override
+        Matrix compute(final Context context) {
+            return compute(context, 1.0);
+        }
+
+        @Override
+        MatrixExpression[] operands() {
+            return new MatrixExpression[] {left, right};
+        }
+
+        Matrix compute(final Context context, final double alpha) {
+            final int m = getRows();
+            final int n = getCols();
+            final int k = left.getCols();
+            final Matrix result = new Matrix(m, n);
+            final Matrix rightValue = operand(right, context);
+            final boolean rightTransposed = isTransposedLeaf(right);
+            // a shared left operand is materialized once instead of being streamed again for every use
+            if (left instanceof Leaf || left instanceof Product || context.isShared(left)) {
+                Matrix.multiplyInto(operand(left, context), isTransposedLeaf(left), rightValue, rightTransposed,
+                    result, alpha, 0.0);
+                return result;
+            }
+            // stream the element-wise left operand into the kernel a block of rows at a time
+            final int blockRows = Math.max(1, Math.min(m, BLOCK_ELEMENTS / Math.max(1, k)));
+            final double[] block = new double[blockRows * k];
+            for (int r0 = 0; r0 < m; r0 += blockRows) {
+                final int count = Math.min(blockRows, m - r0);
+                for (int i = 0; i < count; i++)
+                    left.write(context, r0 + i, block, i * k, 1.0);
+                Matrix.multiplyInto(new Matrix(block, 0, k, count, k), false, rightValue, rightTransposed,
+                    new Matrix(result.getData(), r0 * n, n, count, n), alpha, 0.0);
+            }
+            return result;
+        }
+
+        @Override
+        void write(final Context context, final int r, final double[] out, final int off, final double factor) {
+            Leaf.writeRow(materialize(context), false, r, out, off, factor);
+        }
+
+        @Override
+        void accumulate(final Context context, final int r, final double[] out, final int off,
+                final double factor) {
+            Leaf.accumulateRow(materialize(context), false, r, out, off, factor);
+        }
+
+        /**
+         * returns the matrix to hand to the kernel for an operand: the input itself for a leaf, so that a transposed
+         * leaf is read in transposed order, and the materialized value otherwise.
+         */
+        private static Matrix operand(final MatrixExpression operand, final Context context) {
+            if (operand instanceof Leaf)
+                return ((Leaf) operand).matrix;
+            return operand.materialize(context);
+        }
+
+        private static boolean isTransposedLeaf(final MatrixExpression operand) {
+            return operand instanceof Leaf && ((Leaf) operand).transposed;
+        }
+    }
+}
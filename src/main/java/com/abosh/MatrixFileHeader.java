@@ -0,0 +1,83 @@
+package com.abosh;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * the fixed 32-byte header in front of every binary matrix file. all fields are little-endian:
+ *
+ * <pre>
+ * offset  size  field
+ *      0     4  magic, the ASCII bytes "ABMX"
+ *      4     4  format version, currently 1
+ *      8     8  number of rows
+ *     16     8  number of columns
+ *     24     1  layout, 0 = row-major
+ *     25     1  element type, 0 = IEEE 754 double
+ *     26     6  reserved, zero
+ * </pre>
+ *
+ * the elements follow immediately, so the data region starts 8-byte aligned.
+ *
+ * @author Abosh Upadhyaya
+ */
+final class MatrixFileHeader {
+    static final int SIZE = 32;
+    /** "ABMX" read as a little-endian int. */
+    static final int MAGIC = 'A' | 'B' << 8 | 'M' << 16 | 'X' << 24;
+    static final int VERSION = 1;
+    static final byte ROW_MAJOR = 0;
+    static final byte FLOAT64 = 0;
+
+    final long rows;
+    final long cols;
+    final byte layout;
+    final byte dtype;
+
+    MatrixFileHeader(final long rows, final long cols, final byte layout, final byte dtype) {
+        this.rows = rows;
+        this.cols = cols;
+        this.layout = layout;
+        this.dtype = dtype;
+    }
+
+    /**
+     * returns a little-endian buffer holding the header of a row-major double matrix, ready to be written.
+     */
+    static ByteBuffer encode(final long rows, final long cols) {
+        final ByteBuffer buffer = ByteBuffer.allocate(SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(VERSION).putLong(rows).putLong(cols).put(ROW_MAJOR).put(FLOAT64);
+        buffer.position(SIZE);
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * parses and validates a header from the next {@link #SIZE} bytes of a buffer.
+     *
+     * @throws IOException if the bytes are not a header this version understands
+     */
+    static MatrixFileHeader decode(final ByteBuffer buffer) throws IOException {
+        final ByteBuffer in = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+        if (in.remaining() < SIZE)
+            throw new IOException("The input is too short to contain a matrix header.");
+        if (in.getInt() != MAGIC)
+            throw new IOException("The input does not start with a matrix header.");
+        final int version = in.getInt();
+        if (version != VERSION)
+            throw new IOException("Unsupported matrix format version " + version + ".");
+        final long rows = in.getLong();
+        final long cols = in.getLong();
+        final byte layout = in.get();
+        final byte dtype = in.get();
+        if (rows < 0 || cols < 0)
+            throw new IOException("The matrix header holds negative dimensions.");
+        if (layout != ROW_MAJOR)
+            throw new IOException("Unsupported matrix layout " + layout + ".");
+        if (dtype != FLOAT64)
+            throw new IOException("Unsupported matrix element type " + dtype + ".");
+        buffer.position(buffer.position() + SIZE);
+        return new MatrixFileHeader(rows, cols, layout, dtype);
+    }
+}
@@ -0,0 +1,190 @@
+package com.abosh;
+
+import java.util.Arrays;
+
+/**
+ * matrix powers and the matrix exponential. every intermediate is an n x n matrix allocated once up front, and products
+ * are written into them with {@link Matrix#multiplyInto}, so the work never allocates per multiply.
+ *
+ * @author Abosh Upadhyaya
+ */
+final class MatrixFunctions {
+    /** largest 1-norms for which the Padé approximants of degree 3, 5, 7, 9 and 13 are accurate to doubles. */
+    private static final double[] THETA = {
+        1.495585217958292e-2, 2.539398330063230e-1, 9.504178996162932e-1, 2.097847961257068e0,
+        5.371920351148152e0 };
+    private static final double[][] PADE = {
+        { 120, 60, 12, 1 },
+        { 30240, 15120, 3360, 420, 30, 1 },
+        { 17297280, 8648640, 1995840, 277200, 25200, 1512, 56, 1 },
+        { 17643225600.0, 8821612800.0, 2075673600, 302702400, 30270240, 2162160, 110880, 3960, 90, 1 },
+        { 64764752532480000.0, 32382376266240000.0, 7771770303897600.0, 1187353796428800.0, 129060195264000.0,
+            10559470521600.0, 670442572800.0, 33522128640.0, 1323241920, 40840800, 960960, 16380, 182, 1 } };
+
+    private MatrixFunctions() {
+    }
+
+    /**
+     * m^k by binary exponentiation: O(log k) products ping-ponged between four n x n buffers. a negative k raises the
+     * inverse of m.
+     */
+    static Matrix pow(final Matrix m, final long k) {
+        final int n = m.getRows();
+        Matrix result = new Matrix(n, n);
+        if (k == 0) {
+            result.gLoadIdentity();
+            return result;
+        }
+        Matrix base = k < 0 ? new LUDecomposition(m).inverse() : new Matrix(m);
+        Matrix square = new Matrix(n, n);
+        Matrix spare = new Matrix(n, n);
+        boolean first = true;
+        // read as unsigned so that -Long.MIN_VALUE works
+        long e = k < 0 ? -k : k;
+        while (true) {
+            if ((e & 1) != 0) {
+                if (first) {
+                    System.arraycopy(base.getData(), 0, result.getData(), 0, n * n);
+                    first = false;
+                } else {
+                    Matrix.multiplyInto(result, base, spare, 1.0, 0.0);
+                    final Matrix t = result;
+                    result = spare;
+                    spare = t;
+                }
+            }
+            e >>>= 1;
+            if (e == 0)
+                return result;
+            Matrix.multiplyInto(base, base, square, 1.0, 0.0);
+            final Matrix t = base;
+            base = square;
+            square = t;
+        }
+    }
+
+    /**
+     * e^m by scaling and squaring (Higham, 2005): m is scaled by 2^-s until its 1-norm is small enough for a Padé
+     * approximant r(m) = (V - U)^-1 (V + U) of degree 3 to 13, which is then squared s times.
+     */
+    static Matrix exp(final Matrix m) {
+        final int n = m.getRows();
+        final double norm = norm1(m);
+        if (!Double.isFinite(norm))
+            throw new IllegalArgumentException("The matrix exponential requires finite values.");
+        int degree = 0;
+        while (degree < THETA.length - 1 && norm > THETA[degree])
+            degree++;
+        int s = 0;
+        if (norm > THETA[THETA.length - 1])
+            s = Math.getExponent(norm / THETA[THETA.length - 1]) + 1;
+        final double[] b = PADE[degree];
+        final Matrix a = new Matrix(m);
+        if (s > 0) {
+            // scaling by a power of two is exact
+            final double scale = Math.scalb(1.0, -s);
+            final double[] data = a.getData();
+            for (int i = 0; i < data.length; i++)
+                data[i] *= scale;
+        }
+        final Matrix a2 = new Matrix(n, n);
+        Matrix.multiplyInto(a, a, a2, 1.0, 0.0);
+        final Matrix odd = new Matrix(n, n);
+        final Matrix v = new Matrix(n, n);
+        if (degree < THETA.length - 1) {
+            // odd = b1 I + b3 A^2 + b5 A^4 + ...,  v = b0 I + b2 A^2 + b4 A^4 + ...
+            final Matrix[] powers = { new Matrix(n, n), new Matrix(n, n) };
+            Matrix power = a2;
+            addIdentity(odd, b[1]);
+            addIdentity(v, b[0]);
+            for (int j = 2; j < b.length; j += 2) {
+                axpy(b[j + 1], power, odd);
+                axpy(b[j], power, v);
+                if (j + 2 < b.length) {
+                    final Matrix next = powers[j / 2 & 1];
+                    Matrix.multiplyInto(power, a2, next, 1.0, 0.0);
+                    power = next;
+                }
+            }
+        } else {
+            final Matrix a4 = new Matrix(n, n);
+            final Matrix a6 = new Matrix(n, n);
+            Matrix.multiplyInto(a2, a2, a4, 1.0, 0.0);
+            Matrix.multiplyInto(a4, a2, a6, 1.0, 0.0);
+            final Matrix inner = new Matrix(n, n);
+            // odd = A6 (b13 A6 + b11 A4 + b9 A2) + b7 A6 + b5 A4 + b3 A2 + b1 I
+            axpy(b[13], a6, inner);
+            axpy(b[11], a4, inner);
+            axpy(b[9], a2, inner);
+            Matrix.multiplyInto(a6, inner, odd, 1.0, 0.0);
+            axpy(b[7], a6, odd);
+            axpy(b[5], a4, odd);
+            axpy(b[3], a2, odd);
+            addIdentity(odd, b[1]);
+            // v = A6 (b12 A6 + b10 A4 + b8 A2) + b6 A6 + b4 A4 + b2 A2 + b0 I
+            Arrays.fill(inner.getData(), 0);
+            axpy(b[12], a6, inner);
+            axpy(b[10], a4, inner);
+            axpy(b[8], a2, inner);
+            Matrix.multiplyInto(a6, inner, v, 1.0, 0.0);
+            axpy(b[6], a6, v);
+            axpy(b[4], a4, v);
+            axpy(b[2], a2, v);
+            addIdentity(v, b[0]);
+        }
+        // u = A * odd, r = (V - U)^-1 (V + U)
+        final Matrix u = new Matrix(n, n);
+        Matrix.multiplyInto(a, odd, u, 1.0, 0.0);
+        final Matrix numerator = v.add(u);
+        v.subtractInPlace(u);
+        Matrix result = new LUDecomposition(v).solve(numerator);
+        Matrix spare = numerator;
+        for (int i = 0; i < s; i++) {
+            Matrix.multiplyInto(result, result, spare, 1.0, 0.0);
+            final Matrix t = result;
+            result = spare;
+            spare = t;
+        }
+        return result;
+    }
+
+    /**
+     * @return the largest absolute column sum of m
+     */
+    static double norm1(final Matrix m) {
+        final double[] sums = new double[m.getCols()];
+        final double[] data = m.getData();
+        for (int r = 0; r < m.getRows(); r++) {
+            final int row = m.getOffset() + r * m.getLeadingDimension();
+            for (int c = 0; c < sums.length; c++)
+                sums[c] += Math.abs(data[row + c]);
+        }
+        double max = 0;
+        for (final double sum : sums) {
+            // lets NaN through so that it can be rejected
+            if (!(sum <= max))
+                max = sum;
+        }
+        return max;
+    }
+
+    /**
+     * y += alpha * x for contiguous matrices of equal size.
+     */
+    private static void axpy(final double alpha, final Matrix x, final Matrix y) {
+        final double[] xs = x.getData();
+        final double[] ys = y.getData();
+        for (int i = 0; i < ys.length; i++)
+            ys[i] += alpha * xs[i];
+    }
+
+    /**
+     * m += alpha * I for a contiguous square matrix.
+     */
+    private static void addIdentity(final Matrix m, final double alpha) {
+        final double[] data = m.getData();
+        final int n = m.getRows();
+        for (int i = 0; i < n; i++)
+            data[i * n + i] += alpha;
+    }
+}
@@ -0,0 +1,331 @@
+package com.abosh;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * reads and writes matrices in two formats.
+ *
+ * the binary format is the header described in {@link MatrixFileHeader} followed by the row-major little-endian
+ * elements, i.e. exactly the layout of a {@link MappedMatrix} file. values are streamed through one fixed-size buffer,
+ * so no copy of the whole matrix is ever made.
+ *
+ * the text format is CSV: one row per line and values separated by commas. values are written the way
+ * {@link Double#toString(double)} formats them, which reads back to the same double, and read without creating a
+ * String per value whenever possible.
+ *
+ * @author Abosh Upadhyaya
+ */
+public final class MatrixIO {
+    /** size of the transfer buffer used by the binary reader and writer. */
+    static final int BUFFER_BYTES = 1 << 16;
+    /** size of the character buffer used by the CSV reader and writer. */
+    static final int CHAR_BUFFER = 1 << 13;
+    /** every power of ten up to 10^22 is exactly representable as a double. */
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+    /** most direct transfer buffers ever allocated; one per processor covers every stream that can make progress. */
+    private static final int MAX_DIRECT_BUFFERS = Runtime.getRuntime().availableProcessors();
+    /**
+     * idle direct transfer buffers. channels read into and write from direct memory without an extra copy, but
+     * allocating it is slow and it is only freed when the buffer is collected, so a few are shared by all streams.
+     */
+    private static final ArrayBlockingQueue<ByteBuffer> TRANSFER_BUFFERS = new ArrayBlockingQueue<>(MAX_DIRECT_BUFFERS);
+    private static final AtomicInteger DIRECT_BUFFERS = new AtomicInteger();
+
+    private MatrixIO() {
+    }
+
+    /**
+     * writes a matrix to a channel in the binary format.
+     *
+     * @param m       matrix to write
+     * @param channel channel to write to; it is not closed
+     * @throws IOException if writing fails
+     */
+    public static void writeTo(final Matrix m, final WritableByteChannel channel) throws IOException {
+        writeFully(channel, MatrixFileHeader.encode(m.getRows(), m.getCols()));
+        final ByteBuffer buffer = borrowBuffer();
+        try {
+            final DoubleBuffer doubles = buffer.asDoubleBuffer();
+            final double[] data = m.getData();
+            for (int r = 0; r < m.getRows(); r++) {
+                int from = m.getOffset() + r * m.getLeadingDimension();
+                int remaining = m.getCols();
+                while (remaining > 0) {
+                    final int n = Math.min(remaining, doubles.remaining());
+                    doubles.put(data, from, n);
+                    from += n;
+                    remaining -= n;
+                    if (!doubles.hasRemaining())
+                        flush(channel, buffer, doubles);
+                }
+            }
+            flush(channel, buffer, doubles);
+        } finally {
+            returnBuffer(buffer);
+        }
+    }
+
+    /**
+     * reads a matrix in the binary format from a channel, consuming exactly the bytes of one matrix.
+     *
+     * @param channel channel to read from; it is not closed
+     * @return the matrix read
+     * @throws IOException if reading fails, the input is not in the binary format, or it ends early
+     */
+    public static Matrix readFrom(final ReadableByteChannel channel) throws IOException {
+        final ByteBuffer headerBuffer = ByteBuffer.allocate(MatrixFileHeader.SIZE);
+        readFully(channel, headerBuffer);
+        headerBuffer.flip();
+        final MatrixFileHeader header = MatrixFileHeader.decode(headerBuffer);
+        // each dimension is checked first, so the product of two ints cannot wrap
+        if (header.rows > Integer.MAX_VALUE || header.cols > Integer.MAX_VALUE
+                || header.rows * header.cols > Integer.MAX_VALUE)
+            throw new IOException("The matrix has too many elements to be read into a single array.");
+        final Matrix m = new Matrix((int) header.rows, (int) header.cols);
+        final double[] data = m.getData();
+        final ByteBuffer buffer = borrowBuffer();
+        try {
+            final DoubleBuffer doubles = buffer.asDoubleBuffer();
+            int off = 0;
+            while (off < data.length) {
+                final int n = Math.min(data.length - off, BUFFER_BYTES / Double.BYTES);
+                buffer.clear().limit(n * Double.BYTES);
+                readFully(channel, buffer);
+                doubles.clear();
+                doubles.get(data, off, n);
+                off += n;
+            }
+        } finally {
+            returnBuffer(buffer);
+        }
+        return m;
+    }
+
+    /**
+     * writes a matrix as CSV, one row per line.
+     *
+     * @param m      matrix to write
+     * @param writer writer to write to; it is neither flushed nor closed
+     * @throws IOException if writing fails
+     */
+    public static void writeCsv(final Matrix m, final Writer writer) throws IOException {
+        // StringBuilder.append(double) formats in place, so the only allocations are the two buffers
+        final StringBuilder builder = new StringBuilder(CHAR_BUFFER + 32);
+        final char[] chars = new char[CHAR_BUFFER + 32];
+        final double[] data = m.getData();
+        for (int r = 0; r < m.getRows(); r++) {
+            final int from = m.getOffset() + r * m.getLeadingDimension();
+            for (int c = 0; c < m.getCols(); c++) {
+                if (c > 0)
+                    builder.append(',');
+                builder.append(data[from + c]);
+                if (builder.length() >= CHAR_BUFFER)
+                    drain(builder, chars, writer);
+            }
+            builder.append('\n');
+            if (builder.length() >= CHAR_BUFFER)
+                drain(builder, chars, writer);
+        }
+        drain(builder, chars, writer);
+    }
+
+    /**
+     * reads a CSV matrix. every non-blank line is one row and all rows must have the same number of values. spaces
+     * and tabs around values are ignored.
+     *
+     * @param reader reader to read from; it is not closed
+     * @return the matrix read
+     * @throws IOException if reading fails or the input is not a well-formed numeric CSV matrix
+     */
+    public static Matrix readCsv(final Reader reader) throws IOException {
+        final char[] buffer = new char[CHAR_BUFFER];
+        char[] field = new char[32];
+        int fieldLength = 0;
+        double[] values = new double[256];
+        int count = 0;
+        int cols = -1;
+        int rowValues = 0;
+        int line = 1;
+        boolean fieldClosed = false;
+        int read;
+        boolean done = false;
+        while (!done) {
+            read = reader.read(buffer, 0, buffer.length);
+            if (read < 0) {
+                // behave as if the input ended with a newline
+                buffer[0] = '\n';
+                read = 1;
+                done = true;
+            }
+            for (int i = 0; i < read; i++) {
+                final char ch = buffer[i];
+                if (ch == ',' || ch == '\n') {
+                    if (ch == '\n' && fieldLength == 0 && rowValues == 0) {
+                        // blank line
+                        line++;
+                        continue;
+                    }
+                    if (fieldLength == 0)
+                        throw new IOException("Missing value on line " + line + ".");
+                    if (count == values.length)
+                        values = Arrays.copyOf(values, count * 2);
+                    values[count++] = parseDouble(field, fieldLength, line);
+                    fieldLength = 0;
+                    fieldClosed = false;
+                    rowValues++;
+                    if (ch == '\n') {
+                        if (cols < 0)
+                            cols = rowValues;
+                        else if (rowValues != cols)
+                            throw new IOException(String.format("Expected %d values on line %d. Received %d.",
+                                cols, line, rowValues));
+                        rowValues = 0;
+                        line++;
+                    }
+                } else if (ch == ' ' || ch == '\t' || ch == '\r') {
+                    if (fieldLength > 0)
+                        fieldClosed = true;
+                } else {
+                    if (fieldClosed)
+                        throw new IOException("Unexpected whitespace inside a value on line " + line + ".");
+                    if (fieldLength == field.length)
+                        field = Arrays.copyOf(field, fieldLength * 2);
+                    field[fieldLength++] = ch;
+                }
+            }
+        }
+        if (cols < 0)
+            return new Matrix(0, 0);
+        return new Matrix(count == values.length ? values : Arrays.copyOf(values, count), 0, cols, count / cols,
+            cols);
+    }
+
+    /**
+     * parses a decimal number. numbers with at most 15 significant digits and a decimal exponent of at most 22 in
+     * magnitude are converted with one exact multiplication or division, which is correctly rounded because both
+     * operands are exact doubles; everything else, including NaN and Infinity, goes through
+     * {@link Double#parseDouble}.
+     */
+    static double parseDouble(final char[] s, final int len, final int line) throws IOException {
+        int i = 0;
+        boolean negative = false;
+        if (i < len && (s[i] == '-' || s[i] == '+'))
+            negative = s[i++] == '-';
+        long mantissa = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean anyDigit = false;
+        boolean fast = true;
+        for (; i < len && s[i] >= '0' && s[i] <= '9'; i++) {
+            anyDigit = true;
+            if (mantissa != 0 || s[i] != '0') {
+                mantissa = mantissa * 10 + (s[i] - '0');
+                if (++digits > 15) {
+                    fast = false;
+                    break;
+                }
+            }
+        }
+        if (fast && i < len && s[i] == '.') {
+            for (i++; i < len && s[i] >= '0' && s[i] <= '9'; i++) {
+                anyDigit = true;
+                if (mantissa != 0 || s[i] != '0') {
+                    mantissa = mantissa * 10 + (s[i] - '0');
+                    if (++digits > 15) {
+                        fast = false;
+                        break;
+                    }
+                }
+                exponent--;
+            }
+        }
+        if (fast && anyDigit && i < len && (s[i] == 'e' || s[i] == 'E')) {
+            i++;
+            boolean negativeExponent = false;
+            if (i < len && (s[i] == '-' || s[i] == '+'))
+                negativeExponent = s[i++] == '-';
+            int explicit = 0;
+            final int start = i;
+            for (; i < len && s[i] >= '0' && s[i] <= '9' && explicit < 1000; i++)
+                explicit = explicit * 10 + (s[i] - '0');
+            if (i == start)
+                fast = false;
+            exponent += negativeExponent ? -explicit : explicit;
+        }
+        if (fast && anyDigit && i == len && exponent >= -22 && exponent <= 22) {
+            final double value = exponent < 0
+                ? mantissa / POWERS_OF_TEN[-exponent]
+                : mantissa * POWERS_OF_TEN[exponent];
+            return negative ? -value : value;
+        }
+        try {
+            return Double.parseDouble(new String(s, 0, len));
+        } catch (final NumberFormatException e) {
+            throw new IOException("Invalid number \"" + new String(s, 0, len) + "\" on line " + line + ".", e);
+        }
+    }
+
+    private static void flush(final WritableByteChannel channel, final ByteBuffer buffer, final DoubleBuffer doubles)
+            throws IOException {
+        buffer.clear().limit(doubles.position() * Double.BYTES);
+        writeFully(channel, buffer);
+        doubles.clear();
+    }
+
+    private static void writeFully(final WritableByteChannel channel, final ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+    }
+
+    /**
+     * borrows a cleared little-endian transfer buffer of {@link #BUFFER_BYTES} bytes, which must be handed back to
+     * {@link #returnBuffer}. once all direct buffers are in use, further streams get a heap buffer of their own.
+     */
+    static ByteBuffer borrowBuffer() {
+        ByteBuffer buffer = TRANSFER_BUFFERS.poll();
+        if (buffer == null) {
+            final int allocated = DIRECT_BUFFERS.get();
+            buffer = allocated < MAX_DIRECT_BUFFERS && DIRECT_BUFFERS.compareAndSet(allocated, allocated + 1)
+                ? ByteBuffer.allocateDirect(BUFFER_BYTES)
+                : ByteBuffer.allocate(BUFFER_BYTES);
+        }
+        buffer.clear();
+        return buffer.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * gives back a buffer from {@link #borrowBuffer}; heap buffers are left to the garbage collector.
+     */
+    static void returnBuffer(final ByteBuffer buffer) {
+        if (buffer.isDirect())
+            TRANSFER_BUFFERS.offer(buffer);
+    }
+
+    static void readFully(final ReadableByteChannel channel, final ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0)
+                throw new EOFException("The input ended before the whole matrix was read.");
+        }
+    }
+
+    private static void drain(final StringBuilder builder, final char[] chars, final Writer writer)
+            throws IOException {
+        final int length = builder.length();
+        builder.getChars(0, length, chars, 0);
+        writer.write(chars, 0, length);
+        builder.setLength(0);
+    }
+}
@@ -0,0 +1,556 @@
+package com.abosh;
+
+import java.util.Arrays;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * low-level loops shared by the matrix operations. every routine works directly on row-major backing arrays described
+ * by an offset and a leading dimension, so callers are expected to have checked dimensions beforehand. the innermost
+ * loops hand off to {@link VectorSupport} when SIMD kernels are available on the running JVM.
+ *
+ * @author Abosh Upadhyaya
+ */
+final class MatrixKernels {
+    /** products with fewer multiply-adds than this skip tiling, since the whole problem already fits in cache. */
+    static final long BLOCKED_THRESHOLD = 64L * 64 * 64;
+    /** rows of the left operand and product processed per tile. */
+    static final int ROW_BLOCK = 64;
+    /** shared dimension per tile; a ROW_BLOCK x DEPTH_BLOCK panel of the left operand stays in L1/L2. */
+    static final int DEPTH_BLOCK = 128;
+    /** columns per tile; a DEPTH_BLOCK x COL_BLOCK panel of the right operand (256 KiB) stays in L2. */
+    static final int COL_BLOCK = 256;
+    /** side of the square tiles used when reading an operand in transposed order; two 32 x 32 tiles fit in L1. */
+    static final int TRANSPOSE_TILE = 32;
+    /** elements per leaf block of the recursive transpose. */
+    static final int TRANSPOSE_BLOCK = TRANSPOSE_TILE * TRANSPOSE_TILE;
+
+    private MatrixKernels() {
+    }
+
+    /**
+     * c = alpha * op(a) * op(b) + beta * c, where op(a) is m x k, op(b) is k x n and c is m x n. element (i, p) of op(a)
+     * is read from a[aOff + i * aRowStride + p * aColStride], so a transposed operand is described by swapping its
+     * strides; the same goes for b.
+     *
+     * when op(b) has unit column stride the product goes through {@link #multiplyAdd}. otherwise op(b) is a transposed
+     * row-major matrix whose columns are contiguous, and each element of c is computed as a dot product.
+     */
+    static void gemm(final int m, final int n, final int k, final double alpha,
+            final double[] a, final int aOff, final int aRowStride, final int aColStride,
+            final double[] b, final int bOff, final int bRowStride, final int bColStride,
+            final double beta, final double[] c, final int cOff, final int ldc) {
+        scale(m, n, beta, c, cOff, ldc);
+        if (alpha == 0.0 || k == 0)
+            return;
+        if (bColStride == 1) {
+            multiplyAdd(m, n, k, alpha, a, aOff, aRowStride, aColStride, b, bOff, bRowStride, c, cOff, ldc);
+            return;
+        }
+        dotProducts(m, n, k, alpha, a, aOff, aRowStride, aColStride, b, bOff, bRowStride, bColStride, c, cOff, ldc);
+    }
+
+    /**
+     * c += alpha * op(a) * op(b) with every element computed as a dot product, for an op(b) whose columns are
+     * contiguous. this is also how a batch of vectors is multiplied by a matrix: the rows of op(a) are the vectors and
+     * the columns of op(b) the rows of the matrix. the columns of op(b) are taken in panels of about
+     * DEPTH_BLOCK * COL_BLOCK elements that stay in L2 while every row of op(a) streams past, four rows at a time so
+     * each loaded element of op(b) serves four dot products. every dot product sums its terms in increasing k order.
+     */
+    private static void dotProducts(final int m, final int n, final int k, final double alpha,
+            final double[] a, final int aOff, final int aRowStride, final int aColStride,
+            final double[] b, final int bOff, final int bRowStride, final int bColStride,
+            final double[] c, final int cOff, final int ldc) {
+        final int panel = Math.max(4, DEPTH_BLOCK * COL_BLOCK / k);
+        for (int j0 = 0; j0 < n; j0 += panel) {
+            final int j1 = Math.min(j0 + panel, n);
+            int i = 0;
+            for (; i + 3 < m; i += 4) {
+                final int a0 = aOff + i * aRowStride;
+                final int a1 = a0 + aRowStride;
+                final int a2 = a1 + aRowStride;
+                final int a3 = a2 + aRowStride;
+                final int c0 = cOff + i * ldc;
+                int j = j0;
+                if (aColStride == 1 && bRowStride == 1) {
+                    for (; j + 1 < j1; j += 2)
+                        dotProducts4x2(k, alpha, a, a0, aRowStride, b, bOff + j * bColStride, bColStride, c,
+                            c0 + j, ldc);
+                }
+                for (; j < j1; j++) {
+                    final int bCol = bOff + j * bColStride;
+                    double s0 = 0.0;
+                    double s1 = 0.0;
+                    double s2 = 0.0;
+                    double s3 = 0.0;
+                    for (int p = 0; p < k; p++) {
+                        final double bValue = b[bCol + p * bRowStride];
+                        final int aIndex = p * aColStride;
+                        s0 += a[a0 + aIndex] * bValue;
+                        s1 += a[a1 + aIndex] * bValue;
+                        s2 += a[a2 + aIndex] * bValue;
+                        s3 += a[a3 + aIndex] * bValue;
+                    }
+                    c[c0 + j] += alpha * s0;
+                    c[c0 + ldc + j] += alpha * s1;
+                    c[c0 + 2 * ldc + j] += alpha * s2;
+                    c[c0 + 3 * ldc + j] += alpha * s3;
+                }
+            }
+            for (; i < m; i++) {
+                final int aRow = aOff + i * aRowStride;
+                final int cRow = cOff + i * ldc;
+                for (int j = j0; j < j1; j++) {
+                    final int bCol = bOff + j * bColStride;
+                    double sum = 0.0;
+                    for (int p = 0; p < k; p++)
+                        sum += a[aRow + p * aColStride] * b[bCol + p * bRowStride];
+                    c[cRow + j] += alpha * sum;
+                }
+            }
+        }
+    }
+
+    /**
+     * the unit-stride core of {@link #dotProducts}: four contiguous rows of a against two contiguous columns of b,
+     * accumulated in eight independent sums so the additions overlap instead of waiting on each other.
+     */
+    private static void dotProducts4x2(final int k, final double alpha, final double[] a, final int a0,
+            final int lda, final double[] b, final int b0, final int ldb, final double[] c, final int c0,
+            final int ldc) {
+        final int a1 = a0 + lda;
+        final int a2 = a1 + lda;
+        final int a3 = a2 + lda;
+        final int b1 = b0 + ldb;
+        double s00 = 0.0;
+        double s01 = 0.0;
+        double s10 = 0.0;
+        double s11 = 0.0;
+        double s20 = 0.0;
+        double s21 = 0.0;
+        double s30 = 0.0;
+        double s31 = 0.0;
+        for (int p = 0; p < k; p++) {
+            final double x0 = b[b0 + p];
+            final double x1 = b[b1 + p];
+            final double v0 = a[a0 + p];
+            final double v1 = a[a1 + p];
+            final double v2 = a[a2 + p];
+            final double v3 = a[a3 + p];
+            s00 += v0 * x0;
+            s01 += v0 * x1;
+            s10 += v1 * x0;
+            s11 += v1 * x1;
+            s20 += v2 * x0;
+            s21 += v2 * x1;
+            s30 += v3 * x0;
+            s31 += v3 * x1;
+        }
+        c[c0] += alpha * s00;
+        c[c0 + 1] += alpha * s01;
+        c[c0 + ldc] += alpha * s10;
+        c[c0 + ldc + 1] += alpha * s11;
+        c[c0 + 2 * ldc] += alpha * s20;
+        c[c0 + 2 * ldc + 1] += alpha * s21;
+        c[c0 + 3 * ldc] += alpha * s30;
+        c[c0 + 3 * ldc + 1] += alpha * s31;
+    }
+
+    /**
+     * y = alpha * a * x + beta * y for an m x n row-major a, where element p of x is read from x[xOff + p * incX]. a
+     * beta of 0 ignores the previous contents of y. four rows of a are processed per pass so each loaded element of x
+     * serves four dot products; every dot product sums its terms in increasing p order, like {@link #multiplyAdd}
+     * does for a one-column product, so the results are bitwise identical to it.
+     */
+    static void gemv(final int m, final int n, final double alpha, final double[] a, final int aOff, final int lda,
+            final double[] x, final int xOff, final int incX, final double beta, final double[] y, final int yOff) {
+        int i = 0;
+        for (; i + 3 < m; i += 4) {
+            final int a0 = aOff + i * lda;
+            final int a1 = a0 + lda;
+            final int a2 = a1 + lda;
+            final int a3 = a2 + lda;
+            double s0 = 0.0;
+            double s1 = 0.0;
+            double s2 = 0.0;
+            double s3 = 0.0;
+            for (int p = 0, xIndex = xOff; p < n; p++, xIndex += incX) {
+                final double xValue = x[xIndex];
+                s0 += a[a0 + p] * xValue;
+                s1 += a[a1 + p] * xValue;
+                s2 += a[a2 + p] * xValue;
+                s3 += a[a3 + p] * xValue;
+            }
+            final int yIndex = yOff + i;
+            y[yIndex] = beta == 0.0 ? alpha * s0 : alpha * s0 + beta * y[yIndex];
+            y[yIndex + 1] = beta == 0.0 ? alpha * s1 : alpha * s1 + beta * y[yIndex + 1];
+            y[yIndex + 2] = beta == 0.0 ? alpha * s2 : alpha * s2 + beta * y[yIndex + 2];
+            y[yIndex + 3] = beta == 0.0 ? alpha * s3 : alpha * s3 + beta * y[yIndex + 3];
+        }
+        for (; i < m; i++) {
+            final int aRow = aOff + i * lda;
+            double sum = 0.0;
+            for (int p = 0, xIndex = xOff; p < n; p++, xIndex += incX)
+                sum += a[aRow + p] * x[xIndex];
+            final int yIndex = yOff + i;
+            y[yIndex] = beta == 0.0 ? alpha * sum : alpha * sum + beta * y[yIndex];
+        }
+    }
+
+    /**
+     * y = alpha * a^T * x + beta * y for an m x n row-major a, so x has m elements and y has n. a is read one row at a
+     * time, in storage order, and each row is added to y scaled by its element of x. a beta of 0 ignores the previous
+     * contents of y.
+     */
+    static void gemvTransposed(final int m, final int n, final double alpha, final double[] a, final int aOff,
+            final int lda, final double[] x, final int xOff, final double beta, final double[] y, final int yOff) {
+        scale(1, n, beta, y, yOff, n);
+        for (int i = 0; i < m; i++) {
+            final double xValue = alpha * x[xOff + i];
+            final int aRow = aOff + i * lda;
+            if (VectorSupport.ENABLED) {
+                VectorSupport.axpy(xValue, a, aRow, y, yOff, n);
+            } else {
+                for (int j = 0; j < n; j++)
+                    y[yOff + j] += xValue * a[aRow + j];
+            }
+        }
+    }
+
+    /**
+     * c = beta * c over a rows x cols region. a beta of 0 clears the region without reading it, so NaNs already in c
+     * do not survive.
+     */
+    static void scale(final int rows, final int cols, final double beta, final double[] c, final int cOff,
+            final int ldc) {
+        if (beta == 1.0)
+            return;
+        for (int r = 0; r < rows; r++) {
+            final int cRow = cOff + r * ldc;
+            if (beta == 0.0) {
+                Arrays.fill(c, cRow, cRow + cols, 0.0);
+            } else {
+                for (int j = 0; j < cols; j++)
+                    c[cRow + j] *= beta;
+            }
+        }
+    }
+
+    /**
+     * accumulates the product of a (m x k) and b (k x n) into c (m x n), i.e. c += a * b.
+     */
+    static void multiplyAdd(final int m, final int n, final int k,
+            final double[] a, final int aOff, final int lda,
+            final double[] b, final int bOff, final int ldb,
+            final double[] c, final int cOff, final int ldc) {
+        multiplyAdd(m, n, k, 1.0, a, aOff, lda, 1, b, bOff, ldb, c, cOff, ldc);
+    }
+
+    /**
+     * accumulates alpha times the product of a (m x k) and b (k x n) into c (m x n), i.e. c += alpha * a * b. element
+     * (i, p) of a is read from a[aOff + i * aRowStride + p * aColStride]; b and c are row-major.
+     *
+     * the loops run in i-k-j order so the innermost loop streams along rows of b and c. above
+     * {@link #BLOCKED_THRESHOLD} the iteration space is additionally tiled for the caches. either way, every element of
+     * c receives its product terms in increasing k order, exactly like the textbook i-j-k loop, so with alpha = 1 the
+     * result is bitwise identical to it.
+     */
+    static void multiplyAdd(final int m, final int n, final int k, final double alpha,
+            final double[] a, final int aOff, final int aRowStride, final int aColStride,
+            final double[] b, final int bOff, final int ldb,
+            final double[] c, final int cOff, final int ldc) {
+        if ((long) m * n * k < BLOCKED_THRESHOLD) {
+            multiplyAddTile(0, m, 0, k, 0, n, alpha, a, aOff, aRowStride, aColStride, b, bOff, ldb, c, cOff, ldc);
+            return;
+        }
+        for (int i0 = 0; i0 < m; i0 += ROW_BLOCK) {
+            final int i1 = Math.min(i0 + ROW_BLOCK, m);
+            // the k tiles must stay outside the j tiles to keep the summation order of every element ascending in k
+            for (int p0 = 0; p0 < k; p0 += DEPTH_BLOCK) {
+                final int p1 = Math.min(p0 + DEPTH_BLOCK, k);
+                for (int j0 = 0; j0 < n; j0 += COL_BLOCK) {
+                    final int j1 = Math.min(j0 + COL_BLOCK, n);
+                    multiplyAddTile(i0, i1, p0, p1, j0, j1, alpha, a, aOff, aRowStride, aColStride,
+                        b, bOff, ldb, c, cOff, ldc);
+                }
+            }
+        }
+    }
+
+    /**
+     * c[i0:i1, j0:j1] += alpha * a[i0:i1, p0:p1] * b[p0:p1, j0:j1]. four rows of c are updated per pass so each loaded
+     * element of b is reused from a register four times.
+     */
+    private static void multiplyAddTile(final int i0, final int i1, final int p0, final int p1, final int j0,
+            final int j1, final double alpha, final double[] a, final int aOff, final int aRowStride,
+            final int aColStride, final double[] b, final int bOff, final int ldb, final double[] c, final int cOff,
+            final int ldc) {
+        int i = i0;
+        for (; i + 3 < i1; i += 4) {
+            final int c0 = cOff + i * ldc;
+            final int c1 = c0 + ldc;
+            final int c2 = c1 + ldc;
+            final int c3 = c2 + ldc;
+            final int aRow = aOff + i * aRowStride;
+            for (int p = p0; p < p1; p++) {
+                final int aIndex = aRow + p * aColStride;
+                final double a0 = alpha * a[aIndex];
+                final double a1 = alpha * a[aIndex + aRowStride];
+                final double a2 = alpha * a[aIndex + 2 * aRowStride];
+                final double a3 = alpha * a[aIndex + 3 * aRowStride];
+                final int bRow = bOff + p * ldb;
+                if (VectorSupport.ENABLED) {
+                    VectorSupport.axpy4(a0, a1, a2, a3, b, bRow + j0, c, c0 + j0, c1 + j0, c2 + j0, c3 + j0,
+                        j1 - j0);
+                } else {
+                    for (int j = j0; j < j1; j++) {
+                        final double bValue = b[bRow + j];
+                        c[c0 + j] += a0 * bValue;
+                        c[c1 + j] += a1 * bValue;
+                        c[c2 + j] += a2 * bValue;
+                        c[c3 + j] += a3 * bValue;
+                    }
+                }
+            }
+        }
+        for (; i < i1; i++) {
+            final int cRow = cOff + i * ldc;
+            final int aRow = aOff + i * aRowStride;
+            for (int p = p0; p < p1; p++) {
+                final double aValue = alpha * a[aRow + p * aColStride];
+                final int bRow = bOff + p * ldb;
+                if (VectorSupport.ENABLED) {
+                    VectorSupport.axpy(aValue, b, bRow + j0, c, cRow + j0, j1 - j0);
+                } else {
+                    for (int j = j0; j < j1; j++)
+                        c[cRow + j] += aValue * b[bRow + j];
+                }
+            }
+        }
+    }
+
+    /**
+     * c = a + b over a rows x cols region. c may be the same region as a or b.
+     */
+    static void add(final int rows, final int cols,
+            final double[] a, final int aOff, final int lda,
+            final double[] b, final int bOff, final int ldb,
+            final double[] c, final int cOff, final int ldc) {
+        for (int r = 0; r < rows; r++) {
+            final int aRow = aOff + r * lda;
+            final int bRow = bOff + r * ldb;
+            final int cRow = cOff + r * ldc;
+            if (VectorSupport.ENABLED) {
+                VectorSupport.add(a, aRow, b, bRow, c, cRow, cols);
+            } else {
+                for (int j = 0; j < cols; j++)
+                    c[cRow + j] = a[aRow + j] + b[bRow + j];
+            }
+        }
+    }
+
+    /**
+     * c = a - b over a rows x cols region. c may be the same region as a or b.
+     */
+    static void subtract(final int rows, final int cols,
+            final double[] a, final int aOff, final int lda,
+            final double[] b, final int bOff, final int ldb,
+            final double[] c, final int cOff, final int ldc) {
+        for (int r = 0; r < rows; r++) {
+            final int aRow = aOff + r * lda;
+            final int bRow = bOff + r * ldb;
+            final int cRow = cOff + r * ldc;
+            if (VectorSupport.ENABLED) {
+                VectorSupport.subtract(a, aRow, b, bRow, c, cRow, cols);
+            } else {
+                for (int j = 0; j < cols; j++)
+                    c[cRow + j] = a[aRow + j] - b[bRow + j];
+            }
+        }
+    }
+
+    /**
+     * c = a^T for an m x n a, so c is n x m. the larger dimension is halved recursively until a block has at most
+     * {@link #TRANSPOSE_BLOCK} elements, so both arrays are walked in cache-sized tiles at every level of the memory
+     * hierarchy without the kernel knowing any cache sizes.
+     */
+    static void transpose(final int m, final int n, final double[] a, final int aOff, final int lda,
+            final double[] c, final int cOff, final int ldc) {
+        if ((long) m * n <= TRANSPOSE_BLOCK) {
+            for (int i = 0; i < m; i++) {
+                final int aRow = aOff + i * lda;
+                for (int j = 0, k = cOff + i; j < n; j++, k += ldc)
+                    c[k] = a[aRow + j];
+            }
+        } else if (m >= n) {
+            final int half = m / 2;
+            transpose(half, n, a, aOff, lda, c, cOff, ldc);
+            transpose(m - half, n, a, aOff + half * lda, lda, c, cOff + half, ldc);
+        } else {
+            final int half = n / 2;
+            transpose(m, half, a, aOff, lda, c, cOff, ldc);
+            transpose(m, n - half, a, aOff + half, lda, c, cOff + half * ldc, ldc);
+        }
+    }
+
+    /**
+     * c = a + b^T, or c = a - b^T when subtract is set, over a rows x cols region; b is cols x rows. the region is
+     * split in square tiles so the column-wise reads of b stay in cache. c may be the same region as a, but must not
+     * overlap b.
+     */
+    static void addTransposed(final int rows, final int cols, final boolean subtract,
+            final double[] a, final int aOff, final int lda,
+            final double[] b, final int bOff, final int ldb,
+            final double[] c, final int cOff, final int ldc) {
+        for (int i0 = 0; i0 < rows; i0 += TRANSPOSE_TILE) {
+            final int i1 = Math.min(i0 + TRANSPOSE_TILE, rows);
+            for (int j0 = 0; j0 < cols; j0 += TRANSPOSE_TILE) {
+                final int j1 = Math.min(j0 + TRANSPOSE_TILE, cols);
+                for (int i = i0; i < i1; i++) {
+                    final int aRow = aOff + i * lda;
+                    final int cRow = cOff + i * ldc;
+                    if (subtract) {
+                        for (int j = j0, k = bOff + j0 * ldb + i; j < j1; j++, k += ldb)
+                            c[cRow + j] = a[aRow + j] - b[k];
+                    } else {
+                        for (int j = j0, k = bOff + j0 * ldb + i; j < j1; j++, k += ldb)
+                            c[cRow + j] = a[aRow + j] + b[k];
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * a = f(a) element by element over a rows x cols region.
+     */
+    static void map(final int rows, final int cols, final DoubleUnaryOperator f, final double[] a, final int aOff,
+            final int lda) {
+        for (int r = 0; r < rows; r++) {
+            final int aRow = aOff + r * lda;
+            for (int j = 0; j < cols; j++)
+                a[aRow + j] = f.applyAsDouble(a[aRow + j]);
+        }
+    }
+
+    /**
+     * a = f(a, b) element by element over a rows x cols region. b must not overlap a unless it is the same region.
+     */
+    static void zip(final int rows, final int cols, final DoubleBinaryOperator f, final double[] a, final int aOff,
+            final int lda, final double[] b, final int bOff, final int ldb) {
+        for (int r = 0; r < rows; r++) {
+            final int aRow = aOff + r * lda;
+            final int bRow = bOff + r * ldb;
+            for (int j = 0; j < cols; j++)
+                a[aRow + j] = f.applyAsDouble(a[aRow + j], b[bRow + j]);
+        }
+    }
+
+    /**
+     * folds the elements of a rows x cols region into identity with op, row by row.
+     */
+    static double reduce(final int rows, final int cols, final double identity, final DoubleBinaryOperator op,
+            final double[] a, final int aOff, final int lda) {
+        double result = identity;
+        for (int r = 0; r < rows; r++) {
+            final int aRow = aOff + r * lda;
+            for (int j = 0; j < cols; j++)
+                result = op.applyAsDouble(result, a[aRow + j]);
+        }
+        return result;
+    }
+
+    /**
+     * sums a rows x cols region. four independent partial sums break the dependency chain of a single accumulator, so
+     * the loop is bound by memory rather than by the latency of the additions.
+     */
+    static double sum(final int rows, final int cols, final double[] a, final int aOff, final int lda) {
+        double s0 = 0;
+        double s1 = 0;
+        double s2 = 0;
+        double s3 = 0;
+        for (int r = 0; r < rows; r++) {
+            final int aRow = aOff + r * lda;
+            int j = 0;
+            for (; j <= cols - 4; j += 4) {
+                s0 += a[aRow + j];
+                s1 += a[aRow + j + 1];
+                s2 += a[aRow + j + 2];
+                s3 += a[aRow + j + 3];
+            }
+            for (; j < cols; j++)
+                s0 += a[aRow + j];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    /**
+     * sums the squares of scale times every element of a rows x cols region, with four partial sums like {@link #sum}.
+     */
+    static double sumOfSquares(final int rows, final int cols, final double scale, final double[] a, final int aOff,
+            final int lda) {
+        double s0 = 0;
+        double s1 = 0;
+        double s2 = 0;
+        double s3 = 0;
+        for (int r = 0; r < rows; r++) {
+            final int aRow = aOff + r * lda;
+            int j = 0;
+            for (; j <= cols - 4; j += 4) {
+                final double x0 = a[aRow + j] * scale;
+                final double x1 = a[aRow + j + 1] * scale;
+                final double x2 = a[aRow + j + 2] * scale;
+                final double x3 = a[aRow + j + 3] * scale;
+                s0 += x0 * x0;
+                s1 += x1 * x1;
+                s2 += x2 * x2;
+                s3 += x3 * x3;
+            }
+            for (; j < cols; j++) {
+                final double x = a[aRow + j] * scale;
+                s0 += x * x;
+            }
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    /**
+     * the largest absolute value in a rows x cols region, NaN if the region holds one, or 0 if it is empty.
+     */
+    static double maxAbs(final int rows, final int cols, final double[] a, final int aOff, final int lda) {
+        double m0 = 0;
+        double m1 = 0;
+        for (int r = 0; r < rows; r++) {
+            final int aRow = aOff + r * lda;
+            int j = 0;
+            for (; j <= cols - 2; j += 2) {
+                m0 = Math.max(m0, Math.abs(a[aRow + j]));
+                m1 = Math.max(m1, Math.abs(a[aRow + j + 1]));
+            }
+            if (j < cols)
+                m0 = Math.max(m0, Math.abs(a[aRow + j]));
+        }
+        return Math.max(m0, m1);
+    }
+
+    /**
+     * tests whether every element of a rows x cols region of a is within tolerance of the matching element of b. NaNs
+     * are never within tolerance of anything.
+     */
+    static boolean withinTolerance(final int rows, final int cols, final double tolerance,
+            final double[] a, final int aOff, final int lda,
+            final double[] b, final int bOff, final int ldb) {
+        for (int r = 0; r < rows; r++) {
+            final int aRow = aOff + r * lda;
+            final int bRow = bOff + r * ldb;
+            for (int j = 0; j < cols; j++) {
+                final double x = a[aRow + j];
+                final double y = b[bRow + j];
+                // equal infinities differ by NaN, so they are caught by the first test
+                if (x != y && !(Math.abs(x - y) <= tolerance))
+                    return false;
+            }
+        }
+        return true;
+    }
+}
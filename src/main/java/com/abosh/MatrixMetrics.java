@@ -0,0 +1,255 @@
+package com.abosh;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * opt-in counters for the hot {@link Matrix} operations: multiply, add, addInPlace, subtract, subtractInPlace, the
+ * copy constructor and equals. for every operation and shape bucket the registry records the number of calls, the
+ * elements produced or compared, the floating-point operations, the bytes of result arrays allocated and a histogram of
+ * latencies. operations whose result has at least {@link #JFR_THRESHOLD} elements additionally emit a
+ * {@code com.abosh.MatrixOperation} JDK Flight Recorder event.
+ *
+ * recording is switched on with {@code -Dcom.abosh.matrix.metrics=true}. the flag is read once into a static final
+ * field, so when it is off the JIT removes the instrumentation from the operations entirely.
+ *
+ * a shape bucket groups operations by their largest dimension (rows, columns, or the shared dimension of a product)
+ * rounded up to a power of two. latency buckets are powers of two of nanoseconds.
+ *
+ * @author Abosh Upadhyaya
+ */
+public final class MatrixMetrics {
+    /** if operations are recorded at all. */
+    public static final boolean ENABLED = Boolean.getBoolean("com.abosh.matrix.metrics");
+    /** result elements from which an operation also emits a flight recorder event. */
+    public static final long JFR_THRESHOLD = Long.getLong("com.abosh.matrix.metrics.jfrThreshold", 1L << 16);
+    /** number of shape buckets; bucket b holds largest dimensions in (2^(b-1), 2^b]. */
+    static final int SHAPE_BUCKETS = 32;
+    /** number of latency buckets; bucket b holds latencies in [2^(b-1), 2^b) nanoseconds. */
+    static final int LATENCY_BUCKETS = 64;
+
+    /**
+     * the instrumented operations.
+     */
+    public enum Operation {
+        MULTIPLY, ADD, ADD_IN_PLACE, SUBTRACT, SUBTRACT_IN_PLACE, COPY, EQUALS
+    }
+
+    private static final Operation[] OPERATIONS = Operation.values();
+    private static final AtomicReferenceArray<Counters> COUNTERS =
+        new AtomicReferenceArray<>(OPERATIONS.length * SHAPE_BUCKETS);
+
+    private MatrixMetrics() {
+    }
+
+    /**
+     * records one finished operation. callers check {@link #ENABLED} first.
+     *
+     * @param operation  operation performed
+     * @param rows       rows of the result, or of the operands for in-place operations and equals
+     * @param cols       columns of the result
+     * @param depth      shared dimension of a product, 0 otherwise
+     * @param startNanos {@link System#nanoTime()} when the operation started
+     */
+    static void record(final Operation operation, final int rows, final int cols, final int depth,
+            final long startNanos) {
+        final long nanos = System.nanoTime() - startNanos;
+        final long elements = (long) rows * cols;
+        final long flops;
+        final long bytes;
+        switch (operation) {
+            case MULTIPLY:
+                flops = 2 * elements * depth;
+                bytes = elements * Double.BYTES;
+                break;
+            case ADD:
+            case SUBTRACT:
+                flops = elements;
+                bytes = elements * Double.BYTES;
+                break;
+            case ADD_IN_PLACE:
+            case SUBTRACT_IN_PLACE:
+                flops = elements;
+                bytes = 0;
+                break;
+            case COPY:
+                flops = 0;
+                bytes = elements * Double.BYTES;
+                break;
+            default:
+                flops = 0;
+                bytes = 0;
+        }
+        counters(operation, shapeBucket(Math.max(Math.max(rows, cols), depth))).add(nanos, elements, flops, bytes);
+        if (elements >= JFR_THRESHOLD) {
+            final MatrixOperationEvent event = new MatrixOperationEvent();
+            if (event.isEnabled()) {
+                event.operation = operation.name();
+                event.rows = rows;
+                event.cols = cols;
+                event.depth = depth;
+                event.flops = flops;
+                event.bytesAllocated = bytes;
+                event.latency = nanos;
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * returns the statistics recorded so far, one entry per operation and shape bucket that saw at least one call.
+     * @return a list of immutable entries
+     */
+    public static List<Entry> snapshot() {
+        final List<Entry> entries = new ArrayList<>();
+        for (int i = 0; i < COUNTERS.length(); i++) {
+            final Counters counters = COUNTERS.get(i);
+            if (counters != null && counters.calls.sum() > 0)
+                entries.add(counters.toEntry(OPERATIONS[i / SHAPE_BUCKETS], i % SHAPE_BUCKETS));
+        }
+        return entries;
+    }
+
+    /**
+     * discards everything recorded so far.
+     */
+    public static void reset() {
+        for (int i = 0; i < COUNTERS.length(); i++)
+            COUNTERS.set(i, null);
+    }
+
+    static int shapeBucket(final int dimension) {
+        return dimension <= 1 ? 0 : Math.min(SHAPE_BUCKETS - 1, 32 - Integer.numberOfLeadingZeros(dimension - 1));
+    }
+
+    private static Counters counters(final Operation operation, final int bucket) {
+        final int i = operation.ordinal() * SHAPE_BUCKETS + bucket;
+        Counters counters = COUNTERS.get(i);
+        if (counters == null) {
+            COUNTERS.compareAndSet(i, null, new Counters());
+            counters = COUNTERS.get(i);
+        }
+        return counters;
+    }
+
+    private static final class Counters {
+        final LongAdder calls = new LongAdder();
+        final LongAdder elements = new LongAdder();
+        final LongAdder flops = new LongAdder();
+        final LongAdder bytes = new LongAdder();
+        final LongAdder nanos = new LongAdder();
+        final AtomicLongArray latencies = new AtomicLongArray(LATENCY_BUCKETS);
+
+        void add(final long nanos, final long elements, final long flops, final long bytes) {
+            calls.increment();
+            this.elements.add(elements);
+            this.flops.add(flops);
+            this.bytes.add(bytes);
+            this.nanos.add(nanos);
+            latencies.incrementAndGet(64 - Long.numberOfLeadingZeros(Math.max(0, nanos)));
+        }
+
+        Entry toEntry(final Operation operation, final int bucket) {
+            final long[] histogram = new long[LATENCY_BUCKETS];
+            for (int i = 0; i < LATENCY_BUCKETS; i++)
+                histogram[i] = latencies.get(i);
+            final int maxDimension = bucket == SHAPE_BUCKETS - 1 ? Integer.MAX_VALUE : 1 << bucket;
+            return new Entry(operation, maxDimension, calls.sum(), elements.sum(), flops.sum(), bytes.sum(),
+                nanos.sum(), histogram);
+        }
+    }
+
+    /**
+     * the statistics of one operation in one shape bucket at the time of a {@link #snapshot()}.
+     */
+    public static final class Entry {
+        private final Operation operation;
+        private final int maxDimension;
+        private final long calls;
+        private final long elements;
+        private final long flops;
+        private final long bytesAllocated;
+        private final long totalNanos;
+        private final long[] latencyHistogram;
+
+        Entry(final Operation operation, final int maxDimension, final long calls, final long elements,
+                final long flops, final long bytesAllocated, final long totalNanos, final long[] latencyHistogram) {
+            this.operation = operation;
+            this.maxDimension = maxDimension;
+            this.calls = calls;
+            this.elements = elements;
+            this.flops = flops;
+            this.bytesAllocated = bytesAllocated;
+            this.totalNanos = totalNanos;
+            this.latencyHistogram = latencyHistogram;
+        }
+
+        public Operation getOperation() {
+            return operation;
+        }
+
+        /**
+         * @return the upper bound of the largest dimension of the operations in this bucket
+         */
+        public int getMaxDimension() {
+            return maxDimension;
+        }
+
+        public long getCalls() {
+            return calls;
+        }
+
+        public long getElements() {
+            return elements;
+        }
+
+        public long getFlops() {
+            return flops;
+        }
+
+        public long getBytesAllocated() {
+            return bytesAllocated;
+        }
+
+        public long getTotalNanos() {
+            return totalNanos;
+        }
+
+        /**
+         * returns the latency histogram: element b counts the calls that took [2^(b-1), 2^b) nanoseconds.
+         * @return a copy of the histogram
+         */
+        public long[] getLatencyHistogram() {
+            return Arrays.copyOf(latencyHistogram, LATENCY_BUCKETS);
+        }
+
+        /**
+         * estimates a latency percentile from the histogram, returning the upper bound of the bucket it falls in.
+         *
+         * @param percentile percentile between 0 and 100
+         * @return the estimated latency in nanoseconds
+         */
+        public long getLatencyPercentile(final double percentile) {
+            if (percentile < 0 || percentile > 100)
+                throw new IllegalArgumentException("The percentile must be between 0 and 100.");
+            final long rank = Math.max(1, (long) Math.ceil(percentile / 100 * calls));
+            long seen = 0;
+            for (int b = 0; b < LATENCY_BUCKETS; b++) {
+                seen += latencyHistogram[b];
+                if (seen >= rank)
+                    return b == 0 ? 0 : b >= 63 ? Long.MAX_VALUE : (1L << b) - 1;
+            }
+            return Long.MAX_VALUE;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s <= %d: %d calls, %d elements, %d flops, %d bytes, %d ns", operation,
+                maxDimension, calls, elements, flops, bytesAllocated, totalNanos);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.abosh;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * the flight recorder event emitted by {@link MatrixMetrics} for large operations. the event is committed after the
+ * operation finishes, so its own duration is zero and the time the operation took is in {@link #latency}.
+ *
+ * @author Abosh Upadhyaya
+ */
+@Name("com.abosh.MatrixOperation")
+@Label("Matrix Operation")
+@Category("Linear Algebra")
+@Description("A matrix operation above the size threshold")
+@StackTrace(true)
+final class MatrixOperationEvent extends jdk.jfr.Event {
+    @Label("Operation")
+    String operation;
+
+    @Label("Rows")
+    int rows;
+
+    @Label("Columns")
+    int cols;
+
+    @Label("Shared Dimension")
+    int depth;
+
+    @Label("Floating-Point Operations")
+    long flops;
+
+    @Label("Bytes Allocated")
+    @DataAmount
+    long bytesAllocated;
+
+    @Label("Latency")
+    @Timespan(Timespan.NANOSECONDS)
+    long latency;
+}
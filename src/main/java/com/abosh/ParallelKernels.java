@@ -0,0 +1,363 @@
+package com.abosh;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * fork/join versions of the {@link MatrixKernels} loops. work is split recursively along whichever of the row or
+ * column range is longer until a block falls below a sequential cutoff, and each block is then handed to the
+ * single-threaded kernel. problems that start out below the cutoff never touch the pool.
+ *
+ * the cutoffs can be tuned with the system properties {@code com.abosh.matrix.multiplyCutoff} (multiply-adds per
+ * block) and {@code com.abosh.matrix.elementwiseCutoff} (elements per block).
+ *
+ * @author Abosh Upadhyaya
+ */
+final class ParallelKernels {
+    static final long MULTIPLY_CUTOFF = Long.getLong("com.abosh.matrix.multiplyCutoff", 1L << 20);
+    static final long ELEMENTWISE_CUTOFF = Long.getLong("com.abosh.matrix.elementwiseCutoff", 1L << 15);
+
+    private ParallelKernels() {
+    }
+
+    /**
+     * parallel {@link MatrixKernels#multiplyAdd}. each product element is computed by exactly one block with the same
+     * loop as the sequential kernel, so the result does not depend on the number of threads.
+     */
+    static void multiplyAdd(final ForkJoinPool pool, final int m, final int n, final int k,
+            final double[] a, final int aOff, final int lda,
+            final double[] b, final int bOff, final int ldb,
+            final double[] c, final int cOff, final int ldc) {
+        if ((long) m * n * k <= MULTIPLY_CUTOFF) {
+            MatrixKernels.multiplyAdd(m, n, k, a, aOff, lda, b, bOff, ldb, c, cOff, ldc);
+            return;
+        }
+        pool.invoke(new MultiplyTask(0, m, 0, n, k, a, aOff, lda, b, bOff, ldb, c, cOff, ldc));
+    }
+
+    /**
+     * parallel {@link MatrixKernels#add} or {@link MatrixKernels#subtract}.
+     */
+    static void elementwise(final ForkJoinPool pool, final boolean subtract, final int rows, final int cols,
+            final double[] a, final int aOff, final int lda,
+            final double[] b, final int bOff, final int ldb,
+            final double[] c, final int cOff, final int ldc) {
+        if ((long) rows * cols <= ELEMENTWISE_CUTOFF) {
+            ElementwiseTask.run(subtract, rows, cols, a, aOff, lda, b, bOff, ldb, c, cOff, ldc);
+            return;
+        }
+        pool.invoke(new ElementwiseTask(subtract, 0, rows, 0, cols, a, aOff, lda, b, bOff, ldb, c, cOff, ldc));
+    }
+
+    /**
+     * parallel {@link MatrixKernels#map}, or {@link MatrixKernels#zip} when b is given.
+     */
+    static void map(final ForkJoinPool pool, final DoubleUnaryOperator f, final DoubleBinaryOperator zip,
+            final int rows, final int cols, final double[] a, final int aOff, final int lda,
+            final double[] b, final int bOff, final int ldb) {
+        if ((long) rows * cols <= ELEMENTWISE_CUTOFF) {
+            MapTask.run(f, zip, rows, cols, a, aOff, lda, b, bOff, ldb);
+            return;
+        }
+        pool.invoke(new MapTask(f, zip, 0, rows, 0, cols, a, aOff, lda, b, bOff, ldb));
+    }
+
+    /**
+     * parallel reduction of a rows x cols region. every block is reduced on its own and the partial results are
+     * combined in block order, so for a given size and cutoff the result does not depend on the number of threads.
+     * op must be associative with identity as its identity element; it is ignored unless kind is GENERIC.
+     */
+    static double reduce(final ForkJoinPool pool, final Reduction kind, final double identity,
+            final DoubleBinaryOperator op, final int rows, final int cols,
+            final double[] a, final int aOff, final int lda) {
+        if ((long) rows * cols <= ELEMENTWISE_CUTOFF)
+            return ReduceTask.run(kind, identity, op, rows, cols, a, aOff, lda);
+        final ReduceTask task = new ReduceTask(kind, identity, op, 0, rows, 0, cols, a, aOff, lda);
+        pool.invoke(task);
+        return task.result;
+    }
+
+    /**
+     * the reductions with dedicated kernels; GENERIC folds with a caller's operator.
+     */
+    enum Reduction {
+        GENERIC, SUM, SUM_OF_SQUARES, MAX_ABS
+    }
+
+    private static final class MultiplyTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int i0;
+        private final int i1;
+        private final int j0;
+        private final int j1;
+        private final int k;
+        private final double[] a;
+        private final int aOff;
+        private final int lda;
+        private final double[] b;
+        private final int bOff;
+        private final int ldb;
+        private final double[] c;
+        private final int cOff;
+        private final int ldc;
+
+        MultiplyTask(final int i0, final int i1, final int j0, final int j1, final int k,
+                final double[] a, final int aOff, final int lda,
+                final double[] b, final int bOff, final int ldb,
+                final double[] c, final int cOff, final int ldc) {
+            this.i0 = i0;
+            this.i1 = i1;
+            this.j0 = j0;
+            this.j1 = j1;
+            this.k = k;
+            this.a = a;
+            this.aOff = aOff;
+            this.lda = lda;
+            this.b = b;
+            this.bOff = bOff;
+            this.ldb = ldb;
+            this.c = c;
+            this.cOff = cOff;
+            this.ldc = ldc;
+        }
+
+        @Override
+        protected void compute() {
+            final int m = i1 - i0;
+            final int n = j1 - j0;
+            if ((long) m * n * k <= MULTIPLY_CUTOFF || (m == 1 && n == 1)) {
+                MatrixKernels.multiplyAdd(m, n, k, a, aOff + i0 * lda, lda, b, bOff + j0, ldb,
+                    c, cOff + i0 * ldc + j0, ldc);
+                return;
+            }
+            if (m >= n) {
+                // keep row splits on multiples of 4 so the kernel's four-row passes are not broken up
+                final int mid = m >= 8 ? i0 + ((m / 2) & ~3) : i0 + m / 2;
+                invokeAll(new MultiplyTask(i0, mid, j0, j1, k, a, aOff, lda, b, bOff, ldb, c, cOff, ldc),
+                    new MultiplyTask(mid, i1, j0, j1, k, a, aOff, lda, b, bOff, ldb, c, cOff, ldc));
+            } else {
+                final int mid = j0 + n / 2;
+                invokeAll(new MultiplyTask(i0, i1, j0, mid, k, a, aOff, lda, b, bOff, ldb, c, cOff, ldc),
+                    new MultiplyTask(i0, i1, mid, j1, k, a, aOff, lda, b, bOff, ldb, c, cOff, ldc));
+            }
+        }
+    }
+
+    private static final class ElementwiseTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final boolean subtract;
+        private final int r0;
+        private final int r1;
+        private final int c0;
+        private final int c1;
+        private final double[] a;
+        private final int aOff;
+        private final int lda;
+        private final double[] b;
+        private final int bOff;
+        private final int ldb;
+        private final double[] c;
+        private final int cOff;
+        private final int ldc;
+
+        ElementwiseTask(final boolean subtract, final int r0, final int r1, final int c0, final int c1,
+                final double[] a, final int aOff, final int lda,
+                final double[] b, final int bOff, final int ldb,
+                final double[] c, final int cOff, final int ldc) {
+            this.subtract = subtract;
+            this.r0 = r0;
+            this.r1 = r1;
+            this.c0 = c0;
+            this.c1 = c1;
+            this.a = a;
+            this.aOff = aOff;
+            this.lda = lda;
+            this.b = b;
+            this.bOff = bOff;
+            this.ldb = ldb;
+            this.c = c;
+            this.cOff = cOff;
+            this.ldc = ldc;
+        }
+
+        @Override
+        protected void compute() {
+            final int rows = r1 - r0;
+            final int cols = c1 - c0;
+            if ((long) rows * cols <= ELEMENTWISE_CUTOFF || (rows == 1 && cols == 1)) {
+                run(subtract, rows, cols, a, aOff + r0 * lda + c0, lda, b, bOff + r0 * ldb + c0, ldb,
+                    c, cOff + r0 * ldc + c0, ldc);
+                return;
+            }
+            // prefer whole rows; only very wide matrices are split by column
+            if (rows > 1) {
+                final int mid = r0 + rows / 2;
+                invokeAll(new ElementwiseTask(subtract, r0, mid, c0, c1, a, aOff, lda, b, bOff, ldb, c, cOff, ldc),
+                    new ElementwiseTask(subtract, mid, r1, c0, c1, a, aOff, lda, b, bOff, ldb, c, cOff, ldc));
+            } else {
+                final int mid = c0 + cols / 2;
+                invokeAll(new ElementwiseTask(subtract, r0, r1, c0, mid, a, aOff, lda, b, bOff, ldb, c, cOff, ldc),
+                    new ElementwiseTask(subtract, r0, r1, mid, c1, a, aOff, lda, b, bOff, ldb, c, cOff, ldc));
+            }
+        }
+
+        static void run(final boolean subtract, final int rows, final int cols,
+                final double[] a, final int aOff, final int lda,
+                final double[] b, final int bOff, final int ldb,
+                final double[] c, final int cOff, final int ldc) {
+            if (subtract)
+                MatrixKernels.subtract(rows, cols, a, aOff, lda, b, bOff, ldb, c, cOff, ldc);
+            else
+                MatrixKernels.add(rows, cols, a, aOff, lda, b, bOff, ldb, c, cOff, ldc);
+        }
+    }
+
+    private static final class MapTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final DoubleUnaryOperator f;
+        private final DoubleBinaryOperator zip;
+        private final int r0;
+        private final int r1;
+        private final int c0;
+        private final int c1;
+        private final double[] a;
+        private final int aOff;
+        private final int lda;
+        private final double[] b;
+        private final int bOff;
+        private final int ldb;
+
+        MapTask(final DoubleUnaryOperator f, final DoubleBinaryOperator zip, final int r0, final int r1,
+                final int c0, final int c1, final double[] a, final int aOff, final int lda,
+                final double[] b, final int bOff, final int ldb) {
+            this.f = f;
+            this.zip = zip;
+            this.r0 = r0;
+            this.r1 = r1;
+            this.c0 = c0;
+            this.c1 = c1;
+            this.a = a;
+            this.aOff = aOff;
+            this.lda = lda;
+            this.b = b;
+            this.bOff = bOff;
+            this.ldb = ldb;
+        }
+
+        @Override
+        protected void compute() {
+            final int rows = r1 - r0;
+            final int cols = c1 - c0;
+            if ((long) rows * cols <= ELEMENTWISE_CUTOFF || (rows == 1 && cols == 1)) {
+                run(f, zip, rows, cols, a, aOff + r0 * lda + c0, lda, b, bOff + r0 * ldb + c0, ldb);
+                return;
+            }
+            // prefer whole rows; only very wide matrices are split by column
+            if (rows > 1) {
+                final int mid = r0 + rows / 2;
+                invokeAll(new MapTask(f, zip, r0, mid, c0, c1, a, aOff, lda, b, bOff, ldb),
+                    new MapTask(f, zip, mid, r1, c0, c1, a, aOff, lda, b, bOff, ldb));
+            } else {
+                final int mid = c0 + cols / 2;
+                invokeAll(new MapTask(f, zip, r0, r1, c0, mid, a, aOff, lda, b, bOff, ldb),
+                    new MapTask(f, zip, r0, r1, mid, c1, a, aOff, lda, b, bOff, ldb));
+            }
+        }
+
+        static void run(final DoubleUnaryOperator f, final DoubleBinaryOperator zip, final int rows, final int cols,
+                final double[] a, final int aOff, final int lda, final double[] b, final int bOff, final int ldb) {
+            if (zip != null)
+                MatrixKernels.zip(rows, cols, zip, a, aOff, lda, b, bOff, ldb);
+            else
+                MatrixKernels.map(rows, cols, f, a, aOff, lda);
+        }
+    }
+
+    /**
+     * reduces a block into a primitive field, so partial results are never boxed.
+     */
+    private static final class ReduceTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Reduction kind;
+        private final double identity;
+        private final DoubleBinaryOperator op;
+        private final int r0;
+        private final int r1;
+        private final int c0;
+        private final int c1;
+        private final double[] a;
+        private final int aOff;
+        private final int lda;
+        private double result;
+
+        ReduceTask(final Reduction kind, final double identity, final DoubleBinaryOperator op, final int r0,
+                final int r1, final int c0, final int c1, final double[] a, final int aOff, final int lda) {
+            this.kind = kind;
+            this.identity = identity;
+            this.op = op;
+            this.r0 = r0;
+            this.r1 = r1;
+            this.c0 = c0;
+            this.c1 = c1;
+            this.a = a;
+            this.aOff = aOff;
+            this.lda = lda;
+        }
+
+        @Override
+        protected void compute() {
+            final int rows = r1 - r0;
+            final int cols = c1 - c0;
+            if ((long) rows * cols <= ELEMENTWISE_CUTOFF || (rows == 1 && cols == 1)) {
+                result = run(kind, identity, op, rows, cols, a, aOff + r0 * lda + c0, lda);
+                return;
+            }
+            final ReduceTask first;
+            final ReduceTask second;
+            if (rows > 1) {
+                final int mid = r0 + rows / 2;
+                first = new ReduceTask(kind, identity, op, r0, mid, c0, c1, a, aOff, lda);
+                second = new ReduceTask(kind, identity, op, mid, r1, c0, c1, a, aOff, lda);
+            } else {
+                final int mid = c0 + cols / 2;
+                first = new ReduceTask(kind, identity, op, r0, r1, c0, mid, a, aOff, lda);
+                second = new ReduceTask(kind, identity, op, r0, r1, mid, c1, a, aOff, lda);
+            }
+            invokeAll(first, second);
+            result = combine(kind, op, first.result, second.result);
+        }
+
+        static double run(final Reduction kind, final double identity, final DoubleBinaryOperator op,
+                final int rows, final int cols, final double[] a, final int aOff, final int lda) {
+            switch (kind) {
+                case SUM:
+                    return MatrixKernels.sum(rows, cols, a, aOff, lda);
+                case SUM_OF_SQUARES:
+                    return MatrixKernels.sumOfSquares(rows, cols, 1.0, a, aOff, lda);
+                case MAX_ABS:
+                    return MatrixKernels.maxAbs(rows, cols, a, aOff, lda);
+                default:
+                    return MatrixKernels.reduce(rows, cols, identity, op, a, aOff, lda);
+            }
+        }
+
+        private static double combine(final Reduction kind, final DoubleBinaryOperator op, final double x,
+                final double y) {
+            switch (kind) {
+                case SUM:
+                case SUM_OF_SQUARES:
+                    return x + y;
+                case MAX_ABS:
+                    return Math.max(x, y);
+                default:
+                    return op.applyAsDouble(x, y);
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.abosh;
+
+/**
+ * power iteration for the dominant eigenpair, i.e. the eigenvalue of largest magnitude, of a square operator. each
+ * iteration multiplies the current vector by A and normalizes it; the eigenvalue estimate is the Rayleigh quotient.
+ * convergence is linear with rate |λ2 / λ1|, so {@link Lanczos} is usually much faster on symmetric operators.
+ *
+ * @author Abosh Upadhyaya
+ */
+public class PowerIteration extends IterativeSolver {
+    // work vector, kept between runs
+    private double[] w;
+
+    /**
+     * finds the dominant eigenpair.
+     *
+     * @param a      square operator
+     * @param vector starting vector, overwritten with the unit eigenvector; a zero vector starts from all ones
+     * @return how the run ended, including the eigenvalue
+     */
+    public IterativeResult solve(final LinearOperator a, final double[] vector) {
+        checkSystem(a, vector);
+        final int n = vector.length;
+        if (w == null || w.length != n)
+            w = new double[n];
+        normalize(vector);
+        double eigenvalue = 0;
+        double residual = Double.POSITIVE_INFINITY;
+        for (int iteration = 1; iteration <= getMaxIterations(); iteration++) {
+            a.apply(vector, w);
+            eigenvalue = dot(vector, w);
+            double sum = 0;
+            for (int i = 0; i < n; i++) {
+                final double d = w[i] - eigenvalue * vector[i];
+                sum += d * d;
+            }
+            residual = Math.sqrt(sum);
+            final boolean keepGoing = iterationDone(iteration, residual);
+            if (residual <= getTolerance() * Math.abs(eigenvalue))
+                return new IterativeResult(true, iteration, residual, eigenvalue);
+            final double norm = norm(w);
+            if (!keepGoing || norm == 0)
+                return new IterativeResult(false, iteration, residual, eigenvalue);
+            for (int i = 0; i < n; i++)
+                vector[i] = w[i] / norm;
+        }
+        return new IterativeResult(false, getMaxIterations(), residual, eigenvalue);
+    }
+
+    /**
+     * scales a vector to unit length, replacing a zero vector with a normalized vector of ones.
+     */
+    static void normalize(final double[] v) {
+        final double norm = norm(v);
+        if (norm == 0 || !Double.isFinite(norm)) {
+            java.util.Arrays.fill(v, 1 / Math.sqrt(v.length));
+            return;
+        }
+        for (int i = 0; i < v.length; i++)
+            v[i] /= norm;
+    }
+}
@@ -0,0 +1,46 @@
+package com.abosh;
+
+/**
+ * an approximation M^-1 of the inverse of a system's operator, applied once per iteration by
+ * {@link ConjugateGradient} and {@link Gmres} to speed up convergence. for conjugate gradient M must be symmetric
+ * positive definite.
+ *
+ * @author Abosh Upadhyaya
+ */
+@FunctionalInterface
+public interface Preconditioner {
+    /**
+     * computes z = M^-1 r, overwriting z. r and z are never the same array.
+     *
+     * @param r residual
+     * @param z vector to store the preconditioned residual in
+     */
+    void apply(double[] r, double[] z);
+
+    /**
+     * @return the preconditioner M = I
+     */
+    static Preconditioner identity() {
+        return (r, z) -> System.arraycopy(r, 0, z, 0, r.length);
+    }
+
+    /**
+     * returns the Jacobi preconditioner M = diag(A), which divides every element of the residual by the matching
+     * diagonal element of A.
+     *
+     * @param diagonal diagonal of A; it is copied
+     * @return a new preconditioner
+     */
+    static Preconditioner jacobi(final double[] diagonal) {
+        final double[] inverse = new double[diagonal.length];
+        for (int i = 0; i < diagonal.length; i++) {
+            if (diagonal[i] == 0)
+                throw new IllegalArgumentException("The diagonal cannot contain zeros.");
+            inverse[i] = 1 / diagonal[i];
+        }
+        return (r, z) -> {
+            for (int i = 0; i < inverse.length; i++)
+                z[i] = r[i] * inverse[i];
+        };
+    }
+}
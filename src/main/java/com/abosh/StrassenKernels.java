@@ -0,0 +1,316 @@
+package com.abosh;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * the Strassen-Winograd product: 7 half-size products and 15 additions per level instead of 8 products, which brings
+ * the cost down to O(n^2.81). levels recurse until a dimension reaches the crossover, below which the classical
+ * {@link MatrixKernels} product is faster. odd dimensions are peeled: the even part goes through the recursion and the
+ * leftover row, column and rank-1 update are added with the classical kernel.
+ *
+ * every call allocates one workspace array up front, sized for the whole recursion, and the levels carve their
+ * temporaries out of it. sequential levels follow the two-temporary schedule of Boyer, Dumas, Pernet and Zhou, which
+ * keeps the extra memory to about (mk + kn) / 3 doubles for an m x k by k x n product. parallel levels form all seven
+ * operand pairs first and run the seven products as fork/join tasks, each with its own slice of the workspace; they
+ * perform the same operations in the same order, so the result does not depend on the number of threads. a parallel
+ * level needs about 11/4 of its c in temporaries plus seven sub-workspaces, so when that would exceed the size of the
+ * operands the parallel levels move down the recursion below sequential ones, whose seven products then run as
+ * parallel levels one after the other in a shared workspace.
+ *
+ * the crossover can be tuned with the system property {@code com.abosh.matrix.strassenCutoff}.
+ *
+ * @author Abosh Upadhyaya
+ */
+final class StrassenKernels {
+    /** products with any dimension at or below this use the classical kernel. */
+    static final int CUTOFF = Integer.getInteger("com.abosh.matrix.strassenCutoff", 256);
+
+    private StrassenKernels() {
+    }
+
+    /**
+     * c = a * b for row-major a (m x k), b (k x n) and c (m x n). c must not overlap a or b.
+     *
+     * @param cutoff crossover dimension
+     * @param pool   pool for the parallel levels, or null to run on the calling thread
+     */
+    static void multiply(final int m, final int n, final int k, final double[] a, final int aOff, final int lda,
+            final double[] b, final int bOff, final int ldb, final double[] c, final int cOff, final int ldc,
+            final int cutoff, final ForkJoinPool pool) {
+        final int parallelLevels = pool == null || pool.getParallelism() == 1 ? 0
+            : pool.getParallelism() <= 7 ? 1 : 2;
+        final int sequentialLevels = sequentialLevels(m, n, k, cutoff, parallelLevels);
+        final long size = workspace(m, n, k, cutoff, sequentialLevels, parallelLevels);
+        if (size > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("The product is too large for a Strassen workspace in a single array.");
+        final double[] work = new double[(int) size];
+        if (parallelLevels == 0)
+            run(m, n, k, a, aOff, lda, b, bOff, ldb, c, cOff, ldc, work, 0, cutoff, 0, 0);
+        else
+            pool.invoke(new Product(m, n, k, a, aOff, lda, b, bOff, ldb, c, cOff, ldc, work, 0, cutoff,
+                sequentialLevels, parallelLevels));
+    }
+
+    /**
+     * the number of workspace doubles the recursion needs below a product of the given shape, with the parallel
+     * levels placed by {@link #sequentialLevels}.
+     */
+    static long workspace(final int m, final int n, final int k, final int cutoff, final int parallelLevels) {
+        return workspace(m, n, k, cutoff, sequentialLevels(m, n, k, cutoff, parallelLevels), parallelLevels);
+    }
+
+    /**
+     * the number of sequential levels to run above the parallel ones: the fewest that bring the workspace within the
+     * size of the operands, and never more than a single array holds. when the parallel levels would have to move
+     * below the crossover the whole product is sequential.
+     */
+    static int sequentialLevels(final int m, final int n, final int k, final int cutoff, final int parallelLevels) {
+        if (parallelLevels == 0)
+            return 0;
+        final long budget = Math.min((long) m * k + (long) k * n + (long) m * n, Integer.MAX_VALUE);
+        int levels = 0;
+        while (workspace(m, n, k, cutoff, levels, parallelLevels) > budget
+                && !isBase(m >> levels, n >> levels, k >> levels, cutoff))
+            levels++;
+        return levels;
+    }
+
+    private static long workspace(final int m, final int n, final int k, final int cutoff,
+            final int sequentialLevels, final int parallelLevels) {
+        if (isBase(m, n, k, cutoff))
+            return 0;
+        final long hm = m / 2;
+        final long hn = n / 2;
+        final long hk = k / 2;
+        if (sequentialLevels == 0 && parallelLevels > 0) {
+            final long slice = workspace((int) hm, (int) hn, (int) hk, cutoff, 0, parallelLevels - 1);
+            return 4 * hm * hk + 4 * hk * hn + 3 * hm * hn + 7 * slice;
+        }
+        final long below = workspace((int) hm, (int) hn, (int) hk, cutoff, Math.max(sequentialLevels - 1, 0),
+            sequentialLevels > 0 ? parallelLevels : 0);
+        return Math.max(hm * hk, hm * hn) + hk * hn + below;
+    }
+
+    private static boolean isBase(final int m, final int n, final int k, final int cutoff) {
+        return m <= cutoff || n <= cutoff || k <= cutoff;
+    }
+
+    /**
+     * c = a + b over a rows x cols region.
+     */
+    private static void add(final int rows, final int cols, final double[] a, final int aOff, final int lda,
+            final double[] b, final int bOff, final int ldb, final double[] c, final int cOff, final int ldc) {
+        MatrixKernels.add(rows, cols, a, aOff, lda, b, bOff, ldb, c, cOff, ldc);
+    }
+
+    /**
+     * c = a - b over a rows x cols region.
+     */
+    private static void sub(final int rows, final int cols, final double[] a, final int aOff, final int lda,
+            final double[] b, final int bOff, final int ldb, final double[] c, final int cOff, final int ldc) {
+        MatrixKernels.subtract(rows, cols, a, aOff, lda, b, bOff, ldb, c, cOff, ldc);
+    }
+
+    /**
+     * computes one level of the recursion, or the classical product below the crossover.
+     */
+    private static void run(final int m, final int n, final int k, final double[] a, final int aOff, final int lda,
+            final double[] b, final int bOff, final int ldb, final double[] c, final int cOff, final int ldc,
+            final double[] w, final int wOff, final int cutoff, final int sequentialLevels,
+            final int parallelLevels) {
+        if (isBase(m, n, k, cutoff)) {
+            MatrixKernels.gemm(m, n, k, 1.0, a, aOff, lda, 1, b, bOff, ldb, 1, 0.0, c, cOff, ldc);
+            return;
+        }
+        final int hm = m / 2;
+        final int hn = n / 2;
+        final int hk = k / 2;
+        if (sequentialLevels == 0 && parallelLevels > 0)
+            parallelLevel(hm, hn, hk, a, aOff, lda, b, bOff, ldb, c, cOff, ldc, w, wOff, cutoff, parallelLevels);
+        else
+            sequentialLevel(hm, hn, hk, a, aOff, lda, b, bOff, ldb, c, cOff, ldc, w, wOff, cutoff,
+                Math.max(sequentialLevels - 1, 0), sequentialLevels > 0 ? parallelLevels : 0);
+        peel(m, n, k, 2 * hm, 2 * hn, 2 * hk, a, aOff, lda, b, bOff, ldb, c, cOff, ldc);
+    }
+
+    /**
+     * the two-temporary schedule: x holds the S sums and then P1, y the T sums, and the quadrants of c hold the other
+     * products until they are combined. the sub-products all reuse the workspace after y, one after the other, and
+     * are given the sequential and parallel levels still to run below this one.
+     */
+    private static void sequentialLevel(final int hm, final int hn, final int hk, final double[] a, final int aOff,
+            final int lda, final double[] b, final int bOff, final int ldb, final double[] c, final int cOff,
+            final int ldc, final double[] w, final int wOff, final int cutoff, final int sequentialLevels,
+            final int parallelLevels) {
+        final int sl = sequentialLevels;
+        final int pl = parallelLevels;
+        final int a11 = aOff;
+        final int a12 = aOff + hk;
+        final int a21 = aOff + hm * lda;
+        final int a22 = a21 + hk;
+        final int b11 = bOff;
+        final int b12 = bOff + hn;
+        final int b21 = bOff + hk * ldb;
+        final int b22 = b21 + hn;
+        final int c11 = cOff;
+        final int c12 = cOff + hn;
+        final int c21 = cOff + hm * ldc;
+        final int c22 = c21 + hn;
+        final int x = wOff;
+        final int y = x + Math.max(hm * hk, hm * hn);
+        final int u = y + hk * hn;
+
+        sub(hm, hk, a, a11, lda, a, a21, lda, w, x, hk); // S3 = A11 - A21
+        sub(hk, hn, b, b22, ldb, b, b12, ldb, w, y, hn); // T3 = B22 - B12
+        run(hm, hn, hk, w, x, hk, w, y, hn, c, c21, ldc, w, u, cutoff, sl, pl); // P7 = S3 T3
+        add(hm, hk, a, a21, lda, a, a22, lda, w, x, hk); // S1 = A21 + A22
+        sub(hk, hn, b, b12, ldb, b, b11, ldb, w, y, hn); // T1 = B12 - B11
+        run(hm, hn, hk, w, x, hk, w, y, hn, c, c22, ldc, w, u, cutoff, sl, pl); // P5 = S1 T1
+        sub(hk, hn, b, b22, ldb, w, y, hn, w, y, hn); // T2 = B22 - T1
+        sub(hm, hk, w, x, hk, a, a11, lda, w, x, hk); // S2 = S1 - A11
+        run(hm, hn, hk, w, x, hk, w, y, hn, c, c12, ldc, w, u, cutoff, sl, pl); // P6 = S2 T2
+        sub(hm, hk, a, a12, lda, w, x, hk, w, x, hk); // S4 = A12 - S2
+        run(hm, hn, hk, w, x, hk, b, b22, ldb, c, c11, ldc, w, u, cutoff, sl, pl); // P3 = S4 B22
+        run(hm, hn, hk, a, a11, lda, b, b11, ldb, w, x, hn, w, u, cutoff, sl, pl); // P1 = A11 B11
+        add(hm, hn, w, x, hn, c, c12, ldc, c, c12, ldc); // U2 = P1 + P6
+        add(hm, hn, c, c12, ldc, c, c21, ldc, c, c21, ldc); // U3 = U2 + P7
+        add(hm, hn, c, c12, ldc, c, c22, ldc, c, c12, ldc); // U4 = U2 + P5
+        add(hm, hn, c, c21, ldc, c, c22, ldc, c, c22, ldc); // U7 = U3 + P5
+        add(hm, hn, c, c12, ldc, c, c11, ldc, c, c12, ldc); // U5 = U4 + P3
+        sub(hk, hn, w, y, hn, b, b21, ldb, w, y, hn); // T4 = T2 - B21
+        run(hm, hn, hk, a, a22, lda, w, y, hn, c, c11, ldc, w, u, cutoff, sl, pl); // P4 = A22 T4
+        sub(hm, hn, c, c21, ldc, c, c11, ldc, c, c21, ldc); // U6 = U3 - P4
+        run(hm, hn, hk, a, a12, lda, b, b21, ldb, c, c11, ldc, w, u, cutoff, sl, pl); // P2 = A12 B21
+        add(hm, hn, w, x, hn, c, c11, ldc, c, c11, ldc); // U1 = P1 + P2
+    }
+
+    /**
+     * forms all eight operand sums, runs the seven products as fork/join tasks with a workspace slice each, then
+     * combines them with the same additions, in the same order, as the sequential schedule.
+     */
+    private static void parallelLevel(final int hm, final int hn, final int hk, final double[] a, final int aOff,
+            final int lda, final double[] b, final int bOff, final int ldb, final double[] c, final int cOff,
+            final int ldc, final double[] w, final int wOff, final int cutoff, final int parallelLevels) {
+        final int a11 = aOff;
+        final int a12 = aOff + hk;
+        final int a21 = aOff + hm * lda;
+        final int a22 = a21 + hk;
+        final int b11 = bOff;
+        final int b12 = bOff + hn;
+        final int b21 = bOff + hk * ldb;
+        final int b22 = b21 + hn;
+        final int c11 = cOff;
+        final int c12 = cOff + hn;
+        final int c21 = cOff + hm * ldc;
+        final int c22 = c21 + hn;
+        final int s1 = wOff;
+        final int s2 = s1 + hm * hk;
+        final int s3 = s2 + hm * hk;
+        final int s4 = s3 + hm * hk;
+        final int t1 = s4 + hm * hk;
+        final int t2 = t1 + hk * hn;
+        final int t3 = t2 + hk * hn;
+        final int t4 = t3 + hk * hn;
+        final int p1 = t4 + hk * hn;
+        final int p5 = p1 + hm * hn;
+        final int p6 = p5 + hm * hn;
+        final int u = p6 + hm * hn;
+        final int slice = (int) workspace(hm, hn, hk, cutoff, 0, parallelLevels - 1);
+        final int next = parallelLevels - 1;
+
+        add(hm, hk, a, a21, lda, a, a22, lda, w, s1, hk); // S1 = A21 + A22
+        sub(hm, hk, w, s1, hk, a, a11, lda, w, s2, hk); // S2 = S1 - A11
+        sub(hm, hk, a, a11, lda, a, a21, lda, w, s3, hk); // S3 = A11 - A21
+        sub(hm, hk, a, a12, lda, w, s2, hk, w, s4, hk); // S4 = A12 - S2
+        sub(hk, hn, b, b12, ldb, b, b11, ldb, w, t1, hn); // T1 = B12 - B11
+        sub(hk, hn, b, b22, ldb, w, t1, hn, w, t2, hn); // T2 = B22 - T1
+        sub(hk, hn, b, b22, ldb, b, b12, ldb, w, t3, hn); // T3 = B22 - B12
+        sub(hk, hn, w, t2, hn, b, b21, ldb, w, t4, hn); // T4 = T2 - B21
+        ForkJoinTask.invokeAll(
+            new Product(hm, hn, hk, a, a11, lda, b, b11, ldb, w, p1, hn, w, u, cutoff, 0, next), // P1 = A11 B11
+            new Product(hm, hn, hk, a, a12, lda, b, b21, ldb, c, c11, ldc, w, u + slice, cutoff, 0, next), // P2
+            new Product(hm, hn, hk, w, s4, hk, b, b22, ldb, c, c12, ldc, w, u + 2 * slice, cutoff, 0, next), // P3
+            new Product(hm, hn, hk, a, a22, lda, w, t4, hn, c, c21, ldc, w, u + 3 * slice, cutoff, 0, next), // P4
+            new Product(hm, hn, hk, w, s1, hk, w, t1, hn, w, p5, hn, w, u + 4 * slice, cutoff, 0, next), // P5
+            new Product(hm, hn, hk, w, s2, hk, w, t2, hn, w, p6, hn, w, u + 5 * slice, cutoff, 0, next), // P6
+            new Product(hm, hn, hk, w, s3, hk, w, t3, hn, c, c22, ldc, w, u + 6 * slice, cutoff, 0, next)); // P7
+        add(hm, hn, w, p1, hn, w, p6, hn, w, p6, hn); // U2 = P1 + P6
+        add(hm, hn, w, p1, hn, c, c11, ldc, c, c11, ldc); // U1 = P1 + P2
+        add(hm, hn, w, p6, hn, c, c22, ldc, c, c22, ldc); // U3 = U2 + P7
+        sub(hm, hn, c, c22, ldc, c, c21, ldc, c, c21, ldc); // U6 = U3 - P4
+        add(hm, hn, c, c22, ldc, w, p5, hn, c, c22, ldc); // U7 = U3 + P5
+        add(hm, hn, w, p6, hn, w, p5, hn, w, p5, hn); // U4 = U2 + P5
+        add(hm, hn, w, p5, hn, c, c12, ldc, c, c12, ldc); // U5 = U4 + P3
+    }
+
+    /**
+     * completes the product for odd dimensions once the even part, c[0:em, 0:en] = a[0:em, 0:ek] b[0:ek, 0:en], has
+     * been computed: a rank-1 update for an odd k, then the last column and the last row of c.
+     */
+    private static void peel(final int m, final int n, final int k, final int em, final int en, final int ek,
+            final double[] a, final int aOff, final int lda, final double[] b, final int bOff, final int ldb,
+            final double[] c, final int cOff, final int ldc) {
+        if (ek < k)
+            MatrixKernels.multiplyAdd(em, en, 1, 1.0, a, aOff + ek, lda, 1, b, bOff + ek * ldb, ldb, c, cOff, ldc);
+        if (en < n)
+            MatrixKernels.gemm(m, 1, k, 1.0, a, aOff, lda, 1, b, bOff + en, ldb, 1, 0.0, c, cOff + en, ldc);
+        if (em < m)
+            MatrixKernels.gemm(1, en, k, 1.0, a, aOff + em * lda, lda, 1, b, bOff, ldb, 1, 0.0,
+                c, cOff + em * ldc, ldc);
+    }
+
+    /**
+     * one product handed to the pool by a parallel level.
+     */
+    private static final class Product extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int m;
+        private final int n;
+        private final int k;
+        private final double[] a;
+        private final int aOff;
+        private final int lda;
+        private final double[] b;
+        private final int bOff;
+        private final int ldb;
+        private final double[] c;
+        private final int cOff;
+        private final int ldc;
+        private final double[] w;
+        private final int wOff;
+        private final int cutoff;
+        private final int sequentialLevels;
+        private final int parallelLevels;
+
+        Product(final int m, final int n, final int k, final double[] a, final int aOff, final int lda,
+                final double[] b, final int bOff, final int ldb, final double[] c, final int cOff, final int ldc,
+                final double[] w, final int wOff, final int cutoff, final int sequentialLevels,
+                final int parallelLevels) {
+            this.m = m;
+            this.n = n;
+            this.k = k;
+            this.a = a;
+            this.aOff = aOff;
+            this.lda = lda;
+            this.b = b;
+            this.bOff = bOff;
+            this.ldb = ldb;
+            this.c = c;
+            this.cOff = cOff;
+            this.ldc = ldc;
+            this.w = w;
+            this.wOff = wOff;
+            this.cutoff = cutoff;
+            this.sequentialLevels = sequentialLevels;
+            this.parallelLevels = parallelLevels;
+        }
+
+        @Override
+        protected void compute() {
+            run(m, n, k, a, aOff, lda, b, bOff, ldb, c, cOff, ldc, w, wOff, cutoff, sequentialLevels, parallelLevels);
+        }
+    }
+}
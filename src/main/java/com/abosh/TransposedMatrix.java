@@ -0,0 +1,136 @@
+package com.abosh;
+
+/**
+ * a transposed view of a {@link Matrix}: element (r, c) of the view is element (c, r) of its parent, read from and
+ * written to the parent's storage. nothing is ever copied; operations that take a transposed view as an operand read
+ * the parent in transposed order instead. {@link #toMatrix()} makes a real copy when one is wanted.
+ *
+ * @author Abosh Upadhyaya
+ */
+public final class TransposedMatrix implements LinearOperator {
+    // private data fields
+    private final Matrix parent;
+
+    TransposedMatrix(final Matrix parent) {
+        this.parent = parent;
+    }
+
+    /**
+     * returns the transpose of this view, which is the matrix it was made from.
+     *
+     * @return the parent matrix
+     */
+    public Matrix transpose() {
+        return parent;
+    }
+
+    /**
+     * copies this view into a new matrix with the cache-oblivious {@link Matrix#transpose()}.
+     *
+     * @return a new matrix holding the transposed values
+     */
+    public Matrix toMatrix() {
+        return parent.transpose();
+    }
+
+    @Override
+    public int getRows() {
+        return parent.getCols();
+    }
+
+    @Override
+    public int getCols() {
+        return parent.getRows();
+    }
+
+    public double getValue(final int r, final int c) {
+        return parent.getValue(c, r);
+    }
+
+    public void setValue(final int r, final int c, final double value) {
+        parent.setValue(c, r, value);
+    }
+
+    /**
+     * returns a rectangular window of this view, itself a transposed view of the matching window of the parent.
+     *
+     * @param row  index of the window's first row in this view
+     * @param col  index of the window's first column in this view
+     * @param rows number of rows in the window
+     * @param cols number of columns in the window
+     * @return a view of the window
+     */
+    public TransposedMatrix subMatrix(final int row, final int col, final int rows, final int cols) {
+        return new TransposedMatrix(parent.subMatrix(col, row, cols, rows));
+    }
+
+    /**
+     * computes y = this * x, i.e. parent^T * x, reading the parent row by row.
+     *
+     * @param x vector of length getCols()
+     * @param y vector of length getRows() to store the result in
+     */
+    @Override
+    public void apply(final double[] x, final double[] y) {
+        parent.multiplyTransposedVector(x, y);
+    }
+
+    /**
+     * adds a matrix to this view, returning a new matrix.
+     *
+     * @param addend matrix to be added
+     * @return a summed matrix
+     */
+    public Matrix add(final Matrix addend) {
+        // addition commutes exactly, so parent^T + addend is addend + parent^T
+        return addend.add(this);
+    }
+
+    /**
+     * multiplies this view by a matrix without copying either operand.
+     *
+     * @param multiplicand matrix to multiply this view by
+     * @return a new multiplied matrix
+     */
+    public Matrix multiply(final Matrix multiplicand) {
+        return product(multiplicand, false);
+    }
+
+    /**
+     * multiplies this view by another transposed view without copying either operand.
+     *
+     * @param multiplicand transposed matrix to multiply this view by
+     * @return a new multiplied matrix
+     */
+    public Matrix multiply(final TransposedMatrix multiplicand) {
+        return product(multiplicand.parent, true);
+    }
+
+    private Matrix product(final Matrix right, final boolean transposeRight) {
+        final int rightRows = transposeRight ? right.getCols() : right.getRows();
+        if (getCols() != rightRows)
+            throw new IllegalArgumentException(
+                "The number of columns in this matrix must equal the number of rows in the multiplicand matrix.");
+        final long start = MatrixMetrics.ENABLED ? System.nanoTime() : 0;
+        final Matrix product = new Matrix(getRows(), transposeRight ? right.getRows() : right.getCols());
+        Matrix.multiplyInto(parent, true, right, transposeRight, product, 1.0, 0.0);
+        if (MatrixMetrics.ENABLED)
+            MatrixMetrics.record(MatrixMetrics.Operation.MULTIPLY, product.getRows(), product.getCols(), rightRows,
+                start);
+        return product;
+    }
+
+    /**
+     * starts a lazily evaluated expression from this view.
+     *
+     * @return an expression for this view
+     */
+    public MatrixExpression lazy() {
+        return MatrixExpression.of(parent).transpose();
+    }
+
+    @Override
+    public String toString() {
+        return toMatrix().toString();
+    }
+}
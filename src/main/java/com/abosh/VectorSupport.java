@@ -0,0 +1,51 @@
+package com.abosh;
+
+/**
+ * entry point for the SIMD versions of the innermost kernel loops. this is the Java 11 version, which never enables
+ * them; the multi-release JAR carries a Java 17 version of this class under META-INF/versions/17 that dispatches to
+ * the {@code jdk.incubator.vector} API when the module is present.
+ *
+ * callers check {@link #ENABLED} and run their own scalar loops when it is false, so the loops here are never called
+ * and have empty bodies; they only give the Java 17 version's signatures something to compile against.
+ *
+ * @author Abosh Upadhyaya
+ */
+final class VectorSupport {
+    /** whether the vectorized loops may be called. computed at run time so javac cannot inline it into callers. */
+    static final boolean ENABLED = isAvailable();
+
+    private VectorSupport() {
+    }
+
+    private static boolean isAvailable() {
+        return false;
+    }
+
+    /**
+     * c[cOff + j] = a[aOff + j] + b[bOff + j] for j in [0, n).
+     */
+    static void add(final double[] a, final int aOff, final double[] b, final int bOff, final double[] c,
+            final int cOff, final int n) {
+    }
+
+    /**
+     * c[cOff + j] = a[aOff + j] - b[bOff + j] for j in [0, n).
+     */
+    static void subtract(final double[] a, final int aOff, final double[] b, final int bOff, final double[] c,
+            final int cOff, final int n) {
+    }
+
+    /**
+     * c[cOff + j] += alpha * b[bOff + j] for j in [0, n).
+     */
+    static void axpy(final double alpha, final double[] b, final int bOff, final double[] c, final int cOff,
+            final int n) {
+    }
+
+    /**
+     * the four-row version of {@link #axpy}: c[cK + j] += aK * b[bOff + j] for K in 0..3 and j in [0, n).
+     */
+    static void axpy4(final double a0, final double a1, final double a2, final double a3, final double[] b,
+            final int bOff, final double[] c, final int c0, final int c1, final int c2, final int c3, final int n) {
+    }
+}
@@ -0,0 +1,91 @@
+package com.abosh;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link DoubleVector} implementations of the innermost kernel loops. products and sums are computed with separate
+ * lane-wise multiplications and additions rather than fused multiply-adds, so every element is rounded exactly like
+ * in the scalar loops and the results are bitwise identical.
+ *
+ * the vector width is the platform's preferred one unless the system property {@code com.abosh.matrix.simdBits}
+ * selects 64, 128, 256 or 512 bits.
+ *
+ * @author Abosh Upadhyaya
+ */
+final class VectorKernels {
+    private static final VectorSpecies<Double> SPECIES = species();
+
+    private VectorKernels() {
+    }
+
+    private static VectorSpecies<Double> species() {
+        final Integer bits = Integer.getInteger("com.abosh.matrix.simdBits");
+        if (bits == null)
+            return DoubleVector.SPECIES_PREFERRED;
+        return VectorSpecies.of(double.class, VectorShape.forBitSize(bits));
+    }
+
+    static int lanes() {
+        return SPECIES.length();
+    }
+
+    static void add(final double[] a, final int aOff, final double[] b, final int bOff, final double[] c,
+            final int cOff, final int n) {
+        final int bound = SPECIES.loopBound(n);
+        int j = 0;
+        for (; j < bound; j += SPECIES.length()) {
+            DoubleVector.fromArray(SPECIES, a, aOff + j)
+                .add(DoubleVector.fromArray(SPECIES, b, bOff + j))
+                .intoArray(c, cOff + j);
+        }
+        for (; j < n; j++)
+            c[cOff + j] = a[aOff + j] + b[bOff + j];
+    }
+
+    static void subtract(final double[] a, final int aOff, final double[] b, final int bOff, final double[] c,
+            final int cOff, final int n) {
+        final int bound = SPECIES.loopBound(n);
+        int j = 0;
+        for (; j < bound; j += SPECIES.length()) {
+            DoubleVector.fromArray(SPECIES, a, aOff + j)
+                .sub(DoubleVector.fromArray(SPECIES, b, bOff + j))
+                .intoArray(c, cOff + j);
+        }
+        for (; j < n; j++)
+            c[cOff + j] = a[aOff + j] - b[bOff + j];
+    }
+
+    static void axpy(final double alpha, final double[] b, final int bOff, final double[] c, final int cOff,
+            final int n) {
+        final int bound = SPECIES.loopBound(n);
+        int j = 0;
+        for (; j < bound; j += SPECIES.length()) {
+            final DoubleVector bv = DoubleVector.fromArray(SPECIES, b, bOff + j);
+            DoubleVector.fromArray(SPECIES, c, cOff + j).add(bv.mul(alpha)).intoArray(c, cOff + j);
+        }
+        for (; j < n; j++)
+            c[cOff + j] += alpha * b[bOff + j];
+    }
+
+    static void axpy4(final double a0, final double a1, final double a2, final double a3, final double[] b,
+            final int bOff, final double[] c, final int c0, final int c1, final int c2, final int c3, final int n) {
+        final int bound = SPECIES.loopBound(n);
+        int j = 0;
+        for (; j < bound; j += SPECIES.length()) {
+            final DoubleVector bv = DoubleVector.fromArray(SPECIES, b, bOff + j);
+            DoubleVector.fromArray(SPECIES, c, c0 + j).add(bv.mul(a0)).intoArray(c, c0 + j);
+            DoubleVector.fromArray(SPECIES, c, c1 + j).add(bv.mul(a1)).intoArray(c, c1 + j);
+            DoubleVector.fromArray(SPECIES, c, c2 + j).add(bv.mul(a2)).intoArray(c, c2 + j);
+            DoubleVector.fromArray(SPECIES, c, c3 + j).add(bv.mul(a3)).intoArray(c, c3 + j);
+        }
+        for (; j < n; j++) {
+            final double bValue = b[bOff + j];
+            c[c0 + j] += a0 * bValue;
+            c[c1 + j] += a1 * bValue;
+            c[c2 + j] += a2 * bValue;
+            c[c3 + j] += a3 * bValue;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.abosh;
+
+/**
+ * Java 17 version of the entry point for the SIMD kernel loops. the loops are enabled when the
+ * {@code jdk.incubator.vector} module has been added to the boot layer (run with
+ * {@code --add-modules jdk.incubator.vector}) and the system property {@code com.abosh.matrix.simd} is not
+ * {@code false}. the vector types are only referenced from {@link VectorKernels}, which is never loaded otherwise.
+ *
+ * @author Abosh Upadhyaya
+ */
+final class VectorSupport {
+    /** whether the vectorized loops may be called. computed at run time so javac cannot inline it into callers. */
+    static final boolean ENABLED = isAvailable();
+
+    private VectorSupport() {
+    }
+
+    private static boolean isAvailable() {
+        if ("false".equals(System.getProperty("com.abosh.matrix.simd")))
+            return false;
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty())
+            return false;
+        try {
+            // forces species selection, so an unsupported com.abosh.matrix.simdBits falls back to scalar loops
+            return VectorKernels.lanes() > 1;
+        } catch (final LinkageError | RuntimeException e) {
+            return false;
+        }
+    }
+
+    static void add(final double[] a, final int aOff, final double[] b, final int bOff, final double[] c,
+            final int cOff, final int n) {
+        VectorKernels.add(a, aOff, b, bOff, c, cOff, n);
+    }
+
+    static void subtract(final double[] a, final int aOff, final double[] b, final int bOff, final double[] c,
+            final int cOff, final int n) {
+        VectorKernels.subtract(a, aOff, b, bOff, c, cOff, n);
+    }
+
+    static void axpy(final double alpha, final double[] b, final int bOff, final double[] c, final int cOff,
+            final int n) {
+        VectorKernels.axpy(alpha, b, bOff, c, cOff, n);
+    }
+
+    static void axpy4(final double a0, final double a1, final double a2, final double a3, final double[] b,
+            final int bOff, final double[] c, final int c0, final int c1, final int c2, final int c3, final int n) {
+        VectorKernels.axpy4(a0, a1, a2, a3, b, bOff, c, c0, c1, c2, c3, n);
+    }
+}
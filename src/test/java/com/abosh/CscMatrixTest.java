@@ -0,0 +1,69 @@
+package com.abosh;
+
+import static com.abosh.CsrMatrixTest.sparseRandomMatrix;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+import org.junit.Test;
+
+public class CscMatrixTest {
+
+    @Test
+    public void testDenseRoundTrip() {
+        final Matrix dense = sparseRandomMatrix(7, 9, 1);
+        final CscMatrix csc = new CscMatrix(dense);
+        assertEquals(dense, csc.toDense());
+        assertEquals(dense.getValue(5, 2), csc.getValue(5, 2), 0);
+        assertEquals(dense, csc.toCsr().toDense());
+    }
+
+    @Test
+    public void testArraysLayout() {
+        final Matrix dense = new Matrix(2, 3);
+        dense.setRow(0, new double[] { 0, 5, 0 });
+        dense.setRow(1, new double[] { 7, 0, 8 });
+        final CscMatrix csc = new CscMatrix(dense);
+        assertArrayEquals(new int[] { 0, 1, 2, 3 }, csc.getColPointers());
+        assertArrayEquals(new int[] { 1, 0, 1 }, csc.getRowIndices());
+        assertArrayEquals(new double[] { 7, 5, 8 }, csc.getValues(), 0);
+    }
+
+    @Test
+    public void testMultiplyDense() {
+        final Matrix dense = sparseRandomMatrix(8, 5, 3);
+        final Matrix multiplicand = sparseRandomMatrix(5, 6, 4);
+        assertEquals(dense.multiply(multiplicand), new CscMatrix(dense).multiply(multiplicand));
+    }
+
+    @Test
+    public void testDenseMultiplySparse() {
+        final Matrix dense = sparseRandomMatrix(8, 5, 5);
+        final Matrix multiplicand = sparseRandomMatrix(5, 6, 6);
+        assertEquals(dense.multiply(multiplicand), dense.multiply(new CscMatrix(multiplicand)));
+    }
+
+    @Test
+    public void testMultiplySparse() {
+        final Matrix dense = sparseRandomMatrix(9, 7, 7);
+        final Matrix multiplicand = sparseRandomMatrix(7, 8, 8);
+        assertEquals(dense.multiply(multiplicand),
+            new CscMatrix(dense).multiply(new CscMatrix(multiplicand)).toDense());
+    }
+
+    @Test
+    public void testAdd() {
+        final Matrix dense = sparseRandomMatrix(6, 5, 9);
+        final Matrix addend = sparseRandomMatrix(6, 5, 10);
+        final CscMatrix csc = new CscMatrix(dense);
+        assertEquals(dense.add(addend), csc.add(new CscMatrix(addend)).toDense());
+        assertEquals(dense.add(addend), csc.add(addend));
+    }
+
+    @Test
+    public void testConstructorThrowsIllegalArgumentExceptionInteriorPointerPastEnd() {
+        final IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class,
+            () -> new CscMatrix(3, 2, new int[] { 0, 5, 5 }, new int[] { 0, 1 }, new double[] { 1, 1 }));
+        assertEquals("The row pointers exceed the bounds of the index or value arrays.", thrown.getMessage());
+    }
+}
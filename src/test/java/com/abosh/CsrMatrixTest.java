@@ -0,0 +1,124 @@
+package com.abosh;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class CsrMatrixTest {
+
+    @Test
+    public void testDenseRoundTrip() {
+        final Matrix dense = sparseRandomMatrix(7, 9, 1);
+        final CsrMatrix csr = new CsrMatrix(dense);
+        assertEquals(dense, csr.toDense());
+        assertEquals(dense.getValue(3, 4), csr.getValue(3, 4), 0);
+    }
+
+    @Test
+    public void testArraysLayout() {
+        final Matrix dense = new Matrix(2, 3);
+        dense.setRow(0, new double[] { 0, 5, 0 });
+        dense.setRow(1, new double[] { 7, 0, 8 });
+        final CsrMatrix csr = new CsrMatrix(dense);
+        assertEquals(3, csr.getNonZeros());
+        assertArrayEquals(new int[] { 0, 1, 3 }, csr.getRowPointers());
+        assertArrayEquals(new int[] { 1, 0, 2 }, csr.getColumnIndices());
+        assertArrayEquals(new double[] { 5, 7, 8 }, csr.getValues(), 0);
+    }
+
+    @Test
+    public void testConstructorThrowsIllegalArgumentExceptionUnsortedIndices() {
+        final IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class,
+            () -> new CsrMatrix(1, 3, new int[] { 0, 2 }, new int[] { 2, 1 }, new double[] { 1, 1 }));
+        assertEquals("The column indices of each row must be increasing and within the matrix's bounds.",
+            thrown.getMessage());
+    }
+
+    @Test
+    public void testConstructorThrowsIllegalArgumentExceptionInteriorPointerPastEnd() {
+        final IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class,
+            () -> new CsrMatrix(2, 3, new int[] { 0, 5, 5 }, new int[] { 0, 1 }, new double[] { 1, 1 }));
+        assertEquals("The row pointers exceed the bounds of the index or value arrays.", thrown.getMessage());
+    }
+
+    @Test
+    public void testTransposeAndToCsc() {
+        final Matrix dense = sparseRandomMatrix(6, 4, 2);
+        final CsrMatrix csr = new CsrMatrix(dense);
+        final Matrix transpose = new Matrix(4, 6);
+        for (int r = 0; r < 6; r++) {
+            for (int c = 0; c < 4; c++)
+                transpose.setValue(c, r, dense.getValue(r, c));
+        }
+        assertEquals(transpose, csr.transpose().toDense());
+        assertEquals(dense, csr.toCsc().toDense());
+    }
+
+    @Test
+    public void testMultiplyDense() {
+        final Matrix dense = sparseRandomMatrix(8, 5, 3);
+        final Matrix multiplicand = sparseRandomMatrix(5, 6, 4);
+        assertEquals(dense.multiply(multiplicand), new CsrMatrix(dense).multiply(multiplicand));
+    }
+
+    @Test
+    public void testDenseMultiplySparse() {
+        final Matrix dense = sparseRandomMatrix(8, 5, 5);
+        final Matrix multiplicand = sparseRandomMatrix(5, 6, 6);
+        assertEquals(dense.multiply(multiplicand), dense.multiply(new CsrMatrix(multiplicand)));
+    }
+
+    @Test
+    public void testMultiplySparse() {
+        final Matrix dense = sparseRandomMatrix(9, 7, 7);
+        final Matrix multiplicand = sparseRandomMatrix(7, 8, 8);
+        assertEquals(dense.multiply(multiplicand),
+            new CsrMatrix(dense).multiply(new CsrMatrix(multiplicand)).toDense());
+    }
+
+    @Test
+    public void testMultiplyThrowsIllegalArgumentException() {
+        final CsrMatrix csr = new CsrMatrix(new Matrix(3, 2));
+        final IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class,
+            () -> csr.multiply(new Matrix(3, 2)));
+        assertEquals("The number of columns in this matrix must equal the number of rows in the multiplicand matrix.",
+            thrown.getMessage());
+    }
+
+    @Test
+    public void testAdd() {
+        final Matrix dense = sparseRandomMatrix(6, 6, 9);
+        final Matrix addend = sparseRandomMatrix(6, 6, 10);
+        final CsrMatrix csr = new CsrMatrix(dense);
+        assertEquals(dense.add(addend), csr.add(new CsrMatrix(addend)).toDense());
+        assertEquals(dense.add(addend), csr.add(addend));
+    }
+
+    @Test
+    public void testAddThrowsIllegalArgumentException() {
+        final CsrMatrix csr = new CsrMatrix(new Matrix(3, 3));
+        final IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class,
+            () -> csr.add(new Matrix(2, 3)));
+        assertEquals("Expected 3 rows and 3 columns. Received 2 rows and 3 columns.", thrown.getMessage());
+    }
+
+    /**
+     * returns a matrix in which roughly a third of the values are non-zero small integers, so sums and products are
+     * exact regardless of evaluation order.
+     */
+    static Matrix sparseRandomMatrix(final int rows, final int cols, final long seed) {
+        final Random random = new Random(seed);
+        final Matrix m = new Matrix(rows, cols);
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                if (random.nextInt(3) == 0)
+                    m.setValue(r, c, random.nextInt(19) - 9);
+            }
+        }
+        return m;
+    }
+}
@@ -0,0 +1,107 @@
+package com.abosh;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class FloatMatrixTest {
+
+    @Test
+    public void testCopyConstructor() {
+        final FloatMatrix m = new FloatMatrix(2, 3);
+        m.setRow(1, new float[] { 4, 5, 6 });
+        final FloatMatrix copy = new FloatMatrix(m);
+        assertEquals(m, copy);
+        assertEquals(m.hashCode(), copy.hashCode());
+        copy.setValue(0, 0, 9);
+        assertFalse(m.equals(copy));
+    }
+
+    @Test
+    public void testGLoadIdentity() {
+        final FloatMatrix m = new FloatMatrix(3, 3);
+        m.setValue(0, 1, 7);
+        m.gLoadIdentity();
+        assertArrayEquals(new float[] { 1, 0, 0, 0, 1, 0, 0, 0, 1 }, m.getData(), 0);
+    }
+
+    @Test
+    public void testAddAndSubtract() {
+        final FloatMatrix m = new FloatMatrix(2, 2);
+        final FloatMatrix other = new FloatMatrix(2, 2);
+        m.setRow(0, new float[] { 1, 2 });
+        m.setRow(1, new float[] { 3, 4 });
+        other.setRow(0, new float[] { 10, 20 });
+        other.setRow(1, new float[] { 30, 40 });
+        assertArrayEquals(new float[] { 11, 22, 33, 44 }, m.add(other).getData(), 0);
+        assertArrayEquals(new float[] { 9, 18, 27, 36 }, other.subtract(m).getData(), 0);
+        m.addInPlace(other);
+        m.subtractInPlace(other);
+        m.subtractInPlace(other);
+        assertArrayEquals(new float[] { -9, -18, -27, -36 }, m.getData(), 0);
+    }
+
+    @Test
+    public void testAddThrowsIllegalArgumentException() {
+        final FloatMatrix m = new FloatMatrix(3, 3);
+        final IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class,
+            () -> m.addInPlace(new FloatMatrix(2, 3)));
+        assertEquals("Expected 3 rows and 3 columns. Received 2 rows and 3 columns.", thrown.getMessage());
+    }
+
+    @Test
+    public void testMultiply() {
+        final FloatMatrix m = new FloatMatrix(2, 3);
+        m.setRow(0, new float[] { 1, 2, 3 });
+        m.setRow(1, new float[] { 4, 5, 6 });
+        final FloatMatrix multiplicand = new FloatMatrix(3, 2);
+        multiplicand.setRow(0, new float[] { 7, 8 });
+        multiplicand.setRow(1, new float[] { 9, 10 });
+        multiplicand.setRow(2, new float[] { 11, 12 });
+        assertArrayEquals(new float[] { 58, 64, 139, 154 }, m.multiply(multiplicand).getData(), 0);
+    }
+
+    @Test
+    public void testMultiplyThrowsIllegalArgumentException() {
+        final IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class,
+            () -> new FloatMatrix(3, 2).multiply(new FloatMatrix(3, 2)));
+        assertEquals("The number of columns in this matrix must equal the number of rows in the multiplicand matrix.",
+            thrown.getMessage());
+    }
+
+    @Test
+    public void testGetColAndToString() {
+        final FloatMatrix m = new FloatMatrix(2, 2);
+        m.setRow(0, new float[] { 1, 2 });
+        m.setRow(1, new float[] { 3, 4 });
+        assertArrayEquals(new float[] { 2, 4 }, m.getCol(1), 0);
+        assertEquals("[1.0, 2.0]\n[3.0, 4.0]\n", m.toString());
+    }
+
+    @Test
+    public void testEqualsUnequalDimensions() {
+        assertFalse(new FloatMatrix(2, 3).equals(new FloatMatrix(3, 2)));
+        assertTrue(new FloatMatrix(2, 3).equals(new FloatMatrix(2, 3)));
+    }
+
+    @Test
+    public void testConversions() {
+        final Matrix m = new Matrix(1, 3);
+        m.setRow(0, new double[] { 0.1, -2.5, 1e40 });
+        final FloatMatrix converted = new FloatMatrix(m);
+        assertArrayEquals(new float[] { 0.1f, -2.5f, Float.POSITIVE_INFINITY }, converted.getData(), 0);
+        assertArrayEquals(new double[] { (float) 0.1, -2.5, Double.POSITIVE_INFINITY }, converted.toMatrix().getData(), 0);
+    }
+
+    @Test
+    public void testToIntMatrixAndToLongMatrix() {
+        final FloatMatrix m = new FloatMatrix(1, 4);
+        m.setRow(0, new float[] { 2.5f, -3.5f, 3e9f, Float.NaN });
+        assertArrayEquals(new int[] { 2, -4, Integer.MAX_VALUE, 0 }, m.toIntMatrix().getData());
+        assertArrayEquals(new long[] { 2, -4, 3_000_000_000L, 0 }, m.toLongMatrix().getData());
+    }
+}
@@ -0,0 +1,191 @@
+package com.abosh;
+
+import static com.abosh.MatrixTest.assertMatrixEquals;
+import static com.abosh.MatrixTest.randomMatrix;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+public class GramAccumulatorTest {
+
+    private static Matrix centered(final Matrix x, final double[] mean) {
+        final Matrix c = new Matrix(x);
+        for (int r = 0; r < x.getRows(); r++) {
+            for (int j = 0; j < x.getCols(); j++)
+                c.setValue(r, j, x.getValue(r, j) - mean[j]);
+        }
+        return c;
+    }
+
+    private static double[] columnMeans(final Matrix x) {
+        final double[] mean = new double[x.getCols()];
+        for (int r = 0; r < x.getRows(); r++) {
+            for (int j = 0; j < x.getCols(); j++)
+                mean[j] += x.getValue(r, j);
+        }
+        for (int j = 0; j < mean.length; j++)
+            mean[j] /= x.getRows();
+        return mean;
+    }
+
+    @Test
+    public void testMatchesDirectComputation() {
+        final Matrix x = randomMatrix(1000, 13, 1);
+        final GramAccumulator accumulator = new GramAccumulator(13, 64);
+        for (int r = 0; r < 1000; r++)
+            accumulator.add(x.getRow(r));
+        assertEquals(1000, accumulator.getCount());
+        assertMatrixEquals(x.transposedView().multiply(x), accumulator.getGram(), 1e-11);
+        final double[] mean = columnMeans(x);
+        assertArrayEquals(mean, accumulator.getMean(), 1e-14);
+        final Matrix c = centered(x, mean);
+        final Matrix covariance = c.transposedView().multiply(c);
+        for (int i = 0; i < 13; i++) {
+            for (int j = 0; j < 13; j++)
+                assertEquals(covariance.getValue(i, j) / 999, accumulator.getCovariance().getValue(i, j), 1e-14);
+        }
+    }
+
+    @Test
+    public void testInputFormsAgree() throws IOException {
+        final Matrix x = randomMatrix(517, 9, 2);
+        final GramAccumulator rows = new GramAccumulator(9, 50);
+        for (int r = 0; r < 517; r++)
+            rows.add(x.getRow(r));
+
+        final GramAccumulator packed = new GramAccumulator(9, 50);
+        packed.add(x.getData(), 0, 300);
+        packed.add(x.getData(), 300 * 9, 217);
+
+        final GramAccumulator matrix = new GramAccumulator(9, 50);
+        matrix.add(x.subMatrix(0, 0, 100, 9));
+        matrix.add(x.subMatrix(100, 0, 417, 9));
+
+        final List<double[]> list = new ArrayList<>();
+        for (int r = 0; r < 517; r++)
+            list.add(x.getRow(r));
+        final GramAccumulator iterator = new GramAccumulator(9, 50);
+        iterator.addAll(list.iterator());
+
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        MatrixIO.writeTo(x, Channels.newChannel(bytes));
+        final GramAccumulator channel = new GramAccumulator(9, 50);
+        assertEquals(517, channel.addAll(Channels.newChannel(new ByteArrayInputStream(bytes.toByteArray()))));
+
+        // every form splits the stream into the same blocks, so the results are identical
+        for (final GramAccumulator other : new GramAccumulator[] { packed, matrix, iterator, channel }) {
+            assertEquals(517, other.getCount());
+            assertArrayEquals(rows.getMean(), other.getMean(), 0);
+            assertMatrixEquals(rows.getGram(), other.getGram(), 0);
+        }
+    }
+
+    @Test
+    public void testChannelRowsSpanningBuffers() throws IOException {
+        // rows of 1000 doubles do not divide the 8192-double transfer buffer
+        final Matrix x = randomMatrix(40, 1000, 3);
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        MatrixIO.writeTo(x, Channels.newChannel(bytes));
+        final GramAccumulator streamed = new GramAccumulator(1000, 16);
+        streamed.addAll(Channels.newChannel(new ByteArrayInputStream(bytes.toByteArray())));
+        final GramAccumulator direct = new GramAccumulator(1000, 16);
+        direct.add(x);
+        assertMatrixEquals(direct.getGram(), streamed.getGram(), 0);
+
+        final GramAccumulator wrongDimension = new GramAccumulator(999);
+        assertThrows(IOException.class,
+            () -> wrongDimension.addAll(Channels.newChannel(new ByteArrayInputStream(bytes.toByteArray()))));
+    }
+
+    @Test
+    public void testChannelHeaderOverflowThrowsIOException() {
+        // 2^62 rows of 4 values wrap around to zero values when multiplied unchecked
+        final byte[] header = MatrixFileHeader.encode(1L << 62, 4).array();
+        final GramAccumulator accumulator = new GramAccumulator(4);
+        final IOException thrown = assertThrows(IOException.class,
+            () -> accumulator.addAll(Channels.newChannel(new ByteArrayInputStream(header))));
+        assertEquals("The matrix header describes more values than can be counted.", thrown.getMessage());
+    }
+
+    @Test
+    public void testMergeMatchesSingleStream() throws Exception {
+        final Matrix x = randomMatrix(4000, 7, 4);
+        final GramAccumulator single = new GramAccumulator(7);
+        single.add(x);
+
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<GramAccumulator>> parts = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                final int first = t * 1000;
+                parts.add(executor.submit(() -> {
+                    final GramAccumulator part = new GramAccumulator(7);
+                    part.add(x.subMatrix(first, 0, 1000, 7));
+                    return part;
+                }));
+            }
+            final GramAccumulator merged = new GramAccumulator(7);
+            for (final Future<GramAccumulator> part : parts)
+                merged.merge(part.get());
+            assertEquals(4000, merged.getCount());
+            assertArrayEquals(single.getMean(), merged.getMean(), 1e-15);
+            assertMatrixEquals(single.getCovariance(), merged.getCovariance(), 1e-15);
+            assertMatrixEquals(single.getGram(), merged.getGram(), 1e-11);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testLargeMeanDoesNotCancel() {
+        // values around 1e8 with unit spread: X^T X / n - mean mean^T would lose every significant digit
+        final Random random = new Random(5);
+        final GramAccumulator accumulator = new GramAccumulator(2, 100);
+        final int n = 100000;
+        double sumSquares = 0;
+        for (int i = 0; i < n; i++) {
+            final double z = random.nextGaussian();
+            sumSquares += z * z;
+            accumulator.add(new double[] { 1e8 + z, 1e8 - z });
+        }
+        final Matrix covariance = accumulator.getCovariance();
+        final double variance = sumSquares / (n - 1);
+        // the sample mean of z is about 1 / sqrt(n), which shifts the variance by about 1 / n
+        assertEquals(variance, covariance.getValue(0, 0), 1e-4);
+        assertEquals(-variance, covariance.getValue(0, 1), 1e-4);
+        assertEquals(covariance.getValue(0, 1), covariance.getValue(1, 0), 0);
+    }
+
+    @Test
+    public void testEdgeCases() {
+        final GramAccumulator accumulator = new GramAccumulator(3);
+        assertArrayEquals(new double[3], accumulator.getMean(), 0);
+        assertMatrixEquals(new Matrix(3, 3), accumulator.getGram(), 0);
+        assertThrows(IllegalStateException.class, accumulator::getCovariance);
+        accumulator.add(new double[] { 1, 2, 3 });
+        assertThrows(IllegalStateException.class, accumulator::getCovariance);
+        accumulator.merge(new GramAccumulator(3));
+        assertEquals(1, accumulator.getCount());
+        accumulator.reset();
+        assertEquals(0, accumulator.getCount());
+        assertThrows(IllegalArgumentException.class, () -> accumulator.add(new double[2]));
+        assertThrows(IllegalArgumentException.class, () -> accumulator.add(new Matrix(2, 2)));
+        assertThrows(IndexOutOfBoundsException.class, () -> accumulator.add(new double[8], 0, 3));
+        assertThrows(IllegalArgumentException.class, () -> accumulator.merge(new GramAccumulator(2)));
+        assertThrows(IllegalArgumentException.class, () -> new GramAccumulator(0));
+        assertThrows(IllegalArgumentException.class, () -> new GramAccumulator(3, 0));
+    }
+}
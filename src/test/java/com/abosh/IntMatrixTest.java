@@ -0,0 +1,110 @@
+package com.abosh;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class IntMatrixTest {
+
+    @Test
+    public void testCopyConstructor() {
+        final IntMatrix m = new IntMatrix(2, 3);
+        m.setRow(1, new int[] { 4, 5, 6 });
+        final IntMatrix copy = new IntMatrix(m);
+        assertEquals(m, copy);
+        assertEquals(m.hashCode(), copy.hashCode());
+        copy.setValue(0, 0, 9);
+        assertFalse(m.equals(copy));
+    }
+
+    @Test
+    public void testGLoadIdentity() {
+        final IntMatrix m = new IntMatrix(3, 3);
+        m.setValue(0, 1, 7);
+        m.gLoadIdentity();
+        assertArrayEquals(new int[] { 1, 0, 0, 0, 1, 0, 0, 0, 1 }, m.getData());
+    }
+
+    @Test
+    public void testAddAndSubtract() {
+        final IntMatrix m = new IntMatrix(2, 2);
+        final IntMatrix other = new IntMatrix(2, 2);
+        m.setRow(0, new int[] { 1, 2 });
+        m.setRow(1, new int[] { 3, 4 });
+        other.setRow(0, new int[] { 10, 20 });
+        other.setRow(1, new int[] { 30, 40 });
+        assertArrayEquals(new int[] { 11, 22, 33, 44 }, m.add(other).getData());
+        assertArrayEquals(new int[] { 9, 18, 27, 36 }, other.subtract(m).getData());
+        m.addInPlace(other);
+        m.subtractInPlace(other);
+        m.subtractInPlace(other);
+        assertArrayEquals(new int[] { -9, -18, -27, -36 }, m.getData());
+    }
+
+    @Test
+    public void testAddThrowsIllegalArgumentException() {
+        final IntMatrix m = new IntMatrix(3, 3);
+        final IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class,
+            () -> m.addInPlace(new IntMatrix(2, 3)));
+        assertEquals("Expected 3 rows and 3 columns. Received 2 rows and 3 columns.", thrown.getMessage());
+    }
+
+    @Test
+    public void testMultiply() {
+        final IntMatrix m = new IntMatrix(2, 3);
+        m.setRow(0, new int[] { 1, 2, 3 });
+        m.setRow(1, new int[] { 4, 5, 6 });
+        final IntMatrix multiplicand = new IntMatrix(3, 2);
+        multiplicand.setRow(0, new int[] { 7, 8 });
+        multiplicand.setRow(1, new int[] { 9, 10 });
+        multiplicand.setRow(2, new int[] { 11, 12 });
+        assertArrayEquals(new int[] { 58, 64, 139, 154 }, m.multiply(multiplicand).getData());
+    }
+
+    @Test
+    public void testMultiplyThrowsIllegalArgumentException() {
+        final IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class,
+            () -> new IntMatrix(3, 2).multiply(new IntMatrix(3, 2)));
+        assertEquals("The number of columns in this matrix must equal the number of rows in the multiplicand matrix.",
+            thrown.getMessage());
+    }
+
+    @Test
+    public void testGetColAndToString() {
+        final IntMatrix m = new IntMatrix(2, 2);
+        m.setRow(0, new int[] { 1, 2 });
+        m.setRow(1, new int[] { 3, 4 });
+        assertArrayEquals(new int[] { 2, 4 }, m.getCol(1));
+        assertEquals("[1, 2]\n[3, 4]\n", m.toString());
+    }
+
+    @Test
+    public void testEqualsUnequalDimensions() {
+        assertFalse(new IntMatrix(2, 3).equals(new IntMatrix(3, 2)));
+        assertTrue(new IntMatrix(2, 3).equals(new IntMatrix(2, 3)));
+    }
+
+    @Test
+    public void testConversions() {
+        final Matrix m = new Matrix(1, 3);
+        m.setRow(0, new double[] { 2.5, -3.7, 1e20 });
+        final IntMatrix converted = new IntMatrix(m);
+        assertArrayEquals(new int[] { 2, -4, Integer.MAX_VALUE }, converted.getData());
+        assertArrayEquals(new double[] { 2, -4, Integer.MAX_VALUE }, converted.toMatrix().getData(), 0);
+    }
+
+    @Test
+    public void testToLongMatrixAndToFloatMatrix() {
+        final IntMatrix m = new IntMatrix(1, 2);
+        m.setRow(0, new int[] { Integer.MAX_VALUE, -7 });
+        final LongMatrix widened = m.toLongMatrix();
+        assertArrayEquals(new long[] { Integer.MAX_VALUE, -7 }, widened.getData());
+        widened.addInPlace(widened);
+        assertEquals(2L * Integer.MAX_VALUE, widened.getValue(0, 0));
+        assertArrayEquals(new float[] { Integer.MAX_VALUE, -7 }, m.toFloatMatrix().getData(), 0);
+    }
+}
@@ -0,0 +1,325 @@
+package com.abosh;
+
+import static com.abosh.MatrixTest.randomMatrix;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class IterativeSolverTest {
+
+    /**
+     * the tridiagonal 1D Laplacian with 2 on the diagonal and -1 beside it, whose eigenvalues are
+     * 2 - 2 cos(k pi / (n + 1)).
+     */
+    private static CsrMatrix laplacian(final int n) {
+        final int[] pointers = new int[n + 1];
+        final int[] columns = new int[3 * n];
+        final double[] values = new double[3 * n];
+        int k = 0;
+        for (int r = 0; r < n; r++) {
+            for (int c = Math.max(0, r - 1); c <= Math.min(n - 1, r + 1); c++) {
+                columns[k] = c;
+                values[k++] = c == r ? 2 : -1;
+            }
+            pointers[r + 1] = k;
+        }
+        return new CsrMatrix(n, n, pointers, columns, values);
+    }
+
+    private static double[] randomVector(final int n, final long seed) {
+        final Random random = new Random(seed);
+        final double[] v = new double[n];
+        for (int i = 0; i < n; i++)
+            v[i] = random.nextDouble() * 2 - 1;
+        return v;
+    }
+
+    private static double residual(final LinearOperator a, final double[] b, final double[] x) {
+        final double[] ax = new double[b.length];
+        a.apply(x, ax);
+        double sum = 0;
+        for (int i = 0; i < b.length; i++)
+            sum += (b[i] - ax[i]) * (b[i] - ax[i]);
+        return Math.sqrt(sum);
+    }
+
+    @Test
+    public void testApplyMatchesMultiply() {
+        final Matrix a = randomMatrix(37, 23, 1);
+        final double[] x = randomVector(23, 2);
+        final double[] expected = a.multiply(columnOf(x)).getCol(0);
+        final double[] y = new double[37];
+        a.apply(x, y);
+        assertArrayEquals(expected, y, 1e-12);
+        new CsrMatrix(a).apply(x, y);
+        assertArrayEquals(expected, y, 1e-12);
+        new CscMatrix(a).apply(x, y);
+        assertArrayEquals(expected, y, 1e-12);
+    }
+
+    @Test
+    public void testApplyOnView() {
+        final double[] data = new double[5 * 7];
+        for (int i = 0; i < data.length; i++)
+            data[i] = i;
+        final Matrix view = new Matrix(data, 8, 7, 3, 4);
+        final double[] y = new double[3];
+        view.apply(new double[] { 1, 0, 0, 1 }, y);
+        assertArrayEquals(new double[] { 8 + 11, 15 + 18, 22 + 25 }, y, 0);
+    }
+
+    @Test
+    public void testApplyRejectsBadVectors() {
+        final Matrix a = new Matrix(3, 3);
+        final double[] x = new double[3];
+        assertThrows(IllegalArgumentException.class, () -> a.apply(new double[2], x));
+        assertThrows(IllegalArgumentException.class, () -> a.apply(x, new double[4]));
+        assertThrows(IllegalArgumentException.class, () -> a.apply(x, x));
+        assertThrows(IllegalArgumentException.class, () -> new ConjugateGradient().solve(new Matrix(3, 4), x, x));
+    }
+
+    @Test
+    public void testConjugateGradient() {
+        final int n = 200;
+        final CsrMatrix a = laplacian(n);
+        final double[] b = randomVector(n, 3);
+        final double[] x = new double[n];
+        final ConjugateGradient cg = new ConjugateGradient();
+        final IterativeResult result = cg.solve(a, b, x);
+        assertTrue(result.isConverged());
+        // CG terminates in at most n steps in exact arithmetic
+        assertTrue(result.getIterations() <= n + 10);
+        assertTrue(residual(a, b, x) <= 1e-10 * IterativeSolver.norm(b) * 1.0001);
+        assertEquals(residual(a, b, x), result.getResidual(), 1e-8);
+        assertTrue(Double.isNaN(result.getEigenvalue()));
+    }
+
+    @Test
+    public void testConjugateGradientZeroRightHandSide() {
+        final int n = 20;
+        final double[] x = randomVector(n, 4);
+        final IterativeResult result = new ConjugateGradient().solve(laplacian(n), new double[n], x);
+        assertTrue(result.isConverged());
+        assertEquals(0, result.getIterations());
+        assertEquals(0, result.getResidual(), 0);
+        assertArrayEquals(new double[n], x, 0);
+    }
+
+    @Test
+    public void testJacobiPreconditioner() {
+        // a badly scaled SPD system: D L D for a diagonal D spanning four orders of magnitude
+        final int n = 100;
+        final Matrix dense = laplacian(n).toDense();
+        final double[] scale = new double[n];
+        for (int i = 0; i < n; i++)
+            scale[i] = Math.pow(10, 4.0 * i / n);
+        final double[] diagonal = new double[n];
+        for (int r = 0; r < n; r++) {
+            for (int c = 0; c < n; c++)
+                dense.setValue(r, c, dense.getValue(r, c) * scale[r] * scale[c]);
+            diagonal[r] = dense.getValue(r, r);
+        }
+        final CsrMatrix a = new CsrMatrix(dense);
+        final double[] b = randomVector(n, 4);
+
+        final ConjugateGradient plain = new ConjugateGradient();
+        plain.setMaxIterations(100000);
+        final double[] x0 = new double[n];
+        final IterativeResult unpreconditioned = plain.solve(a, b, x0);
+
+        final ConjugateGradient jacobi = new ConjugateGradient();
+        jacobi.setPreconditioner(Preconditioner.jacobi(diagonal));
+        final double[] x1 = new double[n];
+        final IterativeResult preconditioned = jacobi.solve(a, b, x1);
+        assertTrue(preconditioned.isConverged());
+        assertTrue(preconditioned.getIterations() < unpreconditioned.getIterations());
+        assertTrue(residual(a, b, x1) <= 1e-9 * IterativeSolver.norm(b));
+    }
+
+    @Test
+    public void testJacobiRejectsZeroDiagonal() {
+        assertThrows(IllegalArgumentException.class, () -> Preconditioner.jacobi(new double[] { 1, 0 }));
+    }
+
+    @Test
+    public void testGmresNonsymmetric() {
+        // a convection-diffusion style operator: the Laplacian plus a skew upwind term
+        final int n = 150;
+        final Matrix dense = laplacian(n).toDense();
+        for (int r = 1; r < n; r++) {
+            dense.setValue(r, r - 1, dense.getValue(r, r - 1) - 0.5);
+            dense.setValue(r, r, dense.getValue(r, r) + 0.5);
+        }
+        final CsrMatrix a = new CsrMatrix(dense);
+        final double[] b = randomVector(n, 5);
+        final double[] x = new double[n];
+        final Gmres gmres = new Gmres(40);
+        gmres.setMaxIterations(5000);
+        final IterativeResult result = gmres.solve(a, b, x);
+        assertTrue(result.isConverged());
+        assertTrue(residual(a, b, x) <= 1e-9 * IterativeSolver.norm(b));
+
+        // the same solve with a Jacobi preconditioner, starting from the previous solution
+        final double[] diagonal = new double[n];
+        for (int i = 0; i < n; i++)
+            diagonal[i] = dense.getValue(i, i);
+        gmres.setPreconditioner(Preconditioner.jacobi(diagonal));
+        final double[] y = new double[n];
+        assertTrue(gmres.solve(a, b, y).isConverged());
+        assertArrayEquals(x, y, 1e-6);
+    }
+
+    @Test
+    public void testGmresDense() {
+        final Matrix a = randomMatrix(60, 60, 6);
+        for (int i = 0; i < 60; i++)
+            a.setValue(i, i, a.getValue(i, i) + 10);
+        final double[] b = randomVector(60, 7);
+        final double[] x = new double[60];
+        assertTrue(new Gmres().solve(a, b, x).isConverged());
+        final double[] expected = new LUDecomposition(a).solve(columnOf(b)).getCol(0);
+        assertArrayEquals(expected, x, 1e-9);
+    }
+
+    private static Matrix columnOf(final double[] v) {
+        return new Matrix(v.clone(), 0, 1, v.length, 1);
+    }
+
+    @Test
+    public void testPowerIteration() {
+        // diagonal spectrum with a clear gap, hidden by an orthogonal similarity transform
+        final int n = 30;
+        final double[] householder = randomVector(n, 8);
+        final double norm = IterativeSolver.norm(householder);
+        final Matrix h = new Matrix(n, n);
+        for (int r = 0; r < n; r++) {
+            for (int c = 0; c < n; c++)
+                h.setValue(r, c, (r == c ? 1 : 0) - 2 * householder[r] * householder[c] / (norm * norm));
+        }
+        final Matrix diagonal = new Matrix(n, n);
+        for (int i = 0; i < n; i++)
+            diagonal.setValue(i, i, i == 0 ? -10 : 5.0 * i / n);
+        final Matrix a = h.multiply(diagonal).multiply(h);
+        final PowerIteration power = new PowerIteration();
+        final double[] v = new double[n];
+        final IterativeResult result = power.solve(a, v);
+        assertTrue(result.isConverged());
+        assertEquals(-10, result.getEigenvalue(), 1e-8);
+        assertEquals(1, IterativeSolver.norm(v), 1e-12);
+        // v is the first column of h, up to sign
+        final double sign = Math.signum(v[0] * h.getValue(0, 0));
+        for (int i = 0; i < n; i++)
+            assertEquals(h.getValue(i, 0), sign * v[i], 1e-8);
+    }
+
+    @Test
+    public void testLanczosLaplacian() {
+        final int n = 500;
+        final CsrMatrix a = laplacian(n);
+        final Lanczos lanczos = new Lanczos();
+        lanczos.setMaxIterations(10000);
+        final double[] v = randomVector(n, 10);
+        final IterativeResult result = lanczos.solve(a, v);
+        final double expected = 2 - 2 * Math.cos(n * Math.PI / (n + 1));
+        assertTrue(result.isConverged());
+        assertEquals(expected, result.getEigenvalue(), 1e-8);
+        final double[] av = new double[n];
+        a.apply(v, av);
+        for (int i = 0; i < n; i++)
+            assertEquals(expected * v[i], av[i], 1e-6);
+    }
+
+    @Test
+    public void testLanczosMatchesPowerIteration() {
+        final Matrix b = randomMatrix(40, 40, 11);
+        final Matrix a = b.add(MatrixTest.transposeOf(b));
+        final PowerIteration power = new PowerIteration();
+        power.setMaxIterations(100000);
+        power.setTolerance(1e-12);
+        final IterativeResult expected = power.solve(a, new double[40]);
+        final IterativeResult actual = new Lanczos(10).solve(a, new double[40]);
+        assertTrue(actual.isConverged());
+        assertEquals(expected.getEigenvalue(), actual.getEigenvalue(), 1e-8);
+        // a basis as large as the matrix finds the exact answer in one cycle
+        final IterativeResult full = new Lanczos(40).solve(a, new double[40]);
+        assertTrue(full.getIterations() <= 40);
+        assertEquals(expected.getEigenvalue(), full.getEigenvalue(), 1e-8);
+    }
+
+    @Test
+    public void testListenerStopsEarly() {
+        final int n = 300;
+        final CsrMatrix a = laplacian(n);
+        final double[] b = randomVector(n, 12);
+        final double[] residuals = new double[6];
+        final IterationListener listener = (iteration, residual) -> {
+            residuals[iteration - 1] = residual;
+            return iteration < 5;
+        };
+        final IterativeSolver[] solvers = { new ConjugateGradient(), new Gmres(), new Lanczos() };
+        for (final IterativeSolver solver : solvers) {
+            solver.setListener(listener);
+            final double[] x = new double[n];
+            final IterativeResult result;
+            if (solver instanceof ConjugateGradient)
+                result = ((ConjugateGradient) solver).solve(a, b, x);
+            else if (solver instanceof Gmres)
+                result = ((Gmres) solver).solve(a, b, x);
+            else
+                result = ((Lanczos) solver).solve(a, x);
+            assertFalse(result.isConverged());
+            assertEquals(5, result.getIterations());
+            assertEquals(residuals[4], result.getResidual(), 0);
+            assertEquals(0, residuals[5], 0);
+        }
+    }
+
+    @Test
+    public void testMaxIterations() {
+        final ConjugateGradient cg = new ConjugateGradient();
+        cg.setMaxIterations(3);
+        final IterativeResult result = cg.solve(laplacian(100), randomVector(100, 13), new double[100]);
+        assertFalse(result.isConverged());
+        assertEquals(3, result.getIterations());
+        assertThrows(IllegalArgumentException.class, () -> cg.setMaxIterations(-1));
+        assertThrows(IllegalArgumentException.class, () -> cg.setTolerance(-1));
+        assertThrows(IllegalArgumentException.class, () -> cg.setTolerance(Double.NaN));
+        assertThrows(IllegalArgumentException.class, () -> new Gmres(0));
+    }
+
+    @Test
+    public void testMatrixFreeOperator() {
+        // the Laplacian applied as a stencil, with no stored matrix at all
+        final int n = 64;
+        final LinearOperator stencil = new LinearOperator() {
+            @Override
+            public void apply(final double[] x, final double[] y) {
+                LinearOperator.checkApply(n, n, x, y);
+                for (int i = 0; i < n; i++)
+                    y[i] = 2 * x[i] - (i > 0 ? x[i - 1] : 0) - (i < n - 1 ? x[i + 1] : 0);
+            }
+
+            @Override
+            public int getRows() {
+                return n;
+            }
+
+            @Override
+            public int getCols() {
+                return n;
+            }
+        };
+        final double[] b = randomVector(n, 14);
+        final double[] x = new double[n];
+        final double[] y = new double[n];
+        assertTrue(new ConjugateGradient().solve(stencil, b, x).isConverged());
+        assertTrue(new ConjugateGradient().solve(laplacian(n), b, y).isConverged());
+        assertArrayEquals(y, x, 1e-9);
+    }
+}
@@ -0,0 +1,86 @@
+package com.abosh;
+
+import static com.abosh.MatrixTest.assertMatrixEquals;
+import static com.abosh.MatrixTest.randomMatrix;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class LUDecompositionTest {
+
+    @Test
+    public void testFactorsPermutedMatrix() {
+        final Matrix a = randomMatrix(150, 150, 1);
+        final LUDecomposition lu = new LUDecomposition(a);
+        final int[] pivot = lu.getPivot();
+        final Matrix permuted = new Matrix(150, 150);
+        for (int i = 0; i < 150; i++)
+            permuted.setRow(i, a.getRow(pivot[i]));
+        assertMatrixEquals(permuted, lu.getL().multiply(lu.getU()), 1e-12);
+        assertFalse(lu.isSingular());
+    }
+
+    @Test
+    public void testBlockedMatchesUnblocked() {
+        final Matrix a = randomMatrix(70, 70, 2);
+        final LUDecomposition blocked = new LUDecomposition(a, 8);
+        final LUDecomposition unblocked = new LUDecomposition(a, 70);
+        assertArrayEquals(unblocked.getPivot(), blocked.getPivot());
+        assertMatrixEquals(unblocked.getU(), blocked.getU(), 1e-12);
+        assertMatrixEquals(unblocked.getL(), blocked.getL(), 1e-12);
+    }
+
+    @Test
+    public void testSolve() {
+        final Matrix a = randomMatrix(90, 90, 3);
+        final Matrix x = randomMatrix(90, 4, 4);
+        final Matrix b = a.multiply(x);
+        assertMatrixEquals(x, new LUDecomposition(a).solve(b), 1e-9);
+    }
+
+    @Test
+    public void testDeterminant() {
+        final Matrix m = new Matrix(3, 3);
+        m.setRow(0, new double[] { 0, 2, 1 });
+        m.setRow(1, new double[] { 1, 1, 0 });
+        m.setRow(2, new double[] { 3, 0, 4 });
+        // 0 * (4 - 0) - 2 * (4 - 0) + 1 * (0 - 3)
+        assertEquals(-11, new LUDecomposition(m).determinant(), 1e-12);
+    }
+
+    @Test
+    public void testInverse() {
+        final Matrix a = randomMatrix(40, 40, 5);
+        final Matrix identity = new Matrix(40, 40);
+        identity.gLoadIdentity();
+        assertMatrixEquals(identity, a.multiply(new LUDecomposition(a).inverse()), 1e-10);
+    }
+
+    @Test
+    public void testSingularMatrix() {
+        final Matrix m = new Matrix(3, 3);
+        m.setRow(0, new double[] { 1, 2, 3 });
+        m.setRow(1, new double[] { 2, 4, 6 });
+        m.setRow(2, new double[] { 1, 0, 1 });
+        final LUDecomposition lu = new LUDecomposition(m);
+        assertTrue(lu.isSingular());
+        assertEquals(0, lu.determinant(), 0);
+        final IllegalArgumentException thrown = assertThrows(
+            IllegalArgumentException.class, () -> lu.solve(new Matrix(3, 1)));
+        assertEquals("The matrix is singular.", thrown.getMessage());
+        assertThrows(IllegalArgumentException.class, lu::inverse);
+    }
+
+    @Test
+    public void testNonSquareMatrixThrowsIllegalArgumentException() {
+        final IllegalArgumentException thrown = assertThrows(
+            IllegalArgumentException.class, () -> new LUDecomposition(new Matrix(2, 3)));
+        assertEquals("An LU decomposition requires a square matrix.", thrown.getMessage());
+        final LUDecomposition lu = new LUDecomposition(new Matrix(2, 2));
+        assertThrows(IllegalArgumentException.class, () -> lu.solve(new Matrix(3, 1)));
+    }
+}
@@ -0,0 +1,115 @@
+package com.abosh;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class LongMatrixTest {
+
+    @Test
+    public void testCopyConstructor() {
+        final LongMatrix m = new LongMatrix(2, 3);
+        m.setRow(1, new long[] { 4, 5, 6 });
+        final LongMatrix copy = new LongMatrix(m);
+        assertEquals(m, copy);
+        assertEquals(m.hashCode(), copy.hashCode());
+        copy.setValue(0, 0, 9);
+        assertFalse(m.equals(copy));
+    }
+
+    @Test
+    public void testGLoadIdentity() {
+        final LongMatrix m = new LongMatrix(3, 3);
+        m.setValue(0, 1, 7);
+        m.gLoadIdentity();
+        assertArrayEquals(new long[] { 1, 0, 0, 0, 1, 0, 0, 0, 1 }, m.getData());
+    }
+
+    @Test
+    public void testAddAndSubtract() {
+        final LongMatrix m = new LongMatrix(2, 2);
+        final LongMatrix other = new LongMatrix(2, 2);
+        m.setRow(0, new long[] { 1, 2 });
+        m.setRow(1, new long[] { 3, 4 });
+        other.setRow(0, new long[] { 10, 20 });
+        other.setRow(1, new long[] { 30, 40 });
+        assertArrayEquals(new long[] { 11, 22, 33, 44 }, m.add(other).getData());
+        assertArrayEquals(new long[] { 9, 18, 27, 36 }, other.subtract(m).getData());
+        m.addInPlace(other);
+        m.subtractInPlace(other);
+        m.subtractInPlace(other);
+        assertArrayEquals(new long[] { -9, -18, -27, -36 }, m.getData());
+    }
+
+    @Test
+    public void testAddThrowsIllegalArgumentException() {
+        final LongMatrix m = new LongMatrix(3, 3);
+        final IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class,
+            () -> m.addInPlace(new LongMatrix(2, 3)));
+        assertEquals("Expected 3 rows and 3 columns. Received 2 rows and 3 columns.", thrown.getMessage());
+    }
+
+    @Test
+    public void testMultiply() {
+        final LongMatrix m = new LongMatrix(2, 3);
+        m.setRow(0, new long[] { 1, 2, 3 });
+        m.setRow(1, new long[] { 4, 5, 6 });
+        final LongMatrix multiplicand = new LongMatrix(3, 2);
+        multiplicand.setRow(0, new long[] { 7, 8 });
+        multiplicand.setRow(1, new long[] { 9, 10 });
+        multiplicand.setRow(2, new long[] { 11, 12 });
+        assertArrayEquals(new long[] { 58, 64, 139, 154 }, m.multiply(multiplicand).getData());
+    }
+
+    @Test
+    public void testMultiplyThrowsIllegalArgumentException() {
+        final IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class,
+            () -> new LongMatrix(3, 2).multiply(new LongMatrix(3, 2)));
+        assertEquals("The number of columns in this matrix must equal the number of rows in the multiplicand matrix.",
+            thrown.getMessage());
+    }
+
+    @Test
+    public void testGetColAndToString() {
+        final LongMatrix m = new LongMatrix(2, 2);
+        m.setRow(0, new long[] { 1, 2 });
+        m.setRow(1, new long[] { 3, 4 });
+        assertArrayEquals(new long[] { 2, 4 }, m.getCol(1));
+        assertEquals("[1, 2]\n[3, 4]\n", m.toString());
+    }
+
+    @Test
+    public void testEqualsUnequalDimensions() {
+        assertFalse(new LongMatrix(2, 3).equals(new LongMatrix(3, 2)));
+        assertTrue(new LongMatrix(2, 3).equals(new LongMatrix(2, 3)));
+    }
+
+    @Test
+    public void testConversions() {
+        final Matrix m = new Matrix(1, 3);
+        m.setRow(0, new double[] { 2.5, -3.5, Double.NaN });
+        final LongMatrix converted = new LongMatrix(m);
+        assertArrayEquals(new long[] { 2, -4, 0 }, converted.getData());
+        assertArrayEquals(new double[] { 2, -4, 0 }, converted.toMatrix().getData(), 0);
+    }
+
+    @Test
+    public void testWideningConstructor() {
+        final IntMatrix m = new IntMatrix(1, 2);
+        m.setRow(0, new int[] { Integer.MIN_VALUE, 5 });
+        assertArrayEquals(new long[] { Integer.MIN_VALUE, 5 }, new LongMatrix(m).getData());
+    }
+
+    @Test
+    public void testToIntMatrixAndToFloatMatrix() {
+        final LongMatrix m = new LongMatrix(1, 4);
+        m.setRow(0, new long[] { Long.MIN_VALUE, 1L << 40, -7, (1L << 24) + 1 });
+        assertArrayEquals(new int[] { Integer.MIN_VALUE, Integer.MAX_VALUE, -7, (1 << 24) + 1 },
+            m.toIntMatrix().getData());
+        assertArrayEquals(new float[] { Long.MIN_VALUE, 1L << 40, -7, 1 << 24 }, m.toFloatMatrix().getData(), 0);
+    }
+}
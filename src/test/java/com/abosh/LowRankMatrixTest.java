@@ -0,0 +1,190 @@
+package com.abosh;
+
+import static com.abosh.MatrixTest.assertMatrixEquals;
+import static com.abosh.MatrixTest.randomMatrix;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class LowRankMatrixTest {
+
+    /**
+     * returns the first k columns of the Householder reflection I - 2 w w^T / w^T w, which are orthonormal.
+     */
+    private static Matrix orthonormalColumns(final int n, final int k, final long seed) {
+        final Random random = new Random(seed);
+        final double[] w = new double[n];
+        double norm = 0;
+        for (int i = 0; i < n; i++) {
+            w[i] = random.nextGaussian();
+            norm += w[i] * w[i];
+        }
+        final Matrix q = new Matrix(n, k);
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < k; j++)
+                q.setValue(i, j, (i == j ? 1 : 0) - 2 * w[i] * w[j] / norm);
+        }
+        return q;
+    }
+
+    /**
+     * builds U diag(sigma) V^T with random orthonormal U and V.
+     */
+    private static Matrix withSingularValues(final int m, final int n, final double[] sigma, final long seed) {
+        final Matrix u = orthonormalColumns(m, sigma.length, seed);
+        final Matrix v = orthonormalColumns(n, sigma.length, seed + 1);
+        for (int i = 0; i < m; i++) {
+            for (int j = 0; j < sigma.length; j++)
+                u.setValue(i, j, u.getValue(i, j) * sigma[j]);
+        }
+        return u.multiply(v.transposedView());
+    }
+
+    private static double frobenius(final Matrix m) {
+        double sum = 0;
+        for (int r = 0; r < m.getRows(); r++) {
+            for (int c = 0; c < m.getCols(); c++)
+                sum += m.getValue(r, c) * m.getValue(r, c);
+        }
+        return Math.sqrt(sum);
+    }
+
+    private static void assertOrthonormalColumns(final Matrix q) {
+        final Matrix gram = q.transposedView().multiply(q);
+        final Matrix identity = new Matrix(q.getCols(), q.getCols());
+        identity.gLoadIdentity();
+        assertMatrixEquals(identity, gram, 1e-12);
+    }
+
+    @Test
+    public void testRecoversExactLowRankMatrix() {
+        final double[] sigma = { 50, 20, 7, 3, 0.5 };
+        final Matrix a = withSingularValues(200, 150, sigma, 1);
+        final LowRankMatrix approximation = LowRankMatrix.randomizedSvd(a, 5);
+        assertEquals(5, approximation.getRank());
+        assertEquals(200, approximation.getRows());
+        assertEquals(150, approximation.getCols());
+        assertArrayEquals(sigma, approximation.getSingularValues(), 1e-12);
+        assertMatrixEquals(a, approximation.toMatrix(), 1e-12);
+        assertOrthonormalColumns(approximation.getU());
+        assertOrthonormalColumns(approximation.getV());
+
+        // asking for more than the true rank drops the zero components
+        assertEquals(5, LowRankMatrix.randomizedSvd(a, 12).getRank());
+        assertEquals(3, LowRankMatrix.randomizedSvd(a, 3).getRank());
+    }
+
+    @Test
+    public void testNearOptimalOnDecayingSpectrum() {
+        final double[] sigma = new double[60];
+        for (int i = 0; i < sigma.length; i++)
+            sigma[i] = Math.pow(0.7, i);
+        final Matrix a = withSingularValues(120, 90, sigma, 2);
+        final int rank = 10;
+        double optimal = 0;
+        for (int i = rank; i < sigma.length; i++)
+            optimal += sigma[i] * sigma[i];
+        optimal = Math.sqrt(optimal);
+
+        final LowRankMatrix approximation = LowRankMatrix.randomizedSvd(a, rank);
+        assertEquals(rank, approximation.getRank());
+        final double error = frobenius(a.subtract(approximation.toMatrix()));
+        assertTrue(error >= optimal * (1 - 1e-9));
+        assertTrue(error < optimal * 1.01);
+        final double[] found = approximation.getSingularValues();
+        for (int i = 0; i < rank; i++)
+            assertEquals(sigma[i], found[i], sigma[i] * 1e-3);
+
+        // without oversampling or power iterations the range finder is cruder but still bounded
+        final LowRankMatrix crude = LowRankMatrix.randomizedSvd(a, rank, 0, 0, new Random(3));
+        assertTrue(frobenius(a.subtract(crude.toMatrix())) < optimal * 10);
+    }
+
+    @Test
+    public void testFactoredOperations() {
+        final LowRankMatrix a = LowRankMatrix.fromFactors(randomMatrix(40, 4, 4), randomMatrix(30, 4, 5));
+        final LowRankMatrix b = LowRankMatrix.fromFactors(randomMatrix(40, 3, 6), randomMatrix(30, 3, 7));
+        final LowRankMatrix c = LowRankMatrix.fromFactors(randomMatrix(30, 2, 8), randomMatrix(25, 2, 9));
+        final Matrix denseA = a.toMatrix();
+        final Matrix denseB = b.toMatrix();
+        final Matrix denseC = c.toMatrix();
+        assertMatrixEquals(randomMatrix(40, 4, 4).multiply(randomMatrix(30, 4, 5).transposedView()), denseA, 1e-12);
+        assertEquals(4, a.getRank());
+
+        final LowRankMatrix sum = a.add(b);
+        assertEquals(7, sum.getRank());
+        assertMatrixEquals(denseA.add(denseB), sum.toMatrix(), 1e-12);
+        assertMatrixEquals(denseA.subtract(denseB), a.subtract(b).toMatrix(), 1e-12);
+        assertEquals(0, a.subtract(a).getRank());
+
+        final LowRankMatrix product = a.multiply(c);
+        assertEquals(2, product.getRank());
+        assertMatrixEquals(denseA.multiply(denseC), product.toMatrix(), 1e-11);
+        assertOrthonormalColumns(product.getU());
+        assertOrthonormalColumns(product.getV());
+
+        final Matrix dense = randomMatrix(30, 6, 10);
+        assertMatrixEquals(denseA.multiply(dense), a.multiply(dense), 1e-12);
+        final Matrix addend = randomMatrix(40, 30, 11);
+        assertMatrixEquals(denseA.add(addend), a.add(addend), 1e-12);
+
+        final double[] x = randomMatrix(1, 30, 12).getRow(0);
+        final double[] expected = new double[40];
+        final double[] actual = new double[40];
+        denseA.apply(x, expected);
+        a.apply(x, actual);
+        assertArrayEquals(expected, actual, 1e-12);
+
+        assertMatrixEquals(denseA.transpose(), a.transpose().toMatrix(), 1e-12);
+        assertSame(a, a.truncate(4));
+        final LowRankMatrix truncated = a.truncate(2);
+        assertEquals(2, truncated.getRank());
+        assertArrayEquals(Arrays.copyOf(a.getSingularValues(), 2), truncated.getSingularValues(), 0);
+    }
+
+    @Test
+    public void testDependentFactorsAndRankZero() {
+        // the third column of each factor repeats the first, so the product has rank 2
+        final Matrix left = randomMatrix(20, 3, 13);
+        final Matrix right = randomMatrix(15, 3, 14);
+        for (int r = 0; r < 20; r++)
+            left.setValue(r, 2, left.getValue(r, 0));
+        for (int r = 0; r < 15; r++)
+            right.setValue(r, 2, right.getValue(r, 0));
+        final LowRankMatrix dependent = LowRankMatrix.fromFactors(left, right);
+        assertEquals(2, dependent.getRank());
+        assertMatrixEquals(left.multiply(right.transposedView()), dependent.toMatrix(), 1e-12);
+
+        final LowRankMatrix zero = LowRankMatrix.randomizedSvd(randomMatrix(10, 8, 15), 0);
+        assertEquals(0, zero.getRank());
+        assertMatrixEquals(new Matrix(10, 8), zero.toMatrix(), 0);
+        final double[] y = new double[10];
+        Arrays.fill(y, 1);
+        zero.apply(new double[8], y);
+        assertArrayEquals(new double[10], y, 0);
+        assertEquals(0, LowRankMatrix.randomizedSvd(new Matrix(6, 6), 3).getRank());
+    }
+
+    @Test
+    public void testInvalidArguments() {
+        final Matrix a = randomMatrix(6, 5, 16);
+        final LowRankMatrix low = LowRankMatrix.randomizedSvd(a, 2);
+        assertThrows(IllegalArgumentException.class, () -> LowRankMatrix.randomizedSvd(a, -1));
+        assertThrows(IllegalArgumentException.class, () -> LowRankMatrix.randomizedSvd(a, 2, -1, 0, new Random()));
+        assertThrows(IllegalArgumentException.class,
+            () -> LowRankMatrix.fromFactors(randomMatrix(6, 2, 1), randomMatrix(5, 3, 2)));
+        assertThrows(IllegalArgumentException.class, () -> low.add(low.transpose()));
+        assertThrows(IllegalArgumentException.class, () -> low.add(new Matrix(5, 6)));
+        assertThrows(IllegalArgumentException.class, () -> low.multiply(low));
+        assertThrows(IllegalArgumentException.class, () -> low.multiply(new Matrix(6, 2)));
+        assertThrows(IllegalArgumentException.class, () -> low.apply(new double[6], new double[6]));
+        assertThrows(IllegalArgumentException.class, () -> low.truncate(-1));
+    }
+}
@@ -0,0 +1,131 @@
+package com.abosh;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class MappedMatrixTest {
+    // 2^5 doubles per chunk, so even small test matrices span several mappings
+    private static final int SMALL_CHUNK_SHIFT = 5;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testCreateAndReopen() throws IOException {
+        final Path file = folder.getRoot().toPath().resolve("m.bin");
+        try (MappedMatrix m = MappedMatrix.create(file, 3, 4)) {
+            m.setValue(2, 3, 7.5);
+            m.setRow(1, new double[] { 1, 2, 3, 4 });
+            m.force();
+        }
+        assertEquals(32 + 3 * 4 * 8, Files.size(file));
+        try (MappedMatrix m = MappedMatrix.open(file, false)) {
+            assertEquals(3, m.getRows());
+            assertEquals(4, m.getCols());
+            assertEquals(7.5, m.getValue(2, 3), 0);
+            assertArrayEquals(new double[] { 1, 2, 3, 4 }, m.getRow(1), 0);
+            assertEquals(0, m.getValue(0, 0), 0);
+        }
+    }
+
+    @Test
+    public void testOpenThrowsIOExceptionForForeignFile() throws IOException {
+        final Path file = folder.newFile("foreign.bin").toPath();
+        Files.write(file, new byte[64]);
+        final IOException thrown = assertThrows(IOException.class, () -> MappedMatrix.open(file, false));
+        assertEquals("The input does not start with a matrix header.", thrown.getMessage());
+    }
+
+    @Test
+    public void testOpenThrowsIOExceptionForHugeHeader() throws IOException {
+        // the byte size of this matrix overflows a long and wraps around to a negative number
+        final Path file = folder.newFile("huge.bin").toPath();
+        Files.write(file, MatrixFileHeader.encode(Integer.MAX_VALUE, Integer.MAX_VALUE).array());
+        final IOException thrown = assertThrows(IOException.class, () -> MappedMatrix.open(file, false));
+        assertEquals("The file is shorter than the matrix its header describes.", thrown.getMessage());
+    }
+
+    @Test
+    public void testRowsAcrossChunks() throws IOException {
+        final Matrix expected = randomMatrix(9, 7, 1);
+        try (MappedMatrix m = MappedMatrix.create(folder.getRoot().toPath().resolve("m.bin"), 9, 7,
+                SMALL_CHUNK_SHIFT)) {
+            m.writeRows(0, 9, expected.getData(), 0);
+            assertEquals(expected, m.toMatrix());
+            for (int r = 0; r < 9; r++)
+                assertArrayEquals(expected.getRow(r), m.getRow(r), 0);
+            assertEquals(expected.getValue(4, 5), m.getValue(4, 5), 0);
+        }
+    }
+
+    @Test
+    public void testMultiply() throws IOException {
+        final Matrix a = randomMatrix(40, 6, 2);
+        final Matrix b = randomMatrix(6, 5, 3);
+        final Path root = folder.getRoot().toPath();
+        try (MappedMatrix m = MappedMatrix.create(root.resolve("a.bin"), 40, 6, SMALL_CHUNK_SHIFT)) {
+            m.writeRows(0, 40, a.getData(), 0);
+            assertEquals(a.multiply(b), m.multiply(b));
+            try (MappedMatrix product = m.multiply(b, root.resolve("ab.bin"))) {
+                assertEquals(a.multiply(b), product.toMatrix());
+            }
+        }
+    }
+
+    @Test
+    public void testAdd() throws IOException {
+        final Matrix a = randomMatrix(10, 8, 4);
+        final Matrix b = randomMatrix(10, 8, 5);
+        final Path root = folder.getRoot().toPath();
+        try (MappedMatrix ma = MappedMatrix.create(root.resolve("a.bin"), 10, 8, SMALL_CHUNK_SHIFT);
+                MappedMatrix mb = MappedMatrix.create(root.resolve("b.bin"), 10, 8, SMALL_CHUNK_SHIFT)) {
+            ma.writeRows(0, 10, a.getData(), 0);
+            mb.writeRows(0, 10, b.getData(), 0);
+            try (MappedMatrix sum = ma.add(mb, root.resolve("sum.bin"))) {
+                assertEquals(a.add(b), sum.toMatrix());
+            }
+            ma.addInPlace(mb);
+            assertEquals(a.add(b), ma.toMatrix());
+        }
+    }
+
+    @Test
+    public void testAddThrowsIllegalArgumentException() throws IOException {
+        final Path root = folder.getRoot().toPath();
+        try (MappedMatrix ma = MappedMatrix.create(root.resolve("a.bin"), 3, 3);
+                MappedMatrix mb = MappedMatrix.create(root.resolve("b.bin"), 2, 3)) {
+            final IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class,
+                () -> ma.addInPlace(mb));
+            assertEquals("Expected 3 rows and 3 columns. Received 2 rows and 3 columns.", thrown.getMessage());
+        }
+    }
+
+    @Test
+    public void testReadRowsRejectsMoreElementsThanAnArrayHolds() throws IOException {
+        // 65536 * 32769 elements wrap around in int arithmetic; the file is sparse, so it takes no real space
+        try (MappedMatrix m = MappedMatrix.create(folder.getRoot().toPath().resolve("m.bin"), 65536, 32769)) {
+            final IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class,
+                () -> m.readRows(0, 65536, new double[0], 0));
+            assertEquals("The rows have too many elements to be stored in a single array.", thrown.getMessage());
+            assertThrows(IllegalArgumentException.class, () -> m.writeRows(0, 65536, new double[0], 0));
+        }
+    }
+
+    private static Matrix randomMatrix(final int rows, final int cols, final long seed) {
+        final Random random = new Random(seed);
+        final Matrix m = new Matrix(rows, cols);
+        for (int i = 0; i < m.getData().length; i++)
+            m.getData()[i] = random.nextDouble() - 0.5;
+        return m;
+    }
+}
@@ -0,0 +1,95 @@
+package com.abosh;
+
+import static com.abosh.MatrixTest.assertMatrixEquals;
+import static com.abosh.MatrixTest.randomMatrix;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class Matrix3Test {
+
+    @Test
+    public void testMultiplyMatchesMatrix() {
+        final Matrix a = randomMatrix(3, 3, 1);
+        final Matrix b = randomMatrix(3, 3, 2);
+        assertEquals(a.multiply(b), new Matrix3(a).multiply(new Matrix3(b)).toMatrix());
+    }
+
+    @Test
+    public void testComposeInPlace() {
+        final Matrix a = randomMatrix(3, 3, 3);
+        final Matrix3 m = new Matrix3(a);
+        assertEquals(a.multiply(a), m.compose(m).toMatrix());
+        final Matrix3 identity = new Matrix3();
+        identity.gLoadIdentity();
+        assertEquals(new Matrix3(a.multiply(a)), identity.compose(m));
+    }
+
+    @Test
+    public void testTranspose() {
+        final Matrix3 m = new Matrix3(randomMatrix(3, 3, 4));
+        final Matrix3 transpose = m.transpose();
+        for (int r = 0; r < 3; r++) {
+            for (int c = 0; c < 3; c++)
+                assertEquals(m.getValue(r, c), transpose.getValue(c, r), 0);
+        }
+        assertEquals(m, transpose.transposeInPlace());
+    }
+
+    @Test
+    public void testInverse() {
+        final Matrix a = randomMatrix(3, 3, 5);
+        // keep the matrix well conditioned so both inverses agree closely
+        for (int i = 0; i < 3; i++)
+            a.setValue(i, i, a.getValue(i, i) + 2);
+        final Matrix3 m = new Matrix3(a);
+        assertMatrixEquals(new LUDecomposition(a).inverse(), m.inverse().toMatrix(), 1e-12);
+        assertEquals(new LUDecomposition(a).determinant(), m.determinant(), 1e-12);
+        final Matrix identity = new Matrix(3, 3);
+        identity.gLoadIdentity();
+        assertMatrixEquals(identity, m.multiply(m.inverse()).toMatrix(), 1e-12);
+    }
+
+    @Test
+    public void testSingularMatrixThrowsIllegalArgumentException() {
+        final Matrix3 m = new Matrix3();
+        m.setValue(0, 0, 1);
+        final IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class, m::invert);
+        assertEquals("The matrix is singular.", thrown.getMessage());
+        assertEquals(1, m.getValue(0, 0), 0);
+    }
+
+    @Test
+    public void testTransform() {
+        final Matrix a = randomMatrix(3, 3, 6);
+        final Matrix vectors = randomMatrix(3, 5, 7);
+        final Matrix expected = a.multiply(vectors);
+        // pack the columns of vectors behind one unused leading element
+        final double[] xyz = new double[1 + 3 * 5];
+        for (int v = 0; v < 5; v++) {
+            for (int i = 0; i < 3; i++)
+                xyz[1 + 3 * v + i] = vectors.getValue(i, v);
+        }
+        new Matrix3(a).transform(xyz, 1, 5);
+        for (int v = 0; v < 5; v++)
+            assertArrayEquals(expected.getCol(v), Arrays.copyOfRange(xyz, 1 + 3 * v, 1 + 3 * v + 3), 1e-15);
+        assertThrows(IndexOutOfBoundsException.class, () -> new Matrix3().transform(xyz, 2, 5));
+    }
+
+    @Test
+    public void testValueAccess() {
+        final Matrix3 m = new Matrix3();
+        m.setValue(3 - 1, 1, 2.5);
+        assertEquals(2.5, m.getValue(3 - 1, 1), 0);
+        assertThrows(IndexOutOfBoundsException.class, () -> m.getValue(3, 0));
+        assertEquals(new Matrix3(m), m);
+        assertEquals(new Matrix3(m).hashCode(), m.hashCode());
+        final IllegalArgumentException thrown = assertThrows(
+            IllegalArgumentException.class, () -> new Matrix3(new Matrix(2, 3)));
+        assertEquals("Expected 3 rows and 3 columns. Received 2 rows and 3 columns.", thrown.getMessage());
+    }
+}
@@ -0,0 +1,95 @@
+package com.abosh;
+
+import static com.abosh.MatrixTest.assertMatrixEquals;
+import static com.abosh.MatrixTest.randomMatrix;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class Matrix4Test {
+
+    @Test
+    public void testMultiplyMatchesMatrix() {
+        final Matrix a = randomMatrix(4, 4, 1);
+        final Matrix b = randomMatrix(4, 4, 2);
+        assertEquals(a.multiply(b), new Matrix4(a).multiply(new Matrix4(b)).toMatrix());
+    }
+
+    @Test
+    public void testComposeInPlace() {
+        final Matrix a = randomMatrix(4, 4, 3);
+        final Matrix4 m = new Matrix4(a);
+        assertEquals(a.multiply(a), m.compose(m).toMatrix());
+        final Matrix4 identity = new Matrix4();
+        identity.gLoadIdentity();
+        assertEquals(new Matrix4(a.multiply(a)), identity.compose(m));
+    }
+
+    @Test
+    public void testTranspose() {
+        final Matrix4 m = new Matrix4(randomMatrix(4, 4, 4));
+        final Matrix4 transpose = m.transpose();
+        for (int r = 0; r < 4; r++) {
+            for (int c = 0; c < 4; c++)
+                assertEquals(m.getValue(r, c), transpose.getValue(c, r), 0);
+        }
+        assertEquals(m, transpose.transposeInPlace());
+    }
+
+    @Test
+    public void testInverse() {
+        final Matrix a = randomMatrix(4, 4, 5);
+        // keep the matrix well conditioned so both inverses agree closely
+        for (int i = 0; i < 4; i++)
+            a.setValue(i, i, a.getValue(i, i) + 2);
+        final Matrix4 m = new Matrix4(a);
+        assertMatrixEquals(new LUDecomposition(a).inverse(), m.inverse().toMatrix(), 1e-12);
+        assertEquals(new LUDecomposition(a).determinant(), m.determinant(), 1e-12);
+        final Matrix identity = new Matrix(4, 4);
+        identity.gLoadIdentity();
+        assertMatrixEquals(identity, m.multiply(m.inverse()).toMatrix(), 1e-12);
+    }
+
+    @Test
+    public void testSingularMatrixThrowsIllegalArgumentException() {
+        final Matrix4 m = new Matrix4();
+        m.setValue(0, 0, 1);
+        final IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class, m::invert);
+        assertEquals("The matrix is singular.", thrown.getMessage());
+        assertEquals(1, m.getValue(0, 0), 0);
+    }
+
+    @Test
+    public void testTransform() {
+        final Matrix a = randomMatrix(4, 4, 6);
+        final Matrix vectors = randomMatrix(4, 5, 7);
+        final Matrix expected = a.multiply(vectors);
+        // pack the columns of vectors behind one unused leading element
+        final double[] xyzw = new double[1 + 4 * 5];
+        for (int v = 0; v < 5; v++) {
+            for (int i = 0; i < 4; i++)
+                xyzw[1 + 4 * v + i] = vectors.getValue(i, v);
+        }
+        new Matrix4(a).transform(xyzw, 1, 5);
+        for (int v = 0; v < 5; v++)
+            assertArrayEquals(expected.getCol(v), Arrays.copyOfRange(xyzw, 1 + 4 * v, 1 + 4 * v + 4), 1e-15);
+        assertThrows(IndexOutOfBoundsException.class, () -> new Matrix4().transform(xyzw, 2, 5));
+    }
+
+    @Test
+    public void testValueAccess() {
+        final Matrix4 m = new Matrix4();
+        m.setValue(4 - 1, 1, 2.5);
+        assertEquals(2.5, m.getValue(4 - 1, 1), 0);
+        assertThrows(IndexOutOfBoundsException.class, () -> m.getValue(4, 0));
+        assertEquals(new Matrix4(m), m);
+        assertEquals(new Matrix4(m).hashCode(), m.hashCode());
+        final IllegalArgumentException thrown = assertThrows(
+            IllegalArgumentException.class, () -> new Matrix4(new Matrix(2, 4)));
+        assertEquals("Expected 4 rows and 4 columns. Received 2 rows and 4 columns.", thrown.getMessage());
+    }
+}
@@ -0,0 +1,181 @@
+package com.abosh;
+
+import static com.abosh.MatrixTest.randomMatrix;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+
+import org.junit.Test;
+
+public class MatrixArenaTest {
+
+    @Test
+    public void testReleasedMatrixIsReusedCleared() {
+        final MatrixArena arena = new MatrixArena();
+        final Matrix m = arena.acquire(3, 4);
+        m.setValue(1, 2, 5);
+        arena.release(m);
+        // the thread's private cache holds it, outside the byte count
+        assertEquals(0, arena.getRetainedBytes());
+        final Matrix again = arena.acquire(3, 4);
+        assertSame(m, again);
+        assertEquals(new Matrix(3, 4), again);
+        assertEquals(0, arena.getRetainedBytes());
+        assertNotSame(again, arena.acquire(4, 3));
+        assertEquals(1, arena.getHits());
+        assertEquals(2, arena.getMisses());
+        assertEquals(1.0 / 3, arena.getHitRate(), 1e-15);
+    }
+
+    @Test
+    public void testSharedFreeListIsBounded() {
+        final MatrixArena arena = new MatrixArena(2, Long.MAX_VALUE);
+        final Matrix[] matrices = new Matrix[MatrixArena.LOCAL_SLOTS + 3];
+        for (int i = 0; i < matrices.length; i++)
+            matrices[i] = new Matrix(2, 2);
+        for (final Matrix m : matrices)
+            arena.release(m);
+        assertEquals(1, arena.getEvictions());
+        assertEquals(2 * 4 * Double.BYTES, arena.getRetainedBytes());
+    }
+
+    @Test
+    public void testRetainedBytesAreBounded() {
+        final MatrixArena arena = new MatrixArena(16, 10 * Double.BYTES);
+        final Matrix[] matrices = new Matrix[MatrixArena.LOCAL_SLOTS + 2];
+        for (int i = 0; i < matrices.length; i++)
+            matrices[i] = new Matrix(2, 4);
+        for (final Matrix m : matrices)
+            arena.release(m);
+        assertEquals(1, arena.getEvictions());
+        assertEquals(8 * Double.BYTES, arena.getRetainedBytes());
+        // a matrix larger than the whole limit is not even cached privately
+        arena.release(new Matrix(3, 4));
+        assertEquals(2, arena.getEvictions());
+    }
+
+    @Test
+    public void testZeroLimitsPoolNothing() {
+        final MatrixArena noShelves = new MatrixArena(0, Long.MAX_VALUE);
+        final Matrix m = new Matrix(2, 2);
+        noShelves.release(m);
+        assertNotSame(m, noShelves.acquire(2, 2));
+        assertEquals(1, noShelves.getEvictions());
+        final MatrixArena noBytes = new MatrixArena(16, 0);
+        noBytes.release(m);
+        assertNotSame(m, noBytes.acquire(2, 2));
+        assertEquals(0, noBytes.getRetainedBytes());
+    }
+
+    @Test
+    public void testExitedThreadLeavesNothingCounted() throws InterruptedException {
+        final MatrixArena arena = new MatrixArena();
+        final Matrix[] matrices = new Matrix[MatrixArena.LOCAL_SLOTS + 2];
+        final Thread thread = new Thread(() -> {
+            for (int i = 0; i < matrices.length; i++) {
+                matrices[i] = new Matrix(3, 3);
+                arena.release(matrices[i]);
+            }
+        });
+        thread.start();
+        thread.join();
+        // the thread's private cache died with it; only the shared free list is counted
+        assertEquals(2 * 9 * Double.BYTES, arena.getRetainedBytes());
+        arena.acquire(3, 3);
+        arena.acquire(3, 3);
+        assertEquals(0, arena.getRetainedBytes());
+        // pooling keeps working afterwards
+        final Matrix m = new Matrix(3, 3);
+        arena.release(m);
+        assertSame(m, arena.acquire(3, 3));
+    }
+
+    @Test
+    public void testDoubleReleaseThrowsIllegalStateException() {
+        final MatrixArena arena = new MatrixArena();
+        final Matrix cached = new Matrix(2, 3);
+        arena.release(cached);
+        assertThrows(IllegalStateException.class, () -> arena.release(cached));
+        // once acquired back it may be released again
+        assertSame(cached, arena.acquire(2, 3));
+        arena.release(cached);
+
+        final Matrix[] matrices = new Matrix[MatrixArena.LOCAL_SLOTS];
+        for (int i = 0; i < matrices.length; i++) {
+            matrices[i] = new Matrix(2, 3);
+            arena.release(matrices[i]);
+        }
+        // the private cache is full, so this one is on the shared free list
+        final Matrix shelved = matrices[matrices.length - 1];
+        assertThrows(IllegalStateException.class, () -> arena.release(shelved));
+        assertThrows(IllegalStateException.class, () -> arena.release(cached));
+        final Matrix a = arena.acquire(2, 3);
+        final Matrix b = arena.acquire(2, 3);
+        assertNotSame(a, b);
+        // a slot is free again, but the shelved matrix must still not be cached a second time
+        arena.release(a);
+        assertThrows(IllegalStateException.class, () -> arena.release(shelved));
+        arena.release(b);
+    }
+
+    @Test
+    public void testPrivateCacheSurvivesGarbageCollection() {
+        final MatrixArena arena = new MatrixArena();
+        final Matrix m = arena.acquire(6, 7);
+        arena.release(m);
+        System.gc();
+        assertSame(m, arena.acquire(6, 7));
+    }
+
+    @Test
+    public void testOtherThreadsUseSharedFreeLists() throws InterruptedException {
+        final MatrixArena arena = new MatrixArena();
+        final Matrix[] matrices = new Matrix[MatrixArena.LOCAL_SLOTS + 1];
+        for (int i = 0; i < matrices.length; i++) {
+            matrices[i] = new Matrix(5, 5);
+            arena.release(matrices[i]);
+        }
+        final Matrix[] acquired = new Matrix[1];
+        final Thread thread = new Thread(() -> acquired[0] = arena.acquire(5, 5));
+        thread.start();
+        thread.join();
+        assertSame(matrices[MatrixArena.LOCAL_SLOTS], acquired[0]);
+    }
+
+    @Test
+    public void testScopeReleasesOnClose() {
+        final MatrixArena arena = new MatrixArena();
+        final Matrix a = randomMatrix(4, 4, 1);
+        final Matrix b = randomMatrix(4, 4, 2);
+        final Matrix kept;
+        try (MatrixArena.Scope scope = arena.scope()) {
+            assertEquals(a.multiply(b), scope.multiply(a, b));
+            assertEquals(a.add(b), scope.add(a, b));
+            assertEquals(a.subtract(b), scope.subtract(a, b));
+            kept = scope.detach(scope.copy(a));
+        }
+        assertEquals(a, kept);
+        // all three fit in the private cache, which is not counted
+        assertEquals(0, arena.getRetainedBytes());
+        try (MatrixArena.Scope scope = arena.scope()) {
+            // pooled results are overwritten, not accumulated into
+            assertEquals(a.multiply(b), scope.multiply(a, b));
+            assertEquals(b.subtract(a), scope.subtract(b, a));
+        }
+        assertEquals(2, arena.getHits());
+    }
+
+    @Test
+    public void testInvalidUseThrowsIllegalArgumentException() {
+        final MatrixArena arena = new MatrixArena();
+        final Matrix view = new Matrix(new double[8], 1, 2, 3, 2);
+        final IllegalArgumentException thrown = assertThrows(
+            IllegalArgumentException.class, () -> arena.release(view));
+        assertEquals("Only a matrix that owns its whole backing array can be pooled.", thrown.getMessage());
+        try (MatrixArena.Scope scope = arena.scope()) {
+            assertThrows(IllegalArgumentException.class, () -> scope.detach(new Matrix(1, 1)));
+            assertThrows(IllegalArgumentException.class, () -> scope.add(new Matrix(1, 2), new Matrix(2, 1)));
+        }
+    }
+}
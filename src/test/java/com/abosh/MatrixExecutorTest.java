@@ -0,0 +1,170 @@
+package com.abosh;
+
+import static com.abosh.MatrixTest.assertMatrixEquals;
+import static com.abosh.MatrixTest.randomMatrix;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.Test;
+
+public class MatrixExecutorTest {
+
+    @Test
+    public void testResultsMatchDirectCalls() throws Exception {
+        final Matrix[] lefts = { randomMatrix(8, 8, 1), randomMatrix(20, 5, 2), randomMatrix(3, 40, 3) };
+        final Matrix[] rights = { randomMatrix(8, 8, 4), randomMatrix(5, 9, 5), randomMatrix(40, 1, 6) };
+        final Matrix[] addends = { randomMatrix(8, 8, 7), randomMatrix(20, 5, 8), randomMatrix(3, 40, 9) };
+        final int jobs = 3000;
+        try (MatrixExecutor executor = new MatrixExecutor(3, 64, 16, 0, TimeUnit.NANOSECONDS)) {
+            final ExecutorService submitters = MatrixExecutor.newVirtualThreadExecutor();
+            try {
+                final List<Future<Matrix>> results = new ArrayList<>();
+                for (int i = 0; i < jobs; i++) {
+                    final int shape = i % 3;
+                    final int operation = i / 3 % 3;
+                    // each submitter blocks on its own result, as a request handler would
+                    results.add(submitters.submit(() -> {
+                        final Matrix a = lefts[shape];
+                        if (operation == 0)
+                            return executor.multiply(a, rights[shape]).join();
+                        if (operation == 1)
+                            return executor.add(a, addends[shape]).join();
+                        return executor.subtract(a, addends[shape]).join();
+                    }));
+                }
+                for (int i = 0; i < jobs; i++) {
+                    final int shape = i % 3;
+                    final int operation = i / 3 % 3;
+                    final Matrix a = lefts[shape];
+                    final Matrix expected = operation == 0 ? a.multiply(rights[shape])
+                        : operation == 1 ? a.add(addends[shape]) : a.subtract(addends[shape]);
+                    assertMatrixEquals(expected, results.get(i).get(), 0);
+                }
+            } finally {
+                submitters.shutdown();
+            }
+            assertEquals(jobs, executor.getCompletedJobs());
+            assertTrue(executor.getBatches() <= jobs);
+        }
+    }
+
+    @Test
+    public void testGroupsJobsByShape() {
+        final Matrix square = randomMatrix(6, 6, 10);
+        final Matrix wide = randomMatrix(6, 12, 11);
+        // one worker and a delay far longer than the test, so groups only run once they are full
+        try (MatrixExecutor executor = new MatrixExecutor(1, 100, 4, 1, TimeUnit.HOURS)) {
+            final List<CompletableFuture<Matrix>> futures = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                futures.add(executor.multiply(square, square));
+                futures.add(executor.multiply(square, wide));
+            }
+            for (int i = 0; i < 8; i++)
+                assertMatrixEquals(square.multiply(i % 2 == 0 ? square : wide), futures.get(i).join(), 0);
+            assertEquals(2, executor.getBatches());
+            assertEquals(8, executor.getCompletedJobs());
+
+            // a lone job waits for its batch until the executor closes
+            final CompletableFuture<Matrix> lone = executor.add(square, square);
+            assertThrows(TimeoutException.class, () -> lone.get(50, TimeUnit.MILLISECONDS));
+            executor.close();
+            assertMatrixEquals(square.add(square), lone.join(), 0);
+            assertEquals(3, executor.getBatches());
+        }
+    }
+
+    @Test
+    public void testDelayBoundsWaiting() {
+        final Matrix a = randomMatrix(4, 4, 12);
+        try (MatrixExecutor executor = new MatrixExecutor(1, 100, 1000, 20, TimeUnit.MILLISECONDS)) {
+            final long start = System.nanoTime();
+            final Matrix sum = executor.add(a, a).join();
+            final long waited = System.nanoTime() - start;
+            assertMatrixEquals(a.add(a), sum, 0);
+            assertTrue(waited >= TimeUnit.MILLISECONDS.toNanos(20));
+            assertTrue(waited < TimeUnit.SECONDS.toNanos(10));
+        }
+    }
+
+    @Test
+    public void testBackpressureAndClose() throws Exception {
+        final Matrix a = randomMatrix(5, 5, 13);
+        final MatrixExecutor executor = new MatrixExecutor(1, 2, 8, 1, TimeUnit.HOURS);
+        // two threads, since the common pool may have only one on a single core
+        final ExecutorService pool = Executors.newFixedThreadPool(2);
+        final CompletableFuture<Matrix> first = executor.add(a, a);
+        final CompletableFuture<Matrix> second = executor.subtract(a, a);
+        // the queue is full and neither job can run yet, so the third submission blocks
+        final CompletableFuture<CompletableFuture<Matrix>> third =
+            CompletableFuture.supplyAsync(() -> executor.multiply(a, a), pool);
+        final CompletableFuture<CompletableFuture<Matrix>> fourth =
+            CompletableFuture.supplyAsync(() -> executor.add(a, a), pool);
+        assertThrows(TimeoutException.class, () -> third.get(100, TimeUnit.MILLISECONDS));
+        assertThrows(TimeoutException.class, () -> fourth.get(100, TimeUnit.MILLISECONDS));
+        executor.close();
+        assertMatrixEquals(a.add(a), first.join(), 0);
+        assertMatrixEquals(a.subtract(a), second.join(), 0);
+        final ExecutionException rejected = assertThrows(ExecutionException.class, third::get);
+        assertTrue(rejected.getCause() instanceof RejectedExecutionException);
+        final ExecutionException alsoRejected = assertThrows(ExecutionException.class, fourth::get);
+        assertTrue(alsoRejected.getCause() instanceof RejectedExecutionException);
+        assertThrows(RejectedExecutionException.class, () -> executor.add(a, a));
+        executor.close();
+        pool.shutdown();
+    }
+
+    @Test
+    public void testDependentStagesOnFullQueueDoNotDeadlock() throws Exception {
+        final Matrix a = randomMatrix(4, 4, 15);
+        final MatrixExecutor executor = new MatrixExecutor(1, 1, 8, 0, TimeUnit.NANOSECONDS);
+        // the stage runs on the only worker; its first job takes the only permit, so the second finds the queue full
+        final CompletableFuture<Matrix> chained = executor.multiply(a, a).thenCompose(p -> {
+            executor.add(p, a);
+            return executor.multiply(p, a);
+        });
+        assertMatrixEquals(a.multiply(a).multiply(a), chained.get(10, TimeUnit.SECONDS), 1e-12);
+        // closing from a dependent stage does not wait for the worker running it
+        executor.add(a, a).thenRun(executor::close).get(10, TimeUnit.SECONDS);
+        assertThrows(RejectedExecutionException.class, () -> executor.add(a, a));
+    }
+
+    @Test
+    public void testCloseWithLargestQueueLimit() {
+        final Matrix a = randomMatrix(3, 3, 14);
+        final MatrixExecutor executor = new MatrixExecutor(1, Integer.MAX_VALUE, 4, 0, TimeUnit.NANOSECONDS);
+        final CompletableFuture<Matrix> sum = executor.add(a, a);
+        executor.close();
+        assertMatrixEquals(a.add(a), sum.join(), 0);
+        assertThrows(RejectedExecutionException.class, () -> executor.add(a, a));
+        new MatrixExecutor(1, Integer.MAX_VALUE, 4, 0, TimeUnit.NANOSECONDS).close();
+    }
+
+    @Test
+    public void testInvalidArguments() {
+        try (MatrixExecutor executor = new MatrixExecutor()) {
+            assertThrows(IllegalArgumentException.class,
+                () -> executor.multiply(new Matrix(2, 3), new Matrix(2, 3)));
+            assertThrows(IllegalArgumentException.class, () -> executor.add(new Matrix(2, 3), new Matrix(3, 2)));
+            assertThrows(IllegalArgumentException.class,
+                () -> executor.subtract(new Matrix(2, 3), new Matrix(2, 2)));
+            assertFalse(executor.getCompletedJobs() > 0);
+        }
+        assertThrows(IllegalArgumentException.class, () -> new MatrixExecutor(0, 1, 1, 0, TimeUnit.SECONDS));
+        assertThrows(IllegalArgumentException.class, () -> new MatrixExecutor(1, 0, 1, 0, TimeUnit.SECONDS));
+        assertThrows(IllegalArgumentException.class, () -> new MatrixExecutor(1, 1, 0, 0, TimeUnit.SECONDS));
+        assertThrows(IllegalArgumentException.class, () -> new MatrixExecutor(1, 1, 1, -1, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,143 @@
+package com.abosh;
+
+import static com.abosh.MatrixTest.assertMatrixEquals;
+import static com.abosh.MatrixTest.randomMatrix;
+import static com.abosh.MatrixTest.transposeOf;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class MatrixExpressionTest {
+
+    @Test
+    public void testElementwiseChainMatchesEagerEvaluation() {
+        final Matrix a = randomMatrix(7, 5, 1);
+        final Matrix b = randomMatrix(7, 5, 2);
+        final Matrix c = randomMatrix(7, 5, 3);
+        final Matrix actual = a.lazy().add(b).subtract(c).add(a).evaluate();
+        assertEquals(a.add(b).subtract(c).add(a), actual);
+    }
+
+    @Test
+    public void testScale() {
+        final Matrix a = randomMatrix(4, 6, 4);
+        final Matrix b = randomMatrix(4, 6, 5);
+        final Matrix expected = new Matrix(4, 6);
+        for (int r = 0; r < 4; r++) {
+            for (int c = 0; c < 6; c++)
+                expected.setValue(r, c, 3 * (a.getValue(r, c) - 0.5 * b.getValue(r, c)));
+        }
+        assertMatrixEquals(expected, a.lazy().subtract(b.lazy().scale(0.5)).scale(3).evaluate(), 1e-12);
+    }
+
+    @Test
+    public void testMultiplyStreamsElementwiseLeftOperand() {
+        // enough rows that the left operand is streamed in several blocks
+        final int rows = MatrixExpression.BLOCK_ELEMENTS / 8 + 3;
+        final Matrix a = randomMatrix(rows, 16, 6);
+        final Matrix b = randomMatrix(rows, 16, 7);
+        final Matrix c = randomMatrix(16, 9, 8);
+        final Matrix d = randomMatrix(16, 9, 9);
+        final Matrix actual = a.lazy().add(b).multiply(c.lazy().subtract(d)).evaluate();
+        assertEquals(a.add(b).multiply(c.subtract(d)), actual);
+    }
+
+    @Test
+    public void testTransposePushedToInputs() {
+        final Matrix a = randomMatrix(6, 4, 10);
+        final Matrix b = randomMatrix(6, 4, 11);
+        final Matrix c = randomMatrix(6, 3, 12);
+        final MatrixExpression sum = a.lazy().add(b).transpose();
+        assertEquals(4, sum.getRows());
+        assertEquals(6, sum.getCols());
+        assertEquals(transposeOf(a.add(b)), sum.evaluate());
+        // (c^T (a + b))^T = (a + b)^T c
+        final Matrix product = c.lazy().transpose().multiply(a.lazy().add(b)).transpose().evaluate();
+        assertMatrixEquals(transposeOf(a.add(b)).multiply(c), product, 1e-12);
+    }
+
+    @Test
+    public void testTransposedInputsOfProduct() {
+        final Matrix a = randomMatrix(5, 8, 13);
+        final Matrix b = randomMatrix(7, 5, 14);
+        final Matrix actual = a.lazy().transpose().multiply(b.lazy().transpose()).evaluate();
+        assertMatrixEquals(transposeOf(a).multiply(transposeOf(b)), actual, 1e-12);
+        assertEquals(transposeOf(a), a.lazy().transpose().evaluate());
+    }
+
+    @Test
+    public void testScaledProduct() {
+        final Matrix a = randomMatrix(6, 6, 15);
+        final Matrix b = randomMatrix(6, 6, 16);
+        final Matrix product = a.multiply(b);
+        final Matrix expected = new Matrix(6, 6);
+        for (int r = 0; r < 6; r++) {
+            for (int c = 0; c < 6; c++)
+                expected.setValue(r, c, -2 * product.getValue(r, c));
+        }
+        assertMatrixEquals(expected, a.lazy().multiply(b).scale(-2).evaluate(), 1e-12);
+    }
+
+    @Test
+    public void testSharedSubexpressions() {
+        final Matrix a = randomMatrix(5, 5, 17);
+        final Matrix b = randomMatrix(5, 5, 18);
+        final MatrixExpression x = a.lazy().subtract(b);
+        final MatrixExpression square = x.multiply(x);
+        final Matrix difference = a.subtract(b);
+        assertEquals(difference.multiply(difference), x.multiply(x).evaluate());
+        assertEquals(difference.multiply(difference).add(difference.multiply(difference)),
+            square.add(square).evaluate());
+    }
+
+    @Test
+    public void testSharedElementwiseNodeIsMaterializedOnce() {
+        final Matrix a = randomMatrix(6, 6, 22);
+        final Matrix b = randomMatrix(6, 6, 23);
+        final Matrix c = randomMatrix(6, 6, 24);
+        final MatrixExpression t = a.lazy().add(b);
+        final MatrixExpression root = t.multiply(c).add(c.lazy().multiply(t));
+        final MatrixExpression.Context context = new MatrixExpression.Context(root);
+        assertTrue(context.isShared(t));
+        final Matrix actual = root.materialize(context);
+        assertTrue(context.materialized.containsKey(t));
+        final Matrix sum = a.add(b);
+        assertMatrixEquals(sum.multiply(c).add(c.multiply(sum)), actual, 1e-12);
+        // an unshared chain is still fused into its parent
+        final MatrixExpression single = a.lazy().add(b).scale(2);
+        final MatrixExpression.Context fused = new MatrixExpression.Context(single);
+        single.materialize(fused);
+        assertEquals(1, fused.materialized.size());
+    }
+
+    @Test
+    public void testEvaluateNeverReturnsInput() {
+        final Matrix a = randomMatrix(3, 3, 19);
+        final Matrix result = MatrixExpression.of(a).evaluate();
+        assertEquals(a, result);
+        assertNotSame(a, result);
+    }
+
+    @Test
+    public void testStridedInputs() {
+        final Matrix backing = randomMatrix(6, 6, 20);
+        final Matrix view = new Matrix(backing.getData(), 7, 6, 4, 4);
+        final Matrix other = randomMatrix(4, 4, 21);
+        assertEquals(new Matrix(view).add(other), view.lazy().add(other).evaluate());
+        assertMatrixEquals(transposeOf(new Matrix(view)).multiply(other),
+            view.lazy().transpose().multiply(other).evaluate(), 1e-12);
+    }
+
+    @Test
+    public void testDimensionMismatchThrowsIllegalArgumentException() {
+        final MatrixExpression a = new Matrix(2, 3).lazy();
+        final IllegalArgumentException thrown = assertThrows(
+            IllegalArgumentException.class, () -> a.add(new Matrix(3, 2)));
+        assertEquals("Expected 2 rows and 3 columns. Received 3 rows and 2 columns.", thrown.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> a.multiply(new Matrix(2, 3)));
+        a.transpose().add(new Matrix(3, 2));
+    }
+}
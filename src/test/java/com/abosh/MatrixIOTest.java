@@ -0,0 +1,173 @@
+package com.abosh;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class MatrixIOTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testBinaryRoundTrip() throws IOException {
+        // more elements than fit in one transfer buffer
+        final Matrix m = randomMatrix(301, 77, 1);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        MatrixIO.writeTo(m, Channels.newChannel(out));
+        assertEquals(32 + 301 * 77 * 8, out.size());
+        final Matrix read = MatrixIO.readFrom(Channels.newChannel(new ByteArrayInputStream(out.toByteArray())));
+        assertEquals(m, read);
+    }
+
+    @Test
+    public void testBinaryWriteOfStridedMatrix() throws IOException {
+        final Matrix strided = new Matrix(new double[] { 1, 2, 0, 3, 4 }, 0, 3, 2, 2);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        MatrixIO.writeTo(strided, Channels.newChannel(out));
+        assertEquals(strided, MatrixIO.readFrom(Channels.newChannel(new ByteArrayInputStream(out.toByteArray()))));
+    }
+
+    @Test
+    public void testBinaryFileOpensAsMappedMatrix() throws IOException {
+        final Matrix m = randomMatrix(12, 5, 2);
+        final Path file = folder.getRoot().toPath().resolve("m.bin");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            MatrixIO.writeTo(m, channel);
+        }
+        try (MappedMatrix mapped = MappedMatrix.open(file, false)) {
+            assertEquals(m, mapped.toMatrix());
+        }
+    }
+
+    @Test
+    public void testBinaryReadThrowsEOFException() throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        MatrixIO.writeTo(randomMatrix(4, 4, 3), Channels.newChannel(out));
+        final byte[] truncated = Arrays.copyOf(out.toByteArray(), out.size() - 1);
+        assertThrows(EOFException.class,
+            () -> MatrixIO.readFrom(Channels.newChannel(new ByteArrayInputStream(truncated))));
+    }
+
+    @Test
+    public void testBinaryReadThrowsIOExceptionForOversizedHeader() {
+        // 2^32 x 2^32 and 0 x 2^40 wrap around to zero elements when multiplied unchecked
+        final long[][] shapes = { { 1L << 32, 1L << 32 }, { 0, 1L << 40 }, { 1L << 31, 1 }, { 1 << 16, 1 << 16 } };
+        for (final long[] shape : shapes) {
+            final byte[] header = MatrixFileHeader.encode(shape[0], shape[1]).array();
+            final IOException thrown = assertThrows(IOException.class,
+                () -> MatrixIO.readFrom(Channels.newChannel(new ByteArrayInputStream(header))));
+            assertEquals("The matrix has too many elements to be read into a single array.", thrown.getMessage());
+        }
+    }
+
+    @Test
+    public void testTransferBuffersAreBounded() throws IOException {
+        // however many streams run at once, at most one direct buffer per processor is ever allocated
+        final int processors = Runtime.getRuntime().availableProcessors();
+        final ByteBuffer[] borrowed = new ByteBuffer[processors + 2];
+        int direct = 0;
+        for (int i = 0; i < borrowed.length; i++) {
+            borrowed[i] = MatrixIO.borrowBuffer();
+            if (borrowed[i].isDirect())
+                direct++;
+        }
+        assertTrue(direct <= processors);
+        for (final ByteBuffer buffer : borrowed)
+            MatrixIO.returnBuffer(buffer);
+        final ByteBuffer again = MatrixIO.borrowBuffer();
+        assertTrue(again.isDirect());
+        assertEquals(ByteOrder.LITTLE_ENDIAN, again.order());
+        MatrixIO.returnBuffer(again);
+        // a read that failed halfway leaves the buffer dirty; the next call must not see that
+        final Matrix m = randomMatrix(90, 100, 4);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        MatrixIO.writeTo(m, Channels.newChannel(out));
+        final byte[] truncated = Arrays.copyOf(out.toByteArray(), out.size() / 2);
+        assertThrows(EOFException.class,
+            () -> MatrixIO.readFrom(Channels.newChannel(new ByteArrayInputStream(truncated))));
+        assertEquals(m, MatrixIO.readFrom(Channels.newChannel(new ByteArrayInputStream(out.toByteArray()))));
+    }
+
+    @Test
+    public void testCsvRoundTrip() throws IOException {
+        final Matrix m = randomMatrix(50, 40, 4);
+        m.setValue(0, 0, Double.NaN);
+        m.setValue(0, 1, Double.NEGATIVE_INFINITY);
+        m.setValue(0, 2, -0.0);
+        m.setValue(0, 3, Double.MIN_VALUE);
+        m.setValue(0, 4, 1e300);
+        final StringWriter out = new StringWriter();
+        MatrixIO.writeCsv(m, out);
+        assertEquals(m, MatrixIO.readCsv(new StringReader(out.toString())));
+    }
+
+    @Test
+    public void testCsvFormat() throws IOException {
+        final Matrix m = new Matrix(2, 2);
+        m.setRow(0, new double[] { 1, 2.5 });
+        m.setRow(1, new double[] { -3, 0.1 });
+        final StringWriter out = new StringWriter();
+        MatrixIO.writeCsv(m, out);
+        assertEquals("1.0,2.5\n-3.0,0.1\n", out.toString());
+    }
+
+    @Test
+    public void testReadCsvToleratesWhitespaceAndBlankLines() throws IOException {
+        final Matrix m = MatrixIO.readCsv(new StringReader(" 1, 2e2 \r\n\n-.5,\t7\r\n"));
+        final Matrix expected = new Matrix(2, 2);
+        expected.setRow(0, new double[] { 1, 200 });
+        expected.setRow(1, new double[] { -0.5, 7 });
+        assertEquals(expected, m);
+    }
+
+    @Test
+    public void testReadCsvParsesLikeDoubleParseDouble() throws IOException {
+        final String[] inputs = { "0.1", "123456789012345", "1234567890123456789", "3.14159265358979323846",
+            "1e22", "1e23", "2.2250738585072014E-308", "4.9e-324", "9007199254740993", "0.000001234" };
+        for (final String input : inputs)
+            assertEquals(input, Double.parseDouble(input),
+                MatrixIO.readCsv(new StringReader(input)).getValue(0, 0), 0);
+    }
+
+    @Test
+    public void testReadCsvThrowsIOExceptionRaggedRows() {
+        final IOException thrown = assertThrows(IOException.class,
+            () -> MatrixIO.readCsv(new StringReader("1,2\n3\n")));
+        assertEquals("Expected 2 values on line 2. Received 1.", thrown.getMessage());
+    }
+
+    @Test
+    public void testReadCsvThrowsIOExceptionInvalidNumber() {
+        final IOException thrown = assertThrows(IOException.class,
+            () -> MatrixIO.readCsv(new StringReader("1,abc\n")));
+        assertEquals("Invalid number \"abc\" on line 1.", thrown.getMessage());
+    }
+
+    private static Matrix randomMatrix(final int rows, final int cols, final long seed) {
+        final Random random = new Random(seed);
+        final Matrix m = new Matrix(rows, cols);
+        for (int i = 0; i < m.getData().length; i++)
+            m.getData()[i] = random.nextGaussian() * 1000;
+        return m;
+    }
+}
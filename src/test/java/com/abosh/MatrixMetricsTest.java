@@ -0,0 +1,110 @@
+package com.abosh;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+public class MatrixMetricsTest {
+    private static final int SIDE = (int) Math.sqrt(MatrixMetrics.JFR_THRESHOLD) + 1;
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @After
+    public void resetMetrics() {
+        MatrixMetrics.reset();
+    }
+
+    @Test
+    public void testDisabledByDefault() {
+        assertFalse(MatrixMetrics.ENABLED);
+        MatrixMetrics.reset();
+        new Matrix(3, 3).multiply(new Matrix(3, 3));
+        assertEquals(0, MatrixMetrics.snapshot().size());
+    }
+
+    @Test
+    public void testRecordsPerOperationAndShapeBucket() {
+        MatrixMetrics.record(MatrixMetrics.Operation.MULTIPLY, 10, 20, 30, System.nanoTime());
+        MatrixMetrics.record(MatrixMetrics.Operation.MULTIPLY, 32, 5, 7, System.nanoTime());
+        MatrixMetrics.record(MatrixMetrics.Operation.MULTIPLY, 33, 1, 1, System.nanoTime());
+        MatrixMetrics.record(MatrixMetrics.Operation.ADD_IN_PLACE, 4, 4, 0, System.nanoTime());
+        final List<MatrixMetrics.Entry> entries = MatrixMetrics.snapshot();
+        assertEquals(3, entries.size());
+
+        final MatrixMetrics.Entry multiply = entries.get(0);
+        assertEquals(MatrixMetrics.Operation.MULTIPLY, multiply.getOperation());
+        assertEquals(32, multiply.getMaxDimension());
+        assertEquals(2, multiply.getCalls());
+        assertEquals(10 * 20 + 32 * 5, multiply.getElements());
+        assertEquals(2L * 10 * 20 * 30 + 2L * 32 * 5 * 7, multiply.getFlops());
+        assertEquals((10 * 20 + 32 * 5) * Double.BYTES, multiply.getBytesAllocated());
+        long histogramCalls = 0;
+        for (final long count : multiply.getLatencyHistogram())
+            histogramCalls += count;
+        assertEquals(2, histogramCalls);
+
+        assertEquals(64, entries.get(1).getMaxDimension());
+        final MatrixMetrics.Entry addInPlace = entries.get(2);
+        assertEquals(MatrixMetrics.Operation.ADD_IN_PLACE, addInPlace.getOperation());
+        assertEquals(16, addInPlace.getFlops());
+        assertEquals(0, addInPlace.getBytesAllocated());
+    }
+
+    @Test
+    public void testShapeBuckets() {
+        assertEquals(0, MatrixMetrics.shapeBucket(0));
+        assertEquals(0, MatrixMetrics.shapeBucket(1));
+        assertEquals(1, MatrixMetrics.shapeBucket(2));
+        assertEquals(2, MatrixMetrics.shapeBucket(3));
+        assertEquals(10, MatrixMetrics.shapeBucket(1024));
+        assertEquals(11, MatrixMetrics.shapeBucket(1025));
+        assertEquals(31, MatrixMetrics.shapeBucket(Integer.MAX_VALUE));
+    }
+
+    @Test
+    public void testLatencyPercentile() {
+        final long[] histogram = new long[MatrixMetrics.LATENCY_BUCKETS];
+        histogram[3] = 9;
+        histogram[10] = 1;
+        final MatrixMetrics.Entry entry = new MatrixMetrics.Entry(MatrixMetrics.Operation.EQUALS, 1, 10, 0, 0, 0, 0,
+            histogram);
+        assertEquals(7, entry.getLatencyPercentile(50));
+        assertEquals(7, entry.getLatencyPercentile(90));
+        assertEquals(1023, entry.getLatencyPercentile(99));
+        assertThrows(IllegalArgumentException.class, () -> entry.getLatencyPercentile(101));
+    }
+
+    @Test
+    public void testFlightRecorderEventAboveThreshold() throws Exception {
+        final Path file = folder.getRoot().toPath().resolve("metrics.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("com.abosh.MatrixOperation");
+            recording.start();
+            MatrixMetrics.record(MatrixMetrics.Operation.MULTIPLY, SIDE, SIDE, 2, System.nanoTime());
+            MatrixMetrics.record(MatrixMetrics.Operation.MULTIPLY, 2, 2, 2, System.nanoTime());
+            recording.stop();
+            recording.dump(file);
+        }
+        final List<RecordedEvent> events = RecordingFile.readAllEvents(file).stream()
+            .filter(e -> e.getEventType().getName().equals("com.abosh.MatrixOperation"))
+            .collect(Collectors.toList());
+        assertEquals(1, events.size());
+        assertEquals("MULTIPLY", events.get(0).getString("operation"));
+        assertEquals(SIDE, events.get(0).getInt("rows"));
+        assertEquals(2, events.get(0).getInt("depth"));
+    }
+}
@@ -4,9 +4,14 @@ import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThrows;
 import static org.junit.Assert.assertTrue;
 
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
 import org.junit.Test;
 
 public class MatrixTest {
@@ -31,6 +36,38 @@ public class MatrixTest {
         assertArrayEquals(values, copy.getRow(2), 0);
     }
 
+    @Test
+    public void testMatrixWrappingConstructor() {
+        final double[] data = new double[] { 9, 1, 2, 9, 3, 4, 9 };
+        final Matrix m = new Matrix(data, 1, 3, 2, 2);
+        assertEquals(2, m.getRows());
+        assertEquals(2, m.getCols());
+        assertEquals(4, m.getValue(1, 1), 0);
+        assertSame(data, m.getData());
+        assertEquals(1, m.getOffset());
+        assertEquals(3, m.getLeadingDimension());
+        assertFalse(m.isContiguous());
+        m.setValue(0, 1, 7);
+        assertEquals(7, data[2], 0);
+    }
+
+    @Test
+    public void testMatrixWrappingConstructorThrowsIllegalArgumentException() {
+        final double[] data = new double[5];
+        final IllegalArgumentException thrown = assertThrows(
+            IllegalArgumentException.class, () -> new Matrix(data, 0, 3, 2, 3));
+        assertEquals("The matrix exceeds the bounds of the backing array.", thrown.getMessage());
+    }
+
+    @Test
+    public void testMatrixCopyConstructorOfStridedMatrix() {
+        final Matrix m = new Matrix(new double[] { 1, 2, 0, 3, 4, 0 }, 0, 3, 2, 2);
+        final Matrix copy = new Matrix(m);
+        assertEquals(m, copy);
+        assertTrue(copy.isContiguous());
+        assertArrayEquals(new double[] { 1, 2, 3, 4 }, copy.getData(), 0);
+    }
+
     @Test
     public void testGLoadIdentityHappyPath() {
         final Matrix m = new Matrix(4, 4);
@@ -71,6 +108,14 @@ public class MatrixTest {
         assertEquals("There cannot be more values than columns in the matrix.", thrown.getMessage());
     }
 
+    @Test
+    public void testGetRowReturnsCopy() {
+        final Matrix m = new Matrix(2, 2);
+        m.setRow(0, new double[] { 1, 2 });
+        m.getRow(0)[0] = 5;
+        assertEquals(1, m.getValue(0, 0), 0);
+    }
+
     @Test
     public void setRowFromIndexHappyPath() {
         // given
@@ -255,6 +300,52 @@ public class MatrixTest {
         assertEquals(product, m.multiply(multiplicand));
     }
 
+    @Test
+    public void testMultiplyBlockedMatchesTripleLoop() {
+        // large enough to take the tiled path, with dimensions that are not multiples of any tile size
+        final Matrix m = randomMatrix(131, 263, 1);
+        final Matrix multiplicand = randomMatrix(263, 517, 2);
+        final Matrix expected = new Matrix(m.getRows(), multiplicand.getCols());
+        for (int r = 0; r < expected.getRows(); r++) {
+            for (int c = 0; c < expected.getCols(); c++) {
+                double sum = 0;
+                for (int i = 0; i < m.getCols(); i++)
+                    sum += m.getValue(r, i) * multiplicand.getValue(i, c);
+                expected.setValue(r, c, sum);
+            }
+        }
+        assertEquals(expected, m.multiply(multiplicand));
+    }
+
+    @Test
+    public void testMultiplyParallelMatchesSequential() {
+        final Matrix m = randomMatrix(211, 190, 3);
+        final Matrix multiplicand = randomMatrix(190, 173, 4);
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            assertEquals(m.multiply(multiplicand), m.multiply(multiplicand, pool));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testAddAndSubtractInPlaceParallelMatchSequential() {
+        final Matrix m = randomMatrix(300, 257, 5);
+        final Matrix other = randomMatrix(300, 257, 6);
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            final Matrix sum = new Matrix(m);
+            sum.addInPlace(other, pool);
+            assertEquals(m.add(other), sum);
+            final Matrix difference = new Matrix(m);
+            difference.subtractInPlace(other, pool);
+            assertEquals(m.subtract(other), difference);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
     @Test
     public void testMultiplyThrowsIllegalArgumentException() {
         final Matrix m = new Matrix(3, 2);
@@ -265,6 +356,77 @@ public class MatrixTest {
                 thrown.getMessage());
     }
 
+    @Test
+    public void testMultiplyIntoAlphaBeta() {
+        final Matrix a = randomMatrix(7, 5, 7);
+        final Matrix b = randomMatrix(5, 6, 8);
+        final Matrix dest = randomMatrix(7, 6, 9);
+        final Matrix expected = new Matrix(7, 6);
+        final Matrix product = a.multiply(b);
+        for (int r = 0; r < 7; r++) {
+            for (int c = 0; c < 6; c++)
+                expected.setValue(r, c, 2 * product.getValue(r, c) + 0.5 * dest.getValue(r, c));
+        }
+        Matrix.multiplyInto(a, b, dest, 2, 0.5);
+        assertMatrixEquals(expected, dest, 1e-12);
+    }
+
+    @Test
+    public void testMultiplyIntoBetaZeroIgnoresNaN() {
+        final Matrix a = randomMatrix(3, 3, 10);
+        final Matrix dest = new Matrix(3, 3);
+        dest.setValue(1, 1, Double.NaN);
+        Matrix.multiplyInto(a, a, dest, 1, 0);
+        assertEquals(a.multiply(a), dest);
+    }
+
+    @Test
+    public void testMultiplyIntoTransposed() {
+        final Matrix a = randomMatrix(90, 70, 11);
+        final Matrix b = randomMatrix(80, 90, 12);
+        final Matrix aT = transposeOf(a);
+        final Matrix bT = transposeOf(b);
+        final Matrix expected = aT.multiply(bT);
+        final Matrix dest = new Matrix(70, 80);
+        Matrix.multiplyInto(a, true, b, true, dest, 1, 0);
+        assertMatrixEquals(expected, dest, 1e-12);
+        Matrix.multiplyInto(aT, false, b, true, dest, 1, 0);
+        assertMatrixEquals(expected, dest, 1e-12);
+        Matrix.multiplyInto(a, true, bT, false, dest, 1, 0);
+        assertEquals(expected, dest);
+    }
+
+    @Test
+    public void testMultiplyIntoThrowsIllegalArgumentExceptionDestination() {
+        final Matrix a = new Matrix(3, 2);
+        final Matrix b = new Matrix(2, 4);
+        final IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class,
+            () -> Matrix.multiplyInto(a, b, new Matrix(3, 3), 1, 0));
+        assertEquals("Expected a destination with 3 rows and 4 columns. Received 3 rows and 3 columns.",
+            thrown.getMessage());
+    }
+
+    @Test
+    public void testMultiplyIntoThrowsIllegalArgumentExceptionAliasing() {
+        final Matrix a = new Matrix(3, 3);
+        final IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class,
+            () -> Matrix.multiplyInto(a, new Matrix(3, 3), a, 1, 0));
+        assertEquals("The destination matrix cannot share storage with an operand.", thrown.getMessage());
+    }
+
+    @Test
+    public void testAddIntoAndSubtractInto() {
+        final Matrix a = randomMatrix(4, 3, 13);
+        final Matrix b = randomMatrix(4, 3, 14);
+        final Matrix dest = new Matrix(4, 3);
+        Matrix.addInto(a, b, dest);
+        assertEquals(a.add(b), dest);
+        Matrix.subtractInto(a, b, dest);
+        assertEquals(a.subtract(b), dest);
+        Matrix.subtractInto(dest, dest, dest);
+        assertEquals(new Matrix(4, 3), dest);
+    }
+
     @Test
     public void testEqualsSameMemoryLocation() {
         final Matrix m = new Matrix(15, 24);
@@ -300,6 +462,16 @@ public class MatrixTest {
         assertFalse(m.equals(unequalValues));
     }
 
+    @Test
+    public void testEqualsStridedMatrix() {
+        final Matrix m = new Matrix(2, 2);
+        m.setRow(0, new double[] { 1, 2 });
+        m.setRow(1, new double[] { 3, 4 });
+        final Matrix strided = new Matrix(new double[] { 1, 2, -1, 3, 4 }, 0, 3, 2, 2);
+        assertTrue(m.equals(strided));
+        assertTrue(strided.equals(m));
+    }
+
     @Test
     public void testEqualsIsNotInstanceOf() {
         final Matrix m = new Matrix(3, 5);
@@ -337,4 +509,385 @@ public class MatrixTest {
         identityMatrix.gLoadIdentity();
         assertEquals("[1.0, 0.0, 0.0]\n[0.0, 1.0, 0.0]\n[0.0, 0.0, 1.0]\n", identityMatrix.toString());
     }
+
+    @Test
+    public void testPowMatchesRepeatedMultiply() {
+        final Matrix m = randomMatrix(7, 7, 40);
+        Matrix expected = m;
+        for (int k = 1; k <= 13; k++) {
+            assertMatrixEquals(expected, m.pow(k), 1e-12);
+            expected = expected.multiply(m);
+        }
+        final Matrix identity = new Matrix(7, 7);
+        identity.gLoadIdentity();
+        assertEquals(identity, m.pow(0));
+    }
+
+    @Test
+    public void testPowOfMarkovChainConverges() {
+        final Matrix transition = new Matrix(2, 2);
+        transition.setRow(0, new double[] { 0.9, 0.1 });
+        transition.setRow(1, new double[] { 0.5, 0.5 });
+        // 20 squarings; every squaring doubles the rounding error, so much larger powers drift
+        final Matrix limit = transition.pow(1_000_000);
+        assertArrayEquals(new double[] { 5.0 / 6, 1.0 / 6 }, limit.getRow(0), 1e-9);
+        assertArrayEquals(new double[] { 5.0 / 6, 1.0 / 6 }, limit.getRow(1), 1e-9);
+    }
+
+    @Test
+    public void testNegativePow() {
+        final Matrix m = randomMatrix(5, 5, 41);
+        for (int i = 0; i < 5; i++)
+            m.setValue(i, i, m.getValue(i, i) + 2);
+        final Matrix inverse = new LUDecomposition(m).inverse();
+        assertMatrixEquals(inverse.multiply(inverse).multiply(inverse), m.pow(-3), 1e-12);
+    }
+
+    @Test
+    public void testPowThrowsIllegalArgumentException() {
+        final IllegalArgumentException thrown = assertThrows(
+            IllegalArgumentException.class, () -> new Matrix(2, 3).pow(2));
+        assertEquals("A matrix raised to a power must be square, i.e. the number of rows and columns must be equal.",
+            thrown.getMessage());
+    }
+
+    @Test
+    public void testExpOfDiagonalAndNilpotentMatrices() {
+        final Matrix diagonal = new Matrix(3, 3);
+        diagonal.setRow(0, new double[] { 1, 0, 0 });
+        diagonal.setRow(1, new double[] { 0, -2, 0 });
+        diagonal.setRow(2, new double[] { 0, 0, 0.001 });
+        final Matrix expDiagonal = diagonal.exp();
+        assertEquals(Math.E, expDiagonal.getValue(0, 0), 1e-15);
+        assertEquals(Math.exp(-2), expDiagonal.getValue(1, 1), 1e-15);
+        assertEquals(Math.exp(0.001), expDiagonal.getValue(2, 2), 1e-15);
+        assertEquals(0, expDiagonal.getValue(0, 1), 1e-15);
+
+        final Matrix nilpotent = new Matrix(2, 2);
+        nilpotent.setRow(0, new double[] { 0, 3 });
+        final Matrix expNilpotent = nilpotent.exp();
+        assertArrayEquals(new double[] { 1, 3 }, expNilpotent.getRow(0), 1e-14);
+        assertArrayEquals(new double[] { 0, 1 }, expNilpotent.getRow(1), 1e-14);
+    }
+
+    @Test
+    public void testExpOfRotationGenerator() {
+        // e^(t [0 -1; 1 0]) is a rotation by t; t = 30 exercises scaling and squaring
+        for (final double t : new double[] { 0.01, 0.2, 0.9, 2, 5, 30 }) {
+            final Matrix generator = new Matrix(2, 2);
+            generator.setRow(0, new double[] { 0, -t });
+            generator.setRow(1, new double[] { t, 0 });
+            final Matrix rotation = generator.exp();
+            assertArrayEquals(new double[] { Math.cos(t), -Math.sin(t) }, rotation.getRow(0), 1e-13);
+            assertArrayEquals(new double[] { Math.sin(t), Math.cos(t) }, rotation.getRow(1), 1e-13);
+        }
+    }
+
+    @Test
+    public void testExpOfNegationIsInverse() {
+        final Matrix m = randomMatrix(6, 6, 42);
+        final Matrix negated = new Matrix(6, 6).subtract(m);
+        final Matrix identity = new Matrix(6, 6);
+        identity.gLoadIdentity();
+        assertMatrixEquals(identity, m.exp().multiply(negated.exp()), 1e-13);
+    }
+
+    @Test
+    public void testMultiplyVectorMatchesMultiply() {
+        final Matrix m = randomMatrix(39, 27, 50);
+        final Matrix x = randomMatrix(27, 1, 51);
+        final double[] y = new double[39];
+        m.multiplyVector(x.getCol(0), y);
+        final Matrix product = new Matrix(39, 1);
+        Matrix.multiplyInto(m, x, product, 1, 0);
+        assertArrayEquals(product.getCol(0), y, 0);
+        assertArrayEquals(product.getCol(0), m.multiply(x).getCol(0), 0);
+
+        final double[] t = new double[27];
+        m.multiplyTransposedVector(y, t);
+        final Matrix column = new Matrix(y, 0, 1, 39, 1);
+        assertArrayEquals(transposeOf(m).multiply(column).getCol(0), t, 1e-12);
+    }
+
+    @Test
+    public void testMultiplyVectorOnView() {
+        final Matrix m = randomMatrix(10, 12, 52);
+        final Matrix view = new Matrix(m.getData(), 2 * 12 + 3, 12, 5, 6);
+        final double[] x = { 1, 2, 3, 4, 5, 6 };
+        final double[] y = new double[5];
+        view.multiplyVector(x, y);
+        for (int r = 0; r < 5; r++) {
+            double sum = 0;
+            for (int c = 0; c < 6; c++)
+                sum += m.getValue(r + 2, c + 3) * x[c];
+            assertEquals(sum, y[r], 0);
+        }
+        final double[] t = new double[6];
+        view.multiplyTransposedVector(new double[] { 0, 1, 0, 0, 0 }, t);
+        assertArrayEquals(Arrays.copyOfRange(m.getRow(3), 3, 9), t, 0);
+    }
+
+    @Test
+    public void testMultiplyVectorsMatchesSingleVectors() {
+        // wide enough that the matrix is read in several panels
+        final Matrix m = randomMatrix(300, 500, 53);
+        final int count = 13;
+        final double[] xs = randomMatrix(count, 500, 54).getData();
+        final double[] ys = new double[count * 300 + 7];
+        ys[count * 300] = 42;
+        m.multiplyVectors(xs, ys, count);
+        final double[] x = new double[500];
+        final double[] y = new double[300];
+        for (int i = 0; i < count; i++) {
+            System.arraycopy(xs, i * 500, x, 0, 500);
+            m.multiplyVector(x, y);
+            assertArrayEquals(y, Arrays.copyOfRange(ys, i * 300, (i + 1) * 300), 0);
+        }
+        assertEquals(42, ys[count * 300], 0);
+
+        final double[] ts = new double[count * 500];
+        m.multiplyTransposedVectors(ys, ts, count);
+        final double[] t = new double[500];
+        for (int i = 0; i < count; i++) {
+            m.multiplyTransposedVector(Arrays.copyOfRange(ys, i * 300, (i + 1) * 300), t);
+            assertArrayEquals(t, Arrays.copyOfRange(ts, i * 500, (i + 1) * 500), 1e-12);
+        }
+    }
+
+    @Test
+    public void testMultiplyVectorThrowsIllegalArgumentException() {
+        final Matrix m = new Matrix(3, 4);
+        assertThrows(IllegalArgumentException.class, () -> m.multiplyVector(new double[3], new double[3]));
+        assertThrows(IllegalArgumentException.class, () -> m.multiplyVector(new double[4], new double[4]));
+        assertThrows(IllegalArgumentException.class, () -> m.multiplyTransposedVector(new double[4], new double[4]));
+        assertThrows(IllegalArgumentException.class, () -> m.multiplyVector(new double[4], m.getData()));
+        assertThrows(IllegalArgumentException.class, () -> m.multiplyVectors(new double[8], new double[5], 2));
+        assertThrows(IllegalArgumentException.class, () -> m.multiplyVectors(new double[7], new double[6], 2));
+        assertThrows(IllegalArgumentException.class, () -> m.multiplyVectors(new double[8], new double[6], -1));
+        final double[] shared = new double[12];
+        assertThrows(IllegalArgumentException.class, () -> m.multiplyVectors(shared, shared, 1));
+    }
+
+    @Test
+    public void testSubMatrixSharesStorage() {
+        final Matrix m = randomMatrix(8, 9, 60);
+        final Matrix sub = m.subMatrix(2, 3, 4, 5);
+        assertSame(m.getData(), sub.getData());
+        assertEquals(4, sub.getRows());
+        assertEquals(5, sub.getCols());
+        for (int r = 0; r < 4; r++) {
+            for (int c = 0; c < 5; c++)
+                assertEquals(m.getValue(r + 2, c + 3), sub.getValue(r, c), 0);
+        }
+        sub.setValue(1, 1, 42);
+        assertEquals(42, m.getValue(3, 4), 0);
+        // a view of a view is still a window on the original storage
+        assertEquals(42, sub.subMatrix(1, 1, 2, 2).getValue(0, 0), 0);
+        assertThrows(IndexOutOfBoundsException.class, () -> m.subMatrix(5, 0, 4, 1));
+        assertThrows(IndexOutOfBoundsException.class, () -> m.subMatrix(0, -1, 1, 1));
+    }
+
+    @Test
+    public void testViewsAsOperands() {
+        final Matrix m = randomMatrix(10, 12, 61);
+        final Matrix copy = new Matrix(m);
+        final Matrix left = m.subMatrix(1, 2, 4, 6);
+        final Matrix right = m.subMatrix(3, 5, 6, 3);
+        assertMatrixEquals(new Matrix(left).multiply(new Matrix(right)), left.multiply(right), 0);
+        assertMatrixEquals(new Matrix(left).add(m.subMatrix(5, 0, 4, 6)),
+            left.add(m.subMatrix(5, 0, 4, 6)), 0);
+
+        final Matrix col = m.colView(4);
+        assertEquals(10, col.getRows());
+        assertEquals(1, col.getCols());
+        assertArrayEquals(m.getCol(4), new Matrix(col).getData(), 0);
+        final Matrix other = randomMatrix(5, 10, 64);
+        assertMatrixEquals(other.multiply(new Matrix(col)), other.multiply(col), 0);
+        final Matrix row = m.rowView(7);
+        assertArrayEquals(m.getRow(7), row.getRow(0), 0);
+        final Matrix square = randomMatrix(12, 12, 65);
+        assertMatrixEquals(new Matrix(row).multiply(square), row.multiply(square), 0);
+
+        // writes through a column view land in the parent
+        col.addInPlace(col);
+        for (int r = 0; r < 10; r++)
+            assertEquals(2 * copy.getValue(r, 4), m.getValue(r, 4), 0);
+    }
+
+    @Test
+    public void testTranspose() {
+        for (final int[] shape : new int[][] { { 0, 3 }, { 1, 1 }, { 1, 2000 }, { 2000, 1 }, { 37, 53 },
+                { 300, 200 } }) {
+            final Matrix m = randomMatrix(shape[0], shape[1], 62);
+            assertMatrixEquals(transposeOf(m), m.transpose(), 0);
+        }
+        final Matrix m = randomMatrix(90, 80, 63);
+        final Matrix window = m.subMatrix(5, 7, 60, 45);
+        assertMatrixEquals(transposeOf(new Matrix(window)), window.transpose(), 0);
+        assertMatrixEquals(m, m.transpose().transpose(), 0);
+    }
+
+    @Test
+    public void testMapAndZipInPlace() {
+        final Matrix m = randomMatrix(20, 30, 64);
+        final Matrix window = m.subMatrix(3, 4, 10, 12);
+        final Matrix expected = new Matrix(m);
+        for (int r = 3; r < 13; r++) {
+            for (int c = 4; c < 16; c++)
+                expected.setValue(r, c, Math.abs(m.getValue(r, c)) * 2);
+        }
+        window.mapInPlace(x -> Math.abs(x) * 2);
+        assertMatrixEquals(expected, m, 0);
+
+        final Matrix other = randomMatrix(10, 12, 65);
+        final Matrix zipped = new Matrix(window);
+        zipped.zipInPlace(other, Math::max);
+        for (int r = 0; r < 10; r++) {
+            for (int c = 0; c < 12; c++)
+                assertEquals(Math.max(window.getValue(r, c), other.getValue(r, c)), zipped.getValue(r, c), 0);
+        }
+        final Matrix squares = new Matrix(other);
+        squares.zipInPlace(squares, (x, y) -> x * y);
+        final Matrix products = new Matrix(other);
+        products.mapInPlace(x -> x * x);
+        assertMatrixEquals(products, squares, 0);
+
+        // overlapping views of one array: every element must see its neighbor's original value
+        final Matrix row = new Matrix(new double[] { 1, 2, 3, 4, 5 }, 0, 5, 1, 5);
+        row.subMatrix(0, 0, 1, 4).zipInPlace(row.subMatrix(0, 1, 1, 4), Double::sum);
+        assertArrayEquals(new double[] { 3, 5, 7, 9, 5 }, row.getRow(0), 0);
+        assertThrows(IllegalArgumentException.class, () -> row.zipInPlace(new Matrix(5, 1), Double::sum));
+    }
+
+    @Test
+    public void testMapAndZipInPlaceParallelMatchSequential() {
+        final Matrix m = randomMatrix(300, 257, 66);
+        final Matrix other = randomMatrix(300, 257, 67);
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            final Matrix sequential = new Matrix(m);
+            sequential.mapInPlace(Math::sin);
+            final Matrix parallel = new Matrix(m);
+            parallel.mapInPlace(Math::sin, pool);
+            assertEquals(sequential, parallel);
+            sequential.zipInPlace(other, Math::atan2);
+            parallel.zipInPlace(other, Math::atan2, pool);
+            assertEquals(sequential, parallel);
+            // a single wide row is split by column
+            final Matrix wide = randomMatrix(1, 100000, 68);
+            final Matrix wideParallel = new Matrix(wide);
+            wide.mapInPlace(Math::exp);
+            wideParallel.mapInPlace(Math::exp, pool);
+            assertEquals(wide, wideParallel);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testReductions() {
+        final Matrix m = randomMatrix(40, 33, 69);
+        final Matrix window = m.subMatrix(5, 6, 20, 17);
+        double sum = 0;
+        double squares = 0;
+        double max = 0;
+        for (int r = 0; r < 20; r++) {
+            for (int c = 0; c < 17; c++) {
+                final double value = window.getValue(r, c);
+                sum += value;
+                squares += value * value;
+                max = Math.max(max, Math.abs(value));
+            }
+        }
+        assertEquals(sum, window.sum(), 1e-12);
+        assertEquals(sum, window.reduce(0, Double::sum), 1e-12);
+        assertEquals(Math.sqrt(squares), window.frobeniusNorm(), 1e-12);
+        assertEquals(max, window.maxNorm(), 0);
+        assertEquals(max, window.reduce(0, (acc, x) -> Math.max(acc, Math.abs(x))), 0);
+        assertEquals(7.5, new Matrix(0, 4).reduce(7.5, Double::sum), 0);
+        assertEquals(0, new Matrix(0, 4).frobeniusNorm(), 0);
+        assertEquals(0, new Matrix(3, 0).maxNorm(), 0);
+
+        // squares that overflow or underflow are rescaled
+        final Matrix huge = new Matrix(new double[] { 3e200, -4e200 }, 0, 2, 1, 2);
+        assertEquals(5e200, huge.frobeniusNorm(), 1e186);
+        final Matrix tiny = new Matrix(new double[] { 3e-200, 4e-200 }, 0, 1, 2, 1);
+        assertEquals(5e-200, tiny.frobeniusNorm(), 1e-214);
+        // subnormal magnitudes, whose reciprocals overflow
+        assertEquals(Double.MIN_VALUE, new Matrix(new double[] { Double.MIN_VALUE, 0 }, 0, 2, 1, 2).frobeniusNorm(), 0);
+        assertEquals(Math.sqrt(5) * 1e-310,
+            new Matrix(new double[] { 1e-310, 2e-310 }, 0, 2, 1, 2).frobeniusNorm(), 1e-323);
+        assertEquals(5 * Double.MIN_VALUE,
+            new Matrix(new double[] { 3 * Double.MIN_VALUE, -4 * Double.MIN_VALUE }, 0, 2, 1, 2).frobeniusNorm(), 0);
+        assertEquals(Double.POSITIVE_INFINITY,
+            new Matrix(new double[] { 1, Double.NEGATIVE_INFINITY }, 0, 2, 1, 2).frobeniusNorm(), 0);
+        final Matrix withNaN = new Matrix(new double[] { 1, Double.NaN, 2 }, 0, 3, 1, 3);
+        assertTrue(Double.isNaN(withNaN.frobeniusNorm()));
+        assertTrue(Double.isNaN(withNaN.maxNorm()));
+        assertTrue(Double.isNaN(withNaN.sum()));
+    }
+
+    @Test
+    public void testReductionsParallelMatchSequential() {
+        final Matrix m = randomMatrix(400, 300, 70);
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            assertEquals(m.sum(), m.sum(pool), 1e-9);
+            assertEquals(m.frobeniusNorm(), m.frobeniusNorm(pool), 1e-9);
+            assertEquals(m.maxNorm(), m.maxNorm(pool), 0);
+            assertEquals(m.reduce(Double.NEGATIVE_INFINITY, Math::max), m.reduce(Double.NEGATIVE_INFINITY, Math::max,
+                pool), 0);
+            // blocks are combined in order, so the result does not depend on the pool
+            final ForkJoinPool other = new ForkJoinPool(3);
+            try {
+                assertEquals(m.sum(pool), m.sum(other), 0);
+                assertEquals(m.reduce(0, Double::sum, pool), m.reduce(0, Double::sum, other), 0);
+            } finally {
+                other.shutdown();
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testEqualsWithTolerance() {
+        final Matrix m = randomMatrix(12, 9, 71);
+        final Matrix close = new Matrix(m);
+        close.mapInPlace(x -> x + 1e-9);
+        assertTrue(m.equals(close, 1e-8));
+        assertFalse(m.equals(close, 1e-10));
+        assertTrue(m.equals(m.subMatrix(0, 0, 12, 9), 0));
+        assertFalse(m.equals(m.subMatrix(0, 0, 12, 8), 1));
+        final Matrix infinite = new Matrix(new double[] { Double.POSITIVE_INFINITY, Double.NaN }, 0, 2, 1, 2);
+        assertTrue(infinite.subMatrix(0, 0, 1, 1).equals(new Matrix(infinite).subMatrix(0, 0, 1, 1), 0));
+        assertFalse(infinite.equals(new Matrix(infinite), Double.MAX_VALUE));
+        assertThrows(IllegalArgumentException.class, () -> m.equals(m, -1));
+        assertThrows(IllegalArgumentException.class, () -> m.equals(m, Double.NaN));
+    }
+
+    static Matrix randomMatrix(final int rows, final int cols, final long seed) {
+        final Random random = new Random(seed);
+        final Matrix m = new Matrix(rows, cols);
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++)
+                m.setValue(r, c, random.nextDouble() - 0.5);
+        }
+        return m;
+    }
+
+    static Matrix transposeOf(final Matrix m) {
+        final Matrix transpose = new Matrix(m.getCols(), m.getRows());
+        for (int r = 0; r < m.getRows(); r++) {
+            for (int c = 0; c < m.getCols(); c++)
+                transpose.setValue(c, r, m.getValue(r, c));
+        }
+        return transpose;
+    }
+
+    static void assertMatrixEquals(final Matrix expected, final Matrix actual, final double delta) {
+        assertTrue(expected.dimensionEquality(actual));
+        for (int r = 0; r < expected.getRows(); r++)
+            assertArrayEquals(expected.getRow(r), actual.getRow(r), delta);
+    }
 }
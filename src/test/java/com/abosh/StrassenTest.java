@@ -0,0 +1,136 @@
+package com.abosh;
+
+import static com.abosh.MatrixTest.assertMatrixEquals;
+import static com.abosh.MatrixTest.randomMatrix;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+public class StrassenTest {
+
+    private static Matrix strassen(final Matrix a, final Matrix b, final int cutoff, final ForkJoinPool pool) {
+        final Matrix c = new Matrix(a.getRows(), b.getCols());
+        StrassenKernels.multiply(a.getRows(), b.getCols(), a.getCols(), a.getData(), a.getOffset(),
+            a.getLeadingDimension(), b.getData(), b.getOffset(), b.getLeadingDimension(), c.getData(), 0,
+            c.getCols(), cutoff, pool);
+        return c;
+    }
+
+    private static double maxAbs(final Matrix m) {
+        double max = 0;
+        for (int r = 0; r < m.getRows(); r++) {
+            for (int c = 0; c < m.getCols(); c++)
+                max = Math.max(max, Math.abs(m.getValue(r, c)));
+        }
+        return max;
+    }
+
+    /**
+     * the forward error bound of the Winograd variant in the max norm (Higham, Accuracy and Stability of Numerical
+     * Algorithms, theorem 23.3): |C - C'| <= [(n / n0)^log2(18) (n0^2 + 6 n0) - 6 n] u |A| |B|.
+     */
+    private static double errorBound(final int n, final int cutoff, final Matrix a, final Matrix b) {
+        final double levels = Math.pow((double) n / cutoff, Math.log(18) / Math.log(2));
+        final double factor = levels * ((double) cutoff * cutoff + 6.0 * cutoff) - 6.0 * n;
+        return Math.max(factor, n) * Math.ulp(1.0) / 2 * maxAbs(a) * maxAbs(b);
+    }
+
+    @Test
+    public void testErrorBound() {
+        for (final int n : new int[] { 64, 100, 128, 255 }) {
+            final Matrix a = randomMatrix(n, n, n);
+            final Matrix b = randomMatrix(n, n, n + 1);
+            final Matrix expected = a.multiply(b);
+            final Matrix actual = strassen(a, b, 8, null);
+            final double error = maxAbs(expected.subtract(actual));
+            assertTrue("n = " + n + ": error " + error, error <= errorBound(n, 8, a, b));
+            // in practice the error is far below the worst case
+            assertTrue("n = " + n + ": error " + error, error <= 1e-12 * n);
+        }
+    }
+
+    @Test
+    public void testRectangularAndOddShapes() {
+        final int[][] shapes = { { 33, 17, 65 }, { 64, 63, 31 }, { 40, 100, 19 }, { 17, 17, 17 }, { 1, 50, 50 },
+            { 50, 1, 50 } };
+        for (final int[] shape : shapes) {
+            final Matrix a = randomMatrix(shape[0], shape[1], 7);
+            final Matrix b = randomMatrix(shape[1], shape[2], 8);
+            assertMatrixEquals(a.multiply(b), strassen(a, b, 4, null), 1e-12);
+        }
+    }
+
+    @Test
+    public void testViewsAsOperands() {
+        final Matrix big = randomMatrix(120, 130, 9);
+        final Matrix a = big.subMatrix(3, 5, 70, 66);
+        final Matrix b = big.subMatrix(40, 60, 66, 69);
+        assertMatrixEquals(a.multiply(b), strassen(a, b, 8, null), 1e-12);
+    }
+
+    @Test
+    public void testParallelMatchesSequential() {
+        final Matrix a = randomMatrix(150, 130, 10);
+        final Matrix b = randomMatrix(130, 140, 11);
+        final Matrix sequential = strassen(a, b, 8, null);
+        final ForkJoinPool small = new ForkJoinPool(3);
+        final ForkJoinPool large = new ForkJoinPool(16);
+        try {
+            assertMatrixEquals(sequential, strassen(a, b, 8, small), 0);
+            assertMatrixEquals(sequential, strassen(a, b, 8, large), 0);
+        } finally {
+            small.shutdown();
+            large.shutdown();
+        }
+    }
+
+    @Test
+    public void testBelowCutoffIsClassical() {
+        final Matrix a = randomMatrix(40, 30, 12);
+        final Matrix b = randomMatrix(30, 20, 13);
+        assertMatrixEquals(a.multiply(b), a.multiplyStrassen(b), 0);
+        assertEquals(0, StrassenKernels.workspace(40, 20, 30, StrassenKernels.CUTOFF, 0));
+        assertThrows(IllegalArgumentException.class, () -> a.multiplyStrassen(a));
+    }
+
+    @Test
+    public void testWorkspaceIsSmall() {
+        // the sequential schedule needs about a third of the operands' size in total
+        final long workspace = StrassenKernels.workspace(1024, 1024, 1024, 64, 0);
+        assertTrue(workspace <= 2 * 1024 * 1024 / 3 + 1024);
+    }
+
+    @Test
+    public void testParallelWorkspaceIsBounded() {
+        // at the top level the parallel schedules would need 1.05e9 and 2.58e9 doubles
+        final long operands = 3L * 16384 * 16384;
+        for (int parallelLevels = 1; parallelLevels <= 2; parallelLevels++) {
+            final long workspace = StrassenKernels.workspace(16384, 16384, 16384, 256, parallelLevels);
+            assertTrue("parallel levels " + parallelLevels + ": " + workspace, workspace <= operands);
+            assertEquals(1, StrassenKernels.sequentialLevels(16384, 16384, 16384, 256, parallelLevels));
+        }
+        // small products keep their parallel level at the top
+        assertEquals(0, StrassenKernels.sequentialLevels(300, 300, 300, 256, 1));
+        // larger ones run it one level down, where it still sits above the crossover
+        assertEquals(1, StrassenKernels.sequentialLevels(600, 600, 600, 256, 1));
+        assertTrue(StrassenKernels.workspace(600, 600, 600, 256, 1) > StrassenKernels.workspace(600, 600, 600, 256, 0));
+    }
+
+    @Test
+    public void testPublicEntryPoints() {
+        final Matrix a = randomMatrix(300, 300, 14);
+        final Matrix b = randomMatrix(300, 300, 15);
+        final Matrix expected = a.multiply(b);
+        assertMatrixEquals(expected, a.multiplyStrassen(b), 1e-11);
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            assertMatrixEquals(a.multiplyStrassen(b), a.multiplyStrassen(b, pool), 0);
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
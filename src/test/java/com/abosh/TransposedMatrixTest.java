@@ -0,0 +1,93 @@
+package com.abosh;
+
+import static com.abosh.MatrixTest.assertMatrixEquals;
+import static com.abosh.MatrixTest.randomMatrix;
+import static com.abosh.MatrixTest.transposeOf;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+
+import org.junit.Test;
+
+public class TransposedMatrixTest {
+
+    @Test
+    public void testViewReadsAndWritesParent() {
+        final Matrix m = randomMatrix(4, 7, 1);
+        final TransposedMatrix t = m.transposedView();
+        assertEquals(7, t.getRows());
+        assertEquals(4, t.getCols());
+        assertSame(m, t.transpose());
+        for (int r = 0; r < 7; r++) {
+            for (int c = 0; c < 4; c++)
+                assertEquals(m.getValue(c, r), t.getValue(r, c), 0);
+        }
+        t.setValue(5, 2, 42);
+        assertEquals(42, m.getValue(2, 5), 0);
+        assertMatrixEquals(transposeOf(m), t.toMatrix(), 0);
+    }
+
+    @Test
+    public void testSubMatrix() {
+        final Matrix m = randomMatrix(9, 11, 2);
+        final TransposedMatrix window = m.transposedView().subMatrix(2, 3, 5, 4);
+        assertMatrixEquals(transposeOf(m).subMatrix(2, 3, 5, 4), window.toMatrix(), 0);
+    }
+
+    @Test
+    public void testMultiply() {
+        final Matrix a = randomMatrix(70, 90, 3);
+        final Matrix b = randomMatrix(70, 50, 4);
+        final Matrix c = randomMatrix(50, 90, 5);
+        // a^T is 90 x 70, so a^T b is 90 x 50
+        assertMatrixEquals(transposeOf(a).multiply(b), a.transposedView().multiply(b), 1e-12);
+        // c a^T is 50 x 70
+        assertMatrixEquals(c.multiply(transposeOf(a)), c.multiply(a.transposedView()), 1e-12);
+        // c^T b^T is 90 x 70
+        assertMatrixEquals(transposeOf(c).multiply(transposeOf(b)), c.transposedView().multiply(b.transposedView()),
+            1e-12);
+        assertThrows(IllegalArgumentException.class, () -> a.transposedView().multiply(c));
+        assertThrows(IllegalArgumentException.class, () -> a.multiply(b.transposedView()));
+    }
+
+    @Test
+    public void testAddAndSubtract() {
+        final Matrix a = randomMatrix(45, 70, 6);
+        final Matrix b = randomMatrix(70, 45, 7);
+        final Matrix bt = transposeOf(b);
+        assertMatrixEquals(a.add(bt), a.add(b.transposedView()), 0);
+        assertMatrixEquals(a.add(bt), b.transposedView().add(a), 0);
+        assertMatrixEquals(a.subtract(bt), a.subtract(b.transposedView()), 0);
+        final Matrix sum = new Matrix(a);
+        sum.addInPlace(b.transposedView());
+        assertMatrixEquals(a.add(bt), sum, 0);
+        sum.subtractInPlace(b.transposedView());
+        assertMatrixEquals(a.add(bt).subtract(bt), sum, 0);
+        assertThrows(IllegalArgumentException.class, () -> a.add(a.transposedView()));
+    }
+
+    @Test
+    public void testSymmetrizeInPlace() {
+        final Matrix a = randomMatrix(100, 100, 8);
+        final Matrix expected = a.add(transposeOf(a));
+        a.addInPlace(a.transposedView());
+        assertMatrixEquals(expected, a, 0);
+        final Matrix window = randomMatrix(100, 100, 9).subMatrix(10, 10, 40, 40);
+        final Matrix antisymmetric = new Matrix(window).subtract(transposeOf(new Matrix(window)));
+        window.subtractInPlace(window.transposedView());
+        assertMatrixEquals(antisymmetric, window, 0);
+    }
+
+    @Test
+    public void testApplyAndLazy() {
+        final Matrix a = randomMatrix(30, 20, 10);
+        final double[] x = randomMatrix(1, 30, 11).getData();
+        final double[] y = new double[20];
+        a.transposedView().apply(x, y);
+        final double[] expected = new double[20];
+        a.multiplyTransposedVector(x, expected);
+        assertArrayEquals(expected, y, 0);
+        assertMatrixEquals(transposeOf(a), a.transposedView().lazy().evaluate(), 0);
+    }
+}
@@ -0,0 +1,93 @@
+package com.abosh;
+
+import static com.abosh.MatrixTest.randomMatrix;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class VectorSupportTest {
+
+    private static double[] randomArray(final int length, final long seed) {
+        final Random random = new Random(seed);
+        final double[] array = new double[length];
+        for (int i = 0; i < length; i++)
+            array[i] = random.nextDouble() - 0.5;
+        return array;
+    }
+
+    @Test
+    public void testEnabledWhenVectorModuleIsLoaded() {
+        // set by the test-vector surefire execution, which adds jdk.incubator.vector and the Java 17 classes
+        assertEquals(Boolean.getBoolean("com.abosh.matrix.simdExpected"), VectorSupport.ENABLED);
+    }
+
+    @Test
+    public void testLoopsMatchScalarLoops() {
+        // the Java 11 loops are never called and do nothing
+        assumeTrue(VectorSupport.ENABLED);
+        final double[] a = randomArray(80, 1);
+        final double[] b = randomArray(80, 2);
+        final double alpha = 0.75;
+        // every length up to a few 512-bit vectors plus a tail, at unaligned offsets
+        for (int n = 0; n <= 37; n++) {
+            final double[] sum = new double[n + 5];
+            final double[] difference = new double[n + 5];
+            final double[] expectedSum = new double[n + 5];
+            final double[] expectedDifference = new double[n + 5];
+            VectorSupport.add(a, 3, b, 1, sum, 5, n);
+            VectorSupport.subtract(a, 3, b, 1, difference, 5, n);
+            for (int j = 0; j < n; j++) {
+                expectedSum[5 + j] = a[3 + j] + b[1 + j];
+                expectedDifference[5 + j] = a[3 + j] - b[1 + j];
+            }
+            assertArrayEquals(expectedSum, sum, 0);
+            assertArrayEquals(expectedDifference, difference, 0);
+
+            final double[] y = randomArray(4 * n + 7, n);
+            final double[] expectedY = y.clone();
+            VectorSupport.axpy(alpha, b, 2, y, 7, n);
+            for (int j = 0; j < n; j++)
+                expectedY[7 + j] += alpha * b[2 + j];
+            assertArrayEquals(expectedY, y, 0);
+
+            VectorSupport.axpy4(0.5, -1.5, 2.0, 0.25, a, 1, y, 0, n, 2 * n + 3, 3 * n + 7, n);
+            for (int j = 0; j < n; j++) {
+                final double bValue = a[1 + j];
+                expectedY[j] += 0.5 * bValue;
+                expectedY[n + j] += -1.5 * bValue;
+                expectedY[2 * n + 3 + j] += 2.0 * bValue;
+                expectedY[3 * n + 7 + j] += 0.25 * bValue;
+            }
+            assertArrayEquals(expectedY, y, 0);
+        }
+    }
+
+    @Test
+    public void testKernelsMatchReferenceProducts() {
+        // odd sizes so the blocked kernels run vector bodies and scalar tails in every row
+        final Matrix a = randomMatrix(19, 23, 3);
+        final Matrix b = randomMatrix(23, 29, 4);
+        final Matrix product = a.multiply(b);
+        for (int r = 0; r < a.getRows(); r++) {
+            for (int c = 0; c < b.getCols(); c++) {
+                double expected = 0;
+                for (int k = 0; k < a.getCols(); k++)
+                    expected += a.getValue(r, k) * b.getValue(k, c);
+                assertEquals(expected, product.getValue(r, c), 1e-13);
+            }
+        }
+        final Matrix other = randomMatrix(19, 23, 5);
+        final Matrix sum = a.add(other);
+        final Matrix difference = a.subtract(other);
+        for (int r = 0; r < a.getRows(); r++) {
+            for (int c = 0; c < a.getCols(); c++) {
+                assertEquals(a.getValue(r, c) + other.getValue(r, c), sum.getValue(r, c), 0);
+                assertEquals(a.getValue(r, c) - other.getValue(r, c), difference.getValue(r, c), 0);
+            }
+        }
+    }
+}